@@ -5,6 +5,7 @@ export class MessageTypes {
     static PROXY = 'proxy';
     static TOAST = 'Toast';
     static SCREEN = 'Screen';
+    static SCREEN_PATCH = 'ScreenPatch';
     static CONFIG_CHANGED = 'ConfigChanged';
     static DATA = 'UIData';
     static CONNECTED = 'Connected';
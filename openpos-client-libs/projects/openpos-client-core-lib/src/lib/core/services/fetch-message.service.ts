@@ -3,7 +3,6 @@ import { Injectable } from '@angular/core';
 import { tap } from 'rxjs/operators';
 import { DiscoveryService } from '../discovery/discovery.service';
 import { FetchMessage } from '../messages/fetch-message';
-import { OpenposMessage } from '../messages/message';
 import { MessageTypes } from '../messages/message-types';
 import { PersonalizationService } from '../personalization/personalization.service';
 import { SessionService } from './session.service';
@@ -24,6 +23,6 @@ export class FetchMessageService {
         console.log('Fetching message ' + url);
         this.http.get(url).pipe(
             tap(m => console.log('Fetched message: ', m)),
-        ).subscribe(m => this.session.sendMessage(m as OpenposMessage));
+        ).subscribe(m => this.session.receiveFetchedMessage(m));
     }
 }
@@ -26,6 +26,7 @@ import { DiscoveryService } from '../discovery/discovery.service';
 import { UnlockScreenMessage } from '../messages/unlock-screen-message';
 import { SplashScreen } from '../messages/splash-screen-message';
 import { PowerStatus } from '../platform-plugins/power/power-supplier';
+import { applyJsonPatch } from '../../utilites/json-patch';
 
 declare var window: any;
 export class QueueLoadingMessage implements ILoading {
@@ -100,6 +101,10 @@ export class SessionService implements IMessageHandler<any> {
 
     private stompJsonMessages$ = new BehaviorSubject<any>(false);
 
+    // The last full screen and dialog received, used as the base for ScreenPatch messages
+    private lastScreenJson: any;
+    private lastDialogJson: any;
+
     private sessionMessages$ = new Subject<any>();
 
     private disconnectedMessage = LoaderState.DISCONNECTED_TITLE;
@@ -190,6 +195,15 @@ export class SessionService implements IMessageHandler<any> {
         this.sessionMessages$.next(message);
     }
 
+    // Messages that were too big to send over STOMP are fetched separately.  They take the place of the STOMP message,
+    // so they are patched and kept as the base of the next patch the same way.
+    public receiveFetchedMessage(json: any): void {
+        const message = this.applyScreenPatch(json);
+        if (message) {
+            this.sendMessage(message as OpenposMessage);
+        }
+    }
+
     public getMessages(...types: string[]): Observable<any> {
         return merge(
             this.stompJsonMessages$,
@@ -287,9 +301,11 @@ export class SessionService implements IMessageHandler<any> {
                     this.inBackground = false;
                 }
                 if (this.isMessageVersionValid(message)) {
-                    const json = JSON.parse(message.body);
-                    this.logStompJson(json);
-                    this.stompJsonMessages$.next(json);
+                    const json = this.applyScreenPatch(JSON.parse(message.body));
+                    if (json) {
+                        this.logStompJson(json);
+                        this.stompJsonMessages$.next(json);
+                    }
                 } else {
                     console.info(`Showing incompatible version screen`);
                     this.stompJsonMessages$.next(this.buildIncompatibleVersionScreen());
@@ -385,6 +401,39 @@ export class SessionService implements IMessageHandler<any> {
     handle(message: any) {
     }
 
+    // Turns a ScreenPatch message back into the full screen or dialog it describes.  If the patch does not
+    // apply to the last message received we ask the server to send the whole screen again.
+    private applyScreenPatch(json: any): any {
+        if (json && json.type === MessageTypes.SCREEN_PATCH) {
+            const isDialog = json.patchedType === MessageTypes.DIALOG;
+            const base = isDialog ? this.lastDialogJson : this.lastScreenJson;
+            let patched = null;
+            if (base && base.sequenceNumber === json.baseSequenceNumber) {
+                try {
+                    patched = applyJsonPatch(base, json.patch);
+                } catch (e) {
+                    console.warn(`Failed to apply screen patch: ${e}`);
+                }
+            }
+            if (!patched) {
+                console.info(`Screen patch based on seqNo ${json.baseSequenceNumber} does not apply, requesting a refresh`);
+                this.lastScreenJson = null;
+                this.lastDialogJson = null;
+                this.refreshScreen();
+                return null;
+            }
+            json = patched;
+        }
+
+        if (json && json.type === MessageTypes.DIALOG) {
+            this.lastDialogJson = json;
+        } else if (json && json.type === MessageTypes.SCREEN) {
+            this.lastScreenJson = json;
+            this.lastDialogJson = null;
+        }
+        return json;
+    }
+
     private logStompJson(json: any) {
         if (json && json.sequenceNumber && json.screenType) {
             console.info(`[logStompJson] type: ${json.type}, screenType: ${json.screenType}, seqNo: ${json.sequenceNumber}`);
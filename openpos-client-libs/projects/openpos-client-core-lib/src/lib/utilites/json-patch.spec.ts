@@ -0,0 +1,46 @@
+import { applyJsonPatch } from './json-patch';
+
+describe('json-patch', () => {
+
+    describe('applyJsonPatch', () => {
+        it('adds, replaces and removes object fields', () => {
+            const doc = {a: 1, b: 'x', c: {d: true}};
+            const patch = [
+                {op: 'replace', path: '/a', value: 2},
+                {op: 'remove', path: '/b'},
+                {op: 'add', path: '/c/e', value: null}
+            ];
+            expect(applyJsonPatch(doc, patch)).toEqual({a: 2, c: {d: true, e: null}});
+        });
+
+        it('does not modify the original document', () => {
+            const doc = {items: [{id: 1}]};
+            applyJsonPatch(doc, [{op: 'replace', path: '/items/0/id', value: 2}]);
+            expect(doc).toEqual({items: [{id: 1}]});
+        });
+
+        it('appends, inserts and removes array elements', () => {
+            const doc = {items: [1, 2, 3]};
+            const patch = [
+                {op: 'add', path: '/items/-', value: 4},
+                {op: 'add', path: '/items/1', value: 9},
+                {op: 'remove', path: '/items/0'}
+            ];
+            expect(applyJsonPatch(doc, patch)).toEqual({items: [9, 2, 3, 4]});
+        });
+
+        it('unescapes pointer tokens', () => {
+            expect(applyJsonPatch({'a/b': 1, 'c~d': 2}, [
+                {op: 'replace', path: '/a~1b', value: 3},
+                {op: 'replace', path: '/c~0d', value: 4}
+            ])).toEqual({'a/b': 3, 'c~d': 4});
+        });
+
+        it('rejects operations that do not fit the document', () => {
+            expect(() => applyJsonPatch({a: [1]}, [{op: 'move', from: '/a', path: '/b'}])).toThrow();
+            expect(() => applyJsonPatch({a: [1]}, [{op: 'replace', path: '/b', value: 1}])).toThrow();
+            expect(() => applyJsonPatch({a: [1]}, [{op: 'remove', path: '/a/1'}])).toThrow();
+            expect(() => applyJsonPatch({a: [1]}, [{op: 'add', path: '/x/y', value: 1}])).toThrow();
+        });
+    });
+});
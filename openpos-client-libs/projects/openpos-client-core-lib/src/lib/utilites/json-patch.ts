@@ -0,0 +1,64 @@
+
+// Applies the add, remove and replace operations of an RFC 6902 JSON patch, which is all the server
+// generates for screen patch messages.  The document passed in is not modified.
+export function applyJsonPatch(document: any, patch: any[]): any {
+    let result = JSON.parse(JSON.stringify(document));
+    for (const operation of patch) {
+        result = _applyOperation(result, operation);
+    }
+    return result;
+}
+
+function _applyOperation(document: any, operation: any): any {
+    const op = operation.op;
+    const path: string = operation.path;
+    if (op !== 'add' && op !== 'remove' && op !== 'replace') {
+        throw new Error(`Unsupported JSON patch operation: ${JSON.stringify(operation)}`);
+    }
+    if (path === '') {
+        return _copy(operation.value);
+    }
+
+    const tokens = path.substring(1).split('/').map(_unescape);
+    const name = tokens.pop();
+    let parent = document;
+    for (const token of tokens) {
+        parent = parent !== null && typeof parent === 'object' ? parent[token] : undefined;
+    }
+    if (parent === null || typeof parent !== 'object') {
+        throw new Error(`JSON patch path does not exist: ${JSON.stringify(operation)}`);
+    }
+
+    if (Array.isArray(parent)) {
+        const index = name === '-' ? parent.length : Number(name);
+        const limit = op === 'add' ? parent.length : parent.length - 1;
+        if (!Number.isInteger(index) || index < 0 || index > limit) {
+            throw new Error(`JSON patch index is out of bounds: ${JSON.stringify(operation)}`);
+        }
+        if (op === 'add') {
+            parent.splice(index, 0, _copy(operation.value));
+        } else if (op === 'remove') {
+            parent.splice(index, 1);
+        } else {
+            parent[index] = _copy(operation.value);
+        }
+    } else {
+        if (op !== 'add' && !parent.hasOwnProperty(name)) {
+            throw new Error(`JSON patch path does not exist: ${JSON.stringify(operation)}`);
+        }
+        if (op === 'remove') {
+            delete parent[name];
+        } else {
+            parent[name] = _copy(operation.value);
+        }
+    }
+    return document;
+}
+
+function _copy(value: any): any {
+    return typeof value === 'undefined' ? null : JSON.parse(JSON.stringify(value));
+}
+
+function _unescape(token: string): string {
+    return token.replace(/~1/g, '/').replace(/~0/g, '~');
+}
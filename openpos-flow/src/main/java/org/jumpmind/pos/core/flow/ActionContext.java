@@ -13,6 +13,11 @@ public class ActionContext {
     Action action;
     StackTraceElement[] stackTrace;
     String syncId;
+    /**
+     * The flow method that posted the action from the state manager thread, null when the action came from
+     * somewhere else
+     */
+    HandlerInvocation caller;
 
     public ActionContext(Action action) {
         this.action = action;
@@ -23,6 +28,11 @@ public class ActionContext {
         this.stackTrace = stackTrace;
     }
 
+    public ActionContext(Action action, HandlerInvocation caller) {
+        this.action = action;
+        this.caller = caller;
+    }
+
     public void parseSyncId() {
         ActionSyncId actionSyncId = new ActionSyncId(action.getName());
         action.setName(actionSyncId.getActionName());
@@ -5,7 +5,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.jumpmind.pos.core.error.IErrorHandler;
 import org.jumpmind.pos.server.model.Action;
 import org.slf4j.Logger;
@@ -21,28 +20,43 @@ import org.springframework.stereotype.Component;
 public class ActionHandlerHelper {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     protected static final String METHOD_ON_ANY = "onAnyAction";
+    private static final String ANY_ACTION = METHOD_ON_ANY.substring("on".length());
+    static final int MAX_HANDLER_DEPTH = 100;
 
     @Autowired(required = false)
     protected IErrorHandler errorHandler;
 
     
+    /**
+     * Throws the same error as {@link #checkStackOverflow(Class, Object, StackTraceElement[])} when an action is
+     * posted from more than {@link #MAX_HANDLER_DEPTH} nested flow method invocations.
+     */
+    public static void checkHandlerDepth(Object handler, HandlerInvocation caller) {
+        if (caller != null && caller.getDepth() > MAX_HANDLER_DEPTH) {
+            throw actionCycleDetected(handler);
+        }
+    }
+
     public void checkStackOverflow(Class<?> classToCount, Object handler, StackTraceElement[] currentStack) {
         int stateManagerCount = 0;
 
         for (StackTraceElement stackFrame : currentStack) {
             if (classToCount.getName().equals(stackFrame.getClassName())) {
                 if (stateManagerCount++ > 300) {
-                    throw new FlowException("Action cycle detected.  You may need to adjust your "
-                            + "use of onAnyMethod() and/or the use of super classes for " 
-                            + handler.getClass().getSimpleName() 
-                            + ". A super/abstract class cannot forward an Action that it could handle.");
+                    throw actionCycleDetected(handler);
                 }
             }
         }
     }
 
+    private static FlowException actionCycleDetected(Object handler) {
+        return new FlowException("Action cycle detected.  You may need to adjust your "
+                + "use of onAnyMethod() and/or the use of super classes for "
+                + handler.getClass().getSimpleName()
+                + ". A super/abstract class cannot forward an Action that it could handle.");
+    }
+
     public void invokeActionMethod(IStateManager stateManager, Object targetObj, Action action, Method method, Object...otherArgs) {
-        method.setAccessible(true);
         List<Object> arguments = new ArrayList<Object>();
         try {
             int i = 0;
@@ -65,7 +79,7 @@ public class ActionHandlerHelper {
                 }
             }
 
-            method.invoke(targetObj, arguments.toArray(new Object[arguments.size()]));
+            HandlerIndex.invoke(method, targetObj, arguments.toArray(new Object[arguments.size()]));
         } catch (Exception ex) {
             if (errorHandler != null) {
                 errorHandler.handleError(stateManager, ex);
@@ -94,35 +108,11 @@ public class ActionHandlerHelper {
     }
     
     public Method getAnyActionMethod(Object targetObj) {
-        Class<?> clazz = targetObj.getClass();
-
-        List<Method> methods = MethodUtils.getMethodsListWithAnnotation(clazz, ActionHandler.class, true, true);
-
-        for (Method method : methods) {
-            if (METHOD_ON_ANY.equals(method.getName())) {
-                return method;
-            }
-        }
-
-        return null;
+        return HandlerIndex.forClass(targetObj.getClass()).getActionMethod(ANY_ACTION);
     }
 
     public Method getActionMethod(Object targetObj, Action action) {
-        Class<?> clazz = targetObj.getClass();
-
-        List<Method> methods = MethodUtils.getMethodsListWithAnnotation(clazz, ActionHandler.class, true, true);
-
-        String actionName = action.getName();
-
-        for (Method method : methods) {
-            String matchingMethodName = "on" + actionName;
-            method.setAccessible(true);
-            if (matchingMethodName.equals(method.getName())) {
-                return method;
-            }
-        }
-
-        return null;
+        return HandlerIndex.forClass(targetObj.getClass()).getActionMethod(action.getName());
     }
     
 }
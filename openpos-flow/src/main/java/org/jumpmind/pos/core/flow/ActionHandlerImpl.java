@@ -93,7 +93,7 @@ public class ActionHandlerImpl {
     protected boolean isCalledFromState(Object state, ActionContext actionContext) {
         StackTraceElement[] stackTrace = actionContext.getStackTrace();
         if (stackTrace == null) {
-            return false;
+            return isCalledFromState(state, actionContext.getCaller());
         }
 
         if (stackTrace.length > 150) {
@@ -116,6 +116,24 @@ public class ActionHandlerImpl {
         return false;
     }
 
+    /**
+     * Walks the nested flow method invocations the same way the stack trace is walked when stack traces are captured
+     */
+    private boolean isCalledFromState(Object state, HandlerInvocation caller) {
+        ActionHandlerHelper.checkHandlerDepth(state, caller);
+
+        for (HandlerInvocation invocation = caller; invocation != null; invocation = invocation.getCaller()) {
+            Class<?> currentClass = invocation.getDeclaringClass();
+            if (!Modifier.isAbstract(currentClass.getModifiers()) && FlowUtil.isState(currentClass)
+                    && !currentClass.isAssignableFrom(state.getClass())) {
+                return false;
+            } else if (currentClass.isAssignableFrom(state.getClass())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 
     public IBeforeActionService getBeforeActionService() {
         return beforeActionService;
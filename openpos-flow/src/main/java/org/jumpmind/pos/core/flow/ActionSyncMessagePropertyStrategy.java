@@ -30,6 +30,11 @@ public class ActionSyncMessagePropertyStrategy<T> implements IMessagePropertyStr
         return property;
     }
 
+    @Override
+    public boolean ignoresType(Class<?> type) {
+        return !type.isAssignableFrom(ActionItem.class) && !ActionItem.class.isAssignableFrom(type);
+    }
+
     private String getSyncId(ActionItem actionItem) {
         if (actionItem.isGlobalActionFlag()) {
             return GLOBAL_SYNC_ID;
@@ -24,6 +24,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.jumpmind.pos.core.flow.config.FlowConfig;
 import org.jumpmind.pos.core.flow.config.StateConfig;
 import org.jumpmind.pos.core.ui.UIMessage;
@@ -51,6 +52,8 @@ public class ApplicationState {
     private UIMessage lastDialog;
     private UIMessage lastPreInterceptedScreen;
     private UIMessage lastPreInterceptedDialog;
+    private JsonNode lastSentScreenJson;
+    private JsonNode lastSentDialogJson;
 
     private Map<String, UIDataMessageProvider<?>> dataMessageProviderMap;
 
@@ -83,6 +86,8 @@ public class ApplicationState {
         lastScreen = null;
         lastPreInterceptedDialog = null;
         lastPreInterceptedScreen = null;
+        lastSentScreenJson = null;
+        lastSentDialogJson = null;
         dataMessageProviderMap = null;
         scope.setDeviceScope("queryParams",queryParams);
         scope.setDeviceScope("personalizationProperties",personalizationProperties);
@@ -165,6 +170,28 @@ public class ApplicationState {
         return lastPreInterceptedDialog;
     }
 
+    /**
+     * @return the JSON of the last screen sent to the client when screen delta messages are enabled
+     */
+    public JsonNode getLastSentScreenJson() {
+        return lastSentScreenJson;
+    }
+
+    public void setLastSentScreenJson(JsonNode lastSentScreenJson) {
+        this.lastSentScreenJson = lastSentScreenJson;
+    }
+
+    /**
+     * @return the JSON of the last dialog sent to the client when screen delta messages are enabled
+     */
+    public JsonNode getLastSentDialogJson() {
+        return lastSentDialogJson;
+    }
+
+    public void setLastSentDialogJson(JsonNode lastSentDialogJson) {
+        this.lastSentDialogJson = lastSentDialogJson;
+    }
+
     public Map<String, UIDataMessageProvider<?>> getDataMessageProviderMap() {
         return dataMessageProviderMap;
     }
@@ -1,14 +1,22 @@
 package org.jumpmind.pos.core.flow;
 
 import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -17,9 +25,16 @@ import java.util.function.Function;
 @Component
 @Scope("device")
 public class AsyncExecutor {
-    private ThreadPoolTaskScheduler scheduler;
+    private ExecutorService executor;
     private List<ScheduledFuture<?>> scheduledJobs;
     private boolean cancelled;
+    private boolean stopped;
+
+    /**
+     * The work of this device that has not finished yet, so it can be interrupted when the device is stopped without
+     * stopping the executor that all devices share
+     */
+    private final Set<FutureTask<?>> runningTasks = ConcurrentHashMap.newKeySet();
 
     @In(scope = ScopeType.Device)
     IStateManager stateManager;
@@ -27,14 +42,20 @@ public class AsyncExecutor {
     @Autowired
     StateManagerContainer stateManagerContainer;
 
+    @Autowired(required = false)
+    SharedDeviceExecutors sharedDeviceExecutors;
+
+    @Autowired(required = false)
+    ClientContext clientContext;
+
     Runnable beforeCancel;
 
     @PostConstruct
     public void init() {
-        this.scheduler = new ThreadPoolTaskScheduler();
-        this.scheduler.setThreadNamePrefix("async-executor-task-");
-        this.scheduler.setPoolSize(20);
-        this.scheduler.initialize();
+        if (sharedDeviceExecutors == null) {
+            sharedDeviceExecutors = SharedDeviceExecutors.getDefault();
+        }
+        this.executor = sharedDeviceExecutors.getAsyncExecutor();
         scheduledJobs = new ArrayList<ScheduledFuture<?>>();
     }
 
@@ -46,8 +67,9 @@ public class AsyncExecutor {
     }
 
     synchronized public void stop() {
-        if (this.scheduler != null) {
-            this.scheduler.getScheduledExecutor().shutdownNow();
+        stopped = true;
+        for (FutureTask<?> task : runningTasks) {
+            task.cancel(true);
         }
     }
 
@@ -56,10 +78,20 @@ public class AsyncExecutor {
     }
 
     synchronized public <T, R> void execute(T request, Function<T, R> doWork, Consumer<R> handleResult, Consumer<Throwable> handleError, Consumer<R> handleCancel, Runnable beforeCancel) {
+        if (stopped) {
+            throw new TaskRejectedException("The AsyncExecutor was stopped and did not accept the task");
+        }
         this.beforeCancel = beforeCancel;
         cancelled = false;
-        scheduler.execute(() -> {
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            // the threads are shared by all devices, so whatever this device sets up is put back the way it was afterwards
+            IStateManager previousStateManager = stateManagerContainer.getCurrentStateManager();
+            Map<String, String> previousClientContext = clientContext != null ? clientContext.capture() : null;
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
             try {
+                if (clientContext != null) {
+                    clientContext.clear();
+                }
                 stateManagerContainer.setCurrentStateManager(stateManager);
                 R result = doWork.apply(request);
                 if (!cancelled) {
@@ -75,7 +107,28 @@ public class AsyncExecutor {
                 }
             } finally {
                 this.beforeCancel = null;
+                stateManagerContainer.setCurrentStateManager(previousStateManager);
+                if (clientContext != null) {
+                    clientContext.restore(previousClientContext);
+                }
+                if (previousMdc != null) {
+                    MDC.setContextMap(previousMdc);
+                } else {
+                    MDC.clear();
+                }
             }
-        });
+        }, null) {
+            @Override
+            protected void done() {
+                runningTasks.remove(this);
+            }
+        };
+        runningTasks.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            runningTasks.remove(task);
+            throw new TaskRejectedException("The shared async executor did not accept the task", ex);
+        }
     }
 }
\ No newline at end of file
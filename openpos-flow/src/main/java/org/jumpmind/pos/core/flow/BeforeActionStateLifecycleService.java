@@ -23,11 +23,7 @@ package org.jumpmind.pos.core.flow;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.ClassUtils.Interfaces;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.jumpmind.pos.core.error.IErrorHandler;
 import org.jumpmind.pos.server.model.Action;
 import org.slf4j.Logger;
@@ -52,7 +48,6 @@ public class BeforeActionStateLifecycleService implements IBeforeActionService {
     }
     
     protected void invokeBeforeActionMethod(IStateManager stateManager, Object state, Action action, Method method) {
-        method.setAccessible(true);
         List<Object> arguments = new ArrayList<Object>();
         boolean failOnException = method.getAnnotation(BeforeAction.class).failOnException();
         try {
@@ -64,7 +59,7 @@ public class BeforeActionStateLifecycleService implements IBeforeActionService {
                 }
             }
             logger.debug("Executing BeforeAction method named '{}' on state '{}'...", method.getName(), state.getClass().getSimpleName());
-            method.invoke(state, arguments.toArray(new Object[arguments.size()]));
+            HandlerIndex.invoke(method, state, arguments.toArray(new Object[arguments.size()]));
             logger.debug("Finished executing BeforeAction method named '{}' on state '{}'.", method.getName(), state.getClass().getSimpleName());
         } catch (Exception ex) {
             String msg = String.format("Failed to invoke BeforeAction method named '%s' on state '%s'.  Reason: %s", 
@@ -82,38 +77,7 @@ public class BeforeActionStateLifecycleService implements IBeforeActionService {
     }
     
     protected List<Method> getBeforeActionMethods(Object state) {
-        Class<?> clazz = state.getClass();
-
-        List<Method> methodsFromTargetClassAndSuper = MethodUtils.getMethodsListWithAnnotation(clazz, BeforeAction.class, true, true);
-        List<Method> overriddenSuperMethodsToRemove = new ArrayList<>();
-
-        methodsFromTargetClassAndSuper.forEach(m -> {
-            // Get the hierarchy of overridden methods for this method (skipping the first one
-            // since it is the top level subclass method).  If any of the
-            // overridden methods is in the list of all the annotated methods
-            // returned from above, queue that method for exclusion
-            Set<Method> overrideHierarchy = MethodUtils.getOverrideHierarchy(m, Interfaces.EXCLUDE).stream().skip(1).collect(Collectors.toSet());
-            overrideHierarchy.forEach(overriddenMethod -> {
-                if (methodsFromTargetClassAndSuper.contains(overriddenMethod) &&
-                    ! overriddenSuperMethodsToRemove.contains(overriddenMethod)) {
-                    overriddenSuperMethodsToRemove.add(overriddenMethod);
-                }
-            });
-            
-        });
-
-        methodsFromTargetClassAndSuper.removeAll(overriddenSuperMethodsToRemove);
-        List<Method> methods = methodsFromTargetClassAndSuper;
-        
-        // Sort BeforeAction methods ascending using 'order' attribute
-        methods.sort((m1, m2) -> {
-            int m1Order = m1.getAnnotation(BeforeAction.class).order();
-            int m2Order = m2.getAnnotation(BeforeAction.class).order();
-            
-            return m1Order == m2Order ? 0 : (m1Order < m2Order ? -1 : 1);
-        });
-
-        return methods;
+        return HandlerIndex.forClass(state.getClass()).getBeforeActionMethods();
     }
 
 }
@@ -159,14 +159,12 @@ public class EventBroadcaster {
                                                 boolean hasEventParam = key.handler.getParameters().length == 1;
 
                                                 try {
-                                                    key.handler.setAccessible(true);
-
                                                     log.debug("invoking @OnEvent handler '{}' for event type '{}'; event sourced from '{}'...", key.handler, arg.getClass(), arg.getSource());
 
                                                     if (hasEventParam) {
-                                                        key.handler.invoke(inst, arg);
+                                                        HandlerIndex.invoke(key.handler, inst, arg);
                                                     } else {
-                                                        key.handler.invoke(inst);
+                                                        HandlerIndex.invoke(key.handler, inst);
                                                     }
                                                 } catch (Exception ex) {
                                                     log.error("unknown error occurred while attempting to invoke the event handler '{}' for event type '{}'", key.handler, arg.getClass(), ex);
@@ -0,0 +1,265 @@
+package org.jumpmind.pos.core.flow;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.ClassUtils.Interfaces;
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.jumpmind.pos.server.model.Action;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The flow annotated methods of a state, transition step or global action handler class.  Looking these up with
+ * {@link MethodUtils#getMethodsListWithAnnotation} walks every method of the class hierarchy, which used to happen
+ * for every action and every transition.  The index is built once per class.  A class that is reloaded by a new
+ * class loader is a different class, so it gets an index of its own.  The indexes are kept in {@link ClassValue}s, so
+ * they don't keep the class loader of a class that is no longer used from being collected.
+ * <p>
+ * Each list holds the same methods, in the same order, as the lookup it replaces.
+ */
+public final class HandlerIndex {
+
+    private static final ClassValue<HandlerIndex> indexes = new ClassValue<HandlerIndex>() {
+        @Override
+        protected HandlerIndex computeValue(Class<?> type) {
+            return new HandlerIndex(type);
+        }
+    };
+
+    /**
+     * The handles of the methods that have been invoked, kept by the class that declares them
+     */
+    private static final ClassValue<Map<Method, HandlerMethod>> handlerMethods = new ClassValue<Map<Method, HandlerMethod>>() {
+        @Override
+        protected Map<Method, HandlerMethod> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    @SuppressWarnings("deprecation")
+    static final Method STATE_ARRIVE = interfaceMethod(IState.class, "arrive", Action.class);
+    static final Method TRANSITION_STEP_ARRIVE = interfaceMethod(ITransitionStep.class, "arrive", Transition.class);
+
+    private final Class<?> clazz;
+    private final Map<Method, Method> implementations = new ConcurrentHashMap<>();
+
+    private final Map<String, Method> actionMethods = new HashMap<>();
+    private final Map<String, List<Method>> globalActionMethods = new HashMap<>();
+    private final boolean globalActionHandler;
+    private final List<Method> arriveMethods;
+    private final List<Method> departMethods;
+    private final List<Method> beforeActionMethods;
+    private final List<Method> refreshMethods;
+
+    public static HandlerIndex forClass(Class<?> clazz) {
+        return indexes.get(clazz);
+    }
+
+    private HandlerIndex(Class<?> clazz) {
+        this.clazz = clazz;
+        for (Method method : accessible(MethodUtils.getMethodsListWithAnnotation(clazz, ActionHandler.class, true, true))) {
+            actionMethods.putIfAbsent(method.getName(), method);
+        }
+
+        for (Method method : accessible(MethodUtils.getMethodsListWithAnnotation(clazz, OnGlobalAction.class))) {
+            globalActionMethods.computeIfAbsent(method.getName(), name -> new ArrayList<>(1)).add(method);
+        }
+        globalActionHandler = !MethodUtils.getMethodsListWithAnnotation(clazz, OnGlobalAction.class, true, true).isEmpty();
+
+        Set<String> arriveNames = new HashSet<>();
+        List<Method> arrive = new ArrayList<>();
+        for (Method method : MethodUtils.getMethodsListWithAnnotation(clazz, OnArrive.class, true, true)) {
+            if (arriveNames.add(method.getName())) {
+                arrive.add(method);
+            }
+        }
+        arriveMethods = accessible(arrive);
+
+        departMethods = accessible(MethodUtils.getMethodsListWithAnnotation(clazz, OnDepart.class, true, true));
+        beforeActionMethods = accessible(findBeforeActionMethods(clazz));
+        refreshMethods = accessible(MethodUtils.getMethodsListWithAnnotation(clazz, OnRefresh.class, true, true));
+        globalActionMethods.replaceAll((name, methods) -> Collections.unmodifiableList(methods));
+    }
+
+    /**
+     * @return the {@link ActionHandler} method named <code>on&lt;actionName&gt;</code>, or null
+     */
+    public Method getActionMethod(String actionName) {
+        return actionMethods.get("on" + actionName);
+    }
+
+    /**
+     * @return the public {@link OnGlobalAction} methods named <code>on&lt;actionName&gt;</code>
+     */
+    public List<Method> getGlobalActionMethods(String actionName) {
+        List<Method> methods = globalActionMethods.get("on" + actionName);
+        return methods != null ? methods : Collections.emptyList();
+    }
+
+    /**
+     * @return true if the class has any public {@link OnGlobalAction} methods
+     */
+    public boolean hasPublicGlobalActionMethods() {
+        return !globalActionMethods.isEmpty();
+    }
+
+    /**
+     * @return true if the class or one of its super classes has an {@link OnGlobalAction} method of any visibility
+     */
+    public boolean isGlobalActionHandler() {
+        return globalActionHandler;
+    }
+
+    /**
+     * @return the {@link OnArrive} methods, one per method name
+     */
+    public List<Method> getArriveMethods() {
+        return arriveMethods;
+    }
+
+    public List<Method> getDepartMethods() {
+        return departMethods;
+    }
+
+    /**
+     * @return the {@link BeforeAction} methods that have not been overridden by a subclass, ordered by
+     * {@link BeforeAction#order()}
+     */
+    public List<Method> getBeforeActionMethods() {
+        return beforeActionMethods;
+    }
+
+    public List<Method> getRefreshMethods() {
+        return refreshMethods;
+    }
+
+    /**
+     * @return the method of the class that runs when the given interface method is called on an instance, so a call
+     * that doesn't go through {@link #invoke(Method, Object, Object...)} can still enter a {@link HandlerInvocation}
+     */
+    public Method getImplementation(Method interfaceMethod) {
+        return implementations.computeIfAbsent(interfaceMethod, method -> {
+            try {
+                return clazz.getMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException ex) {
+                return method;
+            }
+        });
+    }
+
+    /**
+     * Invokes a flow method through a cached {@link MethodHandle}.  Failures are reported the same way
+     * {@link Method#invoke(Object, Object...)} reports them so callers and error handlers see the same exceptions.
+     * The method is the {@link HandlerInvocation#current()} invocation until it returns.
+     */
+    public static Object invoke(Method method, Object target, Object... args) throws IllegalAccessException, InvocationTargetException {
+        HandlerMethod handlerMethod = handlerMethods.get(method.getDeclaringClass()).computeIfAbsent(method, HandlerMethod::new);
+        HandlerInvocation invocation = HandlerInvocation.enter(target, method);
+        try {
+            return handlerMethod.invoke(target, args);
+        } finally {
+            HandlerInvocation.exit(invocation);
+        }
+    }
+
+    private static Method interfaceMethod(Class<?> interfaceClass, String name, Class<?>... parameterTypes) {
+        try {
+            return interfaceClass.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static List<Method> findBeforeActionMethods(Class<?> clazz) {
+        List<Method> methods = MethodUtils.getMethodsListWithAnnotation(clazz, BeforeAction.class, true, true);
+        List<Method> overriddenSuperMethodsToRemove = new ArrayList<>();
+
+        methods.forEach(m -> {
+            // Get the hierarchy of overridden methods for this method (skipping the first one
+            // since it is the top level subclass method).  If any of the
+            // overridden methods is in the list of all the annotated methods
+            // returned from above, queue that method for exclusion
+            MethodUtils.getOverrideHierarchy(m, Interfaces.EXCLUDE).stream().skip(1).forEach(overriddenMethod -> {
+                if (methods.contains(overriddenMethod) && !overriddenSuperMethodsToRemove.contains(overriddenMethod)) {
+                    overriddenSuperMethodsToRemove.add(overriddenMethod);
+                }
+            });
+        });
+        methods.removeAll(overriddenSuperMethodsToRemove);
+
+        // Sort BeforeAction methods ascending using 'order' attribute
+        methods.sort((m1, m2) -> Integer.compare(m1.getAnnotation(BeforeAction.class).order(), m2.getAnnotation(BeforeAction.class).order()));
+        return methods;
+    }
+
+    private static List<Method> accessible(List<Method> methods) {
+        for (Method method : methods) {
+            method.setAccessible(true);
+        }
+        return Collections.unmodifiableList(methods);
+    }
+
+    static final class HandlerMethod {
+        private final Method method;
+        private final Class<?>[] parameterTypes;
+        private final MethodHandle handle;
+
+        HandlerMethod(Method method) {
+            this.method = method;
+            this.parameterTypes = method.getParameterTypes();
+            method.setAccessible(true);
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+                if (Modifier.isStatic(method.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                handle = handle.asSpreader(Object[].class, parameterTypes.length)
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            } catch (Exception ex) {
+                handle = null;
+            }
+            this.handle = handle;
+        }
+
+        Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+            if (handle == null) {
+                return method.invoke(target, args);
+            }
+            checkArguments(target, args);
+            try {
+                return handle.invokeExact(target, args);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        private void checkArguments(Object target, Object[] args) {
+            if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(target)) {
+                throw new IllegalArgumentException("object is not an instance of declaring class");
+            }
+            int count = args != null ? args.length : 0;
+            if (count != parameterTypes.length) {
+                throw new IllegalArgumentException("wrong number of arguments");
+            }
+            for (int i = 0; i < count; i++) {
+                Class<?> type = parameterTypes[i];
+                if (args[i] == null ? type.isPrimitive() : !ClassUtils.primitiveToWrapper(type).isInstance(args[i])) {
+                    throw new IllegalArgumentException("argument type mismatch");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.jumpmind.pos.core.flow;
+
+import java.lang.reflect.Method;
+
+/**
+ * A flow method that is being invoked on the current thread, and the invocation it was called from.  Every call
+ * through {@link HandlerIndex#invoke(Method, Object, Object...)} enters one, and so do the calls the state manager
+ * makes to {@link IState#arrive} and {@link ITransitionStep#arrive} directly.
+ * <p>
+ * An action that is posted from a handler keeps the innermost invocation as its caller.  That is enough to tell
+ * which state or global action handler posted the action, and how deeply nested the handlers were, without capturing
+ * the stack trace of the thread.  The class and method names are only looked up when the invocation is logged.
+ */
+public final class HandlerInvocation {
+
+    private static final ThreadLocal<HandlerInvocation> current = new ThreadLocal<>();
+
+    private final Object target;
+    private final Method method;
+    private final HandlerInvocation caller;
+    private final int depth;
+
+    private HandlerInvocation(Object target, Method method, HandlerInvocation caller) {
+        this.target = target;
+        this.method = method;
+        this.caller = caller;
+        this.depth = caller != null ? caller.depth + 1 : 1;
+    }
+
+    /**
+     * @return the innermost flow method being invoked on this thread, or null when there is none
+     */
+    public static HandlerInvocation current() {
+        return current.get();
+    }
+
+    static HandlerInvocation enter(Object target, Method method) {
+        HandlerInvocation invocation = new HandlerInvocation(target, method, current.get());
+        current.set(invocation);
+        return invocation;
+    }
+
+    static void exit(HandlerInvocation invocation) {
+        if (invocation.caller != null) {
+            current.set(invocation.caller);
+        } else {
+            current.remove();
+        }
+    }
+
+    /**
+     * @return the object the method is invoked on.  Null for static methods.
+     */
+    public Object getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the class that declares the running method, which is the class the stack frame of the call would show.
+     * For an inherited handler method that is the super class, not the class of the target.
+     */
+    public Class<?> getDeclaringClass() {
+        return method.getDeclaringClass();
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the invocation this one was nested in, or null
+     */
+    public HandlerInvocation getCaller() {
+        return caller;
+    }
+
+    /**
+     * @return how many flow method invocations are nested, counting this one
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return getDeclaringClass().getSimpleName() + "." + method.getName() + " (depth " + depth + ")";
+    }
+}
@@ -0,0 +1,253 @@
+package org.jumpmind.pos.core.flow;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link In}, {@link InOut} and {@link Out} fields and the {@link PostConstruct} methods of one class, found once
+ * and cached for the life of the class.  The {@link Injector} and {@link Outjector} walk these lists instead of
+ * reflecting over the class hierarchy every time a state, step or device scoped bean is injected.  The plans are kept
+ * in a {@link ClassValue}, so they don't keep the class loader of a class that is no longer used from being collected.
+ * <p>
+ * Fields are listed in the order the injector and outjector have always visited them: the fields declared by the
+ * class itself first, then those of each superclass.  A field annotated with both {@link In} and {@link InOut}
+ * appears twice, once for each annotation.
+ */
+@Slf4j
+final class InjectionPlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType POST_CONSTRUCT_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private static final ClassValue<InjectionPlan> plans = new ClassValue<InjectionPlan>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+
+    private final List<InjectedField> injections = new ArrayList<>();
+    private final List<InjectedField> outjections = new ArrayList<>();
+    private final List<PostConstructMethod> postConstructMethods = new ArrayList<>();
+    private final Map<ScopeType, List<FieldAccessor>> fieldsByScope = new EnumMap<>(ScopeType.class);
+    private final Map<Class<?>, List<InjectedField>> injectionsByDeclaringClass = new HashMap<>();
+    private final Map<Class<?>, List<InjectedField>> outjectionsByDeclaringClass = new HashMap<>();
+    private final Map<Field, FieldAccessor> accessors = new HashMap<>();
+
+    static InjectionPlan forClass(Class<?> targetClass) {
+        return plans.get(targetClass);
+    }
+
+    private InjectionPlan(Class<?> targetClass) {
+        Class<?> currentClass = targetClass;
+        while (currentClass != null && currentClass != Object.class) {
+            for (Field field : currentClass.getDeclaredFields()) {
+                In in = field.getAnnotation(In.class);
+                InOut inOut = field.getAnnotation(InOut.class);
+                Out out = field.getAnnotation(Out.class);
+                if (in == null && inOut == null && out == null) {
+                    continue;
+                }
+
+                FieldAccessor accessor = new FieldAccessor(field);
+                accessors.put(field, accessor);
+                if (in != null) {
+                    injections.add(new InjectedField(accessor, in.name(), in.scope(), in.required(), in.autoCreate()));
+                }
+                if (inOut != null) {
+                    injections.add(new InjectedField(accessor, inOut.name(), inOut.scope(), inOut.required(), inOut.autoCreate()));
+                }
+                if (out != null) {
+                    outjections.add(new InjectedField(accessor, out.name(), out.scope(), out.required(), false));
+                }
+                if (inOut != null) {
+                    outjections.add(new InjectedField(accessor, inOut.name(), inOut.scope(), inOut.required(), false));
+                }
+            }
+            currentClass = currentClass.getSuperclass();
+        }
+
+        for (InjectedField injection : injections) {
+            injectionsByDeclaringClass.computeIfAbsent(injection.getField().getDeclaringClass(), c -> new ArrayList<>()).add(injection);
+            List<FieldAccessor> fields = fieldsByScope.computeIfAbsent(injection.getScopeType(), scopeType -> new ArrayList<>());
+            if (!fields.contains(injection.getAccessor())) {
+                fields.add(injection.getAccessor());
+            }
+        }
+
+        for (InjectedField outjection : outjections) {
+            outjectionsByDeclaringClass.computeIfAbsent(outjection.getField().getDeclaringClass(), c -> new ArrayList<>()).add(outjection);
+        }
+
+        for (Method method : targetClass.getDeclaredMethods()) {
+            if (method.getAnnotation(PostConstruct.class) != null) {
+                postConstructMethods.add(new PostConstructMethod(method));
+            }
+        }
+    }
+
+    List<InjectedField> getInjections() {
+        return injections;
+    }
+
+    List<InjectedField> getOutjections() {
+        return outjections;
+    }
+
+    /**
+     * @return the injections of the fields that the given class of the hierarchy declares
+     */
+    List<InjectedField> getInjections(Class<?> declaringClass) {
+        List<InjectedField> declared = injectionsByDeclaringClass.get(declaringClass);
+        return declared != null ? declared : Collections.emptyList();
+    }
+
+    /**
+     * @return the outjections of the fields that the given class of the hierarchy declares
+     */
+    List<InjectedField> getOutjections(Class<?> declaringClass) {
+        List<InjectedField> declared = outjectionsByDeclaringClass.get(declaringClass);
+        return declared != null ? declared : Collections.emptyList();
+    }
+
+    /**
+     * @return the accessor of an annotated field of the class, or a new one for any other field
+     */
+    FieldAccessor getAccessor(Field field) {
+        FieldAccessor accessor = accessors.get(field);
+        return accessor != null ? accessor : new FieldAccessor(field);
+    }
+
+    List<PostConstructMethod> getPostConstructMethods() {
+        return postConstructMethods;
+    }
+
+    boolean hasInjections() {
+        return !injections.isEmpty();
+    }
+
+    /**
+     * @return the distinct fields that are injected at the given scope, in injection order
+     */
+    List<FieldAccessor> getFieldsInjectedAt(ScopeType scopeType) {
+        List<FieldAccessor> fields = fieldsByScope.get(scopeType);
+        return fields != null ? fields : Collections.emptyList();
+    }
+
+    @Getter
+    static final class InjectedField {
+        private final FieldAccessor accessor;
+        private final String name;
+        private final ScopeType scopeType;
+        private final boolean required;
+        private final boolean autoCreate;
+
+        InjectedField(FieldAccessor accessor, String name, ScopeType scopeType, boolean required, boolean autoCreate) {
+            this.accessor = accessor;
+            this.name = StringUtils.isEmpty(name) ? accessor.getField().getName() : name;
+            this.scopeType = scopeType;
+            this.required = required;
+            this.autoCreate = autoCreate;
+        }
+
+        Field getField() {
+            return accessor.getField();
+        }
+    }
+
+    /**
+     * Reads and writes one field through method handles.  Falls back to reflection for the rare field a handle
+     * cannot be created for, such as a static final field.
+     */
+    static final class FieldAccessor {
+        @Getter
+        private final Field field;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        FieldAccessor(Field field) {
+            this.field = field;
+            field.setAccessible(true);
+            this.getter = unreflect(field, true);
+            this.setter = unreflect(field, false);
+        }
+
+        Object get(Object target) throws Throwable {
+            return getter != null ? getter.invokeExact(target) : field.get(target);
+        }
+
+        void set(Object target, Object value) throws Throwable {
+            if (setter != null) {
+                setter.invokeExact(target, value);
+            } else {
+                field.set(target, value);
+            }
+        }
+
+        Class<?> getType() {
+            return field.getType();
+        }
+
+        private static MethodHandle unreflect(Field field, boolean getter) {
+            try {
+                MethodHandle handle = getter ? MethodHandles.lookup().unreflectGetter(field) : MethodHandles.lookup().unreflectSetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                return handle.asType(getter ? GETTER_TYPE : SETTER_TYPE);
+            } catch (Exception ex) {
+                log.debug("Could not create a {} handle for {}", getter ? "getter" : "setter", field, ex);
+                return null;
+            }
+        }
+    }
+
+    static final class PostConstructMethod {
+        @Getter
+        private final Method method;
+        private final MethodHandle handle;
+
+        PostConstructMethod(Method method) {
+            this.method = method;
+            method.setAccessible(true);
+            MethodHandle handle = null;
+            if (method.getParameterCount() == 0) {
+                try {
+                    handle = MethodHandles.lookup().unreflect(method);
+                    if (Modifier.isStatic(method.getModifiers())) {
+                        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                    }
+                    handle = handle.asType(POST_CONSTRUCT_TYPE);
+                } catch (Exception ex) {
+                    log.debug("Could not create a handle for {}", method, ex);
+                    handle = null;
+                }
+            }
+            this.handle = handle;
+        }
+
+        void invoke(Object target) throws Throwable {
+            if (handle != null) {
+                handle.invokeExact(target);
+            } else {
+                method.invoke(target);
+            }
+        }
+    }
+}
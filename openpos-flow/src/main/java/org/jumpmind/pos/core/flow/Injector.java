@@ -2,15 +2,16 @@ package org.jumpmind.pos.core.flow;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.jumpmind.pos.core.flow.InjectionPlan.FieldAccessor;
+import org.jumpmind.pos.core.flow.InjectionPlan.InjectedField;
+import org.jumpmind.pos.core.flow.InjectionPlan.PostConstructMethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 
@@ -39,49 +40,22 @@ public class Injector {
     }
 
     public void resetInjections(Object target, ScopeType scopeType) {
-        Class<?> targetClass = target != null ? target.getClass() : null;
-        while (targetClass != null) {
-            Field[] fields = targetClass.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                boolean nullField = false;
-                In in = field.getAnnotation(In.class);
-                if (in == null) {
-                    in = field.getDeclaredAnnotation(In.class);
-                }
-
-                if (in != null && in.scope() == scopeType) {
-                    nullField = true;
-                }
-
-                InOut inOut = field.getAnnotation(InOut.class);
-                if (inOut == null) {
-                    inOut = field.getDeclaredAnnotation(InOut.class);
-                }
-
-                if (inOut != null && inOut.scope() == scopeType) {
-                    nullField = true;
-                }
-
-                if (nullField) {
-                    try {
-                        if (!field.getType().isPrimitive()) {
-                            field.set(target, null);
-                        } else if (field.getType().equals(int.class)) {
-                            field.set(target, 0);
-                        } else if (field.getType().equals(boolean.class)) {
-                            field.set(target, false);
-                        } else {
-                            throw new FlowException("Unhandled type: " + field.getType() + " on target " + target);
-                        }
-                    } catch (Exception ex) {
-                        throw new FlowException("Failed to reset target field " + field + " to null/0", ex);
-                    }
+        if (target == null) {
+            return;
+        }
+        for (FieldAccessor field : InjectionPlan.forClass(target.getClass()).getFieldsInjectedAt(scopeType)) {
+            try {
+                if (!field.getType().isPrimitive()) {
+                    field.set(target, null);
+                } else if (field.getType().equals(int.class)) {
+                    field.set(target, 0);
+                } else if (field.getType().equals(boolean.class)) {
+                    field.set(target, false);
+                } else {
+                    throw new FlowException("Unhandled type: " + field.getType() + " on target " + target);
                 }
-            }
-            targetClass = targetClass.getSuperclass();
-            if (targetClass == Object.class) {
-                targetClass = null;
+            } catch (Throwable ex) {
+                throw new FlowException("Failed to reset target field " + field.getField() + " to null/0", ex);
             }
         }
     }
@@ -103,28 +77,9 @@ public class Injector {
     }
 
     protected void performInjectionsImpl(Class<?> targetClass, Object target, Scope scope, StateContext currentContext) {
-        Field[] fields = targetClass.getDeclaredFields();
-
-        for (Field field : fields) {
-            field.setAccessible(true);
-            In in = field.getAnnotation(In.class);
-            if (in == null) {
-                in = field.getDeclaredAnnotation(In.class);
-            }
-
-            if (in != null) {
-                injectField(targetClass, target, scope, currentContext, in.name(), in.scope(), in.required(), in.autoCreate(), field);
-            }
-
-            InOut inOut = field.getAnnotation(InOut.class);
-            if (inOut == null) {
-                inOut = field.getDeclaredAnnotation(InOut.class);
-            }
-
-            if (inOut != null) {
-                injectField(targetClass, target, scope, currentContext, inOut.name(), inOut.scope(), inOut.required(), inOut.autoCreate(),
-                        field);
-            }
+        for (InjectedField injection : InjectionPlan.forClass(target.getClass()).getInjections(targetClass)) {
+            injectField(targetClass, target, scope, currentContext, injection.getName(), injection.getScopeType(), injection.isRequired(),
+                    injection.isAutoCreate(), injection.getField());
         }
     }
 
@@ -135,30 +90,7 @@ public class Injector {
         }
 
         logger.trace("Injecting field '{}' on bean {}...", name, target);
-        ScopeValue value = null;
-
-        switch (scopeType) {
-            case Config:
-                Object configScopeValue = currentContext.getFlowConfig().getConfigScope() != null
-                        ? currentContext.getFlowConfig().getConfigScope().get(name)
-                        : null;
-                value = new ScopeValue(configScopeValue);
-                break;
-            case Device:
-                value = scope.getDeviceScope().get(name);
-                break;
-            case Session:
-                value = scope.getSessionScope().get(name);
-                break;
-            case Conversation:
-                value = scope.getConversationScope().get(name);
-                break;
-            case Flow:
-                value = currentContext.resolveScope(name);
-                break;
-            default:
-                break;
-        }
+        ScopeValue value = resolveScopeValue(name, scopeType, scope, currentContext);
 
         if ((value == null || value.getValue() == null) && autoCreate) {
             value = autoCreateScopeValue(name, scopeType, scope, currentContext);
@@ -176,15 +108,58 @@ public class Injector {
             throw failedToResolveInjection(field, name, targetClass, target, scope, currentContext, scopeType);
         } else if (value != null && (value.getValue() != null || (ScopeType.Config.equals(scopeType) && !field.getType().isPrimitive()))) {
             try {
-                field.set(target, value.getValue());
+                InjectionPlan.forClass(target.getClass()).getAccessor(field).set(target, value.getValue());
                 logger.trace("Injected field '{}' with value {}", name, value.getValue());
-            } catch (Exception ex) {
+            } catch (Throwable ex) {
                 throw new FlowException("Failed to set target field " + field + " to value " + value.getValue(), ex);
             }
         }
         logger.trace("Injection of field '{}' on bean {} completed", name, target);
     }
 
+    protected ScopeValue resolveScopeValue(String name, ScopeType scopeType, Scope scope, StateContext currentContext) {
+        switch (scopeType) {
+            case Config:
+                Object configScopeValue = currentContext.getFlowConfig().getConfigScope() != null
+                        ? currentContext.getFlowConfig().getConfigScope().get(name)
+                        : null;
+                return new ScopeValue(configScopeValue);
+            case Device:
+                return scope.getDeviceScope().get(name);
+            case Session:
+                return scope.getSessionScope().get(name);
+            case Conversation:
+                return scope.getConversationScope().get(name);
+            case Flow:
+                return currentContext.resolveScope(name);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Looks up the values that {@link #performInjections(Object, Scope, StateContext)} would currently inject into
+     * target without injecting them, auto creating them or asking the value providers for them.  A value that
+     * would have to be created or provided is returned as a marker that is not the same as anything else.
+     * <p>
+     * Two lookups that return the same instances element for element mean injecting the target again would not
+     * change any of its fields.
+     */
+    public Object[] lookupInjectionValues(Object target, Scope scope, StateContext currentContext) {
+        List<InjectedField> injections = InjectionPlan.forClass(target.getClass()).getInjections();
+        Object[] values = new Object[injections.size()];
+        for (int i = 0; i < values.length; i++) {
+            InjectedField injection = injections.get(i);
+            ScopeValue value = resolveScopeValue(injection.getName(), injection.getScopeType(), scope, currentContext);
+            if (value != null && value.getValue() != null) {
+                values[i] = value.getValue();
+            } else if (injection.isAutoCreate() || (value == null && !CollectionUtils.isEmpty(scopeValueProviders))) {
+                values[i] = new Object();
+            }
+        }
+        return values;
+    }
+
     protected ScopeValue autoCreateScopeValue(String name, ScopeType scopeType, Scope scope, StateContext currentContext) {
         Object bean = applicationContext.getBean(name);
         performInjections(bean, scope, currentContext);
@@ -206,16 +181,14 @@ public class Injector {
     }
 
     protected void performPostConstruct(Object target) {
-        Method[] methods = target != null ? target.getClass().getDeclaredMethods() : new Method[0];
-        for (Method method : methods) {
-            PostConstruct postConstructAnnotation = method.getAnnotation(PostConstruct.class);
-            if (postConstructAnnotation != null) {
-                method.setAccessible(true);
-                try {
-                    method.invoke(target);
-                } catch (Exception ex) {
-                    throw new FlowException("Failed to invoke @PostConstruct method " + method, ex);
-                }
+        if (target == null) {
+            return;
+        }
+        for (PostConstructMethod method : InjectionPlan.forClass(target.getClass()).getPostConstructMethods()) {
+            try {
+                method.invoke(target);
+            } catch (Throwable ex) {
+                throw new FlowException("Failed to invoke @PostConstruct method " + method.getMethod(), ex);
             }
         }
     }
@@ -278,35 +251,6 @@ public class Injector {
     }
 
     public boolean hasInjections(Object bean) {
-        Class<?> targetClass = bean.getClass();
-        while (targetClass != null) {
-            Field[] fields = targetClass.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                In in = field.getAnnotation(In.class);
-                if (in == null) {
-                    in = field.getDeclaredAnnotation(In.class);
-                }
-
-                if (in != null) {
-                    return true;
-                }
-
-                InOut inOut = field.getAnnotation(InOut.class);
-                if (inOut == null) {
-                    inOut = field.getDeclaredAnnotation(InOut.class);
-                }
-
-                if (inOut != null) {
-                    return true;
-                }
-            }
-            targetClass = targetClass.getSuperclass();
-            if (targetClass == Object.class) {
-                targetClass = null;
-            }
-        }
-
-        return false;
+        return InjectionPlan.forClass(bean.getClass()).hasInjections();
     }
 }
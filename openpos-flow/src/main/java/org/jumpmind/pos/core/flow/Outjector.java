@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jumpmind.pos.core.flow.InjectionPlan.InjectedField;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -13,10 +14,13 @@ import org.springframework.stereotype.Component;
 public class Outjector {
 
     public void performOutjections(Object target, Scope scope, StateContext currentContext) {
-        
+        if (target == null || InjectionPlan.forClass(target.getClass()).getOutjections().isEmpty()) {
+            return;
+        }
+
         Map<String, OutjectedValue> outjectedValues = new HashMap<>();
         
-        Class<?> targetClass = target != null ? target.getClass() : null;
+        Class<?> targetClass = target.getClass();
         while (targetClass != null) {
             performOutjectionsImpl(targetClass, target, scope, currentContext, outjectedValues);
             targetClass = targetClass.getSuperclass();
@@ -27,19 +31,9 @@ public class Outjector {
     }
 
     protected void performOutjectionsImpl(Class<?> targetClass, Object target, Scope scope, StateContext currentContext, Map<String, OutjectedValue> outjectedValues) {
-        Field[] fields = targetClass.getDeclaredFields();
-
-        for (Field field : fields) {
-            field.setAccessible(true);
-            Out out = field.getAnnotation(Out.class);
-            if (out != null) {
-                outjectField(target, scope, currentContext, out.name(), out.scope(), out.required(), field, outjectedValues);
-            }
-            
-            InOut inOut = field.getAnnotation(InOut.class);
-            if (inOut != null) {
-                outjectField(target, scope, currentContext, inOut.name(), inOut.scope(), inOut.required(), field, outjectedValues);
-            }
+        for (InjectedField outjection : InjectionPlan.forClass(target.getClass()).getOutjections(targetClass)) {
+            outjectField(target, scope, currentContext, outjection.getName(), outjection.getScopeType(), outjection.isRequired(),
+                    outjection.getField(), outjectedValues);
         }
     }
 
@@ -50,7 +44,7 @@ public class Outjector {
         }
 
         try {
-            Object value = field.get(target);
+            Object value = InjectionPlan.forClass(target.getClass()).getAccessor(field).get(target);
             if (value == null && required) {
                 throw new FlowException("Required outjection " + name + " is null, but should be non-null for field " + field);
             }
@@ -69,7 +63,7 @@ public class Outjector {
                 default:
                     throw new FlowException("Invalid scope " + scopeType + " for out field " + field + " name " + name);
             }
-        } catch (Exception ex) {
+        } catch (Throwable ex) {
             if (ex instanceof FlowException) {
                 throw (FlowException) ex;
             } else {
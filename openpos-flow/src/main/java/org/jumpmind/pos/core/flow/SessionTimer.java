@@ -26,6 +26,7 @@ public class SessionTimer {
             throw new FlowException("stateManagerFactory cannot be null.");
         }
         log.trace("checking if StateManagers need to time out due to inactivity");
+        // a snapshot that is taken without locking, so devices that connect or disconnect are not held up by the sweep
         for (StateManager stateManager : stateManagerContainer.getAllStateManagers()) {
             stateManagerContainer.setCurrentStateManager(stateManager);
             stateManager.checkSessionTimeout();
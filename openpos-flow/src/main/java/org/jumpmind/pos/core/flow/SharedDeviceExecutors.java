@@ -0,0 +1,84 @@
+package org.jumpmind.pos.core.flow;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thread pools that every device shares.  The {@link StateManager} action loops run on the action executor, one
+ * turn at a time per device, and {@link AsyncExecutor} work runs on the async executor.  Both pools are bounded and
+ * let idle threads exit, so a server with many devices that are mostly idle only keeps a few threads around.
+ */
+@Component
+public class SharedDeviceExecutors {
+
+    private static SharedDeviceExecutors defaultExecutors;
+
+    /**
+     * The most device actions that run at the same time.  Actions that block, on a remote call for example, hold on
+     * to their thread until they return.
+     */
+    @Value("${openpos.general.stateManagerThreads:100}")
+    int stateManagerThreads = 100;
+
+    @Value("${openpos.general.asyncExecutorThreads:200}")
+    int asyncExecutorThreads = 200;
+
+    private ThreadPoolExecutor actionExecutor;
+
+    private ThreadPoolExecutor asyncExecutor;
+
+    @PostConstruct
+    public void init() {
+        actionExecutor = newPool("state-manager-", stateManagerThreads);
+        asyncExecutor = newPool("async-executor-task-", asyncExecutorThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        actionExecutor.shutdownNow();
+        asyncExecutor.shutdownNow();
+    }
+
+    public Executor getActionExecutor() {
+        return actionExecutor;
+    }
+
+    public ExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * @return the number of threads the pools currently hold
+     */
+    public int getThreadCount() {
+        return actionExecutor.getPoolSize() + asyncExecutor.getPoolSize();
+    }
+
+    /**
+     * @return the executors for state managers and async executors that were not created by Spring
+     */
+    static synchronized SharedDeviceExecutors getDefault() {
+        if (defaultExecutors == null) {
+            defaultExecutors = new SharedDeviceExecutors();
+            defaultExecutors.init();
+        }
+        return defaultExecutors;
+    }
+
+    private static ThreadPoolExecutor newPool(String threadNamePrefix, int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -1,11 +1,8 @@
 package org.jumpmind.pos.core.flow;
 
 import java.lang.reflect.Method;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.jumpmind.pos.server.model.Action;
 import org.springframework.stereotype.Component;
 
@@ -17,7 +14,13 @@ public class StateLifecycle {
         try {
             boolean arrivedInvoked = false;
             if (state instanceof IState) {
-                ((IState)state).arrive(action);
+                HandlerInvocation invocation = HandlerInvocation.enter(state,
+                        HandlerIndex.forClass(state.getClass()).getImplementation(HandlerIndex.STATE_ARRIVE));
+                try {
+                    ((IState)state).arrive(action);
+                } finally {
+                    HandlerInvocation.exit(invocation);
+                }
                 arrivedInvoked = true;
             }
             arrivedInvoked |= invokeArrive(stateManager, state, action);
@@ -39,43 +42,31 @@ public class StateLifecycle {
             return;
         }
 
-        List<Method> methods = MethodUtils.getMethodsListWithAnnotation(oldState.getClass(), OnDepart.class, true, true);
-        if (methods != null && !methods.isEmpty()) {
-            for (Method method : methods) {
-                OnDepart onDepart = method.getAnnotation(OnDepart.class);
-                if (enterSubState && onDepart.toSubflow()) {
-                    invokeLifecyleMethod(oldState, action, method);
-                } else if (!enterSubState && onDepart.toAnotherState() && oldState != newState) {                    
-                    invokeLifecyleMethod(oldState, action, method);
-                }
+        for (Method method : HandlerIndex.forClass(oldState.getClass()).getDepartMethods()) {
+            OnDepart onDepart = method.getAnnotation(OnDepart.class);
+            if (enterSubState && onDepart.toSubflow()) {
+                invokeLifecyleMethod(oldState, action, method);
+            } else if (!enterSubState && onDepart.toAnotherState() && oldState != newState) {                    
+                invokeLifecyleMethod(oldState, action, method);
             }
         }
     }
     
     protected boolean invokeArrive(StateManager stateManager, Object state, Action action) {
-        List<Method> methods = MethodUtils.getMethodsListWithAnnotation(state.getClass(), OnArrive.class, true, true);
-        boolean arrivedCalled = false;
-        Set<String> called = new HashSet<>();
-        if (methods != null && !methods.isEmpty()) {
-            for (Method method : methods) {
-                if (!called.contains(method.getName())) {
-                    invokeLifecyleMethod(state, action, method);
-                    called.add(method.getName());
-                    arrivedCalled = true;
-                }
-            }
+        List<Method> methods = HandlerIndex.forClass(state.getClass()).getArriveMethods();
+        for (Method method : methods) {
+            invokeLifecyleMethod(state, action, method);
         }
 
-        return arrivedCalled;
+        return !methods.isEmpty();
     }    
 
     protected void invokeLifecyleMethod(Object state, Action action, Method method) {
         try {
-            method.setAccessible(true);
-            if (method.getParameters() != null && method.getParameters().length == 1) {                        
-                method.invoke(state, action);
+            if (method.getParameterCount() == 1) {
+                HandlerIndex.invoke(method, state, action);
             } else {
-                method.invoke(state);
+                HandlerIndex.invoke(method, state);
             }
         } catch (Exception ex) {
             throw new FlowException("Failed to execute method on state. Method: " + method + " state: " + state, ex);
@@ -21,10 +21,8 @@ package org.jumpmind.pos.core.flow;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.map.UnmodifiableMap;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.jumpmind.pos.core.clientconfiguration.ClientConfigChangedMessage;
 import org.jumpmind.pos.core.clientconfiguration.IClientConfigSelector;
 import org.jumpmind.pos.core.error.IErrorHandler;
@@ -63,7 +61,7 @@ import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -128,6 +126,19 @@ public class StateManager implements IStateManager {
     @Value("${openpos.general.failOnUnmatchedAction:false}")
     boolean failOnUnmatchedAction;
 
+    /**
+     * Re-inject every device scoped bean on every refresh, even when none of the values it is injected with changed
+     */
+    @Value("${openpos.general.strictDeviceScopeRefresh:false}")
+    boolean strictDeviceScopeRefresh;
+
+    /**
+     * Capture the stack trace of every action posted from the state manager thread, which is how the state or global
+     * action handler that posted an action used to be found.  Only useful when debugging action forwarding.
+     */
+    @Value("${openpos.general.captureActionStackTraces:false}")
+    boolean captureActionStackTraces;
+
     @Autowired
     ScheduledAnnotationBeanPostProcessor scheduledAnnotationBeanPostProcessor;
 
@@ -137,8 +148,22 @@ public class StateManager implements IStateManager {
     @Autowired
     ClientContext clientContext;
 
+    @Autowired(required = false)
+    SharedDeviceExecutors sharedDeviceExecutors;
+
     ApplicationState applicationState = new ApplicationState();
 
+    /**
+     * The values each device scoped bean was last injected with, by bean name
+     */
+    Map<String, DeviceBeanInjection> deviceBeanInjections = new HashMap<>();
+
+    @Getter
+    long deviceScopeInjectionCount;
+
+    @Getter
+    long deviceScopeInjectionsSkippedCount;
+
     List<TransitionStepConfig> transitionStepConfigs;
 
     FlowConfig initialFlowConfig;
@@ -191,6 +216,7 @@ public class StateManager implements IStateManager {
         if (!offered) {
             log.warn("StateManager failed to insert reset action into the queue");
         }
+        scheduleActionLoop();
     }
 
     @Override
@@ -201,6 +227,7 @@ public class StateManager implements IStateManager {
         if (!offered) {
             log.warn("StateManager failed to insert stop action into the queue");
         }
+        scheduleActionLoop();
     }
 
     @Override
@@ -244,83 +271,168 @@ public class StateManager implements IStateManager {
     }
 
     protected void startActionLoop(final String startupAction, final StateConfig initialState) {
-        String threadName = "StateManagerThread" + threadCounter.incrementAndGet() + "(" + applicationState.getAppId() + ":" + applicationState.getDeviceId() + ")";
-        Thread stateManagerThread = new Thread(threadName) {
-            public void run() {
-                try {
-                    stateManagerContainer.setCurrentStateManager(StateManager.this);
-                    initClientContext();  // Init ClientContext threadLocal properties for this thread
-                    transitionTo(new Action(startupAction), initialState);
-                    runningFlag.set(true);
-                    actionLoop();
-                } catch (Throwable ex) {
-                    log.error("Unhandled exception from StateManager thread. StateManagerThread exiting.", ex);
-                }
-
+        actionLoopThreadName = "StateManagerThread" + threadCounter.incrementAndGet() + "(" + applicationState.getAppId() + ":" + applicationState.getDeviceId() + ")";
+        actionLoopGeneration.incrementAndGet();
+        clientContextProperties = null;
+        log.info("Starting stateManager action loop: " + actionLoopThreadName);
+        actionLoopScheduled.set(true);
+        runActionLoopTurn(() -> {
+            try {
+                transitionTo(new Action(startupAction), initialState);
+                runningFlag.set(true);
+            } catch (Throwable ex) {
+                log.error("Unhandled exception from StateManager thread. StateManager action loop exiting.", ex);
+                actionLoopScheduled.set(false);
+                return;
             }
-        };
-
-        stateManagerThread.setDaemon(true);
-        log.info("Starting stateManager thread: " + threadName);
-        stateManagerThread.start();
+            actionLoop();
+        });
     }
 
     BlockingQueue<ActionContext> actionQueue = new LinkedBlockingQueue<ActionContext>();
 
+    /**
+     * True while a turn of this device's action loop is queued or running.  Only one turn runs at a time, which keeps
+     * the actions of a device serial and in the order they were queued.
+     */
+    final AtomicBoolean actionLoopScheduled = new AtomicBoolean(false);
+
+    /**
+     * The most actions a turn runs before it lets the other devices waiting on the action executor have a turn
+     */
+    static final int MAX_ACTIONS_PER_TURN = 50;
+
+    /**
+     * The state manager whose action loop is running on the current thread
+     */
+    static final ThreadLocal<StateManager> actionLoopStateManager = new ThreadLocal<>();
+
+    String actionLoopThreadName;
+
+    /**
+     * Counts the action loops that were started, so the turn that reset the state manager does not hand its client
+     * context to the new action loop
+     */
+    final AtomicInteger actionLoopGeneration = new AtomicInteger();
+
+    /**
+     * The client context properties of the action loop, kept between turns because each turn can run on a different
+     * thread
+     */
+    volatile Map<String, String> clientContextProperties;
+
+    protected void scheduleActionLoop() {
+        if (runningFlag.get() && actionLoopScheduled.compareAndSet(false, true)) {
+            runActionLoopTurn(this::actionLoop);
+        }
+    }
+
+    protected void runActionLoopTurn(Runnable turn) {
+        try {
+            getSharedDeviceExecutors().getActionExecutor().execute(() -> {
+                Thread thread = Thread.currentThread();
+                String threadName = thread.getName();
+                int generation = actionLoopGeneration.get();
+                thread.setName(actionLoopThreadName);
+                actionLoopStateManager.set(this);
+                stateManagerContainer.setCurrentStateManager(this);
+                if (clientContextProperties == null) {
+                    clientContext.clear();
+                    initClientContext();  // Init ClientContext threadLocal properties for this action loop
+                } else {
+                    clientContext.restore(clientContextProperties);
+                }
+                try {
+                    turn.run();
+                } finally {
+                    if (generation == actionLoopGeneration.get()) {
+                        clientContextProperties = clientContext.capture();
+                    }
+                    clientContext.clear();
+                    stateManagerContainer.setCurrentStateManager(null);
+                    actionLoopStateManager.remove();
+                    thread.setName(threadName);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            actionLoopScheduled.set(false);
+            log.warn("The StateManager action loop could not be scheduled", ex);
+        }
+    }
+
+    /**
+     * Runs the queued actions until the queue is empty or the state manager is reset or stopped.  After
+     * {@link #MAX_ACTIONS_PER_TURN} actions the rest of the queue is left to a new turn.
+     */
     protected void actionLoop() {
+        int actionCount = 0;
         while (runningFlag.get()) {
-            ActionContext actionContext = null;
+            if (actionCount++ == MAX_ACTIONS_PER_TURN) {
+                runActionLoopTurn(this::actionLoop);
+                return;
+            }
+
+            ActionContext actionContext = actionQueue.poll();
+            if (actionContext == null) {
+                actionLoopScheduled.set(false);
+                // an action queued after the poll but before the turn ended could not schedule a turn of its own
+                if (actionQueue.isEmpty() || !actionLoopScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
             try {
-                actionContext = actionQueue.poll(60, TimeUnit.SECONDS);
-                if (actionContext != null) {
-                    // an action may originally come from a device but then get forwarded back through here from a state.
-                    // we only want to know that it originated from the screen/device the first time it came through.
-                    actionContext.getAction().setOriginatesFromDeviceFlag(false);
-                    busyFlag.set(true);
-                    if (actionContext.getAction().getName().equals(STATE_MANAGER_RESET_ACTION)) {
-                        final Scope initialScope = actionContext.getAction().getData();
-
-                        log.info("StateManager reset queued");
-                        actionContext.getAction().markProcessed();
-                        runningFlag.set(false);
-                        busyFlag.set(false);
-                        init(getDevice(), initialScope);
-                        log.info("StateManager reset");
-                        this.eventPublisher.publish(new DeviceResetEvent(getDevice().getDeviceId(), getDevice().getAppId()));
-                        break;
-                    } else if (actionContext.getAction().getName().equals(STATE_MANAGER_STOP_ACTION)) {
-                        actionContext.getAction().markProcessed();
-                        runningFlag.set(false);
-                        busyFlag.set(false);
-                        log.info("StateManager stopped");
-                        break;
-                    } else if (actionContext.getAction().getName().equals(STATE_MANAGER_PROCESS_EVENT_ACTION)) {
-                        processEvent(actionContext.getAction().getData());
-                        actionContext.getAction().markProcessed();
-                    } else {
-                        processAction(actionContext);
-                        actionContext.getAction().markProcessed();
-                    }
-                    if (actionQueue.size() == 0) {
-                        busyFlag.set(false);
-                    }
+                // an action may originally come from a device but then get forwarded back through here from a state.
+                // we only want to know that it originated from the screen/device the first time it came through.
+                actionContext.getAction().setOriginatesFromDeviceFlag(false);
+                busyFlag.set(true);
+                if (actionContext.getAction().getName().equals(STATE_MANAGER_RESET_ACTION)) {
+                    final Scope initialScope = actionContext.getAction().getData();
+
+                    log.info("StateManager reset queued");
+                    actionContext.getAction().markProcessed();
+                    runningFlag.set(false);
+                    busyFlag.set(false);
+                    // init starts a new action loop, which takes over this one's turn
+                    init(getDevice(), initialScope);
+                    log.info("StateManager reset");
+                    this.eventPublisher.publish(new DeviceResetEvent(getDevice().getDeviceId(), getDevice().getAppId()));
+                    break;
+                } else if (actionContext.getAction().getName().equals(STATE_MANAGER_STOP_ACTION)) {
+                    actionContext.getAction().markProcessed();
+                    runningFlag.set(false);
+                    busyFlag.set(false);
+                    actionLoopScheduled.set(false);
+                    log.info("StateManager stopped");
+                    break;
+                } else if (actionContext.getAction().getName().equals(STATE_MANAGER_PROCESS_EVENT_ACTION)) {
+                    processEvent(actionContext.getAction().getData());
+                    actionContext.getAction().markProcessed();
+                } else {
+                    processAction(actionContext);
+                    actionContext.getAction().markProcessed();
+                }
+                if (actionQueue.size() == 0) {
+                    busyFlag.set(false);
                 }
-            } catch (InterruptedException ex) {
-                log.warn("StateManager thread was interrupted, exiting.", ex);
-                busyFlag.set(false);
-                runningFlag.set(false);
             } catch (Throwable ex) {
                 busyFlag.set(false);
                 handleOrRaiseException(ex);
             } finally {
-                if (actionContext != null) {
-                    actionContext.getAction().markProcessed();
-                }
+                actionContext.getAction().markProcessed();
             }
         }
         log.info("State action actionLoop is exiting.");
     }
 
+    SharedDeviceExecutors getSharedDeviceExecutors() {
+        if (sharedDeviceExecutors == null) {
+            sharedDeviceExecutors = SharedDeviceExecutors.getDefault();
+        }
+        return sharedDeviceExecutors;
+    }
+
     public void sendDataClearMessage() {
         String deviceId = applicationState.getDeviceId();
         messageService.sendMessage(deviceId, new DataClearMessage());
@@ -456,25 +568,81 @@ public class StateManager implements IStateManager {
         this.log.trace("Injections completed on {}.", stateOrStep.getClass().getName());
     }
 
+    /**
+     * Outjects every device scoped bean and injects it again if any of the values it is injected with have been
+     * replaced since it was last injected.  A bean whose values are all the same instances is left alone, which
+     * also means its {@link javax.annotation.PostConstruct} methods are not run again.  Set
+     * <code>openpos.general.strictDeviceScopeRefresh</code> to inject every bean on every refresh.
+     */
     protected void refreshDeviceScope() {
-        for (String name : new HashSet<>(applicationState.getScope().getDeviceScope().keySet())) {
+        Scope scope = applicationState.getScope();
+        Set<String> names = new HashSet<>(scope.getDeviceScope().keySet());
+        deviceBeanInjections.keySet().retainAll(names);
+        for (String name : names) {
             if (!shouldWireDeviceBeanNamed(name)) {
                 continue;
             }
             Object value = applicationState.getScopeValue(ScopeType.Device, name);
             if (value == null || !shouldWireDeviceBean(value)) {
+                deviceBeanInjections.remove(name);
                 continue;
             }
 
             performOutjections(value);
+            DeviceBeanInjection lastInjection = deviceBeanInjections.get(name);
+            if (!strictDeviceScopeRefresh && lastInjection != null && lastInjection.bean == value
+                    && sameValues(lastInjection.values, injector.lookupInjectionValues(value, scope, applicationState.getCurrentContext()))) {
+                deviceScopeInjectionsSkippedCount++;
+                continue;
+            }
+
             if (DeviceScope.isDeviceScope(name)) {
                 performInjectionsOnSpringBean(value);
             } else {
-                injector.performInjections(value, applicationState.getScope(), applicationState.getCurrentContext());
+                injector.performInjections(value, scope, applicationState.getCurrentContext());
+            }
+            deviceScopeInjectionCount++;
+            if (!strictDeviceScopeRefresh) {
+                deviceBeanInjections.put(name,
+                        new DeviceBeanInjection(value, injector.lookupInjectionValues(value, scope, applicationState.getCurrentContext())));
             }
         }
     }
 
+    /**
+     * Values are compared by identity, except for strings and boxed primitives, which are compared by value because
+     * outjecting a primitive field boxes it into a new instance every time
+     */
+    private static boolean sameValues(Object[] lastValues, Object[] values) {
+        if (lastValues.length != values.length) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            Object last = lastValues[i];
+            Object value = values[i];
+            if (last != value && !(isImmutableValue(last) && last.equals(value))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isImmutableValue(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Character
+                || value instanceof Byte || value instanceof Short || value instanceof Integer
+                || value instanceof Long || value instanceof Float || value instanceof Double;
+    }
+
+    static final class DeviceBeanInjection {
+        final Object bean;
+        final Object[] values;
+
+        DeviceBeanInjection(Object bean, Object[] values) {
+            this.bean = bean;
+            this.values = values;
+        }
+    }
+
     protected boolean shouldWireDeviceBean(Object value) {
         Class<?> clazz = value.getClass();
         if (ClassUtils.isSimpleType(clazz)
@@ -643,13 +811,12 @@ public class StateManager implements IStateManager {
         if (currentState != null) {
             Class<?> clazz = currentState.getClass();
 
-            List<Method> methods = MethodUtils.getMethodsListWithAnnotation(clazz, OnRefresh.class, true, true);
+            List<Method> methods = HandlerIndex.forClass(clazz).getRefreshMethods();
 
             if (!methods.isEmpty()) {
                 methods.forEach(m -> {
-                    m.setAccessible(true);
                     try {
-                        m.invoke(getCurrentState());
+                        HandlerIndex.invoke(m, getCurrentState());
                     } catch (Exception ex) {
                         if (errorHandler != null) {
                             errorHandler.handleError(this, ex);
@@ -699,7 +866,10 @@ public class StateManager implements IStateManager {
 
         ActionContext actionContext = null;
         if (isOnStateManagerThread()) {
-            actionContext = new ActionContext(action, Thread.currentThread().getStackTrace());
+            actionContext = new ActionContext(action, HandlerInvocation.current());
+            if (captureActionStackTraces) {
+                actionContext.setStackTrace(Thread.currentThread().getStackTrace());
+            }
         } else {
             actionContext = new ActionContext(action);
         }
@@ -710,6 +880,7 @@ public class StateManager implements IStateManager {
         if (!offered) {
             log.warn("StateManager failed to insert action {} into the queue", action);
         }
+        scheduleActionLoop();
     }
 
     private boolean validateAction(Action action) {
@@ -731,7 +902,7 @@ public class StateManager implements IStateManager {
 
 
     boolean isOnStateManagerThread() {
-        return Thread.currentThread().getName().startsWith("StateManager");
+        return actionLoopStateManager.get() != null;
     }
 
     protected void processAction(ActionContext actionContext) {
@@ -859,16 +1030,14 @@ public class StateManager implements IStateManager {
 
     protected boolean isState(Class<?> stateOrActionHandler) {
         if (stateOrActionHandler != null) {
-            List<Method> arriveMethods = MethodUtils.getMethodsListWithAnnotation(stateOrActionHandler, OnArrive.class, true, true);
-            return CollectionUtils.isNotEmpty(arriveMethods);
+            return !HandlerIndex.forClass(stateOrActionHandler).getArriveMethods().isEmpty();
         }
         return false;
     }
 
     protected boolean isActionHandler(Class<?> stateOrActionHandler) {
         if (stateOrActionHandler != null) {
-            List<Method> globalMethods = MethodUtils.getMethodsListWithAnnotation(stateOrActionHandler, OnGlobalAction.class);
-            return CollectionUtils.isNotEmpty(globalMethods);
+            return HandlerIndex.forClass(stateOrActionHandler).hasPublicGlobalActionMethods();
         }
         return false;
     }
@@ -887,11 +1056,7 @@ public class StateManager implements IStateManager {
             throw new FlowException("Failed to execute global action handler: " + globalActionHandler, ex);
         }
         performInjections(actionHandler);
-        List<Method> globalMethods = MethodUtils.getMethodsListWithAnnotation(globalActionHandler, OnGlobalAction.class)
-                .stream()
-                .filter(method -> method.getName().equals("on" + action.getName()))
-                .collect(Collectors.toList());
-        for (Method method : globalMethods) {
+        for (Method method : HandlerIndex.forClass(globalActionHandler).getGlobalActionMethods(action.getName())) {
             invokeGlobalAction(action, method, actionHandler);
         }
     }
@@ -900,7 +1065,7 @@ public class StateManager implements IStateManager {
         StackTraceElement[] stackTrace = actionContext.getStackTrace();
 
         if (stackTrace == null) {
-            return false;
+            return isCalledFromGlobalActionHandler(handler, actionContext.getCaller());
         }
 
         if (stackTrace.length > 150) {
@@ -920,12 +1085,27 @@ public class StateManager implements IStateManager {
         return false;
     }
 
+    private boolean isCalledFromGlobalActionHandler(Object handler, HandlerInvocation caller) {
+        ActionHandlerHelper.checkHandlerDepth(handler, caller);
+
+        for (HandlerInvocation invocation = caller; invocation != null; invocation = invocation.getCaller()) {
+            Class<?> currentClass = invocation.getDeclaringClass();
+            if (!Modifier.isAbstract(currentClass.getModifiers()) && FlowUtil.isGlobalActionHandler(currentClass)) {
+                return false;
+            } else if (currentClass.equals(handler)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     protected void invokeGlobalAction(Action action, Method method, Object actionHandler) {
         try {
-            if (method.getParameters() != null && method.getParameters().length == 1) {
-                method.invoke(actionHandler, action);
+            if (method.getParameterCount() == 1) {
+                HandlerIndex.invoke(method, actionHandler, action);
             } else {
-                method.invoke(actionHandler);
+                HandlerIndex.invoke(method, actionHandler);
             }
         } catch (Exception ex) {
             throw new FlowException("Failed to execute global action handler. Method: " + method + " actionHandler: " + actionHandler, ex);
@@ -1058,6 +1238,7 @@ public class StateManager implements IStateManager {
             Object value = applicationState.getScopeValue(ScopeType.Device, name);
             injector.resetInjections(value, scopeType);
         }
+        deviceBeanInjections.clear();
     }
 
     @Override
@@ -1280,6 +1461,7 @@ public class StateManager implements IStateManager {
         if (!offered) {
             log.warn("StateManager failed to insert process event action into the queue");
         }
+        scheduleActionLoop();
     }
 
 }
@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.jumpmind.pos.util.AppUtils.setupLogging;
@@ -48,7 +49,18 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 @Component
 @Slf4j
 public class StateManagerContainer implements IStateManagerContainer, ApplicationListener<Event> {
-    private final Map<String, StateManager> stateManagersByDeviceId = new HashMap<>();
+    /**
+     * Looked up for every message to and from every device, so reads do not lock.  Creating and removing state
+     * managers is rare and is synchronized on the container, which keeps it to one state manager per device.  A state
+     * manager is only put in here once {@link StateManager#init(Device)} returned.
+     */
+    private final Map<String, StateManager> stateManagersByDeviceId = new ConcurrentHashMap<>();
+    /**
+     * The state managers that are being initialized.  Only the thread that initializes them, which holds the lock on
+     * the container, gets them from here; other threads wait for the lock until they are in
+     * {@link #stateManagersByDeviceId}.
+     */
+    private final Map<String, StateManager> initializingStateManagersByDeviceId = new ConcurrentHashMap<>();
     private final ThreadLocal<IStateManager> currentStateManager = new InheritableThreadLocal<>();
 
     @Autowired
@@ -69,8 +81,14 @@ public class StateManagerContainer implements IStateManagerContainer, Applicatio
     private Map<String,String> versions;
 
     @Override
-    public synchronized IStateManager retrieve(String deviceId, boolean forUseAsDevice) {
-        IStateManager stateManager = stateManagersByDeviceId.get(deviceId);
+    public IStateManager retrieve(String deviceId, boolean forUseAsDevice) {
+        IStateManager stateManager = null;
+        if (deviceId != null) {
+            stateManager = stateManagersByDeviceId.get(deviceId);
+            if (stateManager == null) {
+                stateManager = initializingStateManagersByDeviceId.containsKey(deviceId) ? retrieveInitializing(deviceId) : stateManagersByDeviceId.get(deviceId);
+            }
+        }
         if (forUseAsDevice) {
             setCurrentStateManager(stateManager);
         }
@@ -78,8 +96,33 @@ public class StateManagerContainer implements IStateManagerContainer, Applicatio
     }
 
     @Override
-    public synchronized IStateManager create(String appId, String deviceId, Map<String, Object> queryParams, Map<String, String> personalizationProperties) {
+    public IStateManager create(String appId, String deviceId, Map<String, Object> queryParams, Map<String, String> personalizationProperties) {
         StateManager stateManager = stateManagersByDeviceId.get(deviceId);
+        if (stateManager == null) {
+            stateManager = createIfAbsent(appId, deviceId, queryParams, personalizationProperties);
+        }
+        return stateManager;
+    }
+
+    /**
+     * Waits for a state manager that is being initialized.  The thread that initializes it already holds the lock, so
+     * the flow it starts gets the state manager right away.
+     */
+    private synchronized StateManager retrieveInitializing(String deviceId) {
+        StateManager stateManager = stateManagersByDeviceId.get(deviceId);
+        return stateManager != null ? stateManager : initializingStateManagersByDeviceId.get(deviceId);
+    }
+
+    /**
+     * The state manager is registered as initializing before it is initialized, so the flow it starts can already
+     * retrieve it on this thread.  That is why this checks again under the lock instead of using
+     * {@link ConcurrentHashMap#computeIfAbsent}, which would not let the flow retrieve it at all.
+     */
+    private synchronized StateManager createIfAbsent(String appId, String deviceId, Map<String, Object> queryParams, Map<String, String> personalizationProperties) {
+        StateManager stateManager = stateManagersByDeviceId.get(deviceId);
+        if (stateManager == null) {
+            stateManager = initializingStateManagersByDeviceId.get(deviceId);
+        }
         if (stateManager == null) {
             stateManager = applicationContext.getBean(StateManager.class);
             clientContext.put("deviceId", deviceId);
@@ -95,8 +138,15 @@ public class StateManagerContainer implements IStateManagerContainer, Applicatio
             stateManager.registerPersonalizationProperties(personalizationProperties);
             stateManager.setErrorHandler(errorHandler);
             stateManager.setInitialFlowConfig(flowConfigProvider.getConfig(appId, deviceId));
-            stateManagersByDeviceId.put(deviceId, stateManager);
-            stateManager.init(new Device(appId, deviceId));
+            initializingStateManagersByDeviceId.put(deviceId, stateManager);
+            try {
+                stateManager.init(new Device(appId, deviceId));
+                if (initializingStateManagersByDeviceId.get(deviceId) == stateManager) {
+                    stateManagersByDeviceId.put(deviceId, stateManager);
+                }
+            } finally {
+                initializingStateManagersByDeviceId.remove(deviceId);
+            }
         }
         return stateManager;
     }
@@ -171,13 +221,18 @@ public class StateManagerContainer implements IStateManagerContainer, Applicatio
 
     @Override
     public synchronized void remove(String deviceId) {
+        initializingStateManagersByDeviceId.remove(deviceId);
         IStateManager stateManager = stateManagersByDeviceId.remove(deviceId);
         if (stateManager != null) {
             stateManager.stop();
         }
     }
 
-    public synchronized List<StateManager> getAllStateManagers() {
+    /**
+     * @return a snapshot of the state managers.  It does not lock, so state managers that are created or removed
+     * while it is taken may or may not be in it.
+     */
+    public List<StateManager> getAllStateManagers() {
         return new ArrayList<>(stateManagersByDeviceId.values());
     }
 
@@ -225,7 +280,7 @@ public class StateManagerContainer implements IStateManagerContainer, Applicatio
 
     @Override
     public void onApplicationEvent(Event event) {
-        for (StateManager stateManager : new ArrayList<>(stateManagersByDeviceId.values())) {
+        for (StateManager stateManager : getAllStateManagers()) {
             stateManager.onEvent(event);
         }
     }
@@ -99,7 +99,14 @@ public class Transition {
             if (stateManager.getStateManagerObservers() != null) {
                 stateManager.getStateManagerObservers().onTransition(stateManager.getApplicationState(), this, currentTransitionStep.get());
             }
-            currentTransitionStep.get().arrive(this); // This could come right recurse right back in on same thread or return after showing a screen.
+            ITransitionStep step = currentTransitionStep.get();
+            HandlerInvocation invocation = HandlerInvocation.enter(step,
+                    HandlerIndex.forClass(step.getClass()).getImplementation(HandlerIndex.TRANSITION_STEP_ARRIVE));
+            try {
+                step.arrive(this); // This could come right recurse right back in on same thread or return after showing a screen.
+            } finally {
+                HandlerInvocation.exit(invocation);
+            }
         } else {
             if (log.isDebugEnabled()) {                
                 log.debug("TransitionStep" + currentTransitionStep.get() + " was not applicable.");
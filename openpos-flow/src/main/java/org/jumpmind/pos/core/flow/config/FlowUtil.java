@@ -25,11 +25,10 @@ import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.reflect.MethodUtils;
+import org.jumpmind.pos.core.flow.HandlerIndex;
 import org.jumpmind.pos.core.flow.IState;
 import org.jumpmind.pos.core.flow.ITransitionStep;
-import org.jumpmind.pos.core.flow.OnArrive;
 import org.jumpmind.pos.util.event.OnEvent;
-import org.jumpmind.pos.core.flow.OnGlobalAction;
 
 @Slf4j
 public class FlowUtil {
@@ -41,8 +40,7 @@ public class FlowUtil {
 
     public static boolean isState(Class<?> clazz) {
         try {
-            List<Method> methods = MethodUtils.getMethodsListWithAnnotation(clazz, OnArrive.class, true, true);
-            if ((IState.class.isAssignableFrom(clazz) || clazz.isAssignableFrom(IState.class)) || (methods != null && !methods.isEmpty())
+            if ((IState.class.isAssignableFrom(clazz) || clazz.isAssignableFrom(IState.class)) || !HandlerIndex.forClass(clazz).getArriveMethods().isEmpty()
                     || ITransitionStep.class.isAssignableFrom(clazz) || clazz.isAssignableFrom(ITransitionStep.class)) {
                 return true;
             } else {
@@ -68,12 +66,7 @@ public class FlowUtil {
 
     public static boolean isGlobalActionHandler(Class<? extends Object> clazz) {
         try {
-            List<Method> methods = MethodUtils.getMethodsListWithAnnotation(clazz, OnGlobalAction.class, true, true);
-            if (methods != null && !methods.isEmpty()) {
-                return true;
-            } else {
-                return false;
-            }
+            return HandlerIndex.forClass(clazz).isGlobalActionHandler();
         } catch (Throwable ex) {
             log.debug("Failed to check isGlobalActionHandler on clazz " + clazz, ex);
             return false;
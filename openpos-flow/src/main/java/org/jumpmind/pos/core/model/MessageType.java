@@ -14,6 +14,7 @@ public final class MessageType {
     public static final String ConfigChanged = "ConfigChanged";
     public static final String Proxy = "Proxy";
     public static final String UIData = "UIData";
+    public static final String ScreenPatch = "ScreenPatch";
     public static final String LocaleChanged = "LocaleChanged";
     public static final String Connected = "Connected";
     public static final String SingleSignOnRequest = "SingleSignOnRequest";
@@ -1,23 +1,45 @@
 package org.jumpmind.pos.core.screeninterceptor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
+import org.joda.money.Money;
 import org.jumpmind.pos.core.flow.IMessageInterceptor;
 import org.jumpmind.pos.util.ClassUtils;
 import org.jumpmind.pos.util.model.Message;
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/**
+ * Walks every field of a message, and of the objects, collections, maps and string arrays it holds, and replaces each
+ * value with the result of running the {@link IMessagePropertyStrategy strategies} on it.
+ * <p>
+ * The fields of each class are looked up once and kept in a {@link CrawlPlan}, in a {@link ClassValue} so the plan does
+ * not keep the class loader of a class that is no longer used from being collected.  Strategies are only run on values a
+ * strategy does not {@link IMessagePropertyStrategy#ignoresType(Class) ignore}, fields of types that cannot hold
+ * anything to crawl into are not followed, and a field is only written when a strategy returned a different value.
+ */
 @Slf4j
 public abstract class AbstractMessagePropertyCrawlerInterceptor<T extends Message> implements IMessageInterceptor<T> {
 
     private static final Set<Class<?>> WRAPPER_TYPES = getWrapperTypes();
 
+    private static final ClassValue<CrawlPlan> plans = new ClassValue<CrawlPlan>() {
+        @Override
+        protected CrawlPlan computeValue(Class<?> type) {
+            return new CrawlPlan(type);
+        }
+    };
+
+    private volatile StrategySelector<T> strategySelector;
+
     public static boolean isWrapperType(Class<?> clazz) {
         return WRAPPER_TYPES.contains(clazz);
     }
@@ -42,65 +64,77 @@ public abstract class AbstractMessagePropertyCrawlerInterceptor<T extends Messag
     @Override
     public void intercept(String deviceId, T message) {
         Map<String, Object> messageContext = new HashMap<>();
-        processFields(deviceId, message, message, messageContext);
+        processFields(deviceId, message, message, messageContext, getStrategySelector());
     }
 
-    private final void processFields(String deviceId, Object obj, T message, Map<String, Object> messageContext) {
-        Class<?> clazz = obj.getClass();
-        if (ClassUtils.isSimpleType(clazz)) {
-            return;
+    /**
+     * @return the strategies to run for each type, rebuilt whenever the list of strategies changes
+     */
+    private StrategySelector<T> getStrategySelector() {
+        List<IMessagePropertyStrategy<T>> strategies = getMessagePropertyStrategies();
+        StrategySelector<T> selector = this.strategySelector;
+        if (selector == null || !selector.isFor(strategies)) {
+            selector = new StrategySelector<>(strategies);
+            this.strategySelector = selector;
         }
+        return selector;
+    }
 
-        while (clazz != null && obj != null) {
-            Field[] fields = clazz.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Class<?> type = field.getType();
-                try {
-                    Object value = field.get(obj);
+    private final void processFields(String deviceId, Object obj, T message, Map<String, Object> messageContext, StrategySelector<T> selector) {
+        for (CrawledField field : plans.get(obj.getClass()).fields) {
+            field.checkAccessible();
+            try {
+                Object value = field.get(obj);
 
-                    try {
-                        if (!Modifier.isFinal(field.getModifiers())) {
-                            field.set(obj, doStrategies(deviceId, field, obj, message, messageContext));
+                if (field.writable) {
+                    List<IMessagePropertyStrategy<T>> strategies = selector.getStrategies(field.strategyType);
+                    if (!strategies.isEmpty()) {
+                        try {
+                            Object newValue = doStrategies(deviceId, value, value != null ? value.getClass() : field.type, message, messageContext, strategies);
+                            if (newValue != value) {
+                                field.set(obj, newValue);
+                            }
+                        } catch (IllegalArgumentException | IllegalAccessException e) {
+                            log.error("Failed to set property value", e);
                         }
-                    } catch (IllegalArgumentException | IllegalAccessException e) {
-                        log.error("Failed to set property value", e);
                     }
+                }
 
-                    if (!processCollections(deviceId, value, message, messageContext) && shouldProcess(field) && shouldProcess(type)) {
-
-                        if (value != null) {
-                            processFields(deviceId, value, message, messageContext);
-                        }
+                if (field.crawlable && !processCollections(deviceId, value, message, messageContext, selector) && field.followable) {
 
+                    if (value != null) {
+                        processFields(deviceId, value, message, messageContext, selector);
                     }
 
-                } catch (Exception e) {
-                    log.warn("", e);
                 }
+
+            } catch (Exception e) {
+                log.warn("", e);
             }
-            clazz = clazz.getSuperclass();
         }
 
     }
 
-    private boolean processCollections(String deviceId, Object value, T message, Map<String, Object> messageContext) {
+    private boolean processCollections(String deviceId, Object value, T message, Map<String, Object> messageContext, StrategySelector<T> selector) {
         if (value instanceof List<?>) {
             @SuppressWarnings("unchecked")
             List<Object> list = (List<Object>) value;
             for (int i = 0; i < list.size(); i++) {
                 Object fieldObj = list.get(i);
                 if (fieldObj != null) {
-                    try {
-                        list.set(i, doStrategies(deviceId, fieldObj, fieldObj.getClass(), message, messageContext));
-                    } catch (UnsupportedOperationException ex) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Can't modify list " + list, ex);
+                    Object newValue = doStrategies(deviceId, fieldObj, message, messageContext, selector);
+                    if (newValue != fieldObj) {
+                        try {
+                            list.set(i, newValue);
+                        } catch (UnsupportedOperationException ex) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Can't modify list " + list, ex);
+                            }
                         }
                     }
 
-                    if (!processCollections(deviceId, fieldObj, message, messageContext) && shouldProcess(fieldObj.getClass())) {
-                        processFields(deviceId, fieldObj, message, messageContext);
+                    if (!processCollections(deviceId, fieldObj, message, messageContext, selector) && shouldProcess(fieldObj.getClass())) {
+                        processFields(deviceId, fieldObj, message, messageContext, selector);
                     }
                 }
             }
@@ -111,17 +145,21 @@ public abstract class AbstractMessagePropertyCrawlerInterceptor<T extends Messag
             Iterator<?> i = collection.iterator();
             while (i.hasNext()) {
                 Object fieldObj = i.next();
-                if (fieldObj != null && !processCollections(deviceId, fieldObj, message, messageContext)
+                if (fieldObj != null && !processCollections(deviceId, fieldObj, message, messageContext, selector)
                         && shouldProcess(fieldObj.getClass())) {
-                    processFields(deviceId, fieldObj, message, messageContext);
+                    processFields(deviceId, fieldObj, message, messageContext, selector);
                 }
             }
             return true;
         } else if (value != null && value.getClass().isArray() && value.getClass().getComponentType().equals(String.class)) { // Array of Strings
-            for (int i = 0; i < Array.getLength(value); i++) {
-                Object arrayElem = Array.get(value, i);
+            String[] array = (String[]) value;
+            for (int i = 0; i < array.length; i++) {
+                String arrayElem = array[i];
                 if (arrayElem != null) {
-                    Array.set(value, i, doStrategies(deviceId, arrayElem, arrayElem.getClass(), message, messageContext));
+                    Object newValue = doStrategies(deviceId, arrayElem, message, messageContext, selector);
+                    if (newValue != arrayElem) {
+                        Array.set(value, i, newValue);
+                    }
                 }
             }
             return true;
@@ -131,10 +169,13 @@ public abstract class AbstractMessagePropertyCrawlerInterceptor<T extends Messag
             for (Entry<Object, Object> entry : map.entrySet()) {
                 Object entryValue = entry.getValue();
                 if (entryValue != null) {
-                    entry.setValue(doStrategies(deviceId, entryValue, entryValue.getClass(), message, messageContext));
-                    if (entryValue != null && !processCollections(deviceId, entryValue, message, messageContext)
+                    Object newValue = doStrategies(deviceId, entryValue, message, messageContext, selector);
+                    if (newValue != entryValue) {
+                        entry.setValue(newValue);
+                    }
+                    if (!processCollections(deviceId, entryValue, message, messageContext, selector)
                             && shouldProcess(entryValue.getClass())) {
-                        processFields(deviceId, entryValue, message, messageContext);
+                        processFields(deviceId, entryValue, message, messageContext, selector);
                     }
                 }
             }
@@ -145,15 +186,9 @@ public abstract class AbstractMessagePropertyCrawlerInterceptor<T extends Messag
         }
     }
 
-    private Object doStrategies(String deviceId, Field field, Object obj, T message, Map<String, Object> messageContext) {
-        try {
-            Object property = field.get(obj);
-            Class<?> clazz = (property != null ? property.getClass() : field.getType());
-            return doStrategies(deviceId, property, clazz, message, messageContext);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            log.error("Failed to crawl message property", e);
-        }
-        return obj;
+    private Object doStrategies(String deviceId, Object property, T message, Map<String, Object> messageContext, StrategySelector<T> selector) {
+        Class<?> clazz = property.getClass();
+        return doStrategies(deviceId, property, clazz, message, messageContext, selector.getStrategies(clazz));
     }
 
     private Object doStrategies(
@@ -161,24 +196,180 @@ public abstract class AbstractMessagePropertyCrawlerInterceptor<T extends Messag
             Object property,
             Class<?> clazz,
             T message,
-            Map<String, Object> messageContext) {
-        List<IMessagePropertyStrategy<T>> strategies = this.getMessagePropertyStrategies();
-        if (strategies != null) {
-            for (IMessagePropertyStrategy<T> s : strategies) {
-                property = s.doStrategy(deviceId, property, clazz, message, messageContext);
-            }
+            Map<String, Object> messageContext,
+            List<IMessagePropertyStrategy<T>> strategies) {
+        for (IMessagePropertyStrategy<T> s : strategies) {
+            property = s.doStrategy(deviceId, property, clazz, message, messageContext);
         }
         return property;
     }
 
-    private boolean shouldProcess(Field field) {
+    private static boolean shouldProcess(Field field) {
         return !Modifier.isStatic(field.getModifiers());
     }
 
-    private boolean shouldProcess(Class<?> clazz) {
+    private static boolean shouldProcess(Class<?> clazz) {
         return clazz != null && !isWrapperType(clazz) && !clazz.isPrimitive() && !clazz.isEnum() && !clazz.equals(Logger.class)
                 && clazz.getPackage() != null && !clazz.getPackage().getName().startsWith("sun");
     }
 
+    /**
+     * @return true if a field of this type can only hold values that have nothing to crawl into
+     */
+    private static boolean isLeafType(Class<?> type) {
+        return type.isPrimitive() || isWrapperType(type) || type.isEnum() || type == String.class || type == Money.class;
+    }
+
+    /**
+     * The strategies that do not ignore each type, for one list of strategies
+     */
+    static final class StrategySelector<T extends Message> {
+        private final List<IMessagePropertyStrategy<T>> strategies;
+        private final Map<Class<?>, List<IMessagePropertyStrategy<T>>> strategiesByType = new ConcurrentHashMap<>();
+
+        StrategySelector(List<IMessagePropertyStrategy<T>> strategies) {
+            this.strategies = strategies != null ? new ArrayList<>(strategies) : Collections.emptyList();
+        }
+
+        boolean isFor(List<IMessagePropertyStrategy<T>> strategies) {
+            if (strategies == null) {
+                return this.strategies.isEmpty();
+            }
+            if (strategies.size() != this.strategies.size()) {
+                return false;
+            }
+            for (int i = 0; i < strategies.size(); i++) {
+                if (strategies.get(i) != this.strategies.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<IMessagePropertyStrategy<T>> getStrategies(Class<?> type) {
+            List<IMessagePropertyStrategy<T>> selected = strategiesByType.get(type);
+            if (selected == null) {
+                selected = new ArrayList<>();
+                for (IMessagePropertyStrategy<T> strategy : strategies) {
+                    if (!strategy.ignoresType(type)) {
+                        selected.add(strategy);
+                    }
+                }
+                strategiesByType.put(type, selected.isEmpty() ? Collections.emptyList() : selected);
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * The fields of one class and its superclasses, in the order they are crawled
+     */
+    static final class CrawlPlan {
+        private final List<CrawledField> fields = new ArrayList<>();
+
+        CrawlPlan(Class<?> clazz) {
+            if (ClassUtils.isSimpleType(clazz)) {
+                return;
+            }
+
+            while (clazz != null) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    fields.add(new CrawledField(field));
+                }
+                clazz = clazz.getSuperclass();
+            }
+        }
+    }
+
+    static final class CrawledField {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Field field;
+        private final Class<?> type;
+        /**
+         * The type the strategies are selected by.  Primitive fields are passed to the strategies boxed.
+         */
+        private final Class<?> strategyType;
+        private final boolean writable;
+        /**
+         * False if the field can only hold values that are not collections and have no fields to crawl
+         */
+        private final boolean crawlable;
+        private final boolean followable;
+        private final RuntimeException inaccessible;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        CrawledField(Field field) {
+            this.field = field;
+            this.type = field.getType();
+            this.strategyType = org.apache.commons.lang3.ClassUtils.primitiveToWrapper(type);
+            this.writable = !Modifier.isFinal(field.getModifiers());
+            this.crawlable = !isLeafType(type);
+            this.followable = shouldProcess(field) && shouldProcess(type);
+
+            RuntimeException inaccessible = null;
+            try {
+                field.setAccessible(true);
+            } catch (RuntimeException ex) {
+                inaccessible = ex;
+            }
+            this.inaccessible = inaccessible;
+            this.getter = inaccessible == null ? unreflect(field, true) : null;
+            this.setter = inaccessible == null && writable ? unreflect(field, false) : null;
+        }
+
+        /**
+         * A field that cannot be made accessible stops the crawl of the object that holds it, as it always has
+         */
+        void checkAccessible() {
+            if (inaccessible != null) {
+                throw inaccessible;
+            }
+        }
+
+        Object get(Object target) throws IllegalAccessException {
+            if (getter == null) {
+                return field.get(target);
+            }
+            try {
+                return getter.invokeExact(target);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
 
+        void set(Object target, Object value) throws IllegalAccessException {
+            if (setter == null) {
+                field.set(target, value);
+                return;
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (ClassCastException | NullPointerException ex) {
+                // Report a value the field cannot hold the way Field.set does
+                throw new IllegalArgumentException("Can not set " + type.getName() + " field " + field.getName(), ex);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private static MethodHandle unreflect(Field field, boolean getter) {
+            try {
+                MethodHandle handle = getter ? MethodHandles.lookup().unreflectGetter(field) : MethodHandles.lookup().unreflectSetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                return handle.asType(getter ? GETTER_TYPE : SETTER_TYPE);
+            } catch (Exception ex) {
+                log.debug("Could not create a {} handle for {}", getter ? "getter" : "setter", field, ex);
+                return null;
+            }
+        }
+    }
 }
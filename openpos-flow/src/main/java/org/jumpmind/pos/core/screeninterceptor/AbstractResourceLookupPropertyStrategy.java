@@ -113,4 +113,9 @@ public abstract class AbstractResourceLookupPropertyStrategy<T extends Message>
        
 	}
 
+	@Override
+	public boolean ignoresType(Class<?> type) {
+		return !type.isAssignableFrom(String.class);
+	}
+
 }
@@ -39,4 +39,9 @@ public class ContentScreenPropertyStrategy implements IMessagePropertyStrategy<U
         return property;
     }
 
+    @Override
+    public boolean ignoresType(Class<?> type) {
+        return !type.isAssignableFrom(String.class);
+    }
+
 }
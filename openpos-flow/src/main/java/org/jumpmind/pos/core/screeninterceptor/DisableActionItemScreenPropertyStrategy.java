@@ -26,4 +26,9 @@ public class DisableActionItemScreenPropertyStrategy implements IMessageProperty
 		
 		return property;
 	}
+
+	@Override
+	public boolean ignoresType(Class<?> type) {
+		return !type.isAssignableFrom(ActionItem.class);
+	}
 }
@@ -6,4 +6,14 @@ import org.jumpmind.pos.util.model.Message;
 
 public interface IMessagePropertyStrategy<T extends Message> {
 	Object doStrategy(String deviceId, Object property, Class<?> clazz, T message, Map<String, Object> messageContext);
+
+	/**
+	 * Lets the property crawler skip this strategy for fields and values it can never change.
+	 *
+	 * @param type the declared type of a field, or the class of a collection element, map value or array element
+	 * @return true only if {@link #doStrategy} leaves every property that can be held by a field of this type alone
+	 */
+	default boolean ignoresType(Class<?> type) {
+		return false;
+	}
 }
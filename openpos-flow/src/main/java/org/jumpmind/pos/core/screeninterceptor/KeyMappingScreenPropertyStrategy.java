@@ -42,4 +42,9 @@ public class KeyMappingScreenPropertyStrategy implements IMessagePropertyStrateg
         }
         return property;
     }
+
+    @Override
+    public boolean ignoresType(Class<?> type) {
+        return !type.isAssignableFrom(ActionItem.class) && !ActionItem.class.isAssignableFrom(type);
+    }
 }
@@ -48,4 +48,9 @@ public class KeyMappingUIDataMessagePropertyStrategy implements IMessageProperty
         return property;
     }
 
+    @Override
+    public boolean ignoresType(Class<?> type) {
+        return !type.isAssignableFrom(ActionItem.class) && !ActionItem.class.isAssignableFrom(type);
+    }
+
 }
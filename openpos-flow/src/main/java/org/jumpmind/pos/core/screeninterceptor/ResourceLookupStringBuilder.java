@@ -133,7 +133,7 @@ public class ResourceLookupStringBuilder implements Serializable{
     
 	public String toJson() {
 		try {
-			return DefaultObjectMapper.build().writeValueAsString(this);
+			return DefaultObjectMapper.writer().writeValueAsString(this);
 		} catch (JsonProcessingException e) {
 			logger.error("Failed to convert resource string to json", e);
 		}
@@ -143,7 +143,7 @@ public class ResourceLookupStringBuilder implements Serializable{
 	
 	public static ResourceLookupStringBuilder fromJson( String value ) {
 		try {
-			return DefaultObjectMapper.build().readValue(value, ResourceLookupStringBuilder.class);
+			return DefaultObjectMapper.readerFor(ResourceLookupStringBuilder.class).readValue(value);
 		} catch (IOException e) {
 			LoggerFactory.getLogger(ResourceLookupStringBuilder.class).error("Failed to convert json to resource object");
 		}
@@ -0,0 +1,66 @@
+package org.jumpmind.pos.core.service;
+
+import org.jumpmind.pos.core.flow.IMessageInterceptor;
+import org.jumpmind.pos.util.model.Message;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link IMessageInterceptor} beans for a message class once instead of on every outgoing message.
+ * <p>
+ * The bean names are kept in the order the application context returns them.  Singleton interceptors are kept as
+ * instances.  Other interceptors, like the device scoped property crawlers, are kept by name and looked up on every
+ * message so that each device still gets its own instance.  Call {@link #clear()} when the context is refreshed.
+ */
+class MessageInterceptorResolver {
+
+    private final Map<Class<?>, InterceptorChain> chains = new ConcurrentHashMap<>();
+
+    <T extends Message> void intercept(ApplicationContext applicationContext, Class<T> messageClass, String deviceId, T message) {
+        InterceptorChain chain = getChain(applicationContext, messageClass);
+        for (int i = 0; i < chain.beanNames.length; i++) {
+            @SuppressWarnings("unchecked")
+            IMessageInterceptor<T> interceptor = (IMessageInterceptor<T>) (chain.singletons[i] != null ? chain.singletons[i]
+                    : applicationContext.getBean(chain.beanNames[i]));
+            interceptor.intercept(deviceId, message);
+        }
+    }
+
+    boolean hasInterceptors(ApplicationContext applicationContext, Class<? extends Message> messageClass) {
+        return getChain(applicationContext, messageClass).beanNames.length > 0;
+    }
+
+    void clear() {
+        chains.clear();
+    }
+
+    private InterceptorChain getChain(ApplicationContext applicationContext, Class<?> messageClass) {
+        InterceptorChain chain = chains.get(messageClass);
+        if (chain == null || chain.applicationContext != applicationContext) {
+            chain = new InterceptorChain(applicationContext, messageClass);
+            chains.put(messageClass, chain);
+        }
+        return chain;
+    }
+
+    static final class InterceptorChain {
+        private final ApplicationContext applicationContext;
+        private final String[] beanNames;
+        private final Object[] singletons;
+
+        InterceptorChain(ApplicationContext applicationContext, Class<?> messageClass) {
+            this.applicationContext = applicationContext;
+            String[] beanNames = applicationContext.getBeanNamesForType(ResolvableType.forClassWithGenerics(IMessageInterceptor.class, messageClass));
+            this.beanNames = beanNames != null ? beanNames : new String[0];
+            this.singletons = new Object[this.beanNames.length];
+            for (int i = 0; i < this.beanNames.length; i++) {
+                if (applicationContext.isSingleton(this.beanNames[i])) {
+                    singletons[i] = applicationContext.getBean(this.beanNames[i]);
+                }
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ import org.jumpmind.pos.core.model.IDynamicListField;
 import org.jumpmind.pos.core.model.IFormElement;
 import org.jumpmind.pos.core.ui.CloseToast;
 import org.jumpmind.pos.core.ui.IHasForm;
+import org.jumpmind.pos.core.ui.ScreenPatchMessage;
+import org.jumpmind.pos.core.ui.SerializedUIMessage;
 import org.jumpmind.pos.core.ui.Toast;
 import org.jumpmind.pos.core.ui.UIMessage;
 import org.jumpmind.pos.core.ui.data.UIDataMessageProvider;
@@ -16,20 +18,25 @@ import org.jumpmind.pos.server.model.Action;
 import org.jumpmind.pos.server.service.IActionListener;
 import org.jumpmind.pos.server.service.IMessageService;
 import org.jumpmind.pos.util.DefaultObjectMapper;
+import org.jumpmind.pos.util.JsonPatch;
+import org.jumpmind.pos.util.SerializableCopier;
 import org.jumpmind.pos.util.SuppressScreenLogging;
+import org.jumpmind.pos.util.model.Message;
 import org.jumpmind.pos.util.web.MimeTypeUtil;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.swagger.v3.oas.annotations.Hidden;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
-import org.springframework.core.ResolvableType;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -44,6 +51,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import static org.jumpmind.pos.util.BoxLogging.drawBox;
 
@@ -63,6 +71,16 @@ public class ScreenService implements IScreenService, IActionListener {
     @Value("${openpos.screens.jsonIncludeNulls:true}")
     private boolean jsonIncludeNulls;
 
+    /*
+     * Send a JSON patch instead of the whole screen when the client is
+     * already showing the same screen type and id
+     */
+    @Value("${openpos.screens.deltaMessagesEnabled:false}")
+    private boolean deltaMessagesEnabled;
+
+    @Value("${openpos.screens.deltaMessagesMaxOperations:200}")
+    private int deltaMessagesMaxOperations;
+
     @Value("${openpos.ui.content.maxage:null}")
     private String contentMaxAge;
 
@@ -78,6 +96,8 @@ public class ScreenService implements IScreenService, IActionListener {
     @Autowired
     private IErrorHandler errorHandler;
 
+    private final MessageInterceptorResolver interceptorResolver = new MessageInterceptorResolver();
+
     @PostConstruct
     public void init() {
         if (!jsonIncludeNulls) {
@@ -206,6 +226,8 @@ public class ScreenService implements IScreenService, IActionListener {
                 } else if ("Refresh".equals(action.getName())) {
                     UIMessage lastDialog = getLastDialog(deviceId);
                     log.info("Received Refresh action from {}", deviceId);
+                    stateManager.getApplicationState().setLastSentScreenJson(null);
+                    stateManager.getApplicationState().setLastSentDialogJson(null);
                     showScreen(deviceId, getLastScreen(deviceId));
                     showScreen(deviceId, lastDialog);
                 } else if ( uiDataMessageProviderService.handleAction(action, stateManager.getApplicationState())){
@@ -303,7 +325,11 @@ public class ScreenService implements IScreenService, IActionListener {
 
             UIMessage preInterceptedScreen = null;
             try {
-                preInterceptedScreen = SerializationUtils.clone(screen);
+                /*
+                 * Keep the screen the way the state built it so it can be shown again on a refresh.  Only the
+                 * interceptors change it, so it only needs to be copied when there are interceptors.
+                 */
+                preInterceptedScreen = hasScreenInterceptors() ? SerializableCopier.copy(screen) : screen;
                 interceptScreen(deviceId, screen);
             } catch (Exception ex) {
                 if (ex.toString().contains("org.jumpmind.pos.core.screen.ChangeScreen")) {
@@ -316,7 +342,7 @@ public class ScreenService implements IScreenService, IActionListener {
             }
 
             uiDataMessageProviderService.updateProviders(applicationState, uiDataMessageProviders);
-            messageService.sendMessage(deviceId, screen);
+            messageService.sendMessage(deviceId, deltaMessagesEnabled ? toDeltaMessage(applicationState, screen) : screen);
 
             if (screen.isDialog()) {
                 applicationState.setLastDialog(screen);
@@ -330,34 +356,68 @@ public class ScreenService implements IScreenService, IActionListener {
         }
     }
 
-    protected void interceptToast(String deviceId, Toast toast) {
-        String[] toastInterceptorBeanNames = applicationContext.getBeanNamesForType(ResolvableType.forClassWithGenerics(IMessageInterceptor.class, Toast.class));
+    /**
+     * Remembers the JSON sent for the screen and, when the client already has the same screen type and id showing,
+     * returns a patch against what was sent last.  The whole screen is sent when there is nothing to patch, when the
+     * screen is being refreshed (reconnects and refresh actions) or when the patch would be too big.  Either way the
+     * screen is only serialized once, and what the client gets is exactly what the next patch is diffed against.
+     */
+    protected Message toDeltaMessage(ApplicationState applicationState, UIMessage screen) {
+        if ("NoOp".equals(screen.getScreenType())) {
+            return screen;
+        }
+
+        JsonNode json = mapper.valueToTree(screen);
+        JsonNode lastSent;
+        if (screen.isDialog()) {
+            lastSent = applicationState.getLastSentDialogJson();
+            applicationState.setLastSentDialogJson(json);
+        } else {
+            lastSent = applicationState.getLastSentScreenJson();
+            applicationState.setLastSentScreenJson(json);
+            applicationState.setLastSentDialogJson(null);
+        }
+
+        if (lastSent == null || Boolean.TRUE.equals(screen.get("refreshAlways"))
+                || !Objects.equals(screen.getScreenType(), lastSent.path("screenType").asText(null))
+                || !Objects.equals(screen.getId(), lastSent.path("id").asText(null))) {
+            return new SerializedUIMessage(screen, json);
+        }
 
-        for (String beanName : toastInterceptorBeanNames) {
-            @SuppressWarnings("unchecked")
-            IMessageInterceptor<Toast> toastInterceptor = (IMessageInterceptor<Toast>) applicationContext.getBean(beanName);
-            toastInterceptor.intercept(deviceId, toast);
+        ArrayNode patch = JsonPatch.diff(lastSent, json);
+        if (patch.size() > deltaMessagesMaxOperations) {
+            return new SerializedUIMessage(screen, json);
         }
+
+        ScreenPatchMessage patchMessage = new ScreenPatchMessage();
+        patchMessage.setPatchedType(screen.getType());
+        patchMessage.setScreenType(screen.getScreenType());
+        patchMessage.setId(screen.getId());
+        patchMessage.setBaseSequenceNumber(lastSent.path("sequenceNumber").asInt());
+        patchMessage.setSequenceNumber(json.path("sequenceNumber").asInt());
+        patchMessage.setPatch(patch);
+        return patchMessage;
+    }
+
+    protected void interceptToast(String deviceId, Toast toast) {
+        interceptorResolver.intercept(applicationContext, Toast.class, deviceId, toast);
     }
 
     protected void interceptCloseToast(String deviceId, CloseToast closeToast) {
-        String[] closeToastInterceptorBeanNames = applicationContext.getBeanNamesForType(ResolvableType.forClassWithGenerics(IMessageInterceptor.class, CloseToast.class));
+        interceptorResolver.intercept(applicationContext, CloseToast.class, deviceId, closeToast);
+    }
 
-        for (String beanName: closeToastInterceptorBeanNames) {
-            @SuppressWarnings("unchecked")
-            IMessageInterceptor<CloseToast> toastInterceptor =  (IMessageInterceptor<CloseToast>) applicationContext.getBean(beanName);
-            toastInterceptor.intercept(deviceId, closeToast);
-        }
+    protected boolean hasScreenInterceptors() {
+        return interceptorResolver.hasInterceptors(applicationContext, UIMessage.class);
     }
 
     protected void interceptScreen(String deviceId, UIMessage screen) {
-        String[] screenInterceptorBeanNames = applicationContext.getBeanNamesForType(ResolvableType.forClassWithGenerics(IMessageInterceptor.class, UIMessage.class));
+        interceptorResolver.intercept(applicationContext, UIMessage.class, deviceId, screen);
+    }
 
-        for (String beanName : screenInterceptorBeanNames) {
-            @SuppressWarnings("unchecked")
-            IMessageInterceptor<UIMessage> screenInterceptor = (IMessageInterceptor<UIMessage>) applicationContext.getBean(beanName);
-            screenInterceptor.intercept(deviceId, screen);
-        }
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        interceptorResolver.clear();
     }
 
     protected void deserializeForm(ApplicationState applicationState, Action action) {
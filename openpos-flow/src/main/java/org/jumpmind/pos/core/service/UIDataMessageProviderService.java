@@ -11,7 +11,8 @@ import org.jumpmind.pos.server.service.IMessageService;
 import org.jumpmind.pos.service.PosServerException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
-import org.springframework.core.ResolvableType;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.beans.PropertyChangeEvent;
@@ -28,6 +29,8 @@ public class UIDataMessageProviderService implements PropertyChangeListener {
     @Autowired
     ApplicationContext applicationContext;
 
+    private final MessageInterceptorResolver interceptorResolver = new MessageInterceptorResolver();
+
     public void updateProviders(ApplicationState applicationState, Map<String, UIDataMessageProvider<?>> uiDataMessageProviders){
         if(uiDataMessageProviders != null) {
             uiDataMessageProviders.forEach((key, provider) -> {
@@ -111,25 +114,21 @@ public class UIDataMessageProviderService implements PropertyChangeListener {
     }
 
     private void sendDataMessage(String appId, String deviceId, List<?> data, String dataType, int series ) {
-
-        String[] screenInterceptorBeanNames = applicationContext.getBeanNamesForType(ResolvableType.forClassWithGenerics(IMessageInterceptor.class, UIDataMessage.class));
         UIDataMessage message = UIDataMessage.builder()
                 .data(data)
                 .dataType(dataType)
                 .seriesId(series)
                 .build();
 
-        if (screenInterceptorBeanNames != null) {
-            for (String beanName : screenInterceptorBeanNames) {
-                @SuppressWarnings("unchecked")
-                IMessageInterceptor<UIDataMessage> screenInterceptor = (IMessageInterceptor<UIDataMessage>) applicationContext.getBean(beanName);
-                screenInterceptor.intercept(deviceId, message);
-
-            }
-        }
+        interceptorResolver.intercept(applicationContext, UIDataMessage.class, deviceId, message);
         messageService.sendMessage(deviceId, message);
     }
 
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        interceptorResolver.clear();
+    }
+
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         if(evt instanceof UIDataMessageProviderPropertyChangeEvent) {
@@ -0,0 +1,30 @@
+package org.jumpmind.pos.core.ui;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.jumpmind.pos.core.model.MessageType;
+import org.jumpmind.pos.util.model.Message;
+
+/**
+ * Sent in place of a screen or dialog when the client is already showing the same screen type and id.  The client
+ * applies the RFC 6902 {@link #patch} to the {@link #patchedType} message it received with {@link #baseSequenceNumber}.
+ * If it does not have that message it asks for a refresh and gets the full screen instead.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ScreenPatchMessage extends Message {
+    private static final long serialVersionUID = 1L;
+
+    private String patchedType;
+    private String screenType;
+    private String id;
+    private int baseSequenceNumber;
+    private JsonNode patch;
+
+    public ScreenPatchMessage() {
+        setType(MessageType.ScreenPatch);
+        setWillUnblock(true);
+    }
+
+}
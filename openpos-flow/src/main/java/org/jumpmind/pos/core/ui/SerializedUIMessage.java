@@ -0,0 +1,32 @@
+package org.jumpmind.pos.core.ui;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import org.jumpmind.pos.util.model.Message;
+
+/**
+ * A screen that has already been converted to JSON.  It is written to the client exactly as it was converted, so the
+ * client ends up with the same document that later {@link ScreenPatchMessage}s are diffed against, even when a getter
+ * on the screen changes what it returns the next time it is serialized.
+ */
+@Getter
+public class SerializedUIMessage extends Message {
+    private static final long serialVersionUID = 1L;
+
+    private final UIMessage screen;
+    private final JsonNode json;
+
+    public SerializedUIMessage(UIMessage screen, JsonNode json) {
+        super(screen.getType());
+        this.screen = screen;
+        this.json = json;
+        setWillUnblock(screen.isWillUnblock());
+    }
+
+    @JsonValue
+    public JsonNode toJson() {
+        return json;
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.jumpmind.pos.core.flow;
+
+import org.jumpmind.pos.server.model.Action;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ActionProvenanceTest {
+
+    ActionHandlerImpl actionHandler;
+
+    @Before
+    public void setup() throws Exception {
+        actionHandler = new ActionHandlerImpl();
+        TestUtil.setField(actionHandler, "beforeActionService", new BeforeActionStateLifecycleService());
+        TestUtil.setField(actionHandler, "helper", new ActionHandlerHelper());
+    }
+
+    @Test
+    public void testInvocationsAreTracked() throws Exception {
+        ForwardingState state = new ForwardingState();
+        HandlerIndex.invoke(forwardMethod(), state, new Action("Forward"));
+
+        assertNotNull(state.caller);
+        assertSame(state, state.caller.getTarget());
+        assertEquals(ForwardingState.class, state.caller.getDeclaringClass());
+        assertEquals("onForward", state.caller.getMethod().getName());
+        assertEquals(1, state.caller.getDepth());
+        assertNull(state.caller.getCaller());
+        assertEquals("ForwardingState.onForward (depth 1)", state.caller.toString());
+        assertNull(HandlerInvocation.current());
+    }
+
+    @Test
+    public void testActionsPostedByAStateAreNotHandledByIt() throws Exception {
+        ForwardingState state = new ForwardingState();
+        HandlerIndex.invoke(forwardMethod(), state, new Action("Forward"));
+        ActionContext actionContext = new ActionContext(new Action("Forward"), state.caller);
+
+        assertFalse(actionHandler.canHandleAction(state, actionContext));
+        assertFalse(actionHandler.canHandleAction(new SubForwardingState(), actionContext));
+        assertTrue(actionHandler.canHandleAction(new OtherState(), actionContext));
+        assertTrue(actionHandler.canHandleAction(state, new ActionContext(new Action("Forward"))));
+    }
+
+    @Test
+    public void testActionsPostedFromNestedInvocations() throws Exception {
+        ForwardingState state = new ForwardingState();
+        HandlerIndex.invoke(ForwardingState.class.getMethod("onNested", Action.class), state, new Action("Nested"));
+        HandlerInvocation caller = state.helper.caller;
+
+        assertEquals(2, caller.getDepth());
+        assertSame(state.helper, caller.getTarget());
+        assertSame(state, caller.getCaller().getTarget());
+        // the helper is not a state, so the state it was called from posted the action
+        assertFalse(actionHandler.canHandleAction(state, new ActionContext(new Action("Forward"), caller)));
+        assertTrue(actionHandler.canHandleAction(new OtherState(), new ActionContext(new Action("Forward"), caller)));
+    }
+
+    @Test
+    public void testRecursionLimitIsDetected() throws Exception {
+        OtherState state = new OtherState();
+        RecursiveState recursiveState = new RecursiveState();
+        Method recurse = RecursiveState.class.getMethod("recurse", Integer.class);
+
+        HandlerIndex.invoke(recurse, recursiveState, ActionHandlerHelper.MAX_HANDLER_DEPTH);
+        assertEquals(ActionHandlerHelper.MAX_HANDLER_DEPTH, recursiveState.caller.getDepth());
+        assertTrue(actionHandler.canHandleAction(state, new ActionContext(new Action("Forward"), recursiveState.caller)));
+
+        HandlerIndex.invoke(recurse, recursiveState, ActionHandlerHelper.MAX_HANDLER_DEPTH + 1);
+        try {
+            actionHandler.canHandleAction(state, new ActionContext(new Action("Forward"), recursiveState.caller));
+            fail("Expected the action cycle to be detected");
+        } catch (FlowException ex) {
+            assertTrue(ex.getMessage().startsWith("Action cycle detected."));
+        }
+        assertNull(HandlerInvocation.current());
+    }
+
+    @Test
+    public void testRecursionLimitIsDetectedFromCapturedStackTraces() {
+        OtherState state = new OtherState();
+        StackTraceElement[] stackTrace = new StackTraceElement[400];
+        Arrays.fill(stackTrace, new StackTraceElement(StateManager.class.getName(), "doAction", "StateManager.java", 1));
+        ActionContext actionContext = new ActionContext(new Action("Forward"), stackTrace);
+        try {
+            actionHandler.canHandleAction(state, actionContext);
+            fail("Expected the action cycle to be detected");
+        } catch (FlowException ex) {
+            assertTrue(ex.getMessage().startsWith("Action cycle detected."));
+        }
+
+        actionContext = new ActionContext(new Action("Forward"), Arrays.copyOf(stackTrace, 200));
+        assertTrue(actionHandler.canHandleAction(state, actionContext));
+    }
+
+    private static Method forwardMethod() throws NoSuchMethodException {
+        return ForwardingState.class.getMethod("onForward", Action.class);
+    }
+
+    public static class ForwardingState implements IState {
+        HandlerInvocation caller;
+        HelperBean helper = new HelperBean();
+
+        @Override
+        public void arrive(Action action) {
+        }
+
+        @ActionHandler
+        public void onForward(Action action) {
+            caller = HandlerInvocation.current();
+        }
+
+        @ActionHandler
+        public void onNested(Action action) throws Exception {
+            HandlerIndex.invoke(HelperBean.class.getMethod("post"), helper);
+        }
+    }
+
+    public static class SubForwardingState extends ForwardingState {
+    }
+
+    public static class OtherState implements IState {
+        @Override
+        public void arrive(Action action) {
+        }
+
+        @ActionHandler
+        public void onForward(Action action) {
+        }
+    }
+
+    public static class HelperBean {
+        HandlerInvocation caller;
+
+        public void post() {
+            caller = HandlerInvocation.current();
+        }
+    }
+
+    public static class RecursiveState implements IState {
+        HandlerInvocation caller;
+
+        @Override
+        public void arrive(Action action) {
+        }
+
+        public void recurse(Integer remaining) throws Exception {
+            if (remaining > 1) {
+                HandlerIndex.invoke(getClass().getMethod("recurse", Integer.class), this, remaining - 1);
+            } else {
+                caller = HandlerInvocation.current();
+            }
+        }
+    }
+}
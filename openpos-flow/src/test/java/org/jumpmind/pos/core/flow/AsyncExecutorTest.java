@@ -2,9 +2,16 @@ package org.jumpmind.pos.core.flow;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
 import org.jumpmind.util.AppUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
 
@@ -91,4 +98,45 @@ public class AsyncExecutorTest {
         assertEquals(1, beforeCancel.intValue());
         assertEquals(0, hit.intValue());
     }
+
+    @Test
+    public void testContextDoesNotLeakToTheNextTaskOnTheThread() throws Exception {
+        SharedDeviceExecutors sharedDeviceExecutors = new SharedDeviceExecutors();
+        sharedDeviceExecutors.asyncExecutorThreads = 1;
+        sharedDeviceExecutors.init();
+        try {
+            ClientContext clientContext = new ClientContext();
+            AsyncExecutor deviceA = newAsyncExecutor(sharedDeviceExecutors, clientContext);
+            AsyncExecutor deviceB = newAsyncExecutor(sharedDeviceExecutors, clientContext);
+
+            CountDownLatch done = new CountDownLatch(2);
+            AtomicReference<String> userName = new AtomicReference<>("not run");
+            AtomicReference<String> mdcValue = new AtomicReference<>("not run");
+            deviceA.execute(null, o -> {
+                clientContext.put(ClientContext.USERNAME, "deviceAUser");
+                MDC.put("transaction", "deviceA");
+                return null;
+            }, o -> done.countDown(), throwable -> fail());
+            deviceB.execute(null, o -> {
+                userName.set(clientContext.get(ClientContext.USERNAME));
+                mdcValue.set(MDC.get("transaction"));
+                return null;
+            }, o -> done.countDown(), throwable -> fail());
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertNull(userName.get());
+            assertNull(mdcValue.get());
+        } finally {
+            sharedDeviceExecutors.shutdown();
+        }
+    }
+
+    private AsyncExecutor newAsyncExecutor(SharedDeviceExecutors sharedDeviceExecutors, ClientContext clientContext) {
+        AsyncExecutor executor = new AsyncExecutor();
+        executor.stateManagerContainer = new StateManagerContainer();
+        executor.sharedDeviceExecutors = sharedDeviceExecutors;
+        executor.clientContext = clientContext;
+        executor.init();
+        return executor;
+    }
 }
@@ -0,0 +1,125 @@
+package org.jumpmind.pos.core.flow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.server.model.Action;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Times actions and transitions through the action handler and the state lifecycle.  It only uses classes that were
+ * there before the {@link HandlerIndex}, so running it on a checkout from before the index shows what the index saves.
+ * It is left out of the test task, run it with the benchmark task.
+ */
+@Slf4j
+public class HandlerIndexBenchmark {
+
+    ActionHandlerImpl actionHandler;
+    StateLifecycle stateLifecycle;
+    IStateManager stateManager;
+
+    @Before
+    public void setup() throws Exception {
+        actionHandler = new ActionHandlerImpl();
+        TestUtil.setField(actionHandler, "beforeActionService", new BeforeActionStateLifecycleService());
+        TestUtil.setField(actionHandler, "helper", new ActionHandlerHelper());
+        stateLifecycle = new StateLifecycle();
+        stateManager = mock(IStateManager.class);
+    }
+
+    @Test
+    public void testActionDispatchCost() {
+        final int actions = 100000;
+        TimedItemState itemState = new TimedItemState();
+        TimedTenderState tenderState = new TimedTenderState();
+        for (int i = 0; i < actions / 10; i++) {
+            run(i, itemState, tenderState);
+        }
+        itemState.calls = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < actions; i++) {
+            run(i, itemState, tenderState);
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertEquals(actions * 3 + actions / 10 * 3, itemState.calls);
+        log.info("{} actions: {} ms", actions, nanos / 1000000);
+    }
+
+    /**
+     * Every tenth action is a transition from the item state to the tender state and back
+     */
+    private void run(int i, TimedItemState itemState, TimedTenderState tenderState) {
+        Action action = new Action("Scan", "1000" + i);
+        if (actionHandler.canHandleAction(itemState, new ActionContext(action))) {
+            actionHandler.handleAction(stateManager, itemState, action);
+        }
+        if (i % 10 == 0) {
+            stateLifecycle.executeDepart(itemState, tenderState, false, action);
+            stateLifecycle.executeArrive(null, tenderState, action);
+            stateLifecycle.executeDepart(tenderState, itemState, false, action);
+            stateLifecycle.executeArrive(null, itemState, action);
+        }
+    }
+
+    public static abstract class AbstractTimedSaleState {
+        int calls;
+
+        @OnArrive
+        public void arrive(Action action) {
+            calls++;
+        }
+
+        @OnArrive
+        public void arriveAtSale(Action action) {
+            calls++;
+        }
+
+        @OnDepart
+        public void depart(Action action) {
+            calls++;
+        }
+
+        @BeforeAction(order = 0)
+        public void checkDrawer(Action action) {
+            calls++;
+        }
+
+        @BeforeAction(order = 1)
+        public void checkSession(Action action) {
+            calls++;
+        }
+
+        @ActionHandler
+        public void onHelp(Action action) {
+        }
+    }
+
+    public static class TimedItemState extends AbstractTimedSaleState {
+        @Override
+        @OnArrive
+        public void arrive(Action action) {
+            calls++;
+        }
+
+        @Override
+        @BeforeAction(order = 1)
+        public void checkSession(Action action) {
+            calls++;
+        }
+
+        @ActionHandler
+        void onScan(Action action, String itemId) {
+            calls++;
+        }
+    }
+
+    public static class TimedTenderState extends AbstractTimedSaleState {
+        @OnDepart(toSubflow = false)
+        public void departTender(Action action) {
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.jumpmind.pos.core.flow;
+
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.jumpmind.pos.core.flow.config.FlowUtil;
+import org.jumpmind.pos.server.model.Action;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class HandlerIndexTest {
+
+    ActionHandlerImpl actionHandler;
+    StateLifecycle stateLifecycle;
+    IStateManager stateManager;
+
+    @Before
+    public void setup() throws Exception {
+        actionHandler = new ActionHandlerImpl();
+        TestUtil.setField(actionHandler, "beforeActionService", new BeforeActionStateLifecycleService());
+        TestUtil.setField(actionHandler, "helper", new ActionHandlerHelper());
+        stateLifecycle = new StateLifecycle();
+        stateManager = mock(IStateManager.class);
+    }
+
+    @Test
+    public void testActionMethods() {
+        HandlerIndex index = HandlerIndex.forClass(ItemState.class);
+        assertEquals("onScan", index.getActionMethod("Scan").getName());
+        assertEquals(ItemState.class, index.getActionMethod("Scan").getDeclaringClass());
+        assertEquals(AbstractSaleState.class, index.getActionMethod("Help").getDeclaringClass());
+        assertEquals("onAnyAction", index.getActionMethod("AnyAction").getName());
+        assertNull(index.getActionMethod("notAnnotated"));
+        assertNull(index.getActionMethod("Missing"));
+        assertSame(index, HandlerIndex.forClass(ItemState.class));
+    }
+
+    @Test
+    public void testIndexMatchesMethodUtils() {
+        for (Class<?> clazz : Arrays.asList(ItemState.class, TenderState.class, AbstractSaleState.class, GlobalHandler.class)) {
+            HandlerIndex index = HandlerIndex.forClass(clazz);
+            assertEquals(MethodUtils.getMethodsListWithAnnotation(clazz, OnDepart.class, true, true), index.getDepartMethods());
+            assertEquals(MethodUtils.getMethodsListWithAnnotation(clazz, OnRefresh.class, true, true), index.getRefreshMethods());
+            assertEquals(!MethodUtils.getMethodsListWithAnnotation(clazz, OnGlobalAction.class, true, true).isEmpty(),
+                    index.isGlobalActionHandler());
+        }
+    }
+
+    @Test
+    public void testArriveMethodsAreUniqueByName() {
+        List<Method> arrive = HandlerIndex.forClass(ItemState.class).getArriveMethods();
+        assertEquals(2, arrive.size());
+        assertEquals(ItemState.class, arrive.get(0).getDeclaringClass());
+        assertEquals("arrive", arrive.get(0).getName());
+        assertEquals("arriveAtSale", arrive.get(1).getName());
+
+        ItemState state = new ItemState();
+        stateLifecycle.executeArrive(null, state, new Action("Sell"));
+        assertEquals(Arrays.asList("item arrive", "sale arrive"), state.calls);
+        assertTrue(FlowUtil.isState(ItemState.class));
+        assertFalse(FlowUtil.isState(GlobalHandler.class));
+    }
+
+    @Test
+    public void testBeforeActionMethodsSkipOverriddenMethods() {
+        List<Method> before = HandlerIndex.forClass(ItemState.class).getBeforeActionMethods();
+        assertEquals(2, before.size());
+        assertEquals("checkDrawer", before.get(0).getName());
+        assertEquals(ItemState.class, before.get(1).getDeclaringClass());
+        assertEquals("checkSession", before.get(1).getName());
+    }
+
+    @Test
+    public void testGlobalActionMethods() {
+        HandlerIndex index = HandlerIndex.forClass(GlobalHandler.class);
+        assertEquals(1, index.getGlobalActionMethods("PriceCheck").size());
+        assertTrue(index.getGlobalActionMethods("Missing").isEmpty());
+        assertTrue(index.hasPublicGlobalActionMethods());
+        assertTrue(FlowUtil.isGlobalActionHandler(GlobalHandler.class));
+        assertFalse(HandlerIndex.forClass(ItemState.class).hasPublicGlobalActionMethods());
+    }
+
+    @Test
+    public void testInvokeReportsFailuresLikeReflection() throws Exception {
+        Method fail = ItemState.class.getDeclaredMethod("onFail");
+        try {
+            HandlerIndex.invoke(fail, new ItemState());
+            fail("Expected an exception");
+        } catch (InvocationTargetException ex) {
+            assertEquals("fail", ex.getCause().getMessage());
+        }
+
+        Method scan = ItemState.class.getDeclaredMethod("onScan", Action.class, String.class);
+        try {
+            HandlerIndex.invoke(scan, new ItemState(), new Action("Scan"));
+            fail("Expected an exception");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            HandlerIndex.invoke(scan, new ItemState(), "not an action", null);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            HandlerIndex.invoke(scan, new TenderState(), new Action("Scan"), null);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    @Test
+    public void testHandleActions() {
+        ItemState state = new ItemState();
+        Action scan = new Action("Scan", "12345");
+        ActionContext context = new ActionContext(scan);
+        assertTrue(actionHandler.canHandleAction(state, context));
+        assertTrue(actionHandler.handleAction(stateManager, state, scan));
+        assertTrue(actionHandler.handleAnyAction(stateManager, state, new Action("Other")));
+        assertFalse(actionHandler.canHandleAction(state, new ActionContext(new Action("Missing"))));
+        assertEquals(Arrays.asList("drawer", "session", "scan 12345", "drawer", "session", "any Other"), state.calls);
+    }
+
+    public static abstract class AbstractSaleState {
+        List<String> calls = new ArrayList<>();
+
+        @OnArrive
+        public void arrive(Action action) {
+            calls.add("sale arrive");
+        }
+
+        @OnArrive
+        public void arriveAtSale(Action action) {
+            calls.add("sale arrive");
+        }
+
+        @OnDepart
+        public void depart(Action action) {
+            calls.add("sale depart");
+        }
+
+        @BeforeAction(order = 0)
+        public void checkDrawer(Action action) {
+            calls.add("drawer");
+        }
+
+        @BeforeAction(order = 1)
+        public void checkSession(Action action) {
+            calls.add("abstract session");
+        }
+
+        @ActionHandler
+        public void onHelp(Action action) {
+            calls.add("help");
+        }
+    }
+
+    public static class ItemState extends AbstractSaleState {
+        @Override
+        @OnArrive
+        public void arrive(Action action) {
+            calls.add("item arrive");
+        }
+
+        @Override
+        @BeforeAction(order = 1)
+        public void checkSession(Action action) {
+            calls.add("session");
+        }
+
+        @ActionHandler
+        void onScan(Action action, String itemId) {
+            calls.add("scan " + itemId);
+        }
+
+        @ActionHandler
+        void onFail() {
+            throw new IllegalStateException("fail");
+        }
+
+        @ActionHandler
+        public void onAnyAction(Action action) {
+            calls.add("any " + action.getName());
+        }
+
+        @OnRefresh
+        public void refresh() {
+        }
+
+        public void notAnnotated() {
+        }
+    }
+
+    public static class TenderState extends AbstractSaleState {
+        @OnDepart(toSubflow = false)
+        public void departTender(Action action) {
+            calls.add("tender depart");
+        }
+    }
+
+    public static class GlobalHandler {
+        @OnGlobalAction
+        public void onPriceCheck(Action action) {
+        }
+
+        @OnGlobalAction
+        void onHidden(Action action) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.jumpmind.pos.core.flow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.flow.config.FlowConfig;
+import org.jumpmind.pos.server.model.Action;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times injection, outjection and reset of a state through the injector and outjector.  It only uses what they offered
+ * before injection plans, so running it on a checkout from before the plans shows what they save.  It is left out of
+ * the test task, run it with the benchmark task.
+ */
+@Slf4j
+public class InjectorBenchmark {
+
+    Injector injector;
+    Outjector outjector;
+    Scope scope;
+    StateContext stateContext;
+
+    @Before
+    public void setup() {
+        injector = new Injector();
+        outjector = new Outjector();
+        scope = new Scope();
+        Map<String, Object> configScope = new HashMap<>();
+        configScope.put("maxItems", 99);
+        stateContext = new StateContext(new FlowConfig("Sale", configScope), new Action("Test"));
+
+        scope.setDeviceScope("businessUnitId", "00100");
+        scope.setDeviceScope("deviceId", "00100-001");
+        scope.setDeviceScope("trainingMode", true);
+        scope.setSessionScope("username", "jsmith");
+        scope.setConversationScope("customer", "Jane Smith");
+        stateContext.setFlowScope("returnAction", "Back");
+    }
+
+    @Test
+    public void testInjectionCost() {
+        final int iterations = 100000;
+        SellState state = new SellState();
+        for (int i = 0; i < iterations; i++) {
+            injectAndOutject(state, i);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            injectAndOutject(state, i);
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertEquals((Object) (iterations - 1), stateContext.getFlowScope().get("itemCount").getValue());
+        log.info("Inject, outject and reset of a state: {} ns", nanos / iterations);
+    }
+
+    private void injectAndOutject(SellState state, int itemCount) {
+        injector.performInjections(state, scope, stateContext);
+        state.itemCount = itemCount;
+        outjector.performOutjections(state, scope, stateContext);
+        injector.resetInjections(state, ScopeType.Device);
+    }
+
+    static abstract class AbstractTransactionState {
+        @In(scope = ScopeType.Device)
+        protected String businessUnitId;
+
+        @In(scope = ScopeType.Device)
+        protected String deviceId;
+
+        @In(scope = ScopeType.Device)
+        protected boolean trainingMode;
+
+        @In(name = "username", scope = ScopeType.Session, required = true)
+        protected String user;
+
+        String notInjected = "unchanged";
+    }
+
+    static class SellState extends AbstractTransactionState {
+        @InOut(scope = ScopeType.Conversation)
+        String customer;
+
+        @In(scope = ScopeType.Flow)
+        String returnAction;
+
+        @In(scope = ScopeType.Config)
+        Integer maxItems;
+
+        @Out(scope = ScopeType.Flow, required = false)
+        int itemCount;
+    }
+}
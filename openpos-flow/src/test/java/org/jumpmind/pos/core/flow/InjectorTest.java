@@ -0,0 +1,268 @@
+package org.jumpmind.pos.core.flow;
+
+import org.jumpmind.pos.core.flow.config.FlowConfig;
+import org.jumpmind.pos.server.model.Action;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InjectorTest {
+
+    Injector injector;
+    Outjector outjector;
+    Scope scope;
+    StateContext stateContext;
+
+    @Before
+    public void setup() throws Exception {
+        injector = new Injector();
+        outjector = new Outjector();
+        scope = new Scope();
+        Map<String, Object> configScope = new HashMap<>();
+        configScope.put("maxItems", 99);
+        stateContext = new StateContext(new FlowConfig("Sale", configScope), new Action("Test"));
+
+        scope.setDeviceScope("businessUnitId", "00100");
+        scope.setDeviceScope("deviceId", "00100-001");
+        scope.setDeviceScope("trainingMode", true);
+        scope.setDeviceScope("transactionCount", 7);
+        scope.setSessionScope("username", "jsmith");
+        scope.setConversationScope("transaction", new Transaction());
+        scope.setConversationScope("customer", "Jane Smith");
+        stateContext.setFlowScope("returnAction", "Back");
+    }
+
+    @Test
+    public void testInjectsDeclaredAndInheritedFields() {
+        SellState state = new SellState();
+        injector.performInjections(state, scope, stateContext);
+
+        assertEquals("00100", state.businessUnitId);
+        assertEquals("00100-001", state.deviceId);
+        assertTrue(state.trainingMode);
+        assertEquals(7, state.transactionCount);
+        assertEquals("jsmith", state.user);
+        assertSame(scope.getConversationScope().get("transaction").getValue(), state.transaction);
+        assertEquals("Jane Smith", state.customer);
+        assertEquals("Back", state.returnAction);
+        assertEquals(Integer.valueOf(99), state.maxItems);
+        assertNull(state.promotion);
+        assertEquals("unchanged", state.notInjected);
+    }
+
+    @Test
+    public void testOptionalConfigValueIsSetToNull() {
+        stateContext.getFlowConfig().getConfigScope().remove("maxItems");
+        SellState state = new SellState();
+        state.maxItems = 5;
+        state.promotion = "Summer";
+        injector.performInjections(state, scope, stateContext);
+        assertNull(state.maxItems);
+        assertEquals("Summer", state.promotion);
+    }
+
+    @Test
+    public void testMissingRequiredValueFails() {
+        scope.getSessionScope().remove("username");
+        try {
+            injector.performInjections(new SellState(), scope, stateContext);
+            fail("Expected the injection to fail");
+        } catch (FlowException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Failed to resolve required injection 'username'"));
+        }
+    }
+
+    @Test
+    public void testValueProvidersAreConsultedAndResultsKept() throws Exception {
+        List<String> asked = new ArrayList<>();
+        TestUtil.setField(injector, "scopeValueProviders", Collections.singletonList((IScopeValueProvider) (name, scopeType, target, field) -> {
+            asked.add(name + ":" + field.getName());
+            return "promotion".equals(name) ? new ScopeValue("Summer") : null;
+        }));
+        SellState state = new SellState();
+        injector.performInjections(state, scope, stateContext);
+
+        assertEquals("Summer", state.promotion);
+        assertEquals("Summer", scope.getConversationScope().get("promotion").getValue());
+        assertEquals(Arrays.asList("promotion:promotion"), asked);
+    }
+
+    @Test
+    public void testPostConstructRunsOnlyForTheConcreteClass() {
+        SellState state = new SellState();
+        injector.performInjections(state, scope, stateContext);
+        assertEquals(Arrays.asList("sell"), state.postConstructed);
+
+        injector.performInjectionsOnSpringBean(state, scope, stateContext);
+        assertEquals(Arrays.asList("sell"), state.postConstructed);
+    }
+
+    @Test
+    public void testPostConstructFailureIsReported() {
+        try {
+            injector.performInjections(new FailingPostConstructState(), scope, stateContext);
+            fail("Expected the @PostConstruct method to fail");
+        } catch (FlowException ex) {
+            assertTrue(ex.getMessage().startsWith("Failed to invoke @PostConstruct method"));
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testResetInjectionsOnlyResetsTheScope() {
+        SellState state = new SellState();
+        injector.performInjections(state, scope, stateContext);
+
+        injector.resetInjections(state, ScopeType.Device);
+        assertNull(state.businessUnitId);
+        assertNull(state.deviceId);
+        assertFalse(state.trainingMode);
+        assertEquals(0, state.transactionCount);
+        assertEquals("jsmith", state.user);
+        assertNotNull(state.transaction);
+
+        injector.resetInjections(state, ScopeType.Conversation);
+        assertNull(state.transaction);
+        assertNull(state.customer);
+        assertEquals("jsmith", state.user);
+
+        injector.resetInjections(null, ScopeType.Device);
+    }
+
+    @Test
+    public void testOutjectsOutAndInOutFields() {
+        SellState state = new SellState();
+        injector.performInjections(state, scope, stateContext);
+        state.customer = "John Doe";
+        state.lastItem = "T-Shirt";
+        state.itemCount = 3;
+
+        outjector.performOutjections(state, scope, stateContext);
+        assertEquals("John Doe", scope.getConversationScope().get("customer").getValue());
+        assertEquals("T-Shirt", scope.getConversationScope().get("lastItem").getValue());
+        assertEquals(Integer.valueOf(3), stateContext.getFlowScope().get("itemCount").getValue());
+    }
+
+    @Test
+    public void testRequiredOutjectionMustBeSet() {
+        try {
+            outjector.performOutjections(new RequiredOutState(), scope, stateContext);
+            fail("Expected the outjection to fail");
+        } catch (FlowException ex) {
+            assertTrue(ex.getMessage().startsWith("Required outjection result is null"));
+        }
+    }
+
+    @Test
+    public void testOutjectionOfShadowedFieldsMustAgree() {
+        ShadowingState state = new ShadowingState();
+        outjector.performOutjections(state, scope, stateContext);
+        assertEquals("same", scope.getConversationScope().get("value").getValue());
+
+        state.value = "different";
+        try {
+            outjector.performOutjections(state, scope, stateContext);
+            fail("Expected the outjection to fail");
+        } catch (FlowException ex) {
+            assertTrue(ex.getMessage().startsWith("Cannot perform outjection of field 'value' reliably"));
+        }
+    }
+
+    @Test
+    public void testHasInjections() {
+        assertTrue(injector.hasInjections(new SellState()));
+        assertFalse(injector.hasInjections(new RequiredOutState()));
+        assertFalse(injector.hasInjections("not a state"));
+    }
+
+    static class Transaction {
+        List<String> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+    }
+
+    static abstract class AbstractTransactionState {
+        @In(scope = ScopeType.Device)
+        protected String businessUnitId;
+
+        @In(scope = ScopeType.Device)
+        protected String deviceId;
+
+        @In(scope = ScopeType.Device)
+        protected boolean trainingMode;
+
+        @In(scope = ScopeType.Device)
+        protected int transactionCount;
+
+        @In(name = "username", scope = ScopeType.Session, required = true)
+        protected String user;
+
+        @In(scope = ScopeType.Conversation)
+        protected Transaction transaction;
+
+        List<String> postConstructed = new ArrayList<>();
+
+        @PostConstruct
+        void initAbstract() {
+            postConstructed.add("abstract");
+        }
+    }
+
+    static class SellState extends AbstractTransactionState {
+        @InOut(scope = ScopeType.Conversation)
+        String customer;
+
+        @In(scope = ScopeType.Flow)
+        String returnAction;
+
+        @In(scope = ScopeType.Config)
+        Integer maxItems;
+
+        @In(scope = ScopeType.Conversation)
+        String promotion;
+
+        @Out(scope = ScopeType.Conversation, required = false)
+        String lastItem;
+
+        @Out(scope = ScopeType.Flow, required = false)
+        int itemCount;
+
+        String notInjected = "unchanged";
+
+        @PostConstruct
+        void init() {
+            postConstructed.add("sell");
+        }
+    }
+
+    static class FailingPostConstructState {
+        @PostConstruct
+        void init() {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    static class RequiredOutState {
+        @Out(scope = ScopeType.Flow)
+        String result;
+    }
+
+    static class BaseShadowingState {
+        @Out(scope = ScopeType.Conversation)
+        String value = "same";
+    }
+
+    static class ShadowingState extends BaseShadowingState {
+        @Out(scope = ScopeType.Conversation)
+        String value = "same";
+    }
+}
@@ -0,0 +1,170 @@
+package org.jumpmind.pos.core.flow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.flow.config.IFlowConfigProvider;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@Slf4j
+public class StateManagerContainerContentionTest {
+
+    static final int THREADS = 500;
+    static final int LOOKUPS_PER_THREAD = 2000;
+
+    StateManagerContainer container = new StateManagerContainer();
+    ApplicationContext applicationContext;
+    AtomicInteger stateManagersCreated = new AtomicInteger();
+
+    @Before
+    public void setup() throws Exception {
+        applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(StateManager.class)).thenAnswer(invocation -> {
+            stateManagersCreated.incrementAndGet();
+            return Mockito.mock(StateManager.class);
+        });
+        when(applicationContext.getBeanNamesForType(ITransitionStep.class)).thenReturn(new String[0]);
+
+        TestUtil.setField(container, "applicationContext", applicationContext);
+        TestUtil.setField(container, "flowConfigProvider", mock(IFlowConfigProvider.class));
+        TestUtil.setField(container, "clientContext", mock(ClientContext.class));
+    }
+
+    @Test
+    public void testOneStateManagerPerDevice() throws Exception {
+        Set<IStateManager> created = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        runThreads(thread -> created.add(container.create("pos", "shared-device", null, null)));
+
+        assertEquals(1, created.size());
+        assertEquals(1, stateManagersCreated.get());
+        assertSame(created.iterator().next(), container.retrieve("shared-device", false));
+        verify(created.iterator().next(), times(1)).init(any(Device.class));
+        assertNull(container.retrieve(null, false));
+        assertNull(container.retrieve("missing", false));
+
+        container.remove("shared-device");
+        assertNull(container.retrieve("shared-device", false));
+        assertTrue(container.getAllStateManagers().isEmpty());
+    }
+
+    @Test
+    public void testStateManagerIsOnlySharedOnceInitialized() throws Exception {
+        StateManager stateManager = mock(StateManager.class);
+        when(applicationContext.getBean(StateManager.class)).thenReturn(stateManager);
+        CountDownLatch initializing = new CountDownLatch(1);
+        CountDownLatch finishInit = new CountDownLatch(1);
+        List<IStateManager> retrievedDuringInit = new ArrayList<>();
+        doAnswer(invocation -> {
+            retrievedDuringInit.add(container.retrieve("slow-device", false));
+            initializing.countDown();
+            finishInit.await();
+            return null;
+        }).when(stateManager).init(any(Device.class));
+
+        Thread initThread = new Thread(() -> container.create("pos", "slow-device", null, null));
+        initThread.start();
+        assertTrue(initializing.await(5, TimeUnit.SECONDS));
+
+        List<IStateManager> retrievedByOtherThread = Collections.synchronizedList(new ArrayList<>());
+        Thread otherThread = new Thread(() -> retrievedByOtherThread.add(container.retrieve("slow-device", false)));
+        otherThread.start();
+        otherThread.join(200);
+        assertTrue("another thread should wait for init", otherThread.isAlive());
+        assertTrue(container.getAllStateManagers().isEmpty());
+
+        finishInit.countDown();
+        initThread.join(5000);
+        otherThread.join(5000);
+        assertSame(stateManager, retrievedDuringInit.get(0));
+        assertEquals(Collections.singletonList(stateManager), retrievedByOtherThread);
+        assertEquals(Collections.singletonList(stateManager), container.getAllStateManagers());
+    }
+
+    @Test
+    public void testLookupContention() throws Exception {
+        Map<String, StateManager> legacyStateManagers = new HashMap<>();
+        for (int i = 0; i < THREADS; i++) {
+            container.create("pos", "device-" + i, null, null);
+            legacyStateManagers.put("device-" + i, (StateManager) container.retrieve("device-" + i, false));
+        }
+        LegacyLookup legacyLookup = new LegacyLookup(legacyStateManagers);
+
+        long legacyNanos = runThreads(thread -> {
+            String deviceId = "device-" + thread;
+            for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                assertNotNull(legacyLookup.retrieve(deviceId));
+            }
+        });
+        long containerNanos = runThreads(thread -> {
+            String deviceId = "device-" + thread;
+            for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                assertNotNull(container.retrieve(deviceId, false));
+            }
+        });
+
+        assertEquals(THREADS, container.getAllStateManagers().size());
+        log.info("{} threads looking up {} devices {} times each: synchronized lookups {} ms, concurrent lookups {} ms",
+                THREADS, THREADS, LOOKUPS_PER_THREAD, legacyNanos / 1000000, containerNanos / 1000000);
+    }
+
+    /**
+     * Starts every thread at the same time and waits for all of them
+     * @return how long the threads took
+     */
+    private long runThreads(Consumer<Integer> work) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    work.accept(thread);
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - startNanos;
+        assertEquals(Collections.emptyList(), failures);
+        return nanos;
+    }
+
+    /**
+     * How state managers were looked up before reads stopped locking
+     */
+    static class LegacyLookup {
+        private final Map<String, StateManager> stateManagersByDeviceId;
+
+        LegacyLookup(Map<String, StateManager> stateManagersByDeviceId) {
+            this.stateManagersByDeviceId = stateManagersByDeviceId;
+        }
+
+        synchronized IStateManager retrieve(String deviceId) {
+            return stateManagersByDeviceId.get(deviceId);
+        }
+    }
+}
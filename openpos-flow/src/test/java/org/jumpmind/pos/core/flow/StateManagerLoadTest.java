@@ -0,0 +1,143 @@
+package org.jumpmind.pos.core.flow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.flow.config.FlowBuilder;
+import org.jumpmind.pos.core.flow.config.FlowConfig;
+import org.jumpmind.pos.server.model.Action;
+import org.jumpmind.pos.server.service.IMessageService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StateManagerLoadTest {
+
+    static final int DEVICES = 1000;
+    static final int ACTIONS_PER_DEVICE = 20;
+
+    @InjectMocks
+    Injector injector;
+
+    @Mock
+    IMessageService messageService;
+
+    @Test
+    public void testActionsOfManyDevices() throws Exception {
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<StateManager> stateManagers = new ArrayList<>();
+        for (int i = 0; i < DEVICES; i++) {
+            StateManager stateManager = StateManagerTestUtils.buildStateManager(injector, null);
+            stateManager.setInitialFlowConfig(flowConfig());
+            stateManager.setErrorHandler(null);
+            stateManager.init(new Device("pos", "load-" + i));
+            stateManagers.add(stateManager);
+        }
+        for (StateManager stateManager : stateManagers) {
+            while (stateManager.getCurrentState() == null) {
+                Thread.sleep(10);
+            }
+        }
+
+        // a few clients send the actions of all devices at the same time, one action per device at a time
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> results = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            final int first = client;
+            results.add(clients.submit(() -> {
+                for (int n = 0; n < ACTIONS_PER_DEVICE; n++) {
+                    for (int i = first; i < DEVICES; i += 8) {
+                        Action action = new Action("Count", n);
+                        long start = System.nanoTime();
+                        stateManagers.get(i).doAction(action);
+                        action.awaitProcessing();
+                        latencies.add(System.nanoTime() - start);
+                    }
+                }
+            }));
+        }
+        int peakThreads = 0;
+        for (Future<?> result : results) {
+            while (!result.isDone()) {
+                peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+                Thread.sleep(5);
+            }
+            result.get();
+        }
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+
+        // a burst of queued actions takes more than one turn of the action loop
+        Action last = null;
+        for (int n = ACTIONS_PER_DEVICE; n < ACTIONS_PER_DEVICE + StateManager.MAX_ACTIONS_PER_TURN * 3; n++) {
+            last = new Action("Count", n);
+            stateManagers.get(0).doAction(last);
+        }
+        last.awaitProcessing();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int n = 0; n < ACTIONS_PER_DEVICE; n++) {
+            expected.add(n);
+        }
+        List<Integer> expectedAfterBurst = new ArrayList<>(expected);
+        for (int n = ACTIONS_PER_DEVICE; n < ACTIONS_PER_DEVICE + StateManager.MAX_ACTIONS_PER_TURN * 3; n++) {
+            expectedAfterBurst.add(n);
+        }
+        for (StateManager stateManager : stateManagers) {
+            CountingState state = (CountingState) stateManager.getCurrentState();
+            assertEquals(stateManager == stateManagers.get(0) ? expectedAfterBurst : expected, state.counts);
+            assertEquals(Arrays.asList(stateManager), state.actionLoopStateManagers);
+            assertFalse(stateManager.isOnStateManagerThread());
+        }
+
+        Collections.sort(latencies);
+        log.info("{} devices: {} threads before, {} at peak. Action latency average {} us, median {} us, 99th percentile {} us",
+                DEVICES, threadsBefore, peakThreads,
+                latencies.stream().mapToLong(Long::longValue).sum() / latencies.size() / 1000,
+                latencies.get(latencies.size() / 2) / 1000, latencies.get(latencies.size() * 99 / 100) / 1000);
+        assertTrue("A thread per device was started", peakThreads - threadsBefore < DEVICES);
+
+        for (StateManager stateManager : stateManagers) {
+            stateManager.stop();
+        }
+    }
+
+    private FlowConfig flowConfig() {
+        FlowConfig config = new FlowConfig();
+        config.setInitialState(FlowBuilder.addState(CountingState.class).build());
+        return config;
+    }
+
+    public static class CountingState {
+        List<Integer> counts = new ArrayList<>();
+        List<StateManager> actionLoopStateManagers = new ArrayList<>();
+
+        @OnArrive
+        public void arrive(Action action) {
+        }
+
+        @ActionHandler
+        public void onCount(Action action) {
+            counts.add(action.getData());
+            if (!actionLoopStateManagers.contains(StateManager.actionLoopStateManager.get())) {
+                actionLoopStateManagers.add(StateManager.actionLoopStateManager.get());
+            }
+        }
+    }
+}
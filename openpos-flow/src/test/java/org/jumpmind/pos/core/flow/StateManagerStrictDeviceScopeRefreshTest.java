@@ -0,0 +1,16 @@
+package org.jumpmind.pos.core.flow;
+
+import org.junit.Before;
+
+/**
+ * Runs every {@link StateManagerTest} with device scoped beans injected on every refresh
+ */
+public class StateManagerStrictDeviceScopeRefreshTest extends StateManagerTest {
+
+    @Before
+    @Override
+    public void setup() throws Exception {
+        super.setup();
+        TestUtil.setField(stateManager, "strictDeviceScopeRefresh", true);
+    }
+}
@@ -5,9 +5,15 @@ import static org.mockito.Mockito.*;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.annotation.PostConstruct;
+
+import lombok.extern.slf4j.Slf4j;
+
 import org.jumpmind.pos.core.error.IErrorHandler;
 import org.jumpmind.pos.core.flow.TestStates.AboutState;
 import org.jumpmind.pos.core.flow.TestStates.ActionTestingState;
@@ -28,6 +34,8 @@ import org.jumpmind.pos.core.flow.TestStates.MultiReturnActionInitialState;
 import org.jumpmind.pos.core.flow.TestStates.MultiReturnActionTestState;
 import org.jumpmind.pos.core.flow.TestStates.OptionalInjectionState;
 import org.jumpmind.pos.core.flow.TestStates.RepostActionState;
+import org.jumpmind.pos.core.flow.TestStates.RepostFromArriveState;
+import org.jumpmind.pos.core.flow.TestStates.RepostGlobalActionHandler;
 import org.jumpmind.pos.core.flow.TestStates.SellState;
 import org.jumpmind.pos.core.flow.TestStates.StackOverflowState;
 import org.jumpmind.pos.core.flow.TestStates.SubStateFlowScopePropogation1;
@@ -57,6 +65,7 @@ import org.mockito.Mock;
 import static org.mockito.Mockito.*;
 import org.mockito.junit.MockitoJUnitRunner;
 
+@Slf4j
 @RunWith(MockitoJUnitRunner.class)
 public class StateManagerTest {
 
@@ -138,11 +147,13 @@ public class StateManagerTest {
                 .withTransition("UnsetVariables", UnsetVariablesState.class)
                 .withTransition("CheckVariables", CheckVariablesState.class)
                 .withTransition("CheckOverrideState", TestStates.OverrideSimpleState.class)
+                .withTransition("RepostFromArrive", RepostFromArriveState.class)
                 .build()
         );
         config.add(FlowBuilder.addState(SetVariablesState.class).withTransition("UnsetVariables", UnsetVariablesState.class).build());
         config.add(FlowBuilder.addState(UnsetVariablesState.class).withTransition("CheckVariables", CheckVariablesState.class).build());
         config.add(FlowBuilder.addState(CheckVariablesState.class).build());
+        config.add(FlowBuilder.addState(RepostFromArriveState.class).withTransition("RepostedFromArrive", SellState.class).build());
         config.add(FlowBuilder.addState(ExceptionInActionHandlerState.class).withTransition("ThrowsExceptionAction", HomeState.class).build());
         config.add(FlowBuilder.addState(TestScopesState.class).withTransition("Done", HomeState.class).build());
         config.add(FlowBuilder.addState(SellState.class).withSubTransition("Customer", customerFlow, "CustomerLookupComplete").build());
@@ -167,6 +178,7 @@ public class StateManagerTest {
         config.addGlobalTransitionOrActionHandler("TestTransitionCancelWithQueuedAction", SellState.class);
         config.addGlobalTransitionOrActionHandler("SomeGlobalAction", GlobalActionHandler.class);
         config.addGlobalTransitionOrActionHandler("SomeGlobalActionWithException", GlobalActionHandlerWithException.class);
+        config.addGlobalTransitionOrActionHandler("RepostGlobalAction", RepostGlobalActionHandler.class);
         config.addGlobalSubTransition("CustomerLookupGlobal", customerFlow);
 
         stateManager = StateManagerTestUtils.buildStateManager(injector, null);
@@ -577,6 +589,37 @@ public class StateManagerTest {
         assertTrue(i.invoked);
     }
 
+    @Test
+    public void testActionPostedFromArriveIsNotHandledByTheState() {
+        RepostFromArriveState.repostedActionHandled = false;
+        stateManagerInit();
+        doAction("RepostFromArrive");
+        assertEquals(SellState.class, stateManager.getCurrentState().getClass());
+        assertFalse(RepostFromArriveState.repostedActionHandled);
+    }
+
+    @Test
+    public void testActionPostedFromArriveIsNotHandledByTheState_CapturingStackTraces() {
+        stateManager.captureActionStackTraces = true;
+        testActionPostedFromArriveIsNotHandledByTheState();
+    }
+
+    @Test
+    public void testActionPostedFromInheritedGlobalActionHandler() {
+        // an inherited handler method runs in the code of its abstract super class, so the handler is called again
+        RepostGlobalActionHandler.handled = 0;
+        stateManagerInit();
+        doAction("RepostGlobalAction");
+        assertEquals(RepostGlobalActionHandler.MAX_REPOSTS, RepostGlobalActionHandler.handled);
+        assertEquals(HomeState.class, stateManager.getCurrentState().getClass());
+    }
+
+    @Test
+    public void testActionPostedFromInheritedGlobalActionHandler_CapturingStackTraces() {
+        stateManager.captureActionStackTraces = true;
+        testActionPostedFromInheritedGlobalActionHandler();
+    }
+
     @Test
     public void testGlobalActionHandlerException() {
         stateManagerInit();
@@ -891,4 +934,103 @@ public class StateManagerTest {
         doAction("Something");
         assertEquals(overrideState.message, "Override state message");
     }
+
+    @Test
+    public void testDeviceScopeBeanSeesTheSameValuesInEitherRefreshMode() {
+        stateManagerInit();
+        DeviceScopedBean bean = new DeviceScopedBean();
+        stateManager.getApplicationState().getScope().setDeviceScope("deviceScopedBean", bean);
+        doAction("TestActions");
+        assertSame(stateManager, bean.stateManager);
+
+        doAction("SpecificAction");
+        doAction("Done");
+        assertEquals(Boolean.TRUE, bean.specificActionMethodCalled);
+        assertEquals(Boolean.FALSE, bean.anyActionMethodCalled);
+        doAction("TestActions");
+        doAction("ActionHandledByAction");
+        doAction("Done");
+        assertEquals(Boolean.FALSE, bean.specificActionMethodCalled);
+        assertEquals(Boolean.TRUE, bean.anyActionMethodCalled);
+
+        stateManager.pushScopeValue("customerName", ScopeType.Conversation, "Jane Smith");
+        assertEquals("Jane Smith", bean.customerName);
+
+        doAction("TestActions");
+        doAction(new Action("SomeGlobalAction", (Runnable) () -> {}));
+        long injections = stateManager.getDeviceScopeInjectionCount();
+        int postConstructCount = bean.postConstructCount;
+        doAction(new Action("SomeGlobalAction", (Runnable) () -> {}));
+        if (stateManager.strictDeviceScopeRefresh) {
+            assertTrue(stateManager.getDeviceScopeInjectionCount() > injections);
+            assertTrue(bean.postConstructCount > postConstructCount);
+            assertEquals(0, stateManager.getDeviceScopeInjectionsSkippedCount());
+        } else {
+            assertEquals(injections, stateManager.getDeviceScopeInjectionCount());
+            assertEquals(postConstructCount, bean.postConstructCount);
+            assertTrue(stateManager.getDeviceScopeInjectionsSkippedCount() > 0);
+        }
+        doAction("Done");
+
+        stateManager.getApplicationState().getScope().setDeviceScope("deviceScopedBean", new DeviceScopedBean());
+        doAction("TestActions");
+        DeviceScopedBean replacement = stateManager.getScopeValue("deviceScopedBean");
+        assertSame(stateManager, replacement.stateManager);
+        assertEquals("Jane Smith", replacement.customerName);
+    }
+
+    @Test
+    public void testDeviceScopeInjectionsPerAction() throws Exception {
+        stateManagerInit();
+        for (int i = 0; i < 5; i++) {
+            stateManager.getApplicationState().getScope().setDeviceScope("deviceScopedBean" + i, new DeviceScopedBean());
+        }
+        final int roundTrips = 50;
+        Map<Boolean, Long> injectionsByMode = new HashMap<>();
+        for (boolean strict : new boolean[] {true, false}) {
+            TestUtil.setField(stateManager, "strictDeviceScopeRefresh", strict);
+            doAction("TestActions");
+            doAction("Done");
+            long injections = stateManager.getDeviceScopeInjectionCount();
+            long skipped = stateManager.getDeviceScopeInjectionsSkippedCount();
+            for (int i = 0; i < roundTrips; i++) {
+                doAction("TestActions");
+                doAction("SpecificAction");
+                doAction("Done");
+            }
+            assertEquals(HomeState.class, stateManager.getCurrentState().getClass());
+            injections = stateManager.getDeviceScopeInjectionCount() - injections;
+            skipped = stateManager.getDeviceScopeInjectionsSkippedCount() - skipped;
+            injectionsByMode.put(strict, injections);
+            log.info("Device scope refresh (strict={}): {} injections and {} avoided per action",
+                    strict, (double) injections / (roundTrips * 3), (double) skipped / (roundTrips * 3));
+        }
+        assertTrue(injectionsByMode.get(false) < injectionsByMode.get(true));
+        for (int i = 0; i < 5; i++) {
+            DeviceScopedBean bean = stateManager.getScopeValue("deviceScopedBean" + i);
+            assertSame(stateManager, bean.stateManager);
+            assertEquals(Boolean.TRUE, bean.specificActionMethodCalled);
+        }
+    }
+
+    public static class DeviceScopedBean {
+        @In(scope = ScopeType.Device)
+        IStateManager stateManager;
+
+        @In(scope = ScopeType.Conversation, required = false)
+        Boolean specificActionMethodCalled;
+
+        @In(scope = ScopeType.Conversation, required = false)
+        Boolean anyActionMethodCalled;
+
+        @In(scope = ScopeType.Conversation, required = false)
+        String customerName;
+
+        int postConstructCount;
+
+        @PostConstruct
+        void init() {
+            postConstructCount++;
+        }
+    }
 }
@@ -40,6 +40,7 @@ public class StateManagerTestUtils {
         TestUtil.setField(actionHandler, "beforeActionService" , new BeforeActionStateLifecycleService());
         TestUtil.setField(actionHandler, "helper" , new ActionHandlerHelper());
         TestUtil.setField(stateManager, "actionHandler", actionHandler);
+        TestUtil.setField(stateManager, "helper", new ActionHandlerHelper());
         TestUtil.setField(stateManager, "injector", injector);
         TestUtil.setField(stateManager, "outjector", new Outjector());
         TestUtil.setField(stateManager, "transitionStepConfigs", Arrays.asList(new TransitionStepConfig(TestTransitionStepCancel.class), new TransitionStepConfig(TestTransitionStepProceed.class)));
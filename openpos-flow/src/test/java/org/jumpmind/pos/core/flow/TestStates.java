@@ -169,6 +169,23 @@ public class TestStates {
         }
     }
 
+    public static class RepostFromArriveState implements IState {
+        static boolean repostedActionHandled;
+
+        @In(scope = ScopeType.Device)
+        private IStateManager stateManager;
+
+        @Override
+        public void arrive(Action action) {
+            stateManager.doAction(new Action("RepostedFromArrive"));
+        }
+
+        @ActionHandler
+        public void onRepostedFromArrive(Action action) {
+            repostedActionHandled = true;
+        }
+    }
+
     public static class SubStateFlowScopePropogation1 implements IState {
         @In(scope = ScopeType.Device)
         private IStateManager stateManager;
@@ -546,6 +563,24 @@ public class TestStates {
         }
     }
 
+    public static abstract class AbstractRepostGlobalActionHandler {
+        static final int MAX_REPOSTS = 3;
+        static int handled;
+
+        @In(scope = ScopeType.Device)
+        private IStateManager stateManager;
+
+        @OnGlobalAction
+        public void onRepostGlobalAction(Action action) {
+            if (++handled < MAX_REPOSTS) {
+                stateManager.doAction(new Action("RepostGlobalAction"));
+            }
+        }
+    }
+
+    public static class RepostGlobalActionHandler extends AbstractRepostGlobalActionHandler {
+    }
+
     public static class GlobalActionHandlerWithException {
 
         @OnGlobalAction
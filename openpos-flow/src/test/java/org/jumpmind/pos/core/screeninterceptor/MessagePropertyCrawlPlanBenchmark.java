@@ -0,0 +1,57 @@
+package org.jumpmind.pos.core.screeninterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.screeninterceptor.MessagePropertyCrawlPlanTest.CountingStrategy;
+import org.jumpmind.pos.core.screeninterceptor.MessagePropertyCrawlPlanTest.LegacyCrawlerInterceptor;
+import org.jumpmind.pos.core.screeninterceptor.MessagePropertyCrawlPlanTest.TestCrawlerInterceptor;
+import org.jumpmind.pos.core.ui.message.SaleUIMessage;
+import org.jumpmind.pos.util.SerializableCopier;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jumpmind.pos.core.screeninterceptor.MessagePropertyCrawlPlanTest.DEVICE_ID;
+import static org.jumpmind.pos.core.screeninterceptor.MessagePropertyCrawlPlanTest.saleScreen;
+import static org.jumpmind.pos.core.screeninterceptor.MessagePropertyCrawlPlanTest.strategies;
+
+/**
+ * Times crawls of a large sale screen with the reflective crawler and with crawl plans.  It is left out of the test
+ * task, run it with the benchmark task.
+ */
+@Slf4j
+public class MessagePropertyCrawlPlanBenchmark {
+
+    @Test
+    public void testCrawlCost() {
+        final int iterations = 200;
+        SaleUIMessage screen = saleScreen(200);
+        LegacyCrawlerInterceptor legacy = new LegacyCrawlerInterceptor(strategies(new CountingStrategy()));
+        TestCrawlerInterceptor interceptor = new TestCrawlerInterceptor(strategies(new CountingStrategy()));
+        List<SaleUIMessage> legacyScreens = new ArrayList<>();
+        List<SaleUIMessage> plannedScreens = new ArrayList<>();
+        for (int i = 0; i < iterations * 2; i++) {
+            legacyScreens.add(SerializableCopier.copy(screen));
+            plannedScreens.add(SerializableCopier.copy(screen));
+        }
+        for (int i = 0; i < iterations; i++) {
+            legacy.intercept(DEVICE_ID, legacyScreens.get(i));
+            interceptor.intercept(DEVICE_ID, plannedScreens.get(i));
+        }
+
+        long start = System.nanoTime();
+        for (int i = iterations; i < iterations * 2; i++) {
+            legacy.intercept(DEVICE_ID, legacyScreens.get(i));
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = iterations; i < iterations * 2; i++) {
+            interceptor.intercept(DEVICE_ID, plannedScreens.get(i));
+        }
+        long plannedNanos = System.nanoTime() - start;
+
+        log.info("Crawl of a sale screen with 200 items: reflection {} ns, crawl plans {} ns",
+                legacyNanos / iterations, plannedNanos / iterations);
+    }
+}
@@ -0,0 +1,293 @@
+package org.jumpmind.pos.core.screeninterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.ui.ActionItem;
+import org.jumpmind.pos.core.ui.UIMessage;
+import org.jumpmind.pos.core.ui.data.SellItem;
+import org.jumpmind.pos.core.ui.message.SaleUIMessage;
+import org.jumpmind.pos.util.ClassUtils;
+import org.jumpmind.pos.util.DefaultObjectMapper;
+import org.jumpmind.pos.util.SerializableCopier;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class MessagePropertyCrawlPlanTest {
+
+    static final String DEVICE_ID = "00100-001";
+
+    @Test
+    public void testOutputMatchesReflectiveCrawler() throws Exception {
+        SaleUIMessage screen = saleScreen(50);
+        SaleUIMessage planned = SerializableCopier.copy(screen);
+
+        CountingStrategy legacyCounter = new CountingStrategy();
+        LegacyCrawlerInterceptor legacy = new LegacyCrawlerInterceptor(strategies(legacyCounter));
+        legacy.intercept(DEVICE_ID, screen);
+
+        CountingStrategy plannedCounter = new CountingStrategy();
+        TestCrawlerInterceptor interceptor = new TestCrawlerInterceptor(strategies(plannedCounter));
+        interceptor.intercept(DEVICE_ID, planned);
+
+        assertEquals(json(screen), json(planned));
+        assertEquals(legacyCounter.calls, plannedCounter.calls);
+        assertEquals("Resolved pos:sale.checkout", planned.getCheckoutButton().getTitle());
+        @SuppressWarnings("unchecked")
+        List<SellItem> items = (List<SellItem>) planned.get("items");
+        assertEquals("Resolved pos:item.description", items.get(0).getDescription());
+        assertEquals("RETURN", items.get(0).getMenuItems().get(0).getKeybind());
+    }
+
+    @Test
+    public void testStrategiesAreOnlyRunOnTypesTheyDoNotIgnore() {
+        StringStrategy strings = new StringStrategy();
+        TestCrawlerInterceptor interceptor = new TestCrawlerInterceptor(Arrays.asList(strings));
+        SaleUIMessage screen = saleScreen(2);
+        interceptor.intercept(DEVICE_ID, screen);
+
+        assertFalse(strings.types.isEmpty());
+        for (Class<?> type : strings.types) {
+            assertTrue(type.getName(), type.isAssignableFrom(String.class));
+        }
+        assertEquals("Resolved pos:sale.checkout", screen.getCheckoutButton().getTitle());
+    }
+
+    @Test
+    public void testUnchangedValuesAreNotWritten() {
+        TestCrawlerInterceptor interceptor = new TestCrawlerInterceptor(Arrays.asList(new StringStrategy()));
+        SaleUIMessage screen = saleScreen(1);
+        Map<String, Object> unmodifiable = Collections.unmodifiableMap(Collections.singletonMap("label", "Unchanged"));
+        screen.put("labels", unmodifiable);
+        interceptor.intercept(DEVICE_ID, screen);
+
+        assertSame(unmodifiable, screen.get("labels"));
+        assertEquals("Unchanged", unmodifiable.get("label"));
+    }
+
+    @Test
+    public void testStrategySelectionFollowsTheStrategyList() {
+        List<IMessagePropertyStrategy<UIMessage>> strategies = new ArrayList<>();
+        TestCrawlerInterceptor interceptor = new TestCrawlerInterceptor(strategies);
+        SaleUIMessage screen = saleScreen(1);
+        interceptor.intercept(DEVICE_ID, screen);
+        assertEquals("key:pos:sale.checkout", screen.getCheckoutButton().getTitle());
+
+        strategies.add(new StringStrategy());
+        interceptor.intercept(DEVICE_ID, screen);
+        assertEquals("Resolved pos:sale.checkout", screen.getCheckoutButton().getTitle());
+    }
+
+    static List<IMessagePropertyStrategy<UIMessage>> strategies(CountingStrategy counter) {
+        return Arrays.asList(new StringStrategy(), new ActionItemStrategy(), counter);
+    }
+
+    private String json(Object value) throws Exception {
+        return DefaultObjectMapper.defaultObjectMapper().writeValueAsString(value);
+    }
+
+    static SaleUIMessage saleScreen(int itemCount) {
+        SaleUIMessage screen = new SaleUIMessage();
+        screen.setCheckoutButton(new ActionItem("Checkout", "key:pos:sale.checkout", "payment"));
+        screen.setHelpButton(new ActionItem("Help", "Help", "help"));
+        screen.setGrandTotal("key:pos:sale.total", "$10.00");
+        List<SellItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            SellItem item = new SellItem();
+            item.setIndex(i);
+            item.setPosItemId("1000" + i);
+            item.setDescription("key:pos:item.description");
+            item.setSellingPrice("$" + i + ".99");
+            item.setQuantity("1");
+            item.getMenuItems().add(new ActionItem("Return", "key:pos:item.return", "return"));
+            item.getMenuItems().add(new ActionItem("Void", "Void", "void"));
+            item.put("color", i % 2 == 0 ? "key:pos:item.blue" : "Red");
+            items.add(item);
+        }
+        screen.put("items", items);
+        screen.put("prompts", new String[] {"key:pos:sale.scan", "Scan or enter"});
+        return screen;
+    }
+
+    /**
+     * Resolves strings that start with "key:" the way the resource lookup strategies do
+     */
+    static class StringStrategy implements IMessagePropertyStrategy<UIMessage> {
+        Set<Class<?>> types = new HashSet<>();
+
+        @Override
+        public Object doStrategy(String deviceId, Object property, Class<?> clazz, UIMessage message, Map<String, Object> messageContext) {
+            types.add(clazz);
+            if (property instanceof String && ((String) property).startsWith("key:")) {
+                return "Resolved " + ((String) property).substring("key:".length());
+            }
+            return property;
+        }
+
+        @Override
+        public boolean ignoresType(Class<?> type) {
+            return !type.isAssignableFrom(String.class);
+        }
+    }
+
+    /**
+     * Assigns key bindings to action items the way the key mapping strategies do
+     */
+    static class ActionItemStrategy implements IMessagePropertyStrategy<UIMessage> {
+        @Override
+        public Object doStrategy(String deviceId, Object property, Class<?> clazz, UIMessage message, Map<String, Object> messageContext) {
+            if (property instanceof ActionItem) {
+                ActionItem item = (ActionItem) property;
+                item.setKeybind(item.getAction().toUpperCase());
+            }
+            return property;
+        }
+
+        @Override
+        public boolean ignoresType(Class<?> type) {
+            return !type.isAssignableFrom(ActionItem.class) && !ActionItem.class.isAssignableFrom(type);
+        }
+    }
+
+    /**
+     * A strategy that does not say which types it ignores, so it sees every property
+     */
+    static class CountingStrategy implements IMessagePropertyStrategy<UIMessage> {
+        int calls;
+
+        @Override
+        public Object doStrategy(String deviceId, Object property, Class<?> clazz, UIMessage message, Map<String, Object> messageContext) {
+            calls++;
+            return property;
+        }
+    }
+
+    static class TestCrawlerInterceptor extends AbstractMessagePropertyCrawlerInterceptor<UIMessage> {
+        List<IMessagePropertyStrategy<UIMessage>> strategies;
+
+        TestCrawlerInterceptor(List<IMessagePropertyStrategy<UIMessage>> strategies) {
+            this.strategies = strategies;
+        }
+
+        @Override
+        public List<IMessagePropertyStrategy<UIMessage>> getMessagePropertyStrategies() {
+            return strategies;
+        }
+
+        @Override
+        public void setMessagePropertyStrategies(List<IMessagePropertyStrategy<UIMessage>> strategies) {
+            this.strategies = strategies;
+        }
+    }
+
+    /**
+     * The crawler as it was before crawl plans: every field is looked up, read, run through every strategy and
+     * written back on every intercept
+     */
+    static class LegacyCrawlerInterceptor {
+        final List<IMessagePropertyStrategy<UIMessage>> strategies;
+
+        LegacyCrawlerInterceptor(List<IMessagePropertyStrategy<UIMessage>> strategies) {
+            this.strategies = strategies;
+        }
+
+        void intercept(String deviceId, UIMessage message) {
+            processFields(deviceId, message, message, new HashMap<>());
+        }
+
+        private void processFields(String deviceId, Object obj, UIMessage message, Map<String, Object> messageContext) {
+            Class<?> clazz = obj.getClass();
+            if (ClassUtils.isSimpleType(clazz)) {
+                return;
+            }
+            while (clazz != null) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    field.setAccessible(true);
+                    try {
+                        Object value = field.get(obj);
+                        if (!Modifier.isFinal(field.getModifiers())) {
+                            Object property = field.get(obj);
+                            field.set(obj, doStrategies(deviceId, property, property != null ? property.getClass() : field.getType(),
+                                    message, messageContext));
+                        }
+                        if (!processCollections(deviceId, value, message, messageContext) && !Modifier.isStatic(field.getModifiers())
+                                && shouldProcess(field.getType()) && value != null) {
+                            processFields(deviceId, value, message, messageContext);
+                        }
+                    } catch (Exception e) {
+                        log.warn("", e);
+                    }
+                }
+                clazz = clazz.getSuperclass();
+            }
+        }
+
+        private boolean processCollections(String deviceId, Object value, UIMessage message, Map<String, Object> messageContext) {
+            if (value instanceof List<?>) {
+                @SuppressWarnings("unchecked")
+                List<Object> list = (List<Object>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    Object fieldObj = list.get(i);
+                    if (fieldObj != null) {
+                        try {
+                            list.set(i, doStrategies(deviceId, fieldObj, fieldObj.getClass(), message, messageContext));
+                        } catch (UnsupportedOperationException ex) {
+                        }
+                        if (!processCollections(deviceId, fieldObj, message, messageContext) && shouldProcess(fieldObj.getClass())) {
+                            processFields(deviceId, fieldObj, message, messageContext);
+                        }
+                    }
+                }
+                return true;
+            } else if (value instanceof Collection<?>) {
+                for (Object fieldObj : (Collection<?>) value) {
+                    if (fieldObj != null && !processCollections(deviceId, fieldObj, message, messageContext)
+                            && shouldProcess(fieldObj.getClass())) {
+                        processFields(deviceId, fieldObj, message, messageContext);
+                    }
+                }
+                return true;
+            } else if (value != null && value.getClass().isArray() && value.getClass().getComponentType().equals(String.class)) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    Object arrayElem = Array.get(value, i);
+                    if (arrayElem != null) {
+                        Array.set(value, i, doStrategies(deviceId, arrayElem, arrayElem.getClass(), message, messageContext));
+                    }
+                }
+                return true;
+            } else if (value instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<Object, Object> map = (Map<Object, Object>) value;
+                for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                    Object entryValue = entry.getValue();
+                    if (entryValue != null) {
+                        entry.setValue(doStrategies(deviceId, entryValue, entryValue.getClass(), message, messageContext));
+                        if (!processCollections(deviceId, entryValue, message, messageContext) && shouldProcess(entryValue.getClass())) {
+                            processFields(deviceId, entryValue, message, messageContext);
+                        }
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private Object doStrategies(String deviceId, Object property, Class<?> clazz, UIMessage message, Map<String, Object> messageContext) {
+            for (IMessagePropertyStrategy<UIMessage> s : strategies) {
+                property = s.doStrategy(deviceId, property, clazz, message, messageContext);
+            }
+            return property;
+        }
+
+        private boolean shouldProcess(Class<?> clazz) {
+            return clazz != null && !AbstractMessagePropertyCrawlerInterceptor.isWrapperType(clazz) && !clazz.isPrimitive()
+                    && !clazz.isEnum() && !clazz.equals(org.slf4j.Logger.class) && clazz.getPackage() != null
+                    && !clazz.getPackage().getName().startsWith("sun");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.jumpmind.pos.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.flow.ApplicationState;
+import org.jumpmind.pos.core.flow.IMessageInterceptor;
+import org.jumpmind.pos.core.flow.IStateManager;
+import org.jumpmind.pos.core.flow.StateManagerContainer;
+import org.jumpmind.pos.core.service.MessageInterceptorResolverTest.DeviceInterceptor;
+import org.jumpmind.pos.core.service.MessageInterceptorResolverTest.OtherBean;
+import org.jumpmind.pos.core.service.MessageInterceptorResolverTest.SharedInterceptor;
+import org.jumpmind.pos.core.service.MessageInterceptorResolverTest.ToastInterceptor;
+import org.jumpmind.pos.core.service.spring.DeviceScope;
+import org.jumpmind.pos.core.ui.UIMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Times interceptor lookups done for every outgoing message against the chains cached by the
+ * {@link MessageInterceptorResolver}.  It is left out of the test task, run it with the benchmark task.
+ */
+@Slf4j
+public class MessageInterceptorResolverBenchmark {
+
+    GenericApplicationContext context;
+    StateManagerContainer stateManagerContainer;
+
+    @Before
+    public void setup() {
+        ApplicationState applicationState = new ApplicationState();
+        IStateManager stateManager = mock(IStateManager.class);
+        when(stateManager.getApplicationState()).thenReturn(applicationState);
+        stateManagerContainer = mock(StateManagerContainer.class);
+        when(stateManagerContainer.getCurrentStateManager()).thenReturn(stateManager);
+
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerScope("device", new DeviceScope(context.getBeanFactory()));
+        context.registerBean(StateManagerContainer.class, () -> stateManagerContainer);
+        context.registerBean("deviceInterceptor", DeviceInterceptor.class, bd -> bd.setScope("device"));
+        context.registerBean("sharedInterceptor", SharedInterceptor.class);
+        context.registerBean("toastInterceptor", ToastInterceptor.class);
+        for (int i = 0; i < 300; i++) {
+            context.registerBean("otherBean" + i, OtherBean.class);
+        }
+        context.refresh();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testResolutionCost() {
+        final int messages = 20000;
+        MessageInterceptorResolver resolver = new MessageInterceptorResolver();
+        for (int i = 0; i < messages / 10; i++) {
+            interceptPerMessage(new UIMessage());
+            resolver.intercept(context, UIMessage.class, "device1", new UIMessage());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            interceptPerMessage(new UIMessage());
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            resolver.intercept(context, UIMessage.class, "device1", new UIMessage());
+        }
+        long resolverNanos = System.nanoTime() - start;
+
+        log.info("Interceptor resolution for {} messages: per message lookups {} ns, cached chains {} ns",
+                messages, lookupNanos / messages, resolverNanos / messages);
+    }
+
+    /**
+     * The lookups that were done for every outgoing message before the chains were cached
+     */
+    @SuppressWarnings("unchecked")
+    private void interceptPerMessage(UIMessage message) {
+        for (String beanName : context.getBeanNamesForType(ResolvableType.forClassWithGenerics(IMessageInterceptor.class, UIMessage.class))) {
+            ((IMessageInterceptor<UIMessage>) context.getBean(beanName)).intercept("device1", message);
+        }
+    }
+}
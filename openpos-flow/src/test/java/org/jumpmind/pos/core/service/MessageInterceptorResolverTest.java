@@ -0,0 +1,146 @@
+package org.jumpmind.pos.core.service;
+
+import org.jumpmind.pos.core.flow.ApplicationState;
+import org.jumpmind.pos.core.flow.IMessageInterceptor;
+import org.jumpmind.pos.core.flow.IStateManager;
+import org.jumpmind.pos.core.flow.StateManagerContainer;
+import org.jumpmind.pos.core.service.spring.DeviceScope;
+import org.jumpmind.pos.core.ui.Toast;
+import org.jumpmind.pos.core.ui.UIMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MessageInterceptorResolverTest {
+
+    GenericApplicationContext context;
+    StateManagerContainer stateManagerContainer;
+    IStateManager device1;
+    IStateManager device2;
+
+    @Before
+    public void setup() {
+        device1 = stateManager();
+        device2 = stateManager();
+        stateManagerContainer = mock(StateManagerContainer.class);
+
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerScope("device", new DeviceScope(context.getBeanFactory()));
+        context.registerBean(StateManagerContainer.class, () -> stateManagerContainer);
+        context.registerBean("deviceInterceptor", DeviceInterceptor.class, bd -> bd.setScope("device"));
+        context.registerBean("sharedInterceptor", SharedInterceptor.class);
+        context.registerBean("toastInterceptor", ToastInterceptor.class);
+        for (int i = 0; i < 300; i++) {
+            context.registerBean("otherBean" + i, OtherBean.class);
+        }
+        context.refresh();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testDeviceScopedInterceptorsResolveToTheCurrentDevice() {
+        MessageInterceptorResolver resolver = new MessageInterceptorResolver();
+        assertTrue(resolver.hasInterceptors(context, UIMessage.class));
+
+        when(stateManagerContainer.getCurrentStateManager()).thenReturn(device1);
+        resolver.intercept(context, UIMessage.class, "device1", new UIMessage());
+        resolver.intercept(context, UIMessage.class, "device1", new UIMessage());
+        when(stateManagerContainer.getCurrentStateManager()).thenReturn(device2);
+        resolver.intercept(context, UIMessage.class, "device2", new UIMessage());
+
+        DeviceInterceptor interceptor1 = (DeviceInterceptor) device1.getApplicationState().getScopeValue("deviceInterceptor");
+        DeviceInterceptor interceptor2 = (DeviceInterceptor) device2.getApplicationState().getScopeValue("deviceInterceptor");
+        assertNotSame(interceptor1, interceptor2);
+        assertEquals(2, interceptor1.deviceIds.size());
+        assertEquals("device1", interceptor1.deviceIds.get(0));
+        assertEquals(1, interceptor2.deviceIds.size());
+        assertEquals("device2", interceptor2.deviceIds.get(0));
+
+        SharedInterceptor shared = context.getBean(SharedInterceptor.class);
+        assertEquals(3, shared.deviceIds.size());
+        assertEquals(0, context.getBean(ToastInterceptor.class).deviceIds.size());
+    }
+
+    @Test
+    public void testChainsAreResolvedPerMessageClass() {
+        MessageInterceptorResolver resolver = new MessageInterceptorResolver();
+        when(stateManagerContainer.getCurrentStateManager()).thenReturn(device1);
+        resolver.intercept(context, Toast.class, "device1", new Toast());
+        resolver.intercept(context, UIMessage.class, "device1", new UIMessage());
+
+        assertEquals(1, context.getBean(ToastInterceptor.class).deviceIds.size());
+        assertEquals(1, context.getBean(SharedInterceptor.class).deviceIds.size());
+    }
+
+    @Test
+    public void testBeanNamesAreLookedUpOnceUntilCleared() {
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        SharedInterceptor shared = new SharedInterceptor();
+        when(applicationContext.getBeanNamesForType(any(ResolvableType.class))).thenReturn(new String[] {"sharedInterceptor"});
+        when(applicationContext.isSingleton("sharedInterceptor")).thenReturn(true);
+        when(applicationContext.getBean("sharedInterceptor")).thenReturn(shared);
+
+        MessageInterceptorResolver resolver = new MessageInterceptorResolver();
+        for (int i = 0; i < 10; i++) {
+            resolver.intercept(applicationContext, UIMessage.class, "device1", new UIMessage());
+        }
+        verify(applicationContext, times(1)).getBeanNamesForType(any(ResolvableType.class));
+        verify(applicationContext, times(1)).getBean("sharedInterceptor");
+        assertEquals(10, shared.deviceIds.size());
+
+        resolver.clear();
+        resolver.intercept(applicationContext, UIMessage.class, "device1", new UIMessage());
+        verify(applicationContext, times(2)).getBeanNamesForType(any(ResolvableType.class));
+    }
+
+    private IStateManager stateManager() {
+        ApplicationState applicationState = new ApplicationState();
+        IStateManager stateManager = mock(IStateManager.class);
+        when(stateManager.getApplicationState()).thenReturn(applicationState);
+        return stateManager;
+    }
+
+    public static class DeviceInterceptor implements IMessageInterceptor<UIMessage> {
+        List<String> deviceIds = new ArrayList<>();
+
+        @Override
+        public void intercept(String deviceId, UIMessage message) {
+            deviceIds.add(deviceId);
+        }
+    }
+
+    public static class SharedInterceptor implements IMessageInterceptor<UIMessage> {
+        List<String> deviceIds = new ArrayList<>();
+
+        @Override
+        public void intercept(String deviceId, UIMessage message) {
+            deviceIds.add(deviceId);
+        }
+    }
+
+    public static class OtherBean {
+    }
+
+    public static class ToastInterceptor implements IMessageInterceptor<Toast> {
+        List<String> deviceIds = new ArrayList<>();
+
+        @Override
+        public void intercept(String deviceId, Toast message) {
+            deviceIds.add(deviceId);
+        }
+    }
+}
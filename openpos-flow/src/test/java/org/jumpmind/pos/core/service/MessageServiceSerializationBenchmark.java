@@ -0,0 +1,62 @@
+package org.jumpmind.pos.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.server.service.MessageService;
+import org.jumpmind.pos.util.DefaultObjectMapper;
+import org.jumpmind.pos.util.model.Message;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.jumpmind.pos.core.service.MessageServiceSerializationTest.itemListMessage;
+import static org.jumpmind.pos.core.service.MessageServiceSerializationTest.saleScreen;
+import static org.junit.Assert.*;
+
+/**
+ * Times serializing messages pretty printed against sending them compact through the {@link MessageService}.  It is left
+ * out of the test task, run it with the benchmark task.
+ */
+@Slf4j
+public class MessageServiceSerializationBenchmark {
+
+    List<org.springframework.messaging.Message<?>> sent = new ArrayList<>();
+    MessageService messageService = MessageServiceSerializationTest.messageService(false, sent);
+
+    @Test
+    public void testSerializationCost() throws Exception {
+        ObjectMapper mapper = DefaultObjectMapper.defaultObjectMapper();
+        measure(mapper, "sale", saleScreen());
+        measure(mapper, "item list", itemListMessage(50));
+    }
+
+    private void measure(ObjectMapper mapper, String name, Message message) throws Exception {
+        final int iterations = 5000;
+        for (int i = 0; i < iterations; i++) {
+            mapper.writerWithDefaultPrettyPrinter().writeValueAsString(message).getBytes(UTF_8);
+            messageService.sendMessage("00100-001", message);
+        }
+        sent.clear();
+
+        int prettyBytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            prettyBytes = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(message).getBytes(UTF_8).length;
+        }
+        long prettyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            messageService.sendMessage("00100-001", message);
+        }
+        long compactNanos = System.nanoTime() - start;
+        int compactBytes = ((byte[]) sent.get(0).getPayload()).length;
+        sent.clear();
+
+        assertTrue(compactBytes < prettyBytes);
+        log.info("{} message: pretty printed {} bytes, {} us; compact {} bytes, {} us", name, prettyBytes,
+                prettyNanos / iterations / 1000.0, compactBytes, compactNanos / iterations / 1000.0);
+    }
+}
@@ -0,0 +1,120 @@
+package org.jumpmind.pos.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jumpmind.pos.core.ui.ActionItem;
+import org.jumpmind.pos.core.ui.UIDataMessage;
+import org.jumpmind.pos.core.ui.data.AdditionalLabel;
+import org.jumpmind.pos.core.ui.data.SellItem;
+import org.jumpmind.pos.core.ui.data.UIDataMessageType;
+import org.jumpmind.pos.core.ui.message.SaleUIMessage;
+import org.jumpmind.pos.server.service.MessageService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class MessageServiceSerializationTest {
+
+    MessageService messageService;
+    List<org.springframework.messaging.Message<?>> sent = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        messageService = messageService(false, sent);
+    }
+
+    @Test
+    public void testMessagesAreCompact() throws Exception {
+        messageService.sendMessage("00100-001", saleScreen());
+
+        assertEquals(1, sent.size());
+        String json = new String((byte[]) sent.get(0).getPayload(), UTF_8);
+        assertFalse(json.contains("\n"));
+        Map<?, ?> screen = new ObjectMapper().readValue(json, Map.class);
+        assertEquals("Sale", screen.get("screenType"));
+        assertEquals("sale", screen.get("id"));
+    }
+
+    @Test
+    public void testPrettyPrintIsOptIn() {
+        messageService = messageService(true, sent);
+        messageService.sendMessage("00100-001", saleScreen());
+        assertTrue(new String((byte[]) sent.get(0).getPayload(), UTF_8).contains("\n"));
+    }
+
+    @Test
+    public void testFanOutSharesOnePayload() {
+        messageService.sendMessage(Arrays.asList("00100-001", "00100-002", "00100-003"), itemListMessage(20));
+
+        assertEquals(3, sent.size());
+        assertSame(sent.get(0).getPayload(), sent.get(1).getPayload());
+        assertSame(sent.get(0).getPayload(), sent.get(2).getPayload());
+    }
+
+    static MessageService messageService(boolean prettyPrint, List<org.springframework.messaging.Message<?>> sent) {
+        MessageService service = new MessageService();
+        ReflectionTestUtils.setField(service, "template", new SimpMessagingTemplate((message, timeout) -> sent.add(message)));
+        ReflectionTestUtils.setField(service, "jsonIncludeNulls", true);
+        ReflectionTestUtils.setField(service, "websocketSendBufferLimit", 8192000);
+        ReflectionTestUtils.setField(service, "messageCacheTimeout", 300000);
+        ReflectionTestUtils.setField(service, "prettyPrint", prettyPrint);
+        service.init();
+        return service;
+    }
+
+    static SaleUIMessage saleScreen() {
+        SaleUIMessage screen = new SaleUIMessage();
+        screen.setSequenceNumber(42);
+        screen.setTransactionActive(true);
+        screen.addTotal("Subtotal", "$104.97");
+        screen.addTotal("Tax", "$7.35");
+        screen.addTotal("Discounts", "-$10.00");
+        screen.setGrandTotal("Total", "$102.32");
+        screen.setCheckoutButton(new ActionItem("Checkout", "Checkout", "payment"));
+        screen.setHelpButton(new ActionItem("Help", "Help", "help"));
+        screen.setLogoutButton(new ActionItem("Logout", "Sign Out", "logout"));
+        screen.setLinkedCustomerButton(new ActionItem("LinkCustomer", "Link Customer", "person"));
+        screen.setPromoButton(new ActionItem("Promotions", "Promotions", "local_offer"));
+        screen.setLoyaltyButton(new ActionItem("Loyalty", "Loyalty", "loyalty"));
+        screen.setLoyaltyIDLabel("Loyalty ID");
+        screen.setRewardsLabel("Rewards");
+        screen.setNoPromotionsLabel("No promotions available");
+        screen.setLocationOverridePrompt("Override the store location");
+        return screen;
+    }
+
+    static UIDataMessage<List<SellItem>> itemListMessage(int count) {
+        List<SellItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SellItem item = new SellItem();
+            item.setIndex(i);
+            item.setPosItemId("1000" + i);
+            item.setAltItemId("0001234567" + i);
+            item.setDescription("Men's Crew Neck T-Shirt " + i);
+            item.setSubtitle("Blue / Large");
+            item.setAmount("$19.99");
+            item.setSellingPrice("$19.99");
+            item.setOriginalAmount("$24.99");
+            item.setQuantity("1");
+            item.setImageUrl("/api/images/1000" + i + ".png");
+            item.addMenuItem(new ActionItem("ItemDetails", "Item Details", "info"));
+            item.addMenuItem(new ActionItem("ChangeQuantity", "Change Quantity", "exposure"));
+            item.addMenuItem(new ActionItem("VoidItem", "Void Item", "delete"));
+            item.getAdditionalLabels().add(new AdditionalLabel("Associate", "Jane Smith"));
+            item.getPromoLabels().add(new AdditionalLabel("20% off Tops", "-$5.00"));
+            items.add(item);
+        }
+        UIDataMessage<List<SellItem>> message = new UIDataMessage<>(UIDataMessageType.SELECTION_LIST_DATA);
+        message.setSeriesId(1);
+        message.setData(items);
+        return message;
+    }
+}
@@ -0,0 +1,253 @@
+package org.jumpmind.pos.core.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.core.flow.ApplicationState;
+import org.jumpmind.pos.core.flow.IStateManager;
+import org.jumpmind.pos.core.flow.IStateManagerContainer;
+import org.jumpmind.pos.core.ui.ActionItem;
+import org.jumpmind.pos.core.ui.ScreenPatchMessage;
+import org.jumpmind.pos.core.ui.SerializedUIMessage;
+import org.jumpmind.pos.core.ui.UIMessage;
+import org.jumpmind.pos.core.ui.data.AdditionalLabel;
+import org.jumpmind.pos.core.ui.data.SellItem;
+import org.jumpmind.pos.core.ui.message.DialogUIMessage;
+import org.jumpmind.pos.core.ui.message.SaleUIMessage;
+import org.jumpmind.pos.core.util.LogFormatter;
+import org.jumpmind.pos.server.model.Action;
+import org.jumpmind.pos.server.service.IMessageService;
+import org.jumpmind.pos.util.DefaultObjectMapper;
+import org.jumpmind.pos.util.JsonPatch;
+import org.jumpmind.pos.util.model.Message;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+public class ScreenServiceDeltaMessageTest {
+
+    static final String DEVICE_ID = "00100-001";
+
+    ScreenService screenService;
+    ApplicationState applicationState;
+    List<Message> sent = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        applicationState = new ApplicationState();
+        IStateManager stateManager = mock(IStateManager.class);
+        when(stateManager.getApplicationState()).thenReturn(applicationState);
+        IStateManagerContainer stateManagerContainer = mock(IStateManagerContainer.class);
+        when(stateManagerContainer.retrieve(anyString(), anyBoolean())).thenReturn(stateManager);
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBeanNamesForType(any(ResolvableType.class))).thenReturn(new String[0]);
+
+        screenService = new ScreenService();
+        screenService.logFormatter = new LogFormatter();
+        ReflectionTestUtils.setField(screenService, "stateManagerContainer", stateManagerContainer);
+        ReflectionTestUtils.setField(screenService, "applicationContext", applicationContext);
+        ReflectionTestUtils.setField(screenService, "uiDataMessageProviderService", mock(UIDataMessageProviderService.class));
+        ReflectionTestUtils.setField(screenService, "messageService", (IMessageService) (deviceId, message) -> sent.add(message));
+        ReflectionTestUtils.setField(screenService, "jsonIncludeNulls", true);
+        ReflectionTestUtils.setField(screenService, "deltaMessagesEnabled", true);
+        ReflectionTestUtils.setField(screenService, "deltaMessagesMaxOperations", 200);
+        screenService.init();
+    }
+
+    @Test
+    public void testFullScreensWhenDisabled() {
+        ReflectionTestUtils.setField(screenService, "deltaMessagesEnabled", false);
+        screenService.showScreen(DEVICE_ID, saleScreen(1));
+        screenService.showScreen(DEVICE_ID, saleScreen(2));
+
+        assertTrue(sent.get(0) instanceof SaleUIMessage);
+        assertTrue(sent.get(1) instanceof SaleUIMessage);
+        assertNull(applicationState.getLastSentScreenJson());
+    }
+
+    @Test
+    public void testSameScreenIsPatched() {
+        ClientScreens client = new ClientScreens();
+        client.receive(show(saleScreen(1)));
+        Message second = show(saleScreen(2));
+
+        assertTrue(second instanceof ScreenPatchMessage);
+        ScreenPatchMessage patch = (ScreenPatchMessage) second;
+        assertEquals("Screen", patch.getPatchedType());
+        assertEquals("Sale", patch.getScreenType());
+        assertEquals("sale", patch.getId());
+        assertEquals(1, patch.getBaseSequenceNumber());
+        assertEquals(Integer.valueOf(2), patch.get("sequenceNumber"));
+
+        client.receive(second);
+        assertEquals(applicationState.getLastSentScreenJson(), client.screen);
+    }
+
+    @Test
+    public void testFullScreenOnMismatch() {
+        show(saleScreen(1));
+
+        SaleUIMessage otherId = saleScreen(2);
+        otherId.setId("sale2");
+        assertFullScreen(otherId, show(otherId));
+
+        UIMessage otherType = new UIMessage("Home", "sale2");
+        assertFullScreen(otherType, show(otherType));
+    }
+
+    @Test
+    public void testFullScreenOnRefresh() {
+        show(saleScreen(1));
+
+        SaleUIMessage refreshed = saleScreen(2);
+        refreshed.put("refreshAlways", true);
+        assertFullScreen(refreshed, show(refreshed));
+        assertTrue(show(saleScreen(3)) instanceof ScreenPatchMessage);
+
+        applicationState.setLastScreen(saleScreen(3));
+        screenService.actionOccurred(DEVICE_ID, new Action("Refresh"));
+        assertTrue(sent.get(sent.size() - 1) instanceof SerializedUIMessage);
+    }
+
+    @Test
+    public void testDialogsAreTrackedSeparately() {
+        ClientScreens client = new ClientScreens();
+        client.receive(show(saleScreen(1)));
+        client.receive(show(dialog("Are you sure?")));
+
+        Message dialogPatch = show(dialog("Are you really sure?"));
+        assertTrue(dialogPatch instanceof ScreenPatchMessage);
+        assertEquals("Dialog", ((ScreenPatchMessage) dialogPatch).getPatchedType());
+        client.receive(dialogPatch);
+        assertEquals(applicationState.getLastSentDialogJson(), client.dialog);
+
+        Message screenPatch = show(saleScreen(2));
+        assertTrue(screenPatch instanceof ScreenPatchMessage);
+        assertNull(applicationState.getLastSentDialogJson());
+        DialogUIMessage dialog = dialog("Are you sure?");
+        assertFullScreen(dialog, show(dialog));
+    }
+
+    @Test
+    public void testTooManyChangesSendsFullScreen() {
+        ReflectionTestUtils.setField(screenService, "deltaMessagesMaxOperations", 2);
+        show(saleScreen(1));
+        SaleUIMessage changed = saleScreen(5);
+        changed.setAlertMessage("Price override required");
+        assertFullScreen(changed, show(changed));
+    }
+
+    @Test
+    public void testMessageSizeOverTransaction() throws Exception {
+        final int items = 100;
+        ClientScreens client = new ClientScreens();
+        long fullBytes = 0;
+        long deltaBytes = 0;
+
+        for (int i = 1; i <= items; i++) {
+            SaleUIMessage screen = saleScreen(i);
+            fullBytes += DefaultObjectMapper.writer().writeValueAsBytes(screen).length;
+
+            Message message = show(screen);
+            deltaBytes += DefaultObjectMapper.writer().writeValueAsBytes(message).length;
+            client.receive(message);
+            assertEquals(applicationState.getLastSentScreenJson(), client.screen);
+        }
+
+        log.info("{} item transaction: full screens {} KB, delta messages {} KB", items, fullBytes / 1024, deltaBytes / 1024);
+        assertTrue(deltaBytes * 10 < fullBytes);
+    }
+
+    private void assertFullScreen(UIMessage screen, Message message) {
+        assertTrue(message instanceof SerializedUIMessage);
+        assertSame(screen, ((SerializedUIMessage) message).getScreen());
+        JsonNode lastSent = screen.isDialog() ? applicationState.getLastSentDialogJson() : applicationState.getLastSentScreenJson();
+        assertEquals(lastSent, DefaultObjectMapper.sharedObjectMapper().valueToTree(message));
+    }
+
+    private Message show(UIMessage screen) {
+        screenService.showScreen(DEVICE_ID, screen);
+        return sent.get(sent.size() - 1);
+    }
+
+    private SaleUIMessage saleScreen(int itemCount) {
+        SaleUIMessage screen = new SaleUIMessage();
+        screen.setTransactionActive(true);
+        screen.setCheckoutButton(new ActionItem("Checkout", "Checkout", "payment"));
+        screen.setLogoutButton(new ActionItem("Logout", "Sign Out", "logout"));
+        screen.setLoyaltyButton(new ActionItem("Loyalty", "Loyalty", "loyalty"));
+
+        List<SellItem> sellItems = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal price = new BigDecimal("19.99").add(BigDecimal.valueOf(i % 7));
+            subtotal = subtotal.add(price);
+            SellItem item = new SellItem();
+            item.setIndex(i);
+            item.setPosItemId("1000" + i);
+            item.setDescription("Men's Crew Neck T-Shirt " + i);
+            item.setSubtitle("Blue / Large");
+            item.setAmount("$" + price);
+            item.setSellingPrice("$" + price);
+            item.setQuantity("1");
+            item.setImageUrl("/api/images/1000" + i + ".png");
+            item.addMenuItem(new ActionItem("ItemDetails", "Item Details", "info"));
+            item.addMenuItem(new ActionItem("VoidItem", "Void Item", "delete"));
+            item.getAdditionalLabels().add(new AdditionalLabel("Associate", "Jane Smith"));
+            sellItems.add(item);
+        }
+        screen.put("items", sellItems);
+        screen.addTotal("Subtotal", "$" + subtotal);
+        screen.addTotal("Tax", "$" + subtotal.multiply(new BigDecimal("0.07")).setScale(2, BigDecimal.ROUND_HALF_UP));
+        screen.setGrandTotal("Total", "$" + subtotal.multiply(new BigDecimal("1.07")).setScale(2, BigDecimal.ROUND_HALF_UP));
+        return screen;
+    }
+
+    private DialogUIMessage dialog(String text) {
+        DialogUIMessage dialog = new DialogUIMessage();
+        dialog.asDialog();
+        dialog.setId("confirm");
+        dialog.put("text", text);
+        return dialog;
+    }
+
+    /**
+     * Does what the client does with the messages it receives
+     */
+    class ClientScreens {
+        JsonNode screen;
+        JsonNode dialog;
+
+        void receive(Message message) {
+            if (message instanceof ScreenPatchMessage) {
+                ScreenPatchMessage patch = (ScreenPatchMessage) message;
+                boolean isDialog = "Dialog".equals(patch.getPatchedType());
+                JsonNode base = isDialog ? dialog : screen;
+                assertEquals(patch.getBaseSequenceNumber(), base.path("sequenceNumber").asInt());
+                JsonNode patched = JsonPatch.apply(base, patch.getPatch());
+                if (isDialog) {
+                    dialog = patched;
+                } else {
+                    screen = patched;
+                }
+            } else if ("Dialog".equals(message.getType())) {
+                dialog = DefaultObjectMapper.sharedObjectMapper().valueToTree(message);
+            } else {
+                screen = DefaultObjectMapper.sharedObjectMapper().valueToTree(message);
+            }
+        }
+    }
+}
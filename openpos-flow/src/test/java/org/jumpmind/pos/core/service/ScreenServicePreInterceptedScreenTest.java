@@ -0,0 +1,133 @@
+package org.jumpmind.pos.core.service;
+
+import org.jumpmind.pos.core.flow.ApplicationState;
+import org.jumpmind.pos.core.flow.IMessageInterceptor;
+import org.jumpmind.pos.core.flow.IStateManager;
+import org.jumpmind.pos.core.flow.IStateManagerContainer;
+import org.jumpmind.pos.core.ui.ActionItem;
+import org.jumpmind.pos.core.ui.UIMessage;
+import org.jumpmind.pos.core.ui.data.SellItem;
+import org.jumpmind.pos.core.ui.message.DialogUIMessage;
+import org.jumpmind.pos.core.ui.message.SaleUIMessage;
+import org.jumpmind.pos.core.util.LogFormatter;
+import org.jumpmind.pos.server.service.IMessageService;
+import org.jumpmind.pos.util.model.Message;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScreenServicePreInterceptedScreenTest {
+
+    static final String DEVICE_ID = "00100-001";
+
+    ScreenService screenService;
+    ApplicationState applicationState;
+    ApplicationContext applicationContext;
+    List<Message> sent = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        applicationState = new ApplicationState();
+        IStateManager stateManager = mock(IStateManager.class);
+        when(stateManager.getApplicationState()).thenReturn(applicationState);
+        IStateManagerContainer stateManagerContainer = mock(IStateManagerContainer.class);
+        when(stateManagerContainer.retrieve(anyString(), anyBoolean())).thenReturn(stateManager);
+        applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBeanNamesForType(any(ResolvableType.class))).thenReturn(new String[0]);
+
+        screenService = new ScreenService();
+        screenService.logFormatter = new LogFormatter();
+        ReflectionTestUtils.setField(screenService, "stateManagerContainer", stateManagerContainer);
+        ReflectionTestUtils.setField(screenService, "applicationContext", applicationContext);
+        ReflectionTestUtils.setField(screenService, "uiDataMessageProviderService", mock(UIDataMessageProviderService.class));
+        ReflectionTestUtils.setField(screenService, "messageService", (IMessageService) (deviceId, message) -> sent.add(message));
+        screenService.init();
+    }
+
+    @Test
+    public void testInterceptorsCannotChangeTheRetainedScreen() {
+        addInterceptor((deviceId, screen) -> {
+            screen.put("intercepted", true);
+            if (screen instanceof SaleUIMessage) {
+                SaleUIMessage sale = (SaleUIMessage) screen;
+                sale.getCheckoutButton().setTitle("Pay Now");
+                @SuppressWarnings("unchecked")
+                List<SellItem> items = (List<SellItem>) sale.get("items");
+                items.get(0).setDescription("Translated");
+                items.remove(1);
+            }
+        });
+
+        SaleUIMessage screen = saleScreen();
+        screenService.showScreen(DEVICE_ID, screen);
+
+        assertSame(screen, sent.get(0));
+        assertEquals(Boolean.TRUE, screen.get("intercepted"));
+        assertEquals("Pay Now", screen.getCheckoutButton().getTitle());
+
+        SaleUIMessage retained = (SaleUIMessage) screenService.getLastPreInterceptedScreen(DEVICE_ID);
+        assertNotSame(screen, retained);
+        assertNull(retained.get("intercepted"));
+        assertEquals("Checkout", retained.getCheckoutButton().getTitle());
+        @SuppressWarnings("unchecked")
+        List<SellItem> items = (List<SellItem>) retained.get("items");
+        assertEquals(2, items.size());
+        assertEquals("T-Shirt", items.get(0).getDescription());
+        assertEquals((Integer) screen.get("sequenceNumber"), retained.get("sequenceNumber"));
+    }
+
+    @Test
+    public void testRetainedDialogIsCopiedToo() {
+        addInterceptor((deviceId, screen) -> screen.put("text", "Translated"));
+
+        screenService.showScreen(DEVICE_ID, saleScreen());
+        DialogUIMessage dialog = new DialogUIMessage();
+        dialog.asDialog();
+        dialog.put("text", "Are you sure?");
+        screenService.showScreen(DEVICE_ID, dialog);
+
+        assertEquals("Translated", dialog.get("text"));
+        UIMessage retained = screenService.getLastPreInterceptedDialog(DEVICE_ID);
+        assertNotSame(dialog, retained);
+        assertEquals("Are you sure?", retained.get("text"));
+        assertNotNull(screenService.getLastPreInterceptedScreen(DEVICE_ID));
+    }
+
+    @Test
+    public void testScreenIsNotCopiedWithoutInterceptors() {
+        SaleUIMessage screen = saleScreen();
+        screenService.showScreen(DEVICE_ID, screen);
+        assertSame(screen, screenService.getLastPreInterceptedScreen(DEVICE_ID));
+    }
+
+    private void addInterceptor(IMessageInterceptor<UIMessage> interceptor) {
+        when(applicationContext.getBeanNamesForType(any(ResolvableType.class))).thenReturn(new String[] {"screenInterceptor"});
+        when(applicationContext.getBean("screenInterceptor")).thenReturn(interceptor);
+    }
+
+    private SaleUIMessage saleScreen() {
+        SaleUIMessage screen = new SaleUIMessage();
+        screen.setCheckoutButton(new ActionItem("Checkout", "Checkout", "payment"));
+        List<SellItem> items = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            SellItem item = new SellItem();
+            item.setIndex(i);
+            item.setDescription("T-Shirt");
+            items.add(item);
+        }
+        screen.put("items", items);
+        return screen;
+    }
+}
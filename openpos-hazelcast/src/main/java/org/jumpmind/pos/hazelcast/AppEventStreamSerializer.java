@@ -20,7 +20,7 @@ public class AppEventStreamSerializer implements StreamSerializer<AppEvent> {
         // Use a wrapper for serializing so that subclass instances of AppEvent are properly re-constituted upon
         // deserialization
         SerializationWrapper<AppEvent> wrapper = new SerializationWrapper<>(appEvent);
-        String appEventWrapperStr = DefaultObjectMapper.defaultObjectMapper().writeValueAsString(wrapper);
+        String appEventWrapperStr = DefaultObjectMapper.writer().writeValueAsString(wrapper);
         out.writeUTF(appEventWrapperStr);
     }
 
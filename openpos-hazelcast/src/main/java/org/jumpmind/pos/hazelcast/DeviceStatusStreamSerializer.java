@@ -15,13 +15,13 @@ public class DeviceStatusStreamSerializer implements StreamSerializer<DeviceStat
 
     @Override
     public void write(ObjectDataOutput out, DeviceStatus deviceStatus) throws IOException {
-        String deviceStatusStr = DefaultObjectMapper.defaultObjectMapper().writeValueAsString(deviceStatus);
+        String deviceStatusStr = DefaultObjectMapper.writer().writeValueAsString(deviceStatus);
         out.writeUTF(deviceStatusStr);
     }
 
     @Override
     public DeviceStatus read(ObjectDataInput in) throws IOException {
-        DeviceStatus status = DefaultObjectMapper.defaultObjectMapper().readValue(in.readUTF(), DeviceStatus.class);
+        DeviceStatus status = DefaultObjectMapper.readerFor(DeviceStatus.class).readValue(in.readUTF());
         return status;
     }
 
@@ -23,7 +23,7 @@ public class SerializationWrapper<T> {
 
     public <O extends T> SerializationWrapper(O toBeWrapped) {
         try {
-            this.value = toBeWrapped != null ? DefaultObjectMapper.defaultObjectMapper().writeValueAsString(toBeWrapped) : null;
+            this.value = toBeWrapped != null ? DefaultObjectMapper.writer().writeValueAsString(toBeWrapped) : null;
         } catch (JsonProcessingException e) {
             log.error(String.format("Failed to convert AppEvent of type '%s' to a String", toBeWrapped.getClass().getName()), e);
         }
@@ -33,7 +33,7 @@ public class SerializationWrapper<T> {
     public <O extends T> O deserialize(String s) throws IOException {
         SerializationWrapper<O> wrapper = null;
         try {
-            wrapper = DefaultObjectMapper.defaultObjectMapper().readValue(s, SerializationWrapper.class);
+            wrapper = DefaultObjectMapper.readerFor(SerializationWrapper.class).readValue(s);
         } catch (Exception ex) {
             log.error("Failed to deserialize AppEventWrapper!", ex);
             throw new IOException(ex);
@@ -43,7 +43,7 @@ public class SerializationWrapper<T> {
         if (wrapper.clazz != null) {
             if (wrapper.value != null) {
                 try {
-                    obj = DefaultObjectMapper.defaultObjectMapper().readValue(wrapper.value, wrapper.clazz);
+                    obj = DefaultObjectMapper.readerFor(wrapper.clazz).readValue(wrapper.value);
                 } catch (Exception ex) {
                     log.error(String.format("Failed to deserialize AppEvent of type '%s' from string [%s]",
                             wrapper.clazz.getName(), wrapper.value), ex);
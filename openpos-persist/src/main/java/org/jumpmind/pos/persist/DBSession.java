@@ -9,6 +9,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.h2.tools.RunScript;
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.DatabaseNamesConstants;
 import org.jumpmind.db.platform.IDatabasePlatform;
 import org.jumpmind.db.sql.DmlStatement;
 import org.jumpmind.db.sql.DmlStatement.DmlType;
@@ -35,7 +36,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.commons.lang3.StringUtils.*;
 
@@ -44,6 +49,13 @@ public class DBSession {
 
     public static final String JDBC_QUERY_TIMEOUT = "openpos.jdbc.queryTimeoutSec";
     public static final String JDBC_FETCH_SIZE = "openpos.jdbc.fetchSize";
+    public static final String JDBC_STREAM_FETCH_SIZE = "openpos.jdbc.streamFetchSize";
+    public static final String COMPILED_ROW_MAPPERS = "openpos.persist.compiledRowMappers";
+    public static final String SQL_CACHE = "openpos.persist.sqlCache";
+    public static final String SAVE_ALL_BATCH_SIZE = "openpos.persist.saveAllBatchSize";
+
+    private static final Pattern INSERT_SQL = Pattern.compile("^\\s*insert\\s+into\\s+(.+?)\\s*\\((.*)\\)\\s*values\\s*\\((.*)\\)\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
 
     private DatabaseSchema databaseSchema;
     @Getter
@@ -54,6 +66,8 @@ public class DBSession {
     private DmlTemplates dmlTemplates;
     private TagHelper tagHelper;
     private AugmenterHelper augmenterHelper;
+    private boolean compiledRowMappers;
+    private SqlCache sqlCache;
 
     public DBSession(String catalogName, String schemaName, DatabaseSchema databaseSchema, IDatabasePlatform databasePlatform,
                      TypedProperties sessionContext, QueryTemplates queryTemplates, DmlTemplates dmlTemplates,
@@ -70,6 +84,8 @@ public class DBSession {
         this.queryTemplates = queryTemplates;
         this.tagHelper = tagHelper;
         this.augmenterHelper = augmenterHelper;
+        this.compiledRowMappers = sessionContext.is(COMPILED_ROW_MAPPERS, true);
+        this.sqlCache = sessionContext.is(SQL_CACHE, true) ? databaseSchema.getSqlCache() : null;
     }
 
     /**
@@ -86,7 +102,7 @@ public class DBSession {
             final QueryTemplate queryTemplate = getQueryTemplate(query);
 
             try {
-                final SqlStatement statement = queryTemplate.generateSQL(query, params);
+                final SqlStatement statement = generateSQL(query, queryTemplate, params);
                 DBSession.this.queryInternal(statement, maxResults, rowHandler);
             } catch (Exception ex) {
                 throwPersistException(query, params, ex);
@@ -101,7 +117,7 @@ public class DBSession {
             final QueryTemplate queryTemplate = getQueryTemplate(query);
 
             try {
-                final SqlStatement statement = queryTemplate.generateSQL(query, params);
+                final SqlStatement statement = generateSQL(query, queryTemplate, params);
                 queryForEachRow(statement, maxResults, clazz, rowHandler);
             } catch (Exception ex) {
                 throwPersistException(query, params, ex);
@@ -121,11 +137,15 @@ public class DBSession {
         }
 
         private <T> void queryForEachRow(SqlStatement statement, int maxResults, Class<T> resultClass, Consumer<RowConsumerContext<T>> rowHandler) {
+            final List<ModelRowMapper> rowMapper = new ArrayList<>(1);
             DBSession.this.queryInternal(statement, maxResults, context -> {
                 final DbRow row = context.getRow();
 
                 try {
-                    final T object = performObjectMapping(row, resultClass);
+                    if (rowMapper.isEmpty()) {
+                        rowMapper.add(getRowMapper(resultClass, row));
+                    }
+                    final T object = performObjectMapping(row, resultClass, rowMapper.get(0));
                     rowHandler.accept(new RowConsumerContext<>(object));
                 } catch (Exception ex) {
                     log.error("cannot map row to `{}` class for query `{}`; aborting row-by-row iteration", resultClass.getSimpleName(), statement.getSql(), ex);
@@ -179,10 +199,9 @@ public class DBSession {
     }
 
     public <T extends AbstractModel> T findByNaturalId(Class<T> entityClass, ModelId id) {
-        QueryTemplate queryTemplate = new QueryTemplate();
-        queryTemplate.setSelect(getSelectSql(entityClass, id.getIdFields()));
+        QueryTemplate queryTemplate = getModelSelectTemplate(entityClass, id.getIdFields());
         Query<T> query = new Query<T>().result(entityClass);
-        List<T> results = query(query, queryTemplate, id.getIdFields(), 1);
+        List<T> results = query(query, queryTemplate, id.getIdFields(), 1, true);
 
         if (results != null) {
             if (results.size() == 1) {
@@ -248,10 +267,9 @@ public class DBSession {
     }
 
     public <T extends AbstractModel> List<T> findByFields(Class<T> entityClass, Map<String, Object> fieldValues, int maxResults) {
-        QueryTemplate queryTemplate = new QueryTemplate();
-        queryTemplate.setSelect(getSelectSql(entityClass, fieldValues));
+        QueryTemplate queryTemplate = getModelSelectTemplate(entityClass, fieldValues);
         Query<T> query = new Query<T>().result(entityClass);
-        return query(query, queryTemplate, fieldValues, maxResults);
+        return query(query, queryTemplate, fieldValues, maxResults, true);
     }
 
     public void executeScript(File file) {
@@ -328,7 +346,9 @@ public class DBSession {
     public <T> List<T> query(Query<T> query, Object singleParam, int maxResults) {
         QueryTemplate queryTemplate = getQueryTemplate(query);
         try {
-            SqlStatement sqlStatement = queryTemplate.generateSQL(query, singleParam);
+            Map<String, Object> params = new HashMap<>();
+            params.put("*", singleParam);
+            SqlStatement sqlStatement = generateSQL(query, queryTemplate, params);
             return (List<T>) queryInternal(query.getResultClass(), sqlStatement, maxResults);
         } catch (Exception ex) {
             throw new PersistException("Failed to query target class " + query.getResultClass(), ex);
@@ -337,7 +357,7 @@ public class DBSession {
 
     public <T> List<T> query(Query<T> query, Map<String, Object> params, int maxResults) {
         QueryTemplate queryTemplate = getQueryTemplate(query);
-        return query(query, queryTemplate, params, maxResults);
+        return query(query, queryTemplate, params, maxResults, true);
     }
 
     @SuppressWarnings("unchecked")
@@ -355,11 +375,81 @@ public class DBSession {
         }
     }
 
+    public <T> Stream<T> stream(Query<T> query) {
+        return stream(query, new HashMap<>());
+    }
+
+    public <T> Stream<T> stream(Query<T> query, Map<String, Object> params) {
+        return stream(query, params, sessionContext.getInt(JDBC_STREAM_FETCH_SIZE, 1000));
+    }
+
+    /**
+     * Runs the query and returns a stream of its results that is backed by an open database cursor.  Rows are fetched
+     * {@code fetchSize} at a time and are mapped as the stream is consumed, so the full result is never held in memory.
+     * The stream holds a connection until it is closed or fully consumed, so it should be used in a try-with-resources
+     * block.
+     */
+    public <T> Stream<T> stream(Query<T> query, Map<String, Object> params, int fetchSize) {
+        QueryTemplate queryTemplate = getQueryTemplate(query);
+        SqlStatement sqlStatement;
+        try {
+            sqlStatement = generateSQL(query, queryTemplate, params);
+        } catch (Exception ex) {
+            throw new PersistException("Failed to execute query. Name: " + query.getName() + " result class: " +
+                    query.getResultClass() + " Parameters: " + params, ex);
+        }
+
+        QueryCursor cursor = openCursor(sqlStatement, fetchSize);
+        Class<? extends T> resultClass = query.getResultClass();
+        Iterator<T> results = new Iterator<T>() {
+            CaseInsensitiveMap<String, String> columnsIgnoreCase;
+            ModelRowMapper rowMapper;
+
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public T next() {
+                DbRow row = cursor.next();
+                if (columnsIgnoreCase == null) {
+                    columnsIgnoreCase = row.generateColumnsNamesIgnoreCase();
+                    rowMapper = getRowMapper(resultClass, row);
+                }
+                row.setColumnsNamesIgnoreCase(columnsIgnoreCase);
+                try {
+                    return performObjectMapping(row, resultClass, rowMapper);
+                } catch (InstantiationException | IllegalAccessException ex) {
+                    throw new PersistException("Failed to map row " + cursor.getRowCount() + " to " + resultClass, ex);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED), false)
+                .onClose(cursor::close);
+    }
+
+    protected QueryCursor openCursor(SqlStatement statement, int fetchSize) {
+        final ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(statement.getSql());
+        String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, statement.getParameters());
+        List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, statement.getParameters());
+        Object[] args = NamedParameterUtils.buildValueArray(parsedSql, statement.getParameters(), declaredParameters);
+        PreparedStatementCreator psc = new PreparedStatementCreatorFactory(sqlToUse, declaredParameters).newPreparedStatementCreator(args);
+
+        try {
+            return new QueryCursor(jdbcTemplate.getJdbcTemplate().getDataSource(), psc, fetchSize,
+                    DatabaseNamesConstants.H2.equals(databasePlatform.getName()));
+        } catch (PersistException ex) {
+            throw new PersistException("Failed to execute sql: " + new LogSqlBuilder().buildDynamicSqlForLog(sqlToUse, cleanArgs(args), null), ex);
+        }
+    }
+
     public Integer queryForInt(Query query, Map<String, Object> params) {
         QueryTemplate queryTemplate = getQueryTemplate(query);
         List results = null;
         try {
-            SqlStatement sqlStatement = queryTemplate.generateSQL(query, params);
+            SqlStatement sqlStatement = generateSQL(query, queryTemplate, params);
             results = queryInternal(null, sqlStatement, 1000);
 
             if (results.size() == 1) {
@@ -390,7 +480,7 @@ public class DBSession {
         QueryTemplate queryTemplate = getQueryTemplate(query);
         List results = null;
         try {
-            SqlStatement sqlStatement = queryTemplate.generateSQL(query, params);
+            SqlStatement sqlStatement = generateSQL(query, queryTemplate, params);
             results = queryInternal(null, sqlStatement, 1000);
 
             if (results.size() == 1) {
@@ -416,10 +506,19 @@ public class DBSession {
 
     @SuppressWarnings("unchecked")
     public <T> List<T> query(Query<T> query, QueryTemplate queryTemplate, Map<String, Object> params, int maxResults) {
+        return query(query, queryTemplate, params, maxResults, false);
+    }
+
+    /**
+     * @param cachedTemplate true when the template came from {@link #getQueryTemplate(Query)} or
+     *                       {@link #getModelSelectTemplate(Class, Map)} and the SQL generated from it may be cached
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> query(Query<T> query, QueryTemplate queryTemplate, Map<String, Object> params, int maxResults, boolean cachedTemplate) {
         SqlStatement sqlStatement;
 
         try {
-            sqlStatement = queryTemplate.generateSQL(query, params);
+            sqlStatement = cachedTemplate ? generateSQL(query, queryTemplate, params) : queryTemplate.generateSQL(query, params);
             return (List<T>) queryInternal(query.getResultClass(), sqlStatement, maxResults);
         } catch (Exception ex) {
             throw new PersistException("Failed to execute query. Name: " + query.getName() + " result class: " +
@@ -428,10 +527,12 @@ public class DBSession {
     }
 
     @SuppressWarnings("unchecked")
-    private <T> T performObjectMapping(DbRow row, Class<T> resultClass) throws InstantiationException, IllegalAccessException {
+    private <T> T performObjectMapping(DbRow row, Class<T> resultClass, ModelRowMapper rowMapper) throws InstantiationException, IllegalAccessException {
         T object;
 
-        if (resultClass != null) {
+        if (rowMapper != null) {
+            object = mapModel(rowMapper, row);
+        } else if (resultClass != null) {
             if (resultClass.equals(String.class)) {
                 object = (T) row.stringValue();
             } else if (resultClass.getPackage().getName().equals("java.lang") ||
@@ -463,8 +564,46 @@ public class DBSession {
         return this.dmlTemplates.getDmlTemplate(databaseSchema.getDeviceMode(), templateName);
     }
 
-    @SuppressWarnings("unchecked")
+    protected SqlStatement generateSQL(Query<?> query, QueryTemplate queryTemplate, Map<String, Object> params) {
+        return queryTemplate.generateSQL(query, params, sqlCache, databaseSchema.getDeviceMode());
+    }
+
+    /**
+     * Returns the effective template for the query.  When the SQL cache is enabled the template is shared between
+     * sessions and must not be modified.
+     */
     protected <T> QueryTemplate getQueryTemplate(Query<T> query) {
+        if (sqlCache == null) {
+            return buildQueryTemplate(query);
+        }
+        String deviceMode = databaseSchema.getDeviceMode();
+        SqlCache.SqlCacheKey key = new SqlCache.SqlCacheKey(SqlCache.EntryType.QUERY_TEMPLATE, deviceMode,
+                query.getResultClass(), query.getName(), null, true);
+        return sqlCache.get(key, () -> buildQueryTemplate(query));
+    }
+
+    /**
+     * Returns a template that selects the model by the given fields.  When the SQL cache is enabled the template is
+     * shared between sessions and must not be modified.
+     */
+    protected QueryTemplate getModelSelectTemplate(Class<?> entityClass, Map<String, Object> params) {
+        if (sqlCache == null) {
+            return buildModelSelectTemplate(entityClass, params);
+        }
+        String deviceMode = databaseSchema.getDeviceMode();
+        SqlCache.SqlCacheKey key = new SqlCache.SqlCacheKey(SqlCache.EntryType.MODEL_SELECT, deviceMode,
+                entityClass, null, params != null ? new HashSet<>(params.keySet()) : null, true);
+        return sqlCache.get(key, () -> buildModelSelectTemplate(entityClass, params));
+    }
+
+    private QueryTemplate buildModelSelectTemplate(Class<?> entityClass, Map<String, Object> params) {
+        QueryTemplate queryTemplate = new QueryTemplate();
+        queryTemplate.setSelect(getSelectSql(entityClass, params));
+        return queryTemplate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> QueryTemplate buildQueryTemplate(Query<T> query) {
         QueryTemplate queryTemplate = new QueryTemplate();
         boolean isEntityResult = AbstractModel.class.isAssignableFrom(query.getResultClass());
         // defined in config
@@ -615,29 +754,33 @@ public class DBSession {
         model.loadValues();
 
         for (Table table : tables) {
-            if (model.isNew()) {
-                try {
-                    insert(model, table);
-                } catch (DuplicateKeyException ex) {
-                    if (log.isDebugEnabled()) {
-                        log.info("Insert of entity failed, failing over to an update: " + argModel, ex);
-                    } else {
-                        log.info("Insert of entity failed, failing over to an update: " + argModel);
-                    }
-                    int updateCount = update(model, table);
-                    if (updateCount < 1) {
-                        throw new PersistException("Failed to perform an insert or update on entity. Do the DB primary key and unique fields "
-                                + "match what's understood by the code?  " + argModel, ex);
-                    }
+            upsert(model, table);
+        }
+
+        model.setRetrievalTime(new Date());
+    }
+
+    protected void upsert(ModelWrapper model, Table table) {
+        if (model.isNew()) {
+            try {
+                insert(model, table);
+            } catch (DuplicateKeyException ex) {
+                if (log.isDebugEnabled()) {
+                    log.info("Insert of entity failed, failing over to an update: " + model.getModel(), ex);
+                } else {
+                    log.info("Insert of entity failed, failing over to an update: " + model.getModel());
                 }
-            } else {
-                if (update(model, table) == 0) {
-                    insert(model, table);
+                int updateCount = update(model, table);
+                if (updateCount < 1) {
+                    throw new PersistException("Failed to perform an insert or update on entity. Do the DB primary key and unique fields "
+                            + "match what's understood by the code?  " + model.getModel(), ex);
                 }
             }
+        } else {
+            if (update(model, table) == 0) {
+                insert(model, table);
+            }
         }
-
-        model.setRetrievalTime(new Date());
     }
 
     public void delete(AbstractModel argModel) {
@@ -669,11 +812,7 @@ public class DBSession {
     }
 
     protected int excecuteDml(DmlType type, ModelWrapper model, Table table) {
-        boolean[] nullKeyValues = model.getNullKeys();
-        List<Column> primaryKeyColumns = getPrimaryKeyWithTags(model, table);
-
-        DmlStatement statement = databasePlatform.createDmlStatement(type, table.getCatalog(), table.getSchema(), table.getName(),
-                primaryKeyColumns.toArray(new Column[primaryKeyColumns.size()]), model.getColumns(table), nullKeyValues, null);
+        DmlStatement statement = createDmlStatement(type, model, table);
         String sql = statement.getSql();
         Object[] values = statement.getValueArray(model.getColumnNamesToValues());
         int[] types = statement.getTypes();
@@ -710,6 +849,127 @@ public class DBSession {
         }
     }
 
+    protected DmlStatement createDmlStatement(DmlType type, ModelWrapper model, Table table) {
+        List<Column> primaryKeyColumns = getPrimaryKeyWithTags(model, table);
+        return databasePlatform.createDmlStatement(type, table.getCatalog(), table.getSchema(), table.getName(),
+                primaryKeyColumns.toArray(new Column[primaryKeyColumns.size()]), model.getColumns(table), model.getNullKeys(), null);
+    }
+
+    /**
+     * Saves a batch of models of the same class.  On H2 each table is written with a single batched MERGE statement.
+     * On other platforms new models are batch inserted and existing models are batch updated, falling back to the
+     * insert or update of each row, as {@link #save(AbstractModel)} does, for rows that fail the batch.
+     */
+    protected void saveBatch(Class<?> modelClass, List<? extends AbstractModel> entities) {
+        List<Table> tables = getValidatedTables(modelClass);
+        ModelMetaData modelMetaData = databaseSchema.getModelMetaData(modelClass);
+
+        List<ModelWrapper> models = new ArrayList<>(entities.size());
+        for (AbstractModel entity : entities) {
+            ModelWrapper model = new ModelWrapper(entity, modelMetaData, augmenterHelper);
+            setMaintenanceValues(model);
+            setTagValues(model);
+            model.load();
+            model.loadValues();
+            models.add(model);
+        }
+
+        for (Table table : tables) {
+            List<ModelWrapper> batchable = new ArrayList<>(models.size());
+            for (ModelWrapper model : models) {
+                if (hasNullKey(model)) {
+                    // null keys change the where clause, so these rows can't share a statement
+                    upsert(model, table);
+                } else {
+                    batchable.add(model);
+                }
+            }
+
+            if (!batchable.isEmpty() && !mergeBatch(batchable, table)) {
+                upsertBatch(batchable, table);
+            }
+        }
+
+        Date retrievalTime = new Date();
+        for (ModelWrapper model : models) {
+            model.setRetrievalTime(retrievalTime);
+        }
+    }
+
+    protected boolean mergeBatch(List<ModelWrapper> models, Table table) {
+        if (!DatabaseNamesConstants.H2.equals(databasePlatform.getName()) || table.getPrimaryKeyColumns().length == 0) {
+            return false;
+        }
+
+        DmlStatement statement = createDmlStatement(DmlType.INSERT, models.get(0), table);
+        Matcher matcher = INSERT_SQL.matcher(statement.getSql());
+        if (!matcher.matches()) {
+            log.debug("Could not convert {} to a merge statement", statement.getSql());
+            return false;
+        }
+
+        String sql = String.format("merge into %s (%s) values (%s)", matcher.group(1), matcher.group(2), matcher.group(3));
+        executeBatch(sql, statement, models);
+        return true;
+    }
+
+    protected void upsertBatch(List<ModelWrapper> models, Table table) {
+        List<ModelWrapper> newModels = new ArrayList<>();
+        List<ModelWrapper> existingModels = new ArrayList<>();
+        for (ModelWrapper model : models) {
+            if (model.isNew()) {
+                newModels.add(model);
+            } else {
+                existingModels.add(model);
+            }
+        }
+
+        if (!newModels.isEmpty()) {
+            try {
+                executeBatch(createDmlStatement(DmlType.INSERT, newModels.get(0), table), newModels);
+            } catch (DuplicateKeyException ex) {
+                log.info("Batch insert of {} rows into {} failed, failing over to an insert or update of each row", newModels.size(), table.getName());
+                for (ModelWrapper model : newModels) {
+                    upsert(model, table);
+                }
+            }
+        }
+
+        if (!existingModels.isEmpty()) {
+            int[] updateCounts = executeBatch(createDmlStatement(DmlType.UPDATE, existingModels.get(0), table), existingModels);
+            List<ModelWrapper> missingModels = new ArrayList<>();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) {
+                    missingModels.add(existingModels.get(i));
+                }
+            }
+            if (!missingModels.isEmpty()) {
+                executeBatch(createDmlStatement(DmlType.INSERT, missingModels.get(0), table), missingModels);
+            }
+        }
+    }
+
+    private int[] executeBatch(DmlStatement statement, List<ModelWrapper> models) {
+        return executeBatch(statement.getSql(), statement, models);
+    }
+
+    private int[] executeBatch(String sql, DmlStatement statement, List<ModelWrapper> models) {
+        List<Object[]> values = new ArrayList<>(models.size());
+        for (ModelWrapper model : models) {
+            values.add(statement.getValueArray(model.getColumnNamesToValues()));
+        }
+        return jdbcTemplate.getJdbcOperations().batchUpdate(sql, values, statement.getTypes());
+    }
+
+    private boolean hasNullKey(ModelWrapper model) {
+        for (boolean nullKey : model.getNullKeys()) {
+            if (nullKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private List<Column> getPrimaryKeyWithTags(ModelWrapper model, Table table) {
         List<Column> primaryKeyColumns = new ArrayList<>(model.getPrimaryKeyColumns());
         if (isTaggedWithPrimaryKey(model.getModel())) {
@@ -860,13 +1120,15 @@ public class DBSession {
         queryInternal(statement, maxResults, rowConsumerContext -> rows.add(rowConsumerContext.getRow()));
 
         CaseInsensitiveMap<String, String> columnsIgnoreCase = null;
+        ModelRowMapper rowMapper = null;
         for (DbRow row : rows) {
             if (columnsIgnoreCase == null) {
                 // init just once for performance on large result sets.
                 columnsIgnoreCase = row.generateColumnsNamesIgnoreCase();
+                rowMapper = getRowMapper(resultClass, row);
             }
             row.setColumnsNamesIgnoreCase(columnsIgnoreCase);
-            objects.add(performObjectMapping(row, resultClass));
+            objects.add(performObjectMapping(row, resultClass, rowMapper));
         }
 
         return objects;
@@ -889,6 +1151,28 @@ public class DBSession {
         return AbstractModel.class.isAssignableFrom(resultClass) && resultClass.getDeclaredAnnotation(TableDef.class) != null;
     }
 
+    /**
+     * Looks up the cached {@link ModelRowMapper} for the column layout of the given row.  Returns null when the result
+     * class is not a model or compiled row mappers have been turned off with {@link #COMPILED_ROW_MAPPERS}, in which
+     * case rows are mapped reflectively.
+     */
+    protected ModelRowMapper getRowMapper(Class<?> resultClass, DbRow row) {
+        if (compiledRowMappers && resultClass != null && isModel(resultClass)) {
+            ModelMetaData modelMetaData = databaseSchema.getModelMetaData(resultClass);
+            if (modelMetaData != null) {
+                return modelMetaData.getRowMapper(resultClass, new ArrayList<>(row.getColumnNames()));
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T mapModel(ModelRowMapper rowMapper, DbRow row) {
+        ModelWrapper model = rowMapper.map(row, tagHelper, augmenterHelper);
+        decorateRetrievedModel(model);
+        return (T) model.getModel();
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> T mapModel(Class<T> resultClass, DbRow row) throws InstantiationException, IllegalAccessException {
         ModelMetaData modelMetaData = databaseSchema.getModelMetaData(resultClass);
@@ -1019,15 +1303,33 @@ public class DBSession {
         model.setRetrievalTime(new Date());
     }
 
+    /**
+     * Saves the entities in JDBC batches of {@link #SAVE_ALL_BATCH_SIZE} rows.  Entities are grouped by class, so the
+     * order in which entities of different classes are written is not preserved.
+     */
     public void saveAll(List<? extends AbstractModel> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+
+        Map<Class<?>, List<AbstractModel>> entitiesByClass = new LinkedHashMap<>();
+        for (AbstractModel entity : entities) {
+            entitiesByClass.computeIfAbsent(entity.getClass(), c -> new ArrayList<>()).add(entity);
+        }
+
+        int batchSize = Math.max(1, sessionContext.getInt(SAVE_ALL_BATCH_SIZE, 1000));
         long ts = System.currentTimeMillis();
         int count = 0;
-        for (AbstractModel entity : entities) {
-            save(entity);
-            count++;
-            if (System.currentTimeMillis() - ts > 30000) {
-                ts = System.currentTimeMillis();
-                log.info("Saved {} {} rows", count, entity.getClass().getSimpleName());
+        for (Map.Entry<Class<?>, List<AbstractModel>> entry : entitiesByClass.entrySet()) {
+            List<AbstractModel> models = entry.getValue();
+            for (int i = 0; i < models.size(); i += batchSize) {
+                List<AbstractModel> batch = models.subList(i, Math.min(models.size(), i + batchSize));
+                saveBatch(entry.getKey(), batch);
+                count += batch.size();
+                if (System.currentTimeMillis() - ts > 30000) {
+                    ts = System.currentTimeMillis();
+                    log.info("Saved {} {} rows", count, entry.getKey().getSimpleName());
+                }
             }
         }
     }
@@ -130,6 +130,10 @@ public class DBSessionFactory {
         return list;
     }
 
+    public SqlCache getSqlCache() {
+        return databaseSchema.getSqlCache();
+    }
+
     public DBSession createDbSession() {
         return new DBSession(null, null, databaseSchema, databasePlatform, sessionContext, queryTemplates, dmlTemplates, tagHelper, augmenterHelper);
     }
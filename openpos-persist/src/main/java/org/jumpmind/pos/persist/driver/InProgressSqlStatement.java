@@ -2,8 +2,11 @@ package org.jumpmind.pos.persist.driver;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import java.sql.Statement;
 import java.util.List;
 
 
@@ -13,16 +16,48 @@ public class InProgressSqlStatement {
 
     String sql;
     java.util.List<Object> args;
+    ParameterCapture parameters;
+    /** {@link System#nanoTime()} when the statement started executing */
     long startTime;
+    /** {@link System#nanoTime()} when the statement was last logged by the {@link SqlWatchdog} */
     long lastLoggedTime;
     String threadName;
+    /** The statement to cancel if it runs past the {@link SqlWatchdog} cancel timeout */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Statement statement;
+    volatile boolean cancelRequested;
 
     public InProgressSqlStatement(String sql, List<Object> args, long startTime, String threadName) {
+        this(sql, args, startTime, threadName, null);
+    }
+
+    public InProgressSqlStatement(String sql, List<Object> args, long startTime, String threadName, Statement statement) {
         this.sql = sql;
         this.args = args;
         this.startTime = startTime;
         this.threadName = threadName;
-        lastLoggedTime = System.currentTimeMillis();
+        this.statement = statement;
+        lastLoggedTime = startTime;
+    }
+
+    public InProgressSqlStatement(String sql, ParameterCapture parameters, long startTime, String threadName, Statement statement) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.startTime = startTime;
+        this.threadName = threadName;
+        this.statement = statement;
+        lastLoggedTime = startTime;
+    }
+
+    public Object[] getArgsArray() {
+        if (parameters != null) {
+            return parameters.toArray();
+        } else if (args != null) {
+            return args.toArray();
+        } else {
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,137 @@
+package org.jumpmind.pos.persist.driver;
+
+import java.util.Arrays;
+
+/**
+ * The parameters bound to a prepared statement, recorded by parameter index for logging.  Primitive values are kept
+ * unboxed in a {@code long[]} and are only boxed when the parameters are rendered with {@link #toArray()}.
+ */
+public class ParameterCapture {
+
+    private static final byte UNSET = 0;
+    private static final byte NULL = 1;
+    private static final byte OBJECT = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+
+    private byte[] types = new byte[16];
+    private long[] primitives = new long[16];
+    private Object[] objects = new Object[16];
+    private int count;
+
+    public void set(int index, boolean value) {
+        int slot = slot(index, BOOLEAN);
+        primitives[slot] = value ? 1 : 0;
+    }
+
+    public void set(int index, byte value) {
+        int slot = slot(index, BYTE);
+        primitives[slot] = value;
+    }
+
+    public void set(int index, short value) {
+        int slot = slot(index, SHORT);
+        primitives[slot] = value;
+    }
+
+    public void set(int index, int value) {
+        int slot = slot(index, INT);
+        primitives[slot] = value;
+    }
+
+    public void set(int index, long value) {
+        int slot = slot(index, LONG);
+        primitives[slot] = value;
+    }
+
+    public void set(int index, float value) {
+        int slot = slot(index, FLOAT);
+        primitives[slot] = Float.floatToRawIntBits(value);
+    }
+
+    public void set(int index, double value) {
+        int slot = slot(index, DOUBLE);
+        primitives[slot] = Double.doubleToRawLongBits(value);
+    }
+
+    public void set(int index, Object value) {
+        int slot = slot(index, value == null ? NULL : OBJECT);
+        objects[slot] = value;
+    }
+
+    public void setNull(int index) {
+        int slot = slot(index, NULL);
+        objects[slot] = null;
+    }
+
+    /**
+     * @return the number of parameters up to and including the highest index that has been set
+     */
+    public int size() {
+        return count;
+    }
+
+    public void clear() {
+        Arrays.fill(types, 0, count, UNSET);
+        Arrays.fill(objects, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * @return the parameter values in index order, with {@code null} for any index that was not set
+     */
+    public Object[] toArray() {
+        Object[] args = new Object[count];
+        for (int i = 0; i < count; i++) {
+            switch (types[i]) {
+                case OBJECT:
+                    args[i] = objects[i];
+                    break;
+                case BOOLEAN:
+                    args[i] = primitives[i] != 0;
+                    break;
+                case BYTE:
+                    args[i] = (byte) primitives[i];
+                    break;
+                case SHORT:
+                    args[i] = (short) primitives[i];
+                    break;
+                case INT:
+                    args[i] = (int) primitives[i];
+                    break;
+                case LONG:
+                    args[i] = primitives[i];
+                    break;
+                case FLOAT:
+                    args[i] = Float.intBitsToFloat((int) primitives[i]);
+                    break;
+                case DOUBLE:
+                    args[i] = Double.longBitsToDouble(primitives[i]);
+                    break;
+                default:
+                    args[i] = null;
+            }
+        }
+        return args;
+    }
+
+    private int slot(int index, byte type) {
+        int slot = index - 1;
+        if (slot >= types.length) {
+            int length = Math.max(types.length * 2, index);
+            types = Arrays.copyOf(types, length);
+            primitives = Arrays.copyOf(primitives, length);
+            objects = Arrays.copyOf(objects, length);
+        }
+        types[slot] = type;
+        if (index > count) {
+            count = index;
+        }
+        return slot;
+    }
+}
@@ -55,13 +55,27 @@ public class PreparedStatementWrapper implements PreparedStatement {
     private PreparedStatement wrapped;
     private String statement;
     private TypedProperties engineProperties;
+    @EqualsAndHashCode.Exclude
+    private boolean executeOnly;
+    @EqualsAndHashCode.Exclude
+    private ParameterCapture parameters;
 
     public PreparedStatementWrapper(PreparedStatement wrapped, String statement, TypedProperties engineProperties) {
         this.wrapped = wrapped;
         this.interceptor = WrapperInterceptor.createInterceptor(this, engineProperties);
         this.statement = statement;
+        this.executeOnly = interceptor.isExecuteOnly();
+        this.parameters = interceptor.getParameterCapture();
     }
+
     public void setBoolean(int arg1, boolean arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBoolean(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBoolean", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -73,6 +87,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setByte(int arg1, byte arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setByte(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setByte", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -84,6 +105,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setShort(int arg1, short arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setShort(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setShort", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -95,6 +123,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setInt(int arg1, int arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setInt(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setInt", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -106,6 +141,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setLong(int arg1, long arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setLong(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setLong", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -117,6 +159,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setFloat(int arg1, float arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setFloat(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setFloat", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -128,6 +177,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setDouble(int arg1, double arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setDouble(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setDouble", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -139,6 +195,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setTimestamp(int arg1, Timestamp arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setTimestamp(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setTimestamp", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -150,6 +213,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setTimestamp(int arg1, Timestamp arg2, Calendar arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setTimestamp(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setTimestamp", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -161,6 +231,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setURL(int arg1, URL arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setURL(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setURL", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -172,6 +249,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setTime(int arg1, Time arg2, Calendar arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setTime(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setTime", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -183,6 +267,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setTime(int arg1, Time arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setTime(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setTime", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -194,6 +285,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean execute() throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("execute");
+            Exception exception = null;
+            try {
+                return wrapped.execute();
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("execute", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("execute");
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -217,6 +320,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getMetaData();
+        }
         InterceptResult preResult = interceptor.preExecute("getMetaData");
         if (preResult.isIntercepted()) {
             return (ResultSetMetaData) preResult.getInterceptResult();
@@ -232,6 +338,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public ResultSet executeQuery() throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeQuery");
+            Exception exception = null;
+            try {
+                return wrapped.executeQuery();
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeQuery", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeQuery");
         if (preResult.isIntercepted()) {
             return (ResultSet) preResult.getInterceptResult();
@@ -257,6 +375,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int executeUpdate() throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeUpdate");
+            Exception exception = null;
+            try {
+                return wrapped.executeUpdate();
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeUpdate", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeUpdate");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -281,6 +411,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void addBatch() throws SQLException {
+        if (executeOnly) {
+            wrapped.addBatch();
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("addBatch");
         if (preResult.isIntercepted()) {
             return;
@@ -292,6 +426,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNull(int arg1, int arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNull(arg1,arg2);
+            if (parameters != null) {
+                parameters.setNull(arg1);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNull", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -303,6 +444,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNull(int arg1, int arg2, String arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNull(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.setNull(arg1);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNull", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -314,6 +462,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBigDecimal(int arg1, BigDecimal arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBigDecimal(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBigDecimal", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -325,6 +480,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setString(int arg1, String arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setString(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setString", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -336,6 +498,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBytes(int arg1, byte[] arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBytes(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBytes", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -347,6 +516,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setDate(int arg1, Date arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setDate(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setDate", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -358,6 +534,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setDate(int arg1, Date arg2, Calendar arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setDate(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setDate", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -369,6 +552,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setAsciiStream(int arg1, InputStream arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setAsciiStream(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setAsciiStream", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -380,6 +570,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setAsciiStream(int arg1, InputStream arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setAsciiStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setAsciiStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -391,6 +588,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setAsciiStream(int arg1, InputStream arg2, int arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setAsciiStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setAsciiStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -403,6 +607,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
 
     @SuppressWarnings("deprecation")
     public void setUnicodeStream(int arg1, InputStream arg2, int arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setUnicodeStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setUnicodeStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -414,6 +625,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBinaryStream(int arg1, InputStream arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBinaryStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBinaryStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -425,6 +643,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBinaryStream(int arg1, InputStream arg2, int arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBinaryStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBinaryStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -436,6 +661,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBinaryStream(int arg1, InputStream arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBinaryStream(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBinaryStream", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -447,6 +679,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void clearParameters() throws SQLException {
+        if (executeOnly) {
+            wrapped.clearParameters();
+            if (parameters != null) {
+                parameters.clear();
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("clearParameters");
         if (preResult.isIntercepted()) {
             return;
@@ -458,6 +697,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setObject(int arg1, Object arg2, int arg3, int arg4) throws SQLException {
+        if (executeOnly) {
+            wrapped.setObject(arg1,arg2,arg3,arg4);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setObject", arg1,arg2,arg3,arg4);
         if (preResult.isIntercepted()) {
             return;
@@ -469,6 +715,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setObject(int arg1, Object arg2, int arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setObject(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setObject", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -480,6 +733,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setObject(int arg1, Object arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setObject(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setObject", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -491,6 +751,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setCharacterStream(int arg1, Reader arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setCharacterStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setCharacterStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -502,6 +769,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setCharacterStream(int arg1, Reader arg2, int arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setCharacterStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setCharacterStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -513,6 +787,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setCharacterStream(int arg1, Reader arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setCharacterStream(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setCharacterStream", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -524,6 +805,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setRef(int arg1, Ref arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setRef(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setRef", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -535,6 +823,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBlob(int arg1, InputStream arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBlob(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBlob", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -546,6 +841,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBlob(int arg1, InputStream arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBlob(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBlob", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -557,6 +859,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setBlob(int arg1, Blob arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setBlob(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setBlob", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -568,6 +877,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setClob(int arg1, Reader arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setClob(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setClob", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -579,6 +895,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setClob(int arg1, Reader arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setClob(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setClob", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -590,6 +913,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setClob(int arg1, Clob arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setClob(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setClob", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -601,6 +931,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setArray(int arg1, Array arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setArray(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setArray", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -612,6 +949,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public ParameterMetaData getParameterMetaData() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getParameterMetaData();
+        }
         InterceptResult preResult = interceptor.preExecute("getParameterMetaData");
         if (preResult.isIntercepted()) {
             return (ParameterMetaData) preResult.getInterceptResult();
@@ -627,6 +967,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setRowId(int arg1, RowId arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setRowId(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setRowId", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -638,6 +985,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNString(int arg1, String arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNString(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNString", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -649,6 +1003,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNCharacterStream(int arg1, Reader arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNCharacterStream(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNCharacterStream", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -660,6 +1021,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNCharacterStream(int arg1, Reader arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNCharacterStream(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNCharacterStream", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -671,6 +1039,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNClob(int arg1, Reader arg2, long arg3) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNClob(arg1,arg2,arg3);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNClob", arg1,arg2,arg3);
         if (preResult.isIntercepted()) {
             return;
@@ -682,6 +1057,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNClob(int arg1, NClob arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNClob(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNClob", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -693,6 +1075,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setNClob(int arg1, Reader arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setNClob(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setNClob", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -704,6 +1093,13 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setSQLXML(int arg1, SQLXML arg2) throws SQLException {
+        if (executeOnly) {
+            wrapped.setSQLXML(arg1,arg2);
+            if (parameters != null) {
+                parameters.set(arg1, arg2);
+            }
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setSQLXML", arg1,arg2);
         if (preResult.isIntercepted()) {
             return;
@@ -715,6 +1111,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void close() throws SQLException {
+        if (executeOnly) {
+            wrapped.close();
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("close");
         if (preResult.isIntercepted()) {
             return;
@@ -726,6 +1126,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public Connection getConnection() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getConnection();
+        }
         InterceptResult preResult = interceptor.preExecute("getConnection");
         if (preResult.isIntercepted()) {
             return (Connection) preResult.getInterceptResult();
@@ -741,6 +1144,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean execute(String arg1, int arg2) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("execute");
+            Exception exception = null;
+            try {
+                return wrapped.execute(arg1,arg2);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("execute", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("execute", arg1,arg2);
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -764,6 +1179,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean execute(String arg1) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("execute");
+            Exception exception = null;
+            try {
+                return wrapped.execute(arg1);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("execute", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("execute", arg1);
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -789,6 +1216,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean execute(String arg1, String[] arg2) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("execute");
+            Exception exception = null;
+            try {
+                return wrapped.execute(arg1,arg2);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("execute", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("execute", arg1,arg2);
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -812,6 +1251,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean execute(String arg1, int[] arg2) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("execute");
+            Exception exception = null;
+            try {
+                return wrapped.execute(arg1,arg2);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("execute", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("execute", arg1,arg2);
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -835,6 +1286,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean isClosed() throws SQLException {
+        if (executeOnly) {
+            return wrapped.isClosed();
+        }
         InterceptResult preResult = interceptor.preExecute("isClosed");
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -850,6 +1304,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public SQLWarning getWarnings() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getWarnings();
+        }
         InterceptResult preResult = interceptor.preExecute("getWarnings");
         if (preResult.isIntercepted()) {
             return (SQLWarning) preResult.getInterceptResult();
@@ -865,6 +1322,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void clearWarnings() throws SQLException {
+        if (executeOnly) {
+            wrapped.clearWarnings();
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("clearWarnings");
         if (preResult.isIntercepted()) {
             return;
@@ -876,6 +1337,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public ResultSet executeQuery(String arg1) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeQuery");
+            Exception exception = null;
+            try {
+                return wrapped.executeQuery(arg1);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeQuery", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeQuery", arg1);
         if (preResult.isIntercepted()) {
             return (ResultSet) preResult.getInterceptResult();
@@ -899,6 +1372,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int executeUpdate(String arg1, int arg2) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeUpdate");
+            Exception exception = null;
+            try {
+                return wrapped.executeUpdate(arg1,arg2);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeUpdate", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeUpdate", arg1,arg2);
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -922,6 +1407,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int executeUpdate(String arg1, int[] arg2) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeUpdate");
+            Exception exception = null;
+            try {
+                return wrapped.executeUpdate(arg1,arg2);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeUpdate", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeUpdate", arg1,arg2);
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -945,6 +1442,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int executeUpdate(String arg1, String[] arg2) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeUpdate");
+            Exception exception = null;
+            try {
+                return wrapped.executeUpdate(arg1,arg2);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeUpdate", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeUpdate", arg1,arg2);
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -968,6 +1477,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int executeUpdate(String arg1) throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeUpdate");
+            Exception exception = null;
+            try {
+                return wrapped.executeUpdate(arg1);
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeUpdate", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeUpdate", arg1);
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -991,6 +1512,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getMaxFieldSize() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getMaxFieldSize();
+        }
         InterceptResult preResult = interceptor.preExecute("getMaxFieldSize");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1006,6 +1530,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setMaxFieldSize(int arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setMaxFieldSize(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setMaxFieldSize", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1017,6 +1545,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getMaxRows() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getMaxRows();
+        }
         InterceptResult preResult = interceptor.preExecute("getMaxRows");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1032,6 +1563,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setMaxRows(int arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setMaxRows(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setMaxRows", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1043,6 +1578,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setEscapeProcessing(boolean arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setEscapeProcessing(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setEscapeProcessing", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1054,6 +1593,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getQueryTimeout() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getQueryTimeout();
+        }
         InterceptResult preResult = interceptor.preExecute("getQueryTimeout");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1069,6 +1611,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setQueryTimeout(int arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setQueryTimeout(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setQueryTimeout", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1080,6 +1626,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void cancel() throws SQLException {
+        if (executeOnly) {
+            wrapped.cancel();
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("cancel");
         if (preResult.isIntercepted()) {
             return;
@@ -1091,6 +1641,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setCursorName(String arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setCursorName(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setCursorName", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1102,6 +1656,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public ResultSet getResultSet() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getResultSet();
+        }
         InterceptResult preResult = interceptor.preExecute("getResultSet");
         if (preResult.isIntercepted()) {
             return (ResultSet) preResult.getInterceptResult();
@@ -1117,6 +1674,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getUpdateCount() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getUpdateCount();
+        }
         InterceptResult preResult = interceptor.preExecute("getUpdateCount");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1132,6 +1692,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean getMoreResults(int arg1) throws SQLException {
+        if (executeOnly) {
+            return wrapped.getMoreResults(arg1);
+        }
         InterceptResult preResult = interceptor.preExecute("getMoreResults", arg1);
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -1147,6 +1710,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean getMoreResults() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getMoreResults();
+        }
         InterceptResult preResult = interceptor.preExecute("getMoreResults");
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -1162,6 +1728,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setFetchDirection(int arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setFetchDirection(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setFetchDirection", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1173,6 +1743,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getFetchDirection() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getFetchDirection();
+        }
         InterceptResult preResult = interceptor.preExecute("getFetchDirection");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1188,6 +1761,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setFetchSize(int arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setFetchSize(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setFetchSize", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1199,6 +1776,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getFetchSize() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getFetchSize();
+        }
         InterceptResult preResult = interceptor.preExecute("getFetchSize");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1214,6 +1794,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getResultSetConcurrency() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getResultSetConcurrency();
+        }
         InterceptResult preResult = interceptor.preExecute("getResultSetConcurrency");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1229,6 +1812,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getResultSetType() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getResultSetType();
+        }
         InterceptResult preResult = interceptor.preExecute("getResultSetType");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1244,6 +1830,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void addBatch(String arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.addBatch(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("addBatch", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1255,6 +1845,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void clearBatch() throws SQLException {
+        if (executeOnly) {
+            wrapped.clearBatch();
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("clearBatch");
         if (preResult.isIntercepted()) {
             return;
@@ -1266,6 +1860,18 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int[] executeBatch() throws SQLException {
+        if (executeOnly) {
+            long startNanos = interceptor.beginExecute("executeBatch");
+            Exception exception = null;
+            try {
+                return wrapped.executeBatch();
+            } catch (Exception ex) {
+                exception = ex;
+                throw ex;
+            } finally {
+                interceptor.endExecute("executeBatch", startNanos, exception);
+            }
+        }
         InterceptResult preResult = interceptor.preExecute("executeBatch");
         if (preResult.isIntercepted()) {
             return (int[]) preResult.getInterceptResult();
@@ -1289,6 +1895,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public ResultSet getGeneratedKeys() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getGeneratedKeys();
+        }
         InterceptResult preResult = interceptor.preExecute("getGeneratedKeys");
         if (preResult.isIntercepted()) {
             return (ResultSet) preResult.getInterceptResult();
@@ -1304,6 +1913,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public int getResultSetHoldability() throws SQLException {
+        if (executeOnly) {
+            return wrapped.getResultSetHoldability();
+        }
         InterceptResult preResult = interceptor.preExecute("getResultSetHoldability");
         if (preResult.isIntercepted()) {
             return (int) preResult.getInterceptResult();
@@ -1319,6 +1931,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void setPoolable(boolean arg1) throws SQLException {
+        if (executeOnly) {
+            wrapped.setPoolable(arg1);
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("setPoolable", arg1);
         if (preResult.isIntercepted()) {
             return;
@@ -1330,6 +1946,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean isPoolable() throws SQLException {
+        if (executeOnly) {
+            return wrapped.isPoolable();
+        }
         InterceptResult preResult = interceptor.preExecute("isPoolable");
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -1345,6 +1964,10 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public void closeOnCompletion() throws SQLException {
+        if (executeOnly) {
+            wrapped.closeOnCompletion();
+            return;
+        }
         InterceptResult preResult = interceptor.preExecute("closeOnCompletion");
         if (preResult.isIntercepted()) {
             return;
@@ -1356,6 +1979,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean isCloseOnCompletion() throws SQLException {
+        if (executeOnly) {
+            return wrapped.isCloseOnCompletion();
+        }
         InterceptResult preResult = interceptor.preExecute("isCloseOnCompletion");
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
@@ -1371,6 +1997,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public Object unwrap(Class arg1) throws SQLException {
+        if (executeOnly) {
+            return wrapped.unwrap(arg1);
+        }
         InterceptResult preResult = interceptor.preExecute("unwrap", arg1);
         if (preResult.isIntercepted()) {
             return (Object) preResult.getInterceptResult();
@@ -1386,6 +2015,9 @@ public class PreparedStatementWrapper implements PreparedStatement {
     }
 
     public boolean isWrapperFor(Class arg1) throws SQLException {
+        if (executeOnly) {
+            return wrapped.isWrapperFor(arg1);
+        }
         InterceptResult preResult = interceptor.preExecute("isWrapperFor", arg1);
         if (preResult.isIntercepted()) {
             return (boolean) preResult.getInterceptResult();
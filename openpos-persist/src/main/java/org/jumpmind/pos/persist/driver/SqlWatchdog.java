@@ -3,28 +3,63 @@ package org.jumpmind.pos.persist.driver;
 import lombok.extern.slf4j.Slf4j;
 import org.jumpmind.db.sql.LogSqlBuilder;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Reports SQL statements that are still running after {@code jumpmind.commerce.SqlWatchDog.warnInterval}
+ * milliseconds, and again every interval after that until they finish.  When
+ * {@code jumpmind.commerce.SqlWatchDog.cancelTimeout} is set the statement is cancelled once it has run for that many
+ * milliseconds.
+ * <p>
+ * Each executing statement has a deadline in a {@link TimerWheel} that is checked every
+ * {@code jumpmind.commerce.SqlWatchDog.tickInterval} milliseconds, so registering and ending a statement is cheap and
+ * a statement is reported within one tick of its deadline.  The tick interval used to be the
+ * {@code jumpmind.commerce.SqlWatchDog.pollInterval}, which is still used when no tick interval is set.
+ */
 @Slf4j
 public class SqlWatchdog {
 
     public static final String THREAD_NAME = "Commerce-SqlWatchdog-Thread";
 
-    private static java.util.Map<String, InProgressSqlStatement> inProgressSql = new ConcurrentHashMap<>();
+    public static final String TICK_INTERVAL_PROPERTY = "jumpmind.commerce.SqlWatchDog.tickInterval";
+    public static final String POLL_INTERVAL_PROPERTY = "jumpmind.commerce.SqlWatchDog.pollInterval";
+    public static final String WARN_INTERVAL_PROPERTY = "jumpmind.commerce.SqlWatchDog.warnInterval";
+    public static final String CANCEL_TIMEOUT_PROPERTY = "jumpmind.commerce.SqlWatchDog.cancelTimeout";
 
-    private static AtomicBoolean running = new AtomicBoolean(false);
+    private static final int WHEEL_SIZE = 512;
+
+    private static volatile TimerWheel<InProgressSqlStatement> wheel;
+
+    private static long warnNanos;
+
+    private static long cancelNanos;
+
+    private static final AtomicLong warnings = new AtomicLong();
+
+    private static final AtomicLong cancellations = new AtomicLong();
 
     public static synchronized void start() {
-        if (running.get()) {
+        if (wheel != null) {
             return;
         }
-        running.set(true);
+        long tickInterval = getTickInterval();
+        long warnInterval = Long.parseLong(System.getProperty(WARN_INTERVAL_PROPERTY, "60000"));
+        long cancelTimeout = Long.parseLong(System.getProperty(CANCEL_TIMEOUT_PROPERTY, "0"));
+
+        LogSqlBuilder sqlBuilder = new LogSqlBuilder();
+        warnNanos = TimeUnit.MILLISECONDS.toNanos(warnInterval);
+        cancelNanos = TimeUnit.MILLISECONDS.toNanos(cancelTimeout);
+        TimerWheel<InProgressSqlStatement> timerWheel = new TimerWheel<>(TimeUnit.MILLISECONDS.toNanos(tickInterval), WHEEL_SIZE,
+                (inProgressSqlStatement, now) -> expired(sqlBuilder, inProgressSqlStatement, now));
+        wheel = timerWheel;
+
         Thread thread = new Thread(new Runnable() {
             @Override
             public void run() {
                 log.info(THREAD_NAME + " Started...");
-                runLoop();
+                runLoop(timerWheel, tickInterval);
                 log.info(THREAD_NAME + " Exiting...");
             }
         });
@@ -36,41 +71,102 @@ public class SqlWatchdog {
     }
 
     public static synchronized void stop() {
-        running.set(false);
+        wheel = null;
     }
 
-    public static void sqlBegin(String key, InProgressSqlStatement sqlStatement) {
-        inProgressSql.put(key, sqlStatement);
+    public static boolean isRunning() {
+        return wheel != null;
     }
 
-    public static void sqlEnd(String key) {
-        inProgressSql.remove(key);
+    /**
+     * @return a handle to pass to {@link #sqlEnd} when the statement finishes, or null if the watchdog is not running
+     */
+    public static TimerWheel.Timeout<InProgressSqlStatement> sqlBegin(InProgressSqlStatement sqlStatement) {
+        TimerWheel<InProgressSqlStatement> timerWheel = wheel;
+        if (timerWheel == null) {
+            return null;
+        }
+        return timerWheel.schedule(sqlStatement, nextDeadline(sqlStatement));
     }
 
-    protected static void runLoop() {
-        LogSqlBuilder sqlBuilder = new LogSqlBuilder();
+    public static void sqlEnd(TimerWheel.Timeout<InProgressSqlStatement> timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    public static int getInProgressCount() {
+        TimerWheel<InProgressSqlStatement> timerWheel = wheel;
+        return timerWheel != null ? timerWheel.size() : 0;
+    }
+
+    public static long getWarningCount() {
+        return warnings.get();
+    }
 
-        long pollInterval = Long.parseLong(System.getProperty("jumpmind.commerce.SqlWatchDog.pollInterval", "20000"));
-        long warnInterval = Long.parseLong(System.getProperty("jumpmind.commerce.SqlWatchDog.warnInterval", "60000"));
+    public static long getCancelCount() {
+        return cancellations.get();
+    }
+
+    static long getTickInterval() {
+        String tickInterval = System.getProperty(TICK_INTERVAL_PROPERTY);
+        String pollInterval = System.getProperty(POLL_INTERVAL_PROPERTY);
+        if (tickInterval == null && pollInterval != null) {
+            log.warn(POLL_INTERVAL_PROPERTY + " is deprecated, use " + TICK_INTERVAL_PROPERTY + " instead");
+            return Long.parseLong(pollInterval);
+        }
+        if (pollInterval != null) {
+            log.warn(POLL_INTERVAL_PROPERTY + " is ignored because " + TICK_INTERVAL_PROPERTY + " is set");
+        }
+        return Long.parseLong(tickInterval != null ? tickInterval : "1000");
+    }
 
-        while (running.get()) {
+    protected static void runLoop(TimerWheel<InProgressSqlStatement> timerWheel, long tickInterval) {
+        while (wheel == timerWheel) {
             try {
-                Thread.sleep(pollInterval);
+                Thread.sleep(tickInterval);
             } catch (InterruptedException e) {
                 log.debug("Thread interrupted.", e);
             }
-            
-            for (InProgressSqlStatement inProgressSqlStatement : inProgressSql.values()) {
-                long now = System.currentTimeMillis();
-                long timeSinceLastLogged = now - inProgressSqlStatement.getLastLoggedTime();
-
-                if (timeSinceLastLogged >= warnInterval) {
-                    inProgressSqlStatement.setLastLoggedTime(now);
-                    String sql = sqlBuilder.buildDynamicSqlForLog(inProgressSqlStatement.getSql(), inProgressSqlStatement.getArgs().toArray(), null);
-                    long elapsed = now - inProgressSqlStatement.getStartTime();
-                    log.warn("SQL Still Running (" + elapsed + "ms.) on thread '" + inProgressSqlStatement.getThreadName() + "': " + sql.trim());
+            try {
+                timerWheel.advance(System.nanoTime());
+            } catch (Exception e) {
+                log.error("Failed to check for long running SQL", e);
+            }
+        }
+    }
+
+    private static long nextDeadline(InProgressSqlStatement sqlStatement) {
+        long nextDeadline = sqlStatement.getLastLoggedTime() + warnNanos;
+        if (cancelNanos > 0 && !sqlStatement.isCancelRequested()) {
+            nextDeadline = Math.min(nextDeadline, sqlStatement.getStartTime() + cancelNanos);
+        }
+        return nextDeadline;
+    }
+
+    protected static long expired(LogSqlBuilder sqlBuilder, InProgressSqlStatement inProgressSqlStatement, long now) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(now - inProgressSqlStatement.getStartTime());
+
+        if (cancelNanos > 0 && !inProgressSqlStatement.isCancelRequested()
+                && now - inProgressSqlStatement.getStartTime() >= cancelNanos) {
+            inProgressSqlStatement.setCancelRequested(true);
+            String sql = sqlBuilder.buildDynamicSqlForLog(inProgressSqlStatement.getSql(), inProgressSqlStatement.getArgsArray(), null);
+            log.warn("Cancelling SQL after " + elapsed + "ms. on thread '" + inProgressSqlStatement.getThreadName() + "': " + sql.trim());
+            cancellations.incrementAndGet();
+            try {
+                if (inProgressSqlStatement.getStatement() != null) {
+                    inProgressSqlStatement.getStatement().cancel();
                 }
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Failed to cancel SQL on thread '" + inProgressSqlStatement.getThreadName() + "'", ex);
             }
+        } else if (now - inProgressSqlStatement.getLastLoggedTime() >= warnNanos) {
+            inProgressSqlStatement.setLastLoggedTime(now);
+            String sql = sqlBuilder.buildDynamicSqlForLog(inProgressSqlStatement.getSql(), inProgressSqlStatement.getArgsArray(), null);
+            log.warn("SQL Still Running (" + elapsed + "ms.) on thread '" + inProgressSqlStatement.getThreadName() + "': " + sql.trim());
+            warnings.incrementAndGet();
         }
+
+        return Math.max(nextDeadline(inProgressSqlStatement) - now, 0);
     }
 }
@@ -33,13 +33,18 @@ import java.util.List;
 @Slf4j
 public class StatementInterceptor extends WrapperInterceptor {
     public static final String LONG_RUNNING_THRESHOLD_PROPERTY = "jumpmind.commerce.longRunningThreshold";
+    public static final String LOW_OVERHEAD_MODE_PROPERTY = "jumpmind.commerce.lowOverheadMode";
 
     protected final List<Object> psArgs = new ArrayList<>();
     protected final LogSqlBuilder sqlBuilder = new LogSqlBuilder();
 
     protected long longRunningThreshold = 20000;
 
-    private String sqlKey;
+    private TimerWheel.Timeout<InProgressSqlStatement> inProgressSql;
+
+    private final boolean executeOnly;
+
+    private final ParameterCapture parameterCapture;
 
     public StatementInterceptor(Object wrapped, TypedProperties systemPlusEngineProperties) {
         super(wrapped);
@@ -49,6 +54,58 @@ public class StatementInterceptor extends WrapperInterceptor {
             longRunningThreshold = Long.parseLong(longRunningThresholdString.trim());
             log.debug("Long Running SQL threshold is: {}ms.", longRunningThreshold);
         }
+
+        /*
+         * Subclasses that hook preExecute or postExecute need every call to go through them, so only this class uses
+         * the execute only path.  Parameters are only recorded when they could be logged.
+         */
+        executeOnly = getClass() == StatementInterceptor.class && wrapped instanceof PreparedStatementWrapper
+                && systemPlusEngineProperties.is(LOW_OVERHEAD_MODE_PROPERTY, true);
+        parameterCapture = executeOnly && (log.isInfoEnabled() || SqlWatchdog.isRunning()) ? new ParameterCapture() : null;
+    }
+
+    @Override
+    public boolean isExecuteOnly() {
+        return executeOnly;
+    }
+
+    @Override
+    public ParameterCapture getParameterCapture() {
+        return parameterCapture;
+    }
+
+    @Override
+    public long beginExecute(String methodName) {
+        long startNanos = System.nanoTime();
+        if (SqlWatchdog.isRunning()) {
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) getWrapped();
+            inProgressSql = SqlWatchdog.sqlBegin(
+                    new InProgressSqlStatement(ps.getStatement(), parameterCapture, startNanos, Thread.currentThread().getName(), ps));
+        }
+        return startNanos;
+    }
+
+    @Override
+    public void endExecute(String methodName, long startNanos, Exception thrownException) {
+        long elapsed = (System.nanoTime() - startNanos) / 1000000;
+        PreparedStatementWrapper ps = (PreparedStatementWrapper) getWrapped();
+        SqlWatchdog.sqlEnd(inProgressSql);
+        inProgressSql = null;
+        if (thrownException != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("SQL Caused Exception " + sqlBuilder.buildDynamicSqlForLog(ps.getStatement(), capturedArgs(), null),
+                        thrownException);
+            }
+        } else if (elapsed > longRunningThreshold || log.isInfoEnabled()) {
+            preparedStatementExecute(methodName, elapsed, ps.getStatement(), capturedArgs());
+        }
+        if (parameterCapture != null) {
+            parameterCapture.clear();
+        }
+    }
+
+    private Object[] capturedArgs() {
+        return parameterCapture != null ? parameterCapture.toArray() : null;
     }
 
     @Override
@@ -65,18 +122,13 @@ public class StatementInterceptor extends WrapperInterceptor {
         }
 
         if (methodName.startsWith("execute")) {
-            sqlKey = generateKey(ps);
-            SqlWatchdog.sqlBegin(sqlKey,
-                    new InProgressSqlStatement(ps.getStatement(), psArgs, System.currentTimeMillis(), Thread.currentThread().getName()));
+            inProgressSql = SqlWatchdog.sqlBegin(
+                    new InProgressSqlStatement(ps.getStatement(), psArgs, System.nanoTime(), Thread.currentThread().getName(), ps));
         }
 
         return new InterceptResult();
     }
 
-    private String generateKey(PreparedStatementWrapper ps) {
-        return Thread.currentThread().getId() + ps.getStatement();
-    }
-
     @Override
     public InterceptResult postExecute(String methodName, Object result, long startTime, long endTime, Object... parameters) {
         if (getWrapped() instanceof PreparedStatementWrapper) {
@@ -137,7 +189,8 @@ public class StatementInterceptor extends WrapperInterceptor {
 
     @Override
     public void cleanupExecute(String methodName, Exception thrownException) {
-        SqlWatchdog.sqlEnd(sqlKey);
+        SqlWatchdog.sqlEnd(inProgressSql);
+        inProgressSql = null;
         if (thrownException != null
                 && log.isDebugEnabled()
                 && (getWrapped() instanceof PreparedStatementWrapper)) {
@@ -0,0 +1,199 @@
+package org.jumpmind.pos.persist.driver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timer wheel of deadlines.  Any thread can {@link #schedule} or {@link Timeout#cancel()} a timeout in
+ * constant time.  The timeouts are only placed in and expired from the wheel by the single thread that calls
+ * {@link #advance(long)} once per tick, so a deadline is handled no more than one tick after it passes.
+ * <p>
+ * Deadlines are {@link System#nanoTime()} values.
+ */
+public class TimerWheel<T> {
+
+    public interface ExpiryHandler<T> {
+        /**
+         * @return how long from {@code now}, in nanoseconds, the timeout should expire again.  A negative value drops
+         * the timeout.
+         */
+        long expired(T task, long now);
+    }
+
+    public static class Timeout<T> {
+        private final TimerWheel<T> wheel;
+        private final T task;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private long deadlineTick;
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        Timeout(TimerWheel<T> wheel, T task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = wheel.tickOf(deadline);
+        }
+
+        public T getTask() {
+            return task;
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * @return true if this call cancelled the timeout, false if it had already been cancelled
+         */
+        public boolean cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                wheel.size.decrementAndGet();
+                wheel.cancelledTimeouts.add(this);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static class Bucket<T> {
+        Timeout<T> head;
+        Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startTime;
+    private final Bucket<T>[] buckets;
+    private final int mask;
+    private final ExpiryHandler<T> handler;
+    private final Queue<Timeout<T>> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickNanos, int wheelSize, ExpiryHandler<T> handler) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("The tick must be greater than 0");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 1) - 1) << 1;
+        this.tickNanos = tickNanos;
+        this.startTime = System.nanoTime();
+        this.buckets = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.mask = buckets.length - 1;
+        this.handler = handler;
+    }
+
+    public Timeout<T> schedule(T task, long deadline) {
+        Timeout<T> timeout = new Timeout<>(this, task, deadline);
+        size.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts that have been scheduled and have not been cancelled or dropped
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Expire every timeout whose deadline is at or before {@code now}.  This must only be called from one thread.
+     */
+    public void advance(long now) {
+        for (Timeout<T> timeout = cancelledTimeouts.poll(); timeout != null; timeout = cancelledTimeouts.poll()) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+        for (Timeout<T> timeout = pendingTimeouts.poll(); timeout != null; timeout = pendingTimeouts.poll()) {
+            if (!timeout.isCancelled()) {
+                place(timeout);
+            }
+        }
+
+        long lastTick = currentTick;
+        long targetTick = (now - startTime) / tickNanos;
+        if (targetTick <= lastTick) {
+            return;
+        }
+        currentTick = targetTick;
+
+        long ticks = Math.min(targetTick - lastTick, buckets.length);
+        for (long tick = lastTick + 1; tick <= lastTick + ticks; tick++) {
+            Bucket<T> bucket = buckets[(int) (tick & mask)];
+            Timeout<T> timeout = bucket.head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.deadlineTick <= targetTick) {
+                    bucket.remove(timeout);
+                    expire(timeout, now);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void expire(Timeout<T> timeout, long now) {
+        if (timeout.isCancelled()) {
+            return;
+        }
+        long delay = handler.expired(timeout.task, now);
+        if (delay < 0) {
+            if (timeout.cancelled.compareAndSet(false, true)) {
+                size.decrementAndGet();
+            }
+        } else if (!timeout.isCancelled()) {
+            timeout.deadlineTick = tickOf(now + delay);
+            place(timeout);
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        timeout.deadlineTick = Math.max(timeout.deadlineTick, currentTick + 1);
+        buckets[(int) (timeout.deadlineTick & mask)].add(timeout);
+    }
+
+    private long tickOf(long deadline) {
+        long elapsed = deadline - startTime;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+}
@@ -68,5 +68,26 @@ public abstract class WrapperInterceptor {
 
     }
 
+    /**
+     * When true the wrapper skips {@link #preExecute} and {@link #postExecute} and only calls {@link #beginExecute}
+     * and {@link #endExecute} around the execute methods.  Parameters are recorded in the {@link ParameterCapture}
+     * instead, if there is one.
+     */
+    public boolean isExecuteOnly() {
+        return false;
+    }
+
+    public ParameterCapture getParameterCapture() {
+        return null;
+    }
+
+    public long beginExecute(String methodName) {
+        return System.nanoTime();
+    }
+
+    public void endExecute(String methodName, long startNanos, Exception thrownException) {
+
+    }
+
     
 }
@@ -50,6 +50,7 @@ public class DatabaseSchema {
     private ShadowTablesConfigModel shadowTablesConfig;
     private ClientContext clientContext;
     private Map<Class<?>, ModelClassMetaData> shadowTables;
+    private final SqlCache sqlCache = new SqlCache();
 
     @SneakyThrows
     public void init(String tablePrefix, IDatabasePlatform platform, List<Class<?>> entityClasses, List<Class<?>> entityExtensionClasses, AugmenterHelper augmenterHelper, ClientContext clientContext, ShadowTablesConfigModel shadowTablesConfig, TagHelper tagHelper) {
@@ -72,6 +73,7 @@ public class DatabaseSchema {
         for (ModelMetaData modelMetaData : classToModelMetaData.values()) {
             modelMetaData.initPhase2();
         }
+        sqlCache.clear();
     }
 
     protected Database buildDesiredModel() {
@@ -191,6 +193,7 @@ public class DatabaseSchema {
             platform.resetCachedTableModel();
             Database actualModel = platform.readFromDatabase(desiredModel.getTables());
             refreshMetaData(actualModel);
+            sqlCache.clear();
         } catch (RuntimeException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -943,6 +946,13 @@ public class DatabaseSchema {
         return modelClassMetaDataMap;
     }
 
+    /**
+     * @return the cache of generated SQL shared by the sessions that use this schema
+     */
+    public SqlCache getSqlCache() {
+        return sqlCache;
+    }
+
     public String getDeviceMode()  {
         String deviceMode = clientContext.get("deviceMode");
         return (deviceMode == null ? "default" : deviceMode);
@@ -1,6 +1,10 @@
 package org.jumpmind.pos.persist.impl;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections4.CollectionUtils;
@@ -14,11 +18,14 @@ import org.jumpmind.pos.util.model.ITypeCode;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Data
 @Slf4j
 public class ModelMetaData {
 
+    static final int MAX_ROW_MAPPERS = 64;
+
     private List<ModelClassMetaData> modelClassMetaData;
     private Field systemDataField;
     PropertyDescriptor[] propertyDescriptors;
@@ -30,6 +37,10 @@ public class ModelMetaData {
     private Map<String, Column> fieldsToColumns = new LinkedHashMap<>();
     private AugmenterHelper augmenterHelper;
     Map<Class<?>, PropertyDescriptor[]> exentionClassToPropertyDescriptors;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private final Map<List<String>, ModelRowMapper> rowMappers = new ConcurrentHashMap<>();
 
     public void init() {
         systemDataField = FieldUtils.getField(modelClassMetaData.get(modelClassMetaData.size()-1).getModelClass(), "systemData", true);
@@ -44,6 +55,23 @@ public class ModelMetaData {
         initOptimizations();
         fieldsToColumns = mapFieldsToColumns(modelClass);
         initExentionClassToPropertyDescriptors();
+        rowMappers.clear();
+    }
+
+    /**
+     * Returns the row mapper for the given result set column layout, building and caching it on first use.
+     */
+    public ModelRowMapper getRowMapper(Class<?> resultClass, List<String> columnLayout) {
+        ModelRowMapper rowMapper = rowMappers.get(columnLayout);
+        if (rowMapper == null) {
+            if (rowMappers.size() >= MAX_ROW_MAPPERS) {
+                // ad hoc queries can produce many layouts; don't let them grow without bound
+                rowMappers.clear();
+            }
+            rowMapper = rowMappers.computeIfAbsent(new ArrayList<>(columnLayout),
+                    layout -> new ModelRowMapper(resultClass, this, layout));
+        }
+        return rowMapper;
     }
 
     public PropertyDescriptor[] getPropertyDescriptorsForExtension(Class<?> extensionClass) {
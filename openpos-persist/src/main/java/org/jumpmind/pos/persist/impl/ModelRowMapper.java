@@ -0,0 +1,267 @@
+package org.jumpmind.pos.persist.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.jumpmind.pos.persist.AbstractModel;
+import org.jumpmind.pos.persist.PersistException;
+import org.jumpmind.pos.persist.model.*;
+import org.jumpmind.pos.util.ReflectUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Maps {@link DbRow}s of one result set column layout onto a model class.  All of the property to column matching,
+ * tag and augment column detection and unmatched column detection that {@code DBSession.mapModel} does for every row
+ * is done once when the mapper is built.  Mappers are cached on {@link ModelMetaData} by column layout.
+ */
+@Slf4j
+public class ModelRowMapper {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> resultClass;
+    private final ModelMetaData modelMetaData;
+    private final List<String> columnLayout;
+    private final MethodHandle constructor;
+    private final List<ColumnSetter> columnSetters = new ArrayList<>();
+    private final Map<String, String> deferredPropertiesToColumns = new LinkedHashMap<>();
+    private final List<String> tagColumns = new ArrayList<>();
+    private final List<String> augmentColumns = new ArrayList<>();
+    private final List<String> unmatchedColumns = new ArrayList<>();
+    private final boolean tagged;
+    private final boolean augmented;
+
+    public ModelRowMapper(Class<?> resultClass, ModelMetaData modelMetaData, List<String> columnLayout) {
+        this.resultClass = resultClass;
+        this.modelMetaData = modelMetaData;
+        this.columnLayout = Collections.unmodifiableList(new ArrayList<>(columnLayout));
+        this.constructor = findConstructor(resultClass);
+        this.tagged = ITaggedModel.class.isAssignableFrom(resultClass);
+        this.augmented = IAugmentedModel.class.isAssignableFrom(resultClass);
+
+        Set<String> columns = new HashSet<>(columnLayout);
+        Set<String> matchedColumns = new HashSet<>();
+        Set<Class<?>> extensionClasses = new LinkedHashSet<>();
+        for (ModelClassMetaData classMetaData : modelMetaData.getModelClassMetaData()) {
+            if (classMetaData.getExtensionClasses() != null) {
+                extensionClasses.addAll(classMetaData.getExtensionClasses());
+            }
+        }
+
+        planProperties(modelMetaData.getPropertyDescriptors(), columns, matchedColumns, extensionClasses);
+        for (Class<?> extensionClass : extensionClasses) {
+            PropertyDescriptor[] propertyDescriptors = modelMetaData.getPropertyDescriptorsForExtension(extensionClass);
+            if (propertyDescriptors != null) {
+                planProperties(propertyDescriptors, columns, matchedColumns, extensionClasses);
+            }
+        }
+        for (String propertyName : deferredPropertiesToColumns.keySet()) {
+            matchedColumns.add(DatabaseSchema.camelToSnakeCase(propertyName));
+        }
+
+        if (tagged) {
+            for (String columnName : columnLayout) {
+                if (columnName.toUpperCase().startsWith(TagModel.TAG_PREFIX)) {
+                    matchedColumns.add(columnName);
+                    tagColumns.add(columnName);
+                }
+            }
+        }
+
+        if (augmented) {
+            List<AugmenterConfig> configs = modelMetaData.getAugmenterHelper() != null ?
+                    modelMetaData.getAugmenterHelper().getAugmenterConfigs(resultClass) : Collections.emptyList();
+            if (CollectionUtils.isEmpty(configs)) {
+                log.info("No augmenter columns defined for the model: " + resultClass.getSimpleName());
+            } else {
+                for (String columnName : columnLayout) {
+                    for (AugmenterConfig config : configs) {
+                        if (columnName.toUpperCase().startsWith(config.getPrefix())) {
+                            matchedColumns.add(columnName);
+                            augmentColumns.add(columnName);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (String columnName : columnLayout) {
+            if (!matchedColumns.contains(columnName)) {
+                unmatchedColumns.add(columnName);
+            }
+        }
+    }
+
+    public List<String> getColumnLayout() {
+        return columnLayout;
+    }
+
+    public boolean matches(DbRow row) {
+        Set<String> columnNames = row.getColumnNames();
+        if (columnNames.size() != columnLayout.size()) {
+            return false;
+        }
+        int i = 0;
+        for (String columnName : columnNames) {
+            if (!columnName.equals(columnLayout.get(i++))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new model instance and populates it from the row.  The returned wrapper has not yet been decorated as
+     * retrieved.
+     */
+    public ModelWrapper map(DbRow row, TagHelper tagHelper, AugmenterHelper augmenterHelper) {
+        AbstractModel object = newInstance();
+        ModelWrapper model = new ModelWrapper(object, modelMetaData, augmenterHelper);
+        model.load();
+
+        for (ColumnSetter setter : columnSetters) {
+            setter.set(model, row.getValue(setter.columnName));
+        }
+
+        for (Map.Entry<String, String> deferred : deferredPropertiesToColumns.entrySet()) {
+            model.setValue(deferred.getKey(), row.getValue(deferred.getValue()));
+        }
+
+        if (tagged) {
+            Map<String, Object> tagValues = new HashMap<>();
+            for (String columnName : tagColumns) {
+                tagValues.put(columnName, row.getString(columnName));
+            }
+            tagHelper.addTags((ITaggedModel) object, tagValues);
+        }
+
+        if (!augmentColumns.isEmpty()) {
+            Map<String, Object> augmentsValues = new HashMap<>();
+            for (String columnName : augmentColumns) {
+                augmentsValues.put(columnName, row.getString(columnName));
+            }
+            augmenterHelper.addAugments((IAugmentedModel) object, augmentsValues);
+        }
+
+        for (String columnName : unmatchedColumns) {
+            object.setAdditionalField(columnName, row.getValue(columnName));
+        }
+
+        return model;
+    }
+
+    private AbstractModel newInstance() {
+        try {
+            if (constructor != null) {
+                return (AbstractModel) constructor.invokeExact();
+            } else {
+                return (AbstractModel) resultClass.newInstance();
+            }
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new PersistException("Failed to create an instance of " + resultClass.getName(), ex);
+        }
+    }
+
+    private void planProperties(PropertyDescriptor[] propertyDescriptors, Set<String> columns, Set<String> matchedColumns,
+                                Set<Class<?>> extensionClasses) {
+        for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+            String propertyName = propertyDescriptor.getName();
+            String columnName = modelMetaData.getColumnNameForProperty(propertyName);
+            if (columnName != null && columns.contains(columnName)) {
+                if (modelMetaData.isDeferredLoadField(propertyName)) {
+                    deferredPropertiesToColumns.put(propertyName, columnName);
+                } else {
+                    columnSetters.add(createSetter(propertyName, columnName, extensionClasses));
+                    matchedColumns.add(columnName);
+                }
+            }
+        }
+    }
+
+    private ColumnSetter createSetter(String propertyName, String columnName, Set<Class<?>> extensionClasses) {
+        FieldMetaData fieldMetaData = findFieldMetaData(propertyName);
+        if (fieldMetaData == null) {
+            return new ColumnSetter(propertyName, columnName, null, null, null);
+        }
+
+        Field field = fieldMetaData.getField();
+        Class<?> declaringClass = fieldMetaData.getClazz();
+        if (modelMetaData.isMoneyField(field.getName()) || modelMetaData.isTypeCodeField(field.getName())) {
+            return new ColumnSetter(propertyName, columnName, null, null, null);
+        }
+
+        Class<?> extensionClass = extensionClasses.contains(declaringClass) ? declaringClass : null;
+        if (extensionClass == null && !declaringClass.isAssignableFrom(resultClass)) {
+            // field lives on a @CompositeDef object; let the wrapper locate it
+            return new ColumnSetter(propertyName, columnName, null, null, null);
+        }
+
+        try {
+            field.setAccessible(true);
+            MethodHandle setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+            return new ColumnSetter(propertyName, columnName, field, setter, extensionClass);
+        } catch (Exception ex) {
+            log.debug("Could not create a setter handle for {}.{}", declaringClass.getSimpleName(), field.getName(), ex);
+            return new ColumnSetter(propertyName, columnName, null, null, null);
+        }
+    }
+
+    private FieldMetaData findFieldMetaData(String propertyName) {
+        for (ModelClassMetaData classMetaData : modelMetaData.getModelClassMetaData()) {
+            FieldMetaData fieldMetaData = classMetaData.getFieldMetaData(propertyName);
+            if (fieldMetaData != null) {
+                return fieldMetaData;
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle findConstructor(Class<?> resultClass) {
+        try {
+            Constructor<?> constructor = resultClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (Exception ex) {
+            log.debug("Could not create a constructor handle for {}", resultClass.getName(), ex);
+            return null;
+        }
+    }
+
+    static class ColumnSetter {
+        final String propertyName;
+        final String columnName;
+        final Field field;
+        final MethodHandle setter;
+        final Class<?> extensionClass;
+
+        ColumnSetter(String propertyName, String columnName, Field field, MethodHandle setter, Class<?> extensionClass) {
+            this.propertyName = propertyName;
+            this.columnName = columnName;
+            this.field = field;
+            this.setter = setter;
+            this.extensionClass = extensionClass;
+        }
+
+        void set(ModelWrapper model, Object value) {
+            if (setter != null) {
+                try {
+                    Object target = extensionClass != null ? model.getModel().getExtension(extensionClass) : model.getModel();
+                    setter.invokeExact(target, ReflectUtils.coerceValueForField(field, value));
+                    return;
+                } catch (Throwable ex) {
+                    // fall through to the wrapper, which does the full conversion and error reporting
+                }
+            }
+            model.setValue(propertyName, value);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.jumpmind.pos.persist.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.persist.PersistException;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A forward only cursor over the rows of a query.  The connection, statement and result set stay open until the cursor
+ * is closed or the last row has been read, and rows are fetched from the database {@code fetchSize} rows at a time.
+ * <p>
+ * Auto commit is turned off while the cursor is open because some drivers (postgres) only use a server side cursor
+ * inside of a transaction.  H2 builds the whole result before returning the first row unless lazy query execution is
+ * turned on for the session, so it is turned on for the life of the cursor when {@code lazyQueryExecution} is set.
+ */
+@Slf4j
+public class QueryCursor implements Iterator<DbRow>, AutoCloseable {
+
+    private final DataSource dataSource;
+    private final boolean lazyQueryExecution;
+    private final DefaultMapper mapper = new DefaultMapper();
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private boolean autoCommitBefore;
+    private DbRow next;
+    private int rowCount;
+    private boolean closed;
+
+    public QueryCursor(DataSource dataSource, PreparedStatementCreator statementCreator, int fetchSize, boolean lazyQueryExecution) {
+        this.dataSource = dataSource;
+        this.lazyQueryExecution = lazyQueryExecution;
+        try {
+            connection = DataSourceUtils.getConnection(dataSource);
+            autoCommitBefore = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            if (lazyQueryExecution) {
+                setLazyQueryExecution(true);
+            }
+            statement = statementCreator.createPreparedStatement(connection);
+            statement.setFetchSize(fetchSize);
+            statement.setQueryTimeout(5 * 60);
+            resultSet = statement.executeQuery();
+        } catch (SQLException | RuntimeException ex) {
+            close();
+            throw ex instanceof PersistException ? (PersistException) ex : new PersistException("Failed to open query cursor", ex);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                if (resultSet.next()) {
+                    next = mapper.mapRow(resultSet, ++rowCount);
+                } else {
+                    close();
+                }
+            } catch (SQLException ex) {
+                close();
+                throw new PersistException("Failed to read row " + (rowCount + 1) + " from query cursor", ex);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public DbRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DbRow row = next;
+        next = null;
+        return row;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+
+        JdbcUtils.closeResultSet(resultSet);
+        JdbcUtils.closeStatement(statement);
+        if (connection != null) {
+            try {
+                if (lazyQueryExecution) {
+                    setLazyQueryExecution(false);
+                }
+                connection.setAutoCommit(autoCommitBefore);
+            } catch (SQLException ex) {
+                log.debug("Failed to reset the connection after closing query cursor", ex);
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        log.debug("closed query cursor after {} database row(s)", rowCount);
+    }
+
+    private void setLazyQueryExecution(boolean lazy) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "1" : "0"));
+        }
+    }
+}
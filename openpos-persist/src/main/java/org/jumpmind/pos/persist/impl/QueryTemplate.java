@@ -79,6 +79,48 @@ public class QueryTemplate extends AbstractSqlTemplate implements Cloneable {
     }
 
     public SqlStatement generateSQL(Query<?> query, Map<String, Object> params) {
+        return generateSQL(query, params, null, null);
+    }
+
+    /**
+     * Generates the statement, reusing SQL text previously generated by this template for the same set of parameter
+     * names when a cache is given.  Templates that do literal $${} substitution and queries whose in clauses must be
+     * split are always generated from scratch because their text depends on parameter values.
+     */
+    public SqlStatement generateSQL(Query<?> query, Map<String, Object> params, SqlCache sqlCache, String deviceMode) {
+        GeneratedSql generatedSql;
+        if (sqlCache != null && params != null && isCacheable(query, params)) {
+            SqlCache.SqlCacheKey key = new SqlCache.SqlCacheKey(SqlCache.EntryType.GENERATED_SQL, deviceMode, this,
+                    getName(), new HashSet<>(params.keySet()), query.isUseAnd());
+            generatedSql = sqlCache.get(key, () -> buildSql(query, params));
+        } else {
+            generatedSql = buildSql(query, params);
+        }
+        return bindParameters(generatedSql, params);
+    }
+
+    protected boolean isCacheable(Query<?> query, Map<String, Object> params) {
+        if (hasLiteralSubstitution(getSelect()) || hasLiteralSubstitution(getWhere())) {
+            return false;
+        }
+        for (String optionalWhereClause : getOptionalWhereClauses()) {
+            if (hasLiteralSubstitution(optionalWhereClause)) {
+                return false;
+            }
+        }
+        for (Object value : params.values()) {
+            if (getSize(value) > query.getMaxInParameters()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasLiteralSubstitution(String sql) {
+        return sql != null && sql.contains("$${");
+    }
+
+    protected GeneratedSql buildSql(Query<?> query, Map<String, Object> params) {
         String select = this.getSelect();
         List<String> keys = new ArrayList<>();
 
@@ -171,9 +213,13 @@ public class QueryTemplate extends AbstractSqlTemplate implements Cloneable {
             buff.append(this.getOrderBy());
         }
 
+        return new GeneratedSql(buff.toString(), keys);
+    }
+
+    protected SqlStatement bindParameters(GeneratedSql generatedSql, Map<String, Object> params) {
         SqlStatement sqlStatement = new SqlStatement();
-        sqlStatement.setSql(buff.toString());
-        for (String key : keys) {
+        sqlStatement.setSql(generatedSql.sql);
+        for (String key : generatedSql.keys) {
             Object value = params.get(key);
             if (value == null) {
                 value = params.get("*");
@@ -204,6 +250,16 @@ public class QueryTemplate extends AbstractSqlTemplate implements Cloneable {
         return sqlStatement;
     }
 
+    protected static class GeneratedSql {
+        final String sql;
+        final List<String> keys;
+
+        GeneratedSql(String sql, List<String> keys) {
+            this.sql = sql;
+            this.keys = Collections.unmodifiableList(keys);
+        }
+    }
+
     private void splitTooManyValuesInClause(Query<?> query, Map<String, Object> params, StringBuilder buffer) {
         if (MapUtils.isNotEmpty(params)) {
             Map<String, Object> newParams = new HashMap<>();
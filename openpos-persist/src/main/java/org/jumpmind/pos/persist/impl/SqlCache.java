@@ -0,0 +1,93 @@
+package org.jumpmind.pos.persist.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least recently used cache of generated SQL shared by all the {@link org.jumpmind.pos.persist.DBSession}s
+ * of a module.  Entries are keyed on everything the generated text depends on, so the same logical query only has
+ * its SQL built once.
+ */
+public class SqlCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 2000;
+
+    public enum EntryType {
+        /** The effective {@link QueryTemplate} for a named query or model result class */
+        QUERY_TEMPLATE,
+        /** The select statement generated for a model class and a set of search fields */
+        MODEL_SELECT,
+        /** The SQL text generated from a {@link QueryTemplate} for a set of parameter names */
+        GENERATED_SQL
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SqlCacheKey {
+        EntryType type;
+        String deviceMode;
+        Object source;
+        String queryName;
+        Object parameterNames;
+        boolean useAnd;
+    }
+
+    private final Map<SqlCacheKey, Object> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SqlCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public SqlCache(int maxEntries) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<SqlCacheKey, Object>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<SqlCacheKey, Object> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(SqlCacheKey key, Supplier<T> loader) {
+        T value = (T) cache.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+
+        misses.incrementAndGet();
+        value = loader.get();
+        if (value != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SqlCache[size=%d, hits=%d, misses=%d]", size(), getHits(), getMisses());
+    }
+}
@@ -0,0 +1,78 @@
+package org.jumpmind.pos.persist;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.persist.cars.CarModel;
+import org.jumpmind.pos.persist.cars.CarModelExtension;
+import org.jumpmind.pos.persist.cars.TestPersistCarsConfig;
+import org.jumpmind.pos.persist.impl.DbRow;
+import org.jumpmind.pos.persist.impl.ModelRowMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times mapping rows to models by reflection and with the compiled row mapper.  It is left out of the test task, run it
+ * with the benchmark task.
+ */
+@Slf4j
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestPersistCarsConfig.class})
+public class DBSessionRowMapperBenchmark {
+
+    @Autowired
+    private DBSessionFactory sessionFactory;
+
+    @Before
+    public void setup() {
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("TRUNCATE TABLE CAR_CAR");
+
+        for (int i = 0; i < 3; i++) {
+            CarModel car = new CarModel();
+            car.setVin(DBSessionRowMapperTest.VIN + i);
+            car.setMake("Hyundai");
+            car.setModel("Accent");
+            car.setModelYear("200" + i);
+            car.setTagValue("DEALERSHIP_NUMBER", "10" + i);
+            car.getExtension(CarModelExtension.class).setTrailerHitch(i == 1);
+            db.save(car);
+        }
+    }
+
+    @Test
+    public void testPerRowMappingCost() throws Exception {
+        DBSession db = sessionFactory.createDbSession();
+        List<DbRow> rows = new ArrayList<>();
+        SqlStatement statement = new SqlStatement();
+        statement.setSql(db.getSelectSql(CarModel.class, null));
+        db.queryInternal(statement, 100, context -> rows.add(context.getRow()));
+        ModelRowMapper rowMapper = db.getRowMapper(CarModel.class, rows.get(0));
+        final int iterations = 20000;
+
+        for (int i = 0; i < iterations; i++) {
+            db.mapModel(CarModel.class, rows.get(i % rows.size()));
+            db.mapModel(rowMapper, rows.get(i % rows.size()));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            db.mapModel(CarModel.class, rows.get(i % rows.size()));
+        }
+        long reflectiveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            db.mapModel(rowMapper, rows.get(i % rows.size()));
+        }
+        long compiledNanos = System.nanoTime() - start;
+
+        log.info("Per row mapping cost for {}: reflective {} ns, compiled {} ns", CarModel.class.getSimpleName(),
+                reflectiveNanos / iterations, compiledNanos / iterations);
+    }
+}
@@ -0,0 +1,137 @@
+package org.jumpmind.pos.persist;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.jumpmind.pos.persist.cars.AugmentedCarModel;
+import org.jumpmind.pos.persist.cars.CarModel;
+import org.jumpmind.pos.persist.cars.CarModelExtension;
+import org.jumpmind.pos.persist.cars.CarTrimTypeCode;
+import org.jumpmind.pos.persist.cars.TestPersistCarsConfig;
+import org.jumpmind.pos.persist.impl.DbRow;
+import org.jumpmind.pos.persist.impl.ModelRowMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestPersistCarsConfig.class})
+public class DBSessionRowMapperTest {
+
+    @Autowired
+    private DBSessionFactory sessionFactory;
+
+    final static String VIN = "KMHCN46C58U242743";
+
+    @Before
+    public void setup() {
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("TRUNCATE TABLE CAR_CAR");
+        db.executeSql("TRUNCATE TABLE CAR_AUGMENTED_CAR");
+
+        for (int i = 0; i < 3; i++) {
+            CarModel car = new CarModel();
+            car.setVin(VIN + i);
+            car.setMake("Hyundai");
+            car.setModel("Accent");
+            car.setModelYear("200" + i);
+            car.setAntique(i == 0);
+            car.setCarTrimTypeCode(CarTrimTypeCode.EX);
+            car.setEstimatedValue(Money.of(CurrencyUnit.USD, new BigDecimal("400.00")));
+            car.setTagValue("DEALERSHIP_NUMBER", "10" + i);
+            car.getExtension(CarModelExtension.class).setTrailerHitch(i == 1);
+            db.save(car);
+        }
+
+        AugmentedCarModel augmentedCar = new AugmentedCarModel();
+        augmentedCar.setVin(VIN);
+        augmentedCar.setMake("Hyundai");
+        augmentedCar.setModel("Elantra");
+        augmentedCar.setAugmentValue("color", "blue");
+        db.save(augmentedCar);
+    }
+
+    @Test
+    public void testCompiledMapperMatchesReflectiveMapping() throws Exception {
+        DBSession db = sessionFactory.createDbSession();
+        List<DbRow> rows = selectRows(db, CarModel.class);
+        assertEquals(3, rows.size());
+
+        ModelRowMapper rowMapper = db.getRowMapper(CarModel.class, rows.get(0));
+        assertNotNull(rowMapper);
+
+        for (DbRow row : rows) {
+            CarModel reflective = db.mapModel(CarModel.class, row);
+            CarModel compiled = db.mapModel(rowMapper, row);
+
+            assertEquals(reflective.getVin(), compiled.getVin());
+            assertEquals(reflective.getMake(), compiled.getMake());
+            assertEquals(reflective.getModel(), compiled.getModel());
+            assertEquals(reflective.getModelYear(), compiled.getModelYear());
+            assertEquals(reflective.isAntique(), compiled.isAntique());
+            assertEquals(reflective.getIsoCurrencyCode(), compiled.getIsoCurrencyCode());
+            assertEquals(reflective.getEstimatedValue(), compiled.getEstimatedValue());
+            assertEquals(reflective.getCarTrimTypeCode(), compiled.getCarTrimTypeCode());
+            assertEquals(reflective.getSubModelCode(), compiled.getSubModelCode());
+            assertEquals(reflective.getCreateBy(), compiled.getCreateBy());
+            assertEquals(reflective.getCreateTime(), compiled.getCreateTime());
+            assertEquals(reflective.getTags(), compiled.getTags());
+            assertEquals(reflective.getAdditionalFields(), compiled.getAdditionalFields());
+            assertEquals(reflective.getExtension(CarModelExtension.class).isTrailerHitch(),
+                    compiled.getExtension(CarModelExtension.class).isTrailerHitch());
+        }
+    }
+
+    @Test
+    public void testCompiledMapperMatchesReflectiveMappingForAugmentedModel() throws Exception {
+        DBSession db = sessionFactory.createDbSession();
+        List<DbRow> rows = selectRows(db, AugmentedCarModel.class);
+        assertEquals(1, rows.size());
+
+        DbRow row = rows.get(0);
+        AugmentedCarModel reflective = db.mapModel(AugmentedCarModel.class, row);
+        AugmentedCarModel compiled = db.mapModel(db.getRowMapper(AugmentedCarModel.class, row), row);
+
+        assertEquals("blue", compiled.getAugmentValue("color"));
+        assertEquals(reflective.getAugments(), compiled.getAugments());
+        assertEquals(reflective.getAdditionalFields(), compiled.getAdditionalFields());
+        assertEquals(reflective.getModel(), compiled.getModel());
+    }
+
+    @Test
+    public void testRowMapperIsCachedByColumnLayout() {
+        DBSession db = sessionFactory.createDbSession();
+        List<DbRow> rows = selectRows(db, CarModel.class);
+
+        ModelRowMapper first = db.getRowMapper(CarModel.class, rows.get(0));
+        ModelRowMapper second = sessionFactory.createDbSession().getRowMapper(CarModel.class, rows.get(1));
+        assertSame(first, second);
+        assertTrue(first.matches(rows.get(2)));
+
+        List<DbRow> partialRows = new ArrayList<>();
+        db.queryInternal(sql("select vin, make from CAR_CAR"), 10, context -> partialRows.add(context.getRow()));
+        ModelRowMapper partial = db.getRowMapper(CarModel.class, partialRows.get(0));
+        assertNotSame(first, partial);
+        assertEquals(2, partial.getColumnLayout().size());
+    }
+
+    private List<DbRow> selectRows(DBSession db, Class<?> modelClass) {
+        List<DbRow> rows = new ArrayList<>();
+        db.queryInternal(sql(db.getSelectSql(modelClass, null)), 100, context -> rows.add(context.getRow()));
+        return rows;
+    }
+
+    private SqlStatement sql(String sql) {
+        SqlStatement statement = new SqlStatement();
+        statement.setSql(sql);
+        return statement;
+    }
+}
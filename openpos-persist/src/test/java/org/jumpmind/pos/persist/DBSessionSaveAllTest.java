@@ -0,0 +1,154 @@
+package org.jumpmind.pos.persist;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.pos.persist.cars.AugmentedCarModel;
+import org.jumpmind.pos.persist.cars.CarModel;
+import org.jumpmind.pos.persist.cars.CarModelExtension;
+import org.jumpmind.pos.persist.cars.RaceCarModel;
+import org.jumpmind.pos.persist.cars.TestPersistCarsConfig;
+import org.jumpmind.pos.persist.impl.ModelWrapper;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestPersistCarsConfig.class})
+public class DBSessionSaveAllTest {
+
+    @Autowired
+    private DBSessionFactory sessionFactory;
+
+    final static String VIN = "KMHCN46C58U242743";
+
+    @Before
+    public void setup() {
+        DBSession db = sessionFactory.createDbSession();
+        for (String deviceMode : Arrays.asList(ClientContext.DEVICE_MODE_DEFAULT, ClientContext.DEVICE_MODE_TRAINING)) {
+            for (Class<?> modelClass : Arrays.asList(RaceCarModel.class, AugmentedCarModel.class)) {
+                for (Table table : sessionFactory.databaseSchema.getTables(deviceMode, modelClass)) {
+                    db.executeSql("TRUNCATE TABLE " + table.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAllMixedInsertAndUpdate() {
+        DBSession db = sessionFactory.createDbSession();
+        db.save(car(VIN + "1", "Accent"));
+        db.save(car(VIN + "2", "Accent"));
+
+        CarModel retrieved = db.findByNaturalId(CarModel.class, VIN + "1");
+        retrieved.setModel("Elantra");
+
+        List<CarModel> cars = new ArrayList<>();
+        cars.add(retrieved);
+        cars.add(car(VIN + "2", "Sonata"));
+        for (int i = 3; i < 6; i++) {
+            cars.add(car(VIN + i, "Tucson"));
+        }
+        db.saveAll(cars);
+
+        assertEquals(5, db.findByFields(CarModel.class, new HashMap<>(), 100).size());
+        assertEquals("Elantra", db.findByNaturalId(CarModel.class, VIN + "1").getModel());
+        assertEquals("Sonata", db.findByNaturalId(CarModel.class, VIN + "2").getModel());
+        assertEquals("Tucson", db.findByNaturalId(CarModel.class, VIN + "5").getModel());
+        for (CarModel car : cars) {
+            assertFalse(db.wrap(car).isNew());
+        }
+    }
+
+    @Test
+    public void testSaveAllBatchUpdateFallback() {
+        DBSession db = new DBSession(null, null, sessionFactory.databaseSchema, sessionFactory.databasePlatform,
+                sessionFactory.sessionContext, sessionFactory.queryTemplates, sessionFactory.dmlTemplates,
+                sessionFactory.tagHelper, sessionFactory.augmenterHelper) {
+            @Override
+            protected boolean mergeBatch(List<ModelWrapper> models, Table table) {
+                return false;
+            }
+        };
+        db.save(car(VIN + "1", "Accent"));
+        db.save(car(VIN + "2", "Accent"));
+
+        CarModel retrieved = db.findByNaturalId(CarModel.class, VIN + "1");
+        retrieved.setModel("Elantra");
+        CarModel retrievedWithNewVin = db.findByNaturalId(CarModel.class, VIN + "1");
+        retrievedWithNewVin.setVin(VIN + "3");
+
+        db.saveAll(Arrays.asList(retrieved, retrievedWithNewVin, car(VIN + "2", "Sonata"), car(VIN + "4", "Tucson")));
+
+        assertEquals("Elantra", db.findByNaturalId(CarModel.class, VIN + "1").getModel());
+        assertEquals("Sonata", db.findByNaturalId(CarModel.class, VIN + "2").getModel());
+        assertEquals("Accent", db.findByNaturalId(CarModel.class, VIN + "3").getModel());
+        assertEquals("Tucson", db.findByNaturalId(CarModel.class, VIN + "4").getModel());
+    }
+
+    @Test
+    public void testSaveAllExtensionAndAugmentedColumns() {
+        DBSession db = sessionFactory.createDbSession();
+
+        CarModel car = car(VIN + "1", "Accent");
+        car.getExtension(CarModelExtension.class).setTrailerHitch(true);
+
+        RaceCarModel raceCar = new RaceCarModel();
+        raceCar.setVin(VIN + "2");
+        raceCar.setMake("Hyundai");
+        raceCar.setModel("Veloster N");
+        raceCar.setTurboCharged(true);
+
+        AugmentedCarModel augmentedCar = new AugmentedCarModel();
+        augmentedCar.setVin(VIN + "3");
+        augmentedCar.setMake("Hyundai");
+        augmentedCar.setModel("Elantra");
+        augmentedCar.setAugmentValue("color", "blue");
+
+        db.saveAll(Arrays.asList(car, raceCar, augmentedCar));
+
+        assertTrue(db.findByNaturalId(CarModel.class, VIN + "1").getExtension(CarModelExtension.class).isTrailerHitch());
+        RaceCarModel retrievedRaceCar = db.findByNaturalId(RaceCarModel.class, VIN + "2");
+        assertTrue(retrievedRaceCar.isTurboCharged());
+        assertEquals("Veloster N", retrievedRaceCar.getModel());
+        AugmentedCarModel retrievedAugmentedCar = db.findByNaturalId(AugmentedCarModel.class, VIN + "3");
+        assertEquals("blue", retrievedAugmentedCar.getAugmentValue("color"));
+
+        retrievedAugmentedCar.setAugmentValue("color", "red");
+        db.saveAll(Arrays.asList(retrievedAugmentedCar));
+        assertEquals("red", db.findByNaturalId(AugmentedCarModel.class, VIN + "3").getAugmentValue("color"));
+    }
+
+    @Test
+    public void testSaveAllTrainingMode() {
+        ClientContext clientContext = sessionFactory.clientContext;
+        DBSession db = sessionFactory.createDbSession();
+        try {
+            clientContext.put(ClientContext.DEVICE_MODE, ClientContext.DEVICE_MODE_TRAINING);
+            db.saveAll(Arrays.asList(car(VIN + "1", "Accent"), car(VIN + "2", "Elantra")));
+            assertEquals("Elantra", db.findByNaturalId(CarModel.class, VIN + "2").getModel());
+        } finally {
+            clientContext.put(ClientContext.DEVICE_MODE, ClientContext.DEVICE_MODE_DEFAULT);
+        }
+
+        assertNull(db.findByNaturalId(CarModel.class, VIN + "2"));
+    }
+
+    private CarModel car(String vin, String model) {
+        CarModel car = new CarModel();
+        car.setVin(vin);
+        car.setMake("Hyundai");
+        car.setModel(model);
+        car.setModelYear("2005");
+        return car;
+    }
+}
@@ -0,0 +1,80 @@
+package org.jumpmind.pos.persist;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.persist.cars.CarModel;
+import org.jumpmind.pos.persist.cars.TestPersistCarsConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streams a million rows to check that the heap doesn't grow with the size of the result.  It is left out of the test task,
+ * run it with the benchmark task.
+ */
+@Slf4j
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestPersistCarsConfig.class})
+public class DBSessionStreamBenchmark {
+
+    @Autowired
+    private DBSessionFactory sessionFactory;
+
+    @Before
+    public void setup() {
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("TRUNCATE TABLE CAR_CAR");
+    }
+
+    @After
+    public void cleanup() {
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("TRUNCATE TABLE CAR_CAR");
+    }
+
+    @Test
+    public void testStreamMemoryStaysFlat() {
+        final int rows = 1000000;
+        final int sampleInterval = 100000;
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("insert into car_car (vin, make, model, model_year, create_time, create_by, last_update_time, last_update_by) " +
+                "select 'VIN' || x, 'Hyundai', 'Accent', '2005', current_timestamp, 'unit-test', current_timestamp, 'unit-test' " +
+                "from system_range(1, " + rows + ")");
+
+        AtomicInteger count = new AtomicInteger();
+        AtomicLong minUsed = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong maxUsed = new AtomicLong();
+        Query<CarModel> query = new Query<CarModel>().result(CarModel.class);
+        try (Stream<CarModel> cars = db.stream(query, new HashMap<>(), 1000)) {
+            cars.forEach(car -> {
+                if (count.incrementAndGet() % sampleInterval == 0) {
+                    long used = usedMemory();
+                    minUsed.set(Math.min(minUsed.get(), used));
+                    maxUsed.set(Math.max(maxUsed.get(), used));
+                }
+            });
+        }
+
+        long growth = maxUsed.get() - minUsed.get();
+        log.info("Streamed {} rows, used heap between {} MB and {} MB", count.get(), minUsed.get() / (1024 * 1024),
+                maxUsed.get() / (1024 * 1024));
+        assertEquals(rows, count.get());
+        assertTrue("Heap grew by " + growth / (1024 * 1024) + " MB while streaming", growth < 64 * 1024 * 1024);
+    }
+
+    private long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,88 @@
+package org.jumpmind.pos.persist;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.jumpmind.pos.persist.cars.CarModel;
+import org.jumpmind.pos.persist.cars.TestPersistCarsConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestPersistCarsConfig.class})
+public class DBSessionStreamTest {
+
+    @Autowired
+    private DBSessionFactory sessionFactory;
+
+    final static String VIN = "KMHCN46C58U242743";
+
+    @Before
+    public void setup() {
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("TRUNCATE TABLE CAR_CAR");
+    }
+
+    @After
+    public void cleanup() {
+        DBSession db = sessionFactory.createDbSession();
+        db.executeSql("TRUNCATE TABLE CAR_CAR");
+    }
+
+    @Test
+    public void testStreamMapsRowsLazily() {
+        DBSession db = sessionFactory.createDbSession();
+        insertCars(db, 25);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("make", "Hyundai");
+        Query<CarModel> query = new Query<CarModel>().named("byMakeAndModel").result(CarModel.class);
+        try (Stream<CarModel> cars = db.stream(query, params, 10)) {
+            List<CarModel> results = cars.collect(Collectors.toList());
+            assertEquals(25, results.size());
+            assertEquals("Accent", results.get(0).getModel());
+        }
+    }
+
+    @Test
+    public void testStreamReleasesConnectionOnClose() {
+        DBSession db = sessionFactory.createDbSession();
+        insertCars(db, 100);
+        BasicDataSource dataSource = (BasicDataSource) sessionFactory.databasePlatform.getDataSource();
+        int activeBefore = dataSource.getNumActive();
+
+        Query<CarModel> query = new Query<CarModel>().result(CarModel.class);
+        try (Stream<CarModel> cars = db.stream(query)) {
+            assertEquals(10, cars.limit(10).count());
+            assertEquals(activeBefore + 1, dataSource.getNumActive());
+        }
+        assertEquals(activeBefore, dataSource.getNumActive());
+
+        try (Stream<CarModel> cars = db.stream(query)) {
+            assertEquals(100, cars.count());
+            assertEquals(activeBefore, dataSource.getNumActive());
+        }
+    }
+
+    private void insertCars(DBSession db, int count) {
+        for (int i = 1; i <= count; i++) {
+            CarModel car = new CarModel();
+            car.setVin(VIN + i);
+            car.setMake("Hyundai");
+            car.setModel("Accent");
+            car.setModelYear("2005");
+            db.save(car);
+        }
+    }
+}
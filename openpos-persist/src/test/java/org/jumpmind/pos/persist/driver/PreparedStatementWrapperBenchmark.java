@@ -0,0 +1,108 @@
+package org.jumpmind.pos.persist.driver;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times prepared statements on a raw connection and on wrapped connections with and without the low overhead mode.  It
+ * is left out of the test task, run it with the benchmark task.
+ */
+@Slf4j
+public class PreparedStatementWrapperBenchmark {
+
+    static final String DB = "h2:mem:statementwrapperbenchmark;DB_CLOSE_DELAY=-1";
+
+    private Connection rawConnection;
+
+    @Before
+    public void setup() throws Exception {
+        rawConnection = DriverManager.getConnection("jdbc:" + DB);
+        try (Statement stmt = rawConnection.createStatement()) {
+            stmt.execute("create table if not exists wrapper_test (id int primary key, name varchar(50), amount double, active boolean)");
+            stmt.execute("delete from wrapper_test");
+        }
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        System.clearProperty(StatementInterceptor.LOW_OVERHEAD_MODE_PROPERTY);
+        rawConnection.close();
+    }
+
+    @Test
+    public void testWrappedStatementThroughput() throws Exception {
+        final int rows = 20000;
+        try (Connection lowOverheadConnection = openWrappedConnection(true);
+             Connection interceptedConnection = openWrappedConnection(false)) {
+            for (int i = 0; i < 3; i++) {
+                insertRows(rawConnection, 0, rows);
+                insertRows(lowOverheadConnection, rows, rows);
+                insertRows(interceptedConnection, rows * 2, rows);
+                clearRows();
+            }
+
+            long rawNanos = insertRows(rawConnection, 0, rows);
+            long lowOverheadNanos = insertRows(lowOverheadConnection, rows, rows);
+            long interceptedNanos = insertRows(interceptedConnection, rows * 2, rows);
+
+            long rawQueryNanos = queryRows(rawConnection, rows);
+            long lowOverheadQueryNanos = queryRows(lowOverheadConnection, rows);
+            long interceptedQueryNanos = queryRows(interceptedConnection, rows);
+
+            log.info("{} prepared statement inserts: raw {} ms, low overhead wrapper {} ms, intercepted wrapper {} ms", rows,
+                    rawNanos / 1000000, lowOverheadNanos / 1000000, interceptedNanos / 1000000);
+            log.info("{} prepared statement queries: raw {} ms, low overhead wrapper {} ms, intercepted wrapper {} ms", rows,
+                    rawQueryNanos / 1000000, lowOverheadQueryNanos / 1000000, interceptedQueryNanos / 1000000);
+        }
+    }
+
+    private Connection openWrappedConnection(boolean lowOverhead) throws SQLException {
+        System.setProperty(StatementInterceptor.LOW_OVERHEAD_MODE_PROPERTY, Boolean.toString(lowOverhead));
+        return new Driver().connect(Driver.DRIVER_PREFIX + DB, new Properties());
+    }
+
+    private long insertRows(Connection connection, int firstId, int count) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = connection.prepareStatement("insert into wrapper_test values (?, ?, ?, ?)")) {
+            for (int i = firstId; i < firstId + count; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "row " + i);
+                ps.setDouble(3, i * 1.5);
+                ps.setBoolean(4, true);
+                assertEquals(1, ps.executeUpdate());
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long queryRows(Connection connection, int count) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = connection.prepareStatement("select name from wrapper_test where id = ?")) {
+            for (int i = 0; i < count; i++) {
+                ps.setInt(1, i);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void clearRows() throws SQLException {
+        try (Statement stmt = rawConnection.createStatement()) {
+            stmt.execute("delete from wrapper_test");
+        }
+    }
+}
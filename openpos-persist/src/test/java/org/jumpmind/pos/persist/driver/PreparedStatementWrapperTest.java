@@ -0,0 +1,121 @@
+package org.jumpmind.pos.persist.driver;
+
+import org.jumpmind.properties.TypedProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class PreparedStatementWrapperTest {
+
+    static final String DB = "h2:mem:statementwrapper;DB_CLOSE_DELAY=-1";
+
+    private Connection rawConnection;
+
+    @Before
+    public void setup() throws Exception {
+        rawConnection = DriverManager.getConnection("jdbc:" + DB);
+        try (Statement stmt = rawConnection.createStatement()) {
+            stmt.execute("create table if not exists wrapper_test (id int primary key, name varchar(50), amount double, active boolean)");
+            stmt.execute("delete from wrapper_test");
+        }
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        System.clearProperty(StatementInterceptor.LOW_OVERHEAD_MODE_PROPERTY);
+        rawConnection.close();
+    }
+
+    @Test
+    public void testParameterCaptureRendersInIndexOrder() {
+        ParameterCapture parameters = new ParameterCapture();
+        parameters.set(3, 2.5d);
+        parameters.set(1, 42);
+        parameters.set(2, "name");
+        parameters.setNull(5);
+        parameters.set(20, true);
+
+        Object[] args = parameters.toArray();
+        assertEquals(20, args.length);
+        assertEquals(42, args[0]);
+        assertEquals("name", args[1]);
+        assertEquals(2.5d, args[2]);
+        assertNull(args[3]);
+        assertNull(args[4]);
+        assertEquals(Boolean.TRUE, args[19]);
+
+        parameters.clear();
+        assertEquals(0, parameters.toArray().length);
+        parameters.set(1, 7L);
+        assertArrayEquals(new Object[] {7L}, parameters.toArray());
+    }
+
+    @Test
+    public void testLowOverheadModeOnlyForStatementInterceptor() throws Exception {
+        try (Connection connection = openWrappedConnection(true)) {
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) connection.prepareStatement("select * from wrapper_test");
+            TypedProperties properties = new TypedProperties();
+            assertTrue(new StatementInterceptor(ps, properties).isExecuteOnly());
+            assertFalse(new StatementDelayInterceptor(ps, properties).isExecuteOnly());
+            assertFalse(new RandomErrorInterceptor(ps, properties).isExecuteOnly());
+
+            properties.setProperty(StatementInterceptor.LOW_OVERHEAD_MODE_PROPERTY, "false");
+            assertFalse(new StatementInterceptor(ps, properties).isExecuteOnly());
+            ps.close();
+        }
+    }
+
+    @Test
+    public void testWrappedStatementsInBothModes() throws Exception {
+        for (boolean lowOverhead : new boolean[] {true, false}) {
+            try (Connection connection = openWrappedConnection(lowOverhead)) {
+                insertRows(connection, lowOverhead ? 0 : 100, 10);
+                try (PreparedStatement ps = connection.prepareStatement("select count(*), sum(amount) from wrapper_test where id >= ? and active = ?")) {
+                    ps.setInt(1, lowOverhead ? 0 : 100);
+                    ps.setBoolean(2, true);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        assertTrue(rs.next());
+                        assertEquals(10, rs.getInt(1));
+                    }
+                }
+                try (PreparedStatement ps = connection.prepareStatement("insert into wrapper_test values (?, ?, ?, ?)")) {
+                    ps.setInt(1, lowOverhead ? 0 : 100);
+                    ps.setString(2, "duplicate");
+                    ps.setDouble(3, 1);
+                    ps.setBoolean(4, true);
+                    ps.executeUpdate();
+                    fail("Expected a duplicate key error");
+                } catch (SQLException ex) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    private Connection openWrappedConnection(boolean lowOverhead) throws SQLException {
+        System.setProperty(StatementInterceptor.LOW_OVERHEAD_MODE_PROPERTY, Boolean.toString(lowOverhead));
+        return new Driver().connect(Driver.DRIVER_PREFIX + DB, new Properties());
+    }
+
+    private void insertRows(Connection connection, int firstId, int count) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("insert into wrapper_test values (?, ?, ?, ?)")) {
+            for (int i = firstId; i < firstId + count; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "row " + i);
+                ps.setDouble(3, i * 1.5);
+                ps.setBoolean(4, true);
+                assertEquals(1, ps.executeUpdate());
+            }
+        }
+    }
+}
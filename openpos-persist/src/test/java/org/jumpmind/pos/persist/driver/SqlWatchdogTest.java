@@ -0,0 +1,164 @@
+package org.jumpmind.pos.persist.driver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SqlWatchdogTest {
+
+    static final String DB = "h2:mem:sqlwatchdog;DB_CLOSE_DELAY=-1";
+
+    static final String INTERCEPTOR_PROPERTY = PreparedStatementWrapper.class.getName() + ".interceptor";
+
+    static final String DELAY_PROPERTY = StatementDelayInterceptor.class.getName() + ".delay";
+
+    private Connection connection;
+
+    @Before
+    public void setup() throws Exception {
+        restartWatchdog("50", "200", null);
+        connection = new Driver().connect(Driver.DRIVER_PREFIX + DB, new Properties());
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table if not exists watchdog_test (id int primary key, name varchar(50))");
+            stmt.execute("delete from watchdog_test");
+        }
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        connection.close();
+        System.clearProperty(INTERCEPTOR_PROPERTY);
+        System.clearProperty(DELAY_PROPERTY);
+        restartWatchdog(null, null, null);
+    }
+
+    @Test
+    public void testSlowStatementReportedWithinOneTick() throws Exception {
+        System.setProperty(INTERCEPTOR_PROPERTY, StatementDelayInterceptor.class.getName());
+        System.setProperty(DELAY_PROPERTY, "1000");
+        long warningsBefore = SqlWatchdog.getWarningCount();
+
+        try (Connection delayed = new Driver().connect(Driver.DRIVER_PREFIX + DB, new Properties());
+             PreparedStatement ps = delayed.prepareStatement("insert into watchdog_test values (?, ?)")) {
+            ps.setInt(1, 1);
+            ps.setString(2, "slow");
+            ps.executeUpdate();
+        }
+
+        long warnings = SqlWatchdog.getWarningCount() - warningsBefore;
+        assertTrue("Expected the slow insert to be reported at least twice, but it was reported " + warnings + " time(s)",
+                warnings >= 2);
+        assertEquals(0, SqlWatchdog.getInProgressCount());
+    }
+
+    @Test
+    public void testFastStatementsAreNotReported() throws Exception {
+        long warningsBefore = SqlWatchdog.getWarningCount();
+        try (PreparedStatement ps = connection.prepareStatement("insert into watchdog_test values (?, ?)")) {
+            for (int i = 0; i < 1000; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "fast");
+                ps.executeUpdate();
+            }
+        }
+        Thread.sleep(300);
+        assertEquals(warningsBefore, SqlWatchdog.getWarningCount());
+        assertEquals(0, SqlWatchdog.getInProgressCount());
+    }
+
+    @Test
+    public void testHungStatementIsCancelled() throws Exception {
+        restartWatchdog("50", "200", "500");
+        long cancelsBefore = SqlWatchdog.getCancelCount();
+
+        long start = System.nanoTime();
+        try (PreparedStatement ps = connection.prepareStatement("select sum(x) from system_range(1, ?)")) {
+            ps.setLong(1, Long.MAX_VALUE / 2);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+            }
+            fail("Expected the statement to be cancelled");
+        } catch (SQLException ex) {
+            // expected
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(cancelsBefore + 1, SqlWatchdog.getCancelCount());
+        assertTrue("The statement was cancelled after " + elapsed + "ms.", elapsed < 10000);
+        assertEquals(0, SqlWatchdog.getInProgressCount());
+    }
+
+    @Test
+    public void testPollIntervalIsTheFallbackTickInterval() {
+        try {
+            System.clearProperty(SqlWatchdog.TICK_INTERVAL_PROPERTY);
+            assertEquals(1000, SqlWatchdog.getTickInterval());
+            System.setProperty(SqlWatchdog.POLL_INTERVAL_PROPERTY, "20000");
+            assertEquals(20000, SqlWatchdog.getTickInterval());
+            System.setProperty(SqlWatchdog.TICK_INTERVAL_PROPERTY, "50");
+            assertEquals(50, SqlWatchdog.getTickInterval());
+        } finally {
+            System.clearProperty(SqlWatchdog.POLL_INTERVAL_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testTimerWheelExpiresDeadlines() {
+        List<String> expired = new ArrayList<>();
+        long tick = TimeUnit.MILLISECONDS.toNanos(10);
+        TimerWheel<String> wheel = new TimerWheel<>(tick, 8, (task, now) -> {
+            expired.add(task);
+            return "repeat".equals(task) ? tick * 20 : -1;
+        });
+        long now = System.nanoTime();
+        wheel.schedule("first", now + tick * 2);
+        wheel.schedule("second", now + tick * 30);
+        wheel.schedule("repeat", now + tick * 2);
+        TimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", now + tick * 2);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(3, wheel.size());
+
+        wheel.advance(now + tick);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(now + tick * 3);
+        assertEquals(2, expired.size());
+        assertTrue(expired.contains("first"));
+        assertTrue(expired.contains("repeat"));
+        assertEquals(2, wheel.size());
+
+        wheel.advance(now + tick * 31);
+        assertEquals(4, expired.size());
+        assertTrue(expired.contains("second"));
+        assertEquals(1, wheel.size());
+    }
+
+    private void restartWatchdog(String tickInterval, String warnInterval, String cancelTimeout) {
+        SqlWatchdog.stop();
+        setOrClear(SqlWatchdog.TICK_INTERVAL_PROPERTY, tickInterval);
+        setOrClear(SqlWatchdog.WARN_INTERVAL_PROPERTY, warnInterval);
+        setOrClear(SqlWatchdog.CANCEL_TIMEOUT_PROPERTY, cancelTimeout);
+        SqlWatchdog.start();
+    }
+
+    private void setOrClear(String property, String value) {
+        if (value != null) {
+            System.setProperty(property, value);
+        } else {
+            System.clearProperty(property);
+        }
+    }
+}
@@ -218,5 +218,55 @@ public class QueryTemplateTest {
         assertEquals(0, sql.getParameters().getValue("antique"));
     }
 
+    @Test
+    public void generateSQLFromCacheForSameParameterNames() {
+        SqlCache sqlCache = new SqlCache();
+        queryTemplate.setWhere("baz = ${baz}");
+        queryTemplate.getOptionalWhereClauses().add("waz = ${waz}");
+
+        params.put("baz", "a");
+        SqlStatement first = queryTemplate.generateSQL(query, params, sqlCache, "default");
+        Map<String, Object> secondParams = new HashMap<>();
+        secondParams.put("baz", "b");
+        SqlStatement second = queryTemplate.generateSQL(query, secondParams, sqlCache, "default");
+
+        assertEquals("select foo from bar WHERE baz = :baz", first.getSql());
+        assertSame(first.getSql(), second.getSql());
+        assertEquals("b", second.getParameters().getValues().get("baz"));
+        assertEquals(1, sqlCache.getMisses());
+        assertEquals(1, sqlCache.getHits());
+
+        secondParams.put("waz", "c");
+        SqlStatement third = queryTemplate.generateSQL(query, secondParams, sqlCache, "default");
+        assertEquals("select foo from bar WHERE baz = :baz AND (waz = :waz)", third.getSql());
+        assertEquals(2, sqlCache.getMisses());
+    }
+
+    @Test
+    public void generateSQLDoesNotCacheLiteralReplacement() {
+        SqlCache sqlCache = new SqlCache();
+        queryTemplate.setWhere("$${column} = ${value}");
+
+        params.put("column", "baz");
+        params.put("value", "a");
+        assertEquals("select foo from bar WHERE baz = :value", queryTemplate.generateSQL(query, params, sqlCache, "default").getSql());
+
+        Map<String, Object> secondParams = new HashMap<>();
+        secondParams.put("column", "waz");
+        secondParams.put("value", "a");
+        assertEquals("select foo from bar WHERE waz = :value", queryTemplate.generateSQL(query, secondParams, sqlCache, "default").getSql());
+        assertEquals(0, sqlCache.size());
+    }
+
+    @Test
+    public void generateSQLDoesNotCacheSplitInClause() {
+        SqlCache sqlCache = new SqlCache();
+        queryTemplate.setWhere("baz in ( ${para} )");
+        params.put("para", Arrays.asList("a", "b", "c", "d"));
+        query.setMaxInParameters(2);
+        SqlStatement sqlStatement = queryTemplate.generateSQL(query, params, sqlCache, "default");
+        assertEquals("select foo from bar WHERE (baz in ( :para$0,:para$1 ) OR baz in ( :para$2,:para$3 ))", sqlStatement.getSql());
+        assertEquals(0, sqlCache.size());
+    }
 
 }
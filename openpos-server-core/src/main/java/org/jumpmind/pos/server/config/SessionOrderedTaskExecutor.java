@@ -0,0 +1,192 @@
+package org.jumpmind.pos.server.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An executor for the client outbound channel that delivers the messages for one websocket session in the order they
+ * were sent, while messages for different sessions are delivered in parallel on a bounded pool.  A slow client only
+ * holds up its own lane.
+ * <p>
+ * Each session gets a lane with at most {@code sessionQueueLimit} waiting messages.  When a lane is full the message is
+ * rejected with a {@link TaskRejectedException}, the same way a full {@link ThreadPoolTaskExecutor} would reject it.
+ * A lane only runs {@code laneBatchSize} messages before going to the back of the pool's queue so one busy session
+ * cannot starve the others.
+ */
+@Slf4j
+public class SessionOrderedTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private int sessionQueueLimit = 1000;
+    private int laneBatchSize = 16;
+
+    public SessionOrderedTaskExecutor(int poolSize, int sessionQueueLimit) {
+        setCorePoolSize(poolSize);
+        setMaxPoolSize(poolSize);
+        setThreadNamePrefix("clientOutboundChannel-");
+        this.sessionQueueLimit = sessionQueueLimit;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        String sessionId = getSessionId(task);
+        if (sessionId == null) {
+            super.execute(task);
+            return;
+        }
+
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(sessionId, Lane::new);
+            if (lane.offer(task)) {
+                return;
+            }
+        }
+    }
+
+    public void setSessionQueueLimit(int sessionQueueLimit) {
+        this.sessionQueueLimit = sessionQueueLimit;
+    }
+
+    public int getSessionQueueLimit() {
+        return sessionQueueLimit;
+    }
+
+    public void setLaneBatchSize(int laneBatchSize) {
+        this.laneBatchSize = laneBatchSize;
+    }
+
+    /**
+     * @return the number of sessions that currently have messages waiting or being delivered
+     */
+    public int getActiveLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * @return the number of messages waiting to be delivered across all sessions
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return the number of messages waiting to be delivered to a session
+     */
+    public int getQueueDepth(String sessionId) {
+        Lane lane = lanes.get(sessionId);
+        return lane != null ? lane.depth() : 0;
+    }
+
+    /**
+     * @return the deepest any one session's queue has been
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * @return the number of messages that were rejected because their session's queue was full
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    protected String getSessionId(Runnable task) {
+        if (task instanceof MessageHandlingRunnable) {
+            Message<?> message = ((MessageHandlingRunnable) task).getMessage();
+            return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        }
+        return null;
+    }
+
+    class Lane implements Runnable {
+
+        final String sessionId;
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        boolean running;
+        boolean retired;
+
+        Lane(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        /**
+         * @return false if the lane was retired and the caller needs to look up a new one
+         */
+        boolean offer(Runnable task) {
+            boolean schedule = false;
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                if (tasks.size() >= sessionQueueLimit) {
+                    rejected.incrementAndGet();
+                    log.warn("Rejected outbound message for session {} because {} messages are already waiting to be delivered",
+                            sessionId, tasks.size());
+                    throw new TaskRejectedException("The outbound queue for session " + sessionId + " is full");
+                }
+                tasks.add(task);
+                queued.incrementAndGet();
+                maxQueueDepth.accumulateAndGet(tasks.size(), Math::max);
+                if (!running) {
+                    running = true;
+                    schedule = true;
+                }
+            }
+            if (schedule) {
+                SessionOrderedTaskExecutor.super.execute(this);
+            }
+            return true;
+        }
+
+        synchronized int depth() {
+            return tasks.size();
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < laneBatchSize; i++) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        running = false;
+                        retired = true;
+                        lanes.remove(sessionId, this);
+                        return;
+                    }
+                }
+                queued.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    log.error("Failed to deliver outbound message for session " + sessionId, ex);
+                }
+                delivered.incrementAndGet();
+            }
+            SessionOrderedTaskExecutor.super.execute(this);
+        }
+    }
+
+}
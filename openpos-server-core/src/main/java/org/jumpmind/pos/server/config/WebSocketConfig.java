@@ -56,6 +56,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${openpos.general.websocket.sendBufferSizeLimit:8192000}")
     int sendBufferSizeLimit;
 
+    @Value("${openpos.general.websocket.outboundPoolSize:8}")
+    int outboundPoolSize;
+
+    @Value("${openpos.general.websocket.outboundSessionQueueLimit:1000}")
+    int outboundSessionQueueLimit;
+
     @Value("${openpos.general.logMessagesEnabled:false}")
     boolean loggingEnabled;
 
@@ -153,8 +159,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         /*
          * https://stackoverflow.com/questions/29689838/sockjs-receive-stomp-
          * messages-from-spring-websocket-out-of-order
+         *
+         * Messages have to go out to a client in order, but that only matters
+         * per session.  Each session gets its own lane so one slow client
+         * does not hold up the screens for every other device.
          */
-        registration.taskExecutor().maxPoolSize(1).corePoolSize(1);
+        registration.taskExecutor(new SessionOrderedTaskExecutor(outboundPoolSize, outboundSessionQueueLimit));
         registration.interceptors(new ExecutorChannelInterceptorAdapter() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
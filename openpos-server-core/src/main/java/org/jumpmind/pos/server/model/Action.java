@@ -51,7 +51,7 @@ public class Action implements Serializable, Cloneable {
     private transient boolean originatesFromDeviceFlag; // used to indicate the action came from an device versus
                                                         // being generated from within the state machine.
     
-    static ObjectMapper mapper = DefaultObjectMapper.build();
+    static ObjectMapper mapper = DefaultObjectMapper.sharedObjectMapper();
 
     public Action() {
         this(null);
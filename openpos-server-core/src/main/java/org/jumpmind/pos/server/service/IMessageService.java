@@ -1,9 +1,17 @@
 package org.jumpmind.pos.server.service;
 
+import java.util.Collection;
+
 import org.jumpmind.pos.util.model.Message;
 
 public interface IMessageService {
 
     public void sendMessage(String deviceId, Message message);
+
+    public default void sendMessage(Collection<String> deviceIds, Message message) {
+        for (String deviceId : deviceIds) {
+            sendMessage(deviceId, message);
+        }
+    }
         
 }
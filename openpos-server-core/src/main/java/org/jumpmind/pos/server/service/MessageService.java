@@ -1,7 +1,5 @@
 package org.jumpmind.pos.server.service;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import org.jumpmind.pos.server.model.Action;
 import org.jumpmind.pos.server.model.CachedMessage;
 import org.jumpmind.pos.server.model.FetchMessage;
@@ -12,6 +10,7 @@ import org.jumpmind.pos.util.web.ServerException;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Hidden;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.map.PassiveExpiringMap;
@@ -32,6 +31,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import javax.annotation.PostConstruct;
 import java.sql.Date;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +56,13 @@ public class MessageService implements IMessageService {
     @Value("${openpos.general.websocket.sendBufferSizeLimit:8192000}")
     private int websocketSendBufferLimit;
 
+    /*
+     * Pretty printing makes messages easier to read in the browser's developer
+     * tools, but they are bigger and slower to write, so it is off by default
+     */
+    @Value("${openpos.general.websocket.prettyPrint:false}")
+    private boolean prettyPrint;
+
     @Value("${openpos.general.message.cacheTimeout:300000}")
     private int messageCacheTimeout;
 
@@ -64,6 +71,8 @@ public class MessageService implements IMessageService {
 
     private Map<String, CachedMessage> cachedMessageMap;
 
+    private ObjectWriter writer;
+
     @PostConstruct
     public void init() {
         cachedMessageMap = Collections.synchronizedMap( new PassiveExpiringMap<>(messageCacheTimeout));
@@ -71,6 +80,7 @@ public class MessageService implements IMessageService {
         if (!jsonIncludeNulls) {
             mapper.setSerializationInclusion(Include.NON_NULL);
         }
+        writer = prettyPrint ? mapper.writerWithDefaultPrettyPrinter() : mapper.writer();
     }
 
     @GetMapping(path = "ping", produces = APPLICATION_JSON_VALUE)
@@ -103,21 +113,7 @@ public class MessageService implements IMessageService {
     @Override
     public void sendMessage(String deviceId, org.jumpmind.pos.util.model.Message message) {
         try {
-            StringBuilder topic = new StringBuilder(128);
-            topic.append("/topic/app/device/").append(deviceId);
-
-            String jsonString = messageToJson(message);
-
-            byte[] json = jsonString.getBytes(UTF_8);
-
-            if( json.length <= websocketSendBufferLimit ){
-                this.template.send(topic.toString(), MessageBuilder.withPayload(json).build());
-            } else {
-                String id = UUID.randomUUID().toString();
-                String fetchMessageJson = messageToJson(FetchMessage.builder().messageIdToFetch(id).build());
-                cachedMessageMap.put(id, CachedMessage.builder().message(message).cachedTime(Date.from(Instant.now())).build());
-                this.template.send(topic.toString(), MessageBuilder.withPayload(fetchMessageJson.getBytes(UTF_8)).build());
-            }
+            sendPayload(deviceId, message, messageToJsonBytes(message));
         } catch (RuntimeException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -125,6 +121,42 @@ public class MessageService implements IMessageService {
         }
     }
 
+    /**
+     * Serialize the message once and send the same payload to each device
+     */
+    @Override
+    public void sendMessage(Collection<String> deviceIds, org.jumpmind.pos.util.model.Message message) {
+        byte[] json;
+        try {
+            json = messageToJsonBytes(message);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to publish message for deviceIds: " + deviceIds + " " + message, ex);
+        }
+        for (String deviceId : deviceIds) {
+            try {
+                sendPayload(deviceId, message, json);
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to publish message for deviceId: " + deviceId + " " + message, ex);
+            }
+        }
+    }
+
+    protected void sendPayload(String deviceId, org.jumpmind.pos.util.model.Message message, byte[] json) throws JsonProcessingException {
+        StringBuilder topic = new StringBuilder(128);
+        topic.append("/topic/app/device/").append(deviceId);
+
+        if( json.length <= websocketSendBufferLimit ){
+            this.template.send(topic.toString(), MessageBuilder.withPayload(json).build());
+        } else {
+            String id = UUID.randomUUID().toString();
+            byte[] fetchMessageJson = messageToJsonBytes(FetchMessage.builder().messageIdToFetch(id).build());
+            cachedMessageMap.put(id, CachedMessage.builder().message(message).cachedTime(Date.from(Instant.now())).build());
+            this.template.send(topic.toString(), MessageBuilder.withPayload(fetchMessageJson).build());
+        }
+    }
+
     @GetMapping("api/app/device/{deviceId}/message/{id}")
     @ResponseBody
     public String getCachedMessage(@PathVariable("deviceId") String deviceId, @PathVariable("id") String id){
@@ -149,7 +181,15 @@ public class MessageService implements IMessageService {
     }
 
     protected String messageToJson(org.jumpmind.pos.util.model.Message message) throws JsonProcessingException {
-        return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(message);
+        return writer.writeValueAsString(message);
+    }
+
+    /**
+     * Write the message straight to UTF-8 bytes.  Jackson recycles its output buffers per thread, so this avoids both
+     * the intermediate string and the copy made by {@link String#getBytes}.
+     */
+    protected byte[] messageToJsonBytes(org.jumpmind.pos.util.model.Message message) throws JsonProcessingException {
+        return writer.writeValueAsBytes(message);
     }
 
 }
@@ -77,8 +77,8 @@ public class SessionConnectListener implements ApplicationListener<SessionConnec
 
         List<Version> deviceVersions = new ArrayList<>();
         if (clientVersions != null) {
-            deviceVersions = DefaultObjectMapper.defaultObjectMapper().readValue(clientVersions, new TypeReference<List<Version>>() {
-            });
+            deviceVersions = DefaultObjectMapper.readerFor(new TypeReference<List<Version>>() {
+            }).readValue(clientVersions);
         }
 
         sessionAppIdMap.put(sessionId, getHeader(event.getMessage(), APPID_HEADER));
@@ -146,7 +146,7 @@ public class SessionConnectListener implements ApplicationListener<SessionConnec
         TypeReference<HashMap<String, Object>> typeRef = new TypeReference<HashMap<String, Object>>() {
         };
         try {
-            Map<String, Object> map = DefaultObjectMapper.build().readValue(json, typeRef);
+            Map<String, Object> map = DefaultObjectMapper.readerFor(typeRef).readValue(json);
             map.put("deviceVersions", deviceVersions);
             return map;
         } catch (Exception e) {
@@ -0,0 +1,150 @@
+package org.jumpmind.pos.server.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionOrderedTaskExecutorTest {
+
+    static final String SLOW_SESSION = "slow";
+
+    SessionOrderedTaskExecutor executor;
+    ExecutorSubscribableChannel channel;
+    Map<String, List<Integer>> received;
+    CountDownLatch releaseSlowClient;
+
+    @Before
+    public void setup() {
+        executor = new SessionOrderedTaskExecutor(4, 100);
+        executor.initialize();
+        channel = new ExecutorSubscribableChannel(executor);
+        received = new ConcurrentHashMap<>();
+        releaseSlowClient = new CountDownLatch(1);
+        channel.subscribe(message -> {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+            if (SLOW_SESSION.equals(sessionId)) {
+                try {
+                    releaseSlowClient.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.computeIfAbsent(sessionId, k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add((Integer) message.getPayload());
+        });
+    }
+
+    @After
+    public void tearDown() {
+        releaseSlowClient.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSlowClientDoesNotBlockOtherSessions() throws Exception {
+        final int sessions = 50;
+        final int messagesPerSession = 40;
+
+        channel.send(message(SLOW_SESSION, 0));
+        assertTrue(waitFor(() -> executor.getQueueDepth(SLOW_SESSION) == 0));
+        for (int i = 1; i < 10; i++) {
+            channel.send(message(SLOW_SESSION, i));
+        }
+        for (int i = 0; i < messagesPerSession; i++) {
+            for (int s = 0; s < sessions; s++) {
+                channel.send(message("session" + s, i));
+            }
+        }
+
+        assertTrue(waitFor(() -> {
+            for (int s = 0; s < sessions; s++) {
+                List<Integer> messages = received.get("session" + s);
+                if (messages == null || messages.size() < messagesPerSession) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+
+        for (int s = 0; s < sessions; s++) {
+            assertInOrder(received.get("session" + s), messagesPerSession);
+        }
+        assertNull(received.get(SLOW_SESSION));
+        assertEquals(9, executor.getQueueDepth(SLOW_SESSION));
+
+        releaseSlowClient.countDown();
+        assertTrue(waitFor(() -> executor.getActiveLaneCount() == 0));
+        assertInOrder(received.get(SLOW_SESSION), 10);
+        assertEquals(sessions * messagesPerSession + 10, executor.getDeliveredCount());
+        assertEquals(0, executor.getQueuedCount());
+        assertEquals(0, executor.getRejectedCount());
+    }
+
+    @Test
+    public void testFullSessionQueueIsRejected() throws Exception {
+        channel.send(message(SLOW_SESSION, 0));
+        assertTrue(waitFor(() -> executor.getQueueDepth(SLOW_SESSION) == 0));
+        for (int i = 1; i < 101; i++) {
+            channel.send(message(SLOW_SESSION, i));
+        }
+        try {
+            channel.send(message(SLOW_SESSION, 101));
+            fail("Expected the message to be rejected");
+        } catch (MessageDeliveryException ex) {
+        }
+        assertEquals(1, executor.getRejectedCount());
+        assertEquals(100, executor.getMaxQueueDepth());
+
+        channel.send(message("other", 0));
+        assertTrue(waitFor(() -> received.get("other") != null));
+
+        releaseSlowClient.countDown();
+        assertTrue(waitFor(() -> executor.getActiveLaneCount() == 0));
+        assertInOrder(received.get(SLOW_SESSION), 101);
+    }
+
+    private void assertInOrder(List<Integer> messages, int expectedCount) {
+        assertEquals(expectedCount, messages.size());
+        for (int i = 0; i < expectedCount; i++) {
+            assertEquals(Integer.valueOf(i), messages.get(i));
+        }
+    }
+
+    private boolean waitFor(Condition condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < end) {
+            if (condition.met()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private Message<Integer> message(String sessionId, int sequence) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/app/device/" + sessionId);
+        return MessageBuilder.createMessage(sequence, accessor.getMessageHeaders());
+    }
+
+    interface Condition {
+        boolean met();
+    }
+}
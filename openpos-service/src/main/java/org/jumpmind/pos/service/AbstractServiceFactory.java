@@ -15,6 +15,8 @@ public abstract class AbstractServiceFactory {
 
     @SuppressWarnings("unchecked")
     protected <T> T buildService(Class<T> serviceInterface) {
-        return (T) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[] { serviceInterface }, dispatcher);
+        T service = (T) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[] { serviceInterface }, dispatcher);
+        dispatcher.buildDispatchTable(service, serviceInterface);
+        return service;
     }
 }
@@ -0,0 +1,30 @@
+package org.jumpmind.pos.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the circuit breaker kept for every remote profile, under {@code openpos.services.circuitBreaker}
+ */
+@Getter
+@Setter
+public class CircuitBreakerConfig {
+
+    /** How many of the latest calls to a profile the failure and slow call rates are computed from */
+    protected int slidingWindowSize = 20;
+    /** How many calls have to be in the window before the breaker can open */
+    protected int minimumNumberOfCalls = 5;
+    /** The percentage of failed calls in the window that opens the breaker */
+    protected int failureRateThreshold = 50;
+    /** Calls that take at least this many milliseconds are slow */
+    protected long slowCallDurationMs = 5000;
+    /** The percentage of slow calls in the window that opens the breaker */
+    protected int slowCallRateThreshold = 100;
+    /** How many milliseconds an open breaker rejects calls before it lets trial calls through */
+    protected long openDurationMs = 10000;
+    /** How many trial calls have to succeed before a half open breaker closes again */
+    protected int permittedCallsInHalfOpen = 2;
+    /** Whether profiles are tried fastest first, rather than in the configured order, when their breakers are in the same state */
+    protected boolean latencyAwareRouting = true;
+
+}
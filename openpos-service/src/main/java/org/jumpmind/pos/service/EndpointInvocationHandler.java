@@ -2,11 +2,14 @@ package org.jumpmind.pos.service;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jumpmind.pos.service.strategy.IInvocationStrategy;
+import org.jumpmind.pos.service.strategy.InvocationStrategy;
 import org.jumpmind.pos.util.RestApiSupport;
 import org.jumpmind.pos.util.clientcontext.ClientContext;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,6 +21,7 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.jumpmind.pos.service.Endpoint.IMPLEMENTATION_DEFAULT;
 import static org.jumpmind.pos.service.Endpoint.IMPLEMENTATION_TRAINING;
@@ -57,22 +61,25 @@ public class EndpointInvocationHandler implements InvocationHandler {
     @Autowired
     private ClientContext clientContext;
 
+    /**
+     * What each service method dispatches to, so the annotations on the service and endpoint classes are only interrogated once
+     */
+    private final Map<Method, MethodDispatch> dispatchTable = new ConcurrentHashMap<>();
+
     @Override
     public Object invoke(Object service, Method serviceMethod, Object[] serviceMethodArgs) throws Throwable {
         if (serviceMethod.getName().equals("equals")) {
             return false;
         }
 
-        final String path = getPathToEndpoint(service, serviceMethod);
+        final MethodDispatch dispatch = getDispatch(service, serviceMethod);
+        final String path = dispatch.path;
         final String deviceMode = clientContext.get("deviceMode");
         final String implementation = (IMPLEMENTATION_TRAINING.equalsIgnoreCase(deviceMode)) ? IMPLEMENTATION_TRAINING : IMPLEMENTATION_DEFAULT;
-        final ServiceSpecificConfig serviceConfig = getSpecificConfig(service, serviceMethod);
+        final ServiceSpecificConfig serviceConfig = getSpecificConfig(dispatch.serviceName);
 
         Object endpointObj = endpointManager.getEndpointObject(implementation, path);
 
-        EndpointSpecificConfig endpointConfig = null;
-        String endpointImplementation = null;
-
         if (serviceConfig != null && StringUtils.isNotBlank(serviceConfig.getImplementation()) && service != null) {
             if (!serviceConfig.getImplementation().equalsIgnoreCase(endpointManager.getCurrentServiceImplementation(service))) {
                 endpointManager.buildEndpointMappingsForService(service, serviceConfig.getImplementation());
@@ -80,6 +87,74 @@ public class EndpointInvocationHandler implements InvocationHandler {
             }
         }
 
+        final EndpointRoute route = dispatch.getRoute(endpointObj, serviceConfig);
+
+        final EndpointInvocationContext invocationContext = EndpointInvocationContext.builder()
+                .profileIds(new ArrayList<>(route.profileIds))
+                .strategy(route.strategy)
+                .config(serviceConfig)
+                .proxy(service)
+                .method(serviceMethod)
+                .endpointImplementation(route.endpointImplementation)
+                .clientVersionString(clientContext.get("version.nu-commerce"))
+                .endpointPath(path)
+                .endpoint(endpointObj)
+                .arguments(serviceMethodArgs)
+                .build();
+
+        /*
+         * If the service method has a return type of EndpointInvocationHandle, we're going to dispense a fluent API to the caller rather than
+         * invoke the service method directly.  This approach affords the client to defer that invocation and override aspects of the execution
+         * context which are pre-determined by its static directives and otherwise outside the calling client's control.
+         *
+         * Once the client calls execute() on the dispensed handle, the endpoint invoker will be called normally but will receive an
+         * EndpointInvocationContext reflecting the client's preferences rather than the one we've derived to this point.
+         */
+        return dispatch.returnsHandle
+                ? endpointInvocationHandleFactory.createServiceHandle(invocationContext)
+                : endpointInvoker.invoke(invocationContext);
+    }
+
+    /**
+     * Fills in the dispatch table for the methods of a newly created service proxy, so its first calls do not pay for it
+     *
+     * @param service the service proxy
+     * @param serviceInterface the interface the proxy implements
+     */
+    public void buildDispatchTable(Object service, Class<?> serviceInterface) {
+        for (Method serviceMethod : serviceInterface.getMethods()) {
+            try {
+                getDispatch(service, serviceMethod);
+            } catch (IllegalStateException ex) {
+                // reported when the method is called, like it was before the table existed
+                log.debug("Not dispatching {} yet: {}", serviceMethod, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Service configuration is bound again when the context is refreshed, so start over
+     */
+    @EventListener
+    void onContextRefreshed(ContextRefreshedEvent event) {
+        dispatchTable.clear();
+    }
+
+    private MethodDispatch getDispatch(Object service, Method serviceMethod) {
+        final Class<?> serviceClass = (service != null) ? service.getClass() : null;
+        MethodDispatch dispatch = dispatchTable.get(serviceMethod);
+
+        if ((dispatch == null) || (dispatch.serviceClass != serviceClass)) {
+            dispatch = new MethodDispatch(service, serviceMethod);
+            dispatchTable.put(serviceMethod, dispatch);
+        }
+        return dispatch;
+    }
+
+    private EndpointRoute route(Object endpointObj, ServiceSpecificConfig serviceConfig) {
+        EndpointSpecificConfig endpointConfig = null;
+        String endpointImplementation = null;
+
         if (endpointObj != null) {
             EndpointOverride override = AnnotationUtils.findAnnotation(endpointObj.getClass(), EndpointOverride.class);
 
@@ -131,34 +206,10 @@ public class EndpointInvocationHandler implements InvocationHandler {
             }
         }
 
-        final EndpointInvocationContext invocationContext = EndpointInvocationContext.builder()
-                .profileIds(profileIds)
-                .strategy(strategy)
-                .config(serviceConfig)
-                .proxy(service)
-                .method(serviceMethod)
-                .endpointImplementation(endpointImplementation)
-                .clientVersionString(clientContext.get("version.nu-commerce"))
-                .endpointPath(path)
-                .endpoint(endpointObj)
-                .arguments(serviceMethodArgs)
-                .build();
-
-        /*
-         * If the service method has a return type of EndpointInvocationHandle, we're going to dispense a fluent API to the caller rather than
-         * invoke the service method directly.  This approach affords the client to defer that invocation and override aspects of the execution
-         * context which are pre-determined by its static directives and otherwise outside the calling client's control.
-         *
-         * Once the client calls execute() on the dispensed handle, the endpoint invoker will be called normally but will receive an
-         * EndpointInvocationContext reflecting the client's preferences rather than the one we've derived to this point.
-         */
-        return (serviceMethod.getReturnType().equals(EndpointInvocationHandle.class))
-                ? endpointInvocationHandleFactory.createServiceHandle(invocationContext)
-                : endpointInvoker.invoke(invocationContext);
+        return new EndpointRoute(endpointObj, serviceConfig, endpointImplementation, strategy, profileIds);
     }
 
-    private ServiceSpecificConfig getSpecificConfig(Object service, Method method) {
-        final String serviceName = getServiceName(service, method);
+    private ServiceSpecificConfig getSpecificConfig(String serviceName) {
         final String deviceId = defaultString(clientContext.get("deviceId"), "no-device");
 
         return serviceConfigs.getServiceConfig(deviceId, serviceName);
@@ -173,4 +224,67 @@ public class EndpointInvocationHandler implements InvocationHandler {
         }
         return restController.value();
     }
+
+    /**
+     * The parts of a service method's dispatch that are fixed by its annotations
+     */
+    private final class MethodDispatch {
+        private final Class<?> serviceClass;
+        private final String path;
+        private final String serviceName;
+        private final boolean returnsHandle;
+        private volatile EndpointRoute route;
+
+        MethodDispatch(Object service, Method serviceMethod) {
+            this.serviceClass = (service != null) ? service.getClass() : null;
+            this.path = getPathToEndpoint(service, serviceMethod);
+            this.serviceName = getServiceName(service, serviceMethod);
+            this.returnsHandle = serviceMethod.getReturnType().equals(EndpointInvocationHandle.class);
+        }
+
+        /**
+         * The service configuration of every device is a copy of the same bound configuration, so the route is worked out again only when the
+         * endpoint, or the bound configuration it was worked out from, changes.
+         */
+        EndpointRoute getRoute(Object endpointObj, ServiceSpecificConfig serviceConfig) {
+            EndpointRoute route = this.route;
+            if ((route == null) || !route.isFor(endpointObj, serviceConfig)) {
+                route = route(endpointObj, serviceConfig);
+                this.route = route;
+            }
+            return route;
+        }
+    }
+
+    /**
+     * The endpoint configuration, strategy and profiles a service method dispatches to
+     */
+    private static final class EndpointRoute {
+        private final Object endpointObj;
+        private final List<EndpointSpecificConfig> endpoints;
+        private final InvocationStrategy serviceStrategy;
+        private final List<String> serviceProfileIds;
+
+        private final String endpointImplementation;
+        private final IInvocationStrategy strategy;
+        private final List<String> profileIds;
+
+        EndpointRoute(Object endpointObj, ServiceSpecificConfig serviceConfig, String endpointImplementation, IInvocationStrategy strategy,
+                List<String> profileIds) {
+            this.endpointObj = endpointObj;
+            this.endpoints = serviceConfig.getEndpoints();
+            this.serviceStrategy = serviceConfig.getStrategy();
+            this.serviceProfileIds = serviceConfig.getProfileIds();
+            this.endpointImplementation = endpointImplementation;
+            this.strategy = strategy;
+            this.profileIds = profileIds;
+        }
+
+        boolean isFor(Object endpointObj, ServiceSpecificConfig serviceConfig) {
+            return (this.endpointObj == endpointObj)
+                    && (endpoints == serviceConfig.getEndpoints())
+                    && (serviceStrategy == serviceConfig.getStrategy())
+                    && (serviceProfileIds == serviceConfig.getProfileIds());
+        }
+    }
 }
@@ -3,13 +3,13 @@ package org.jumpmind.pos.service;
 import org.jumpmind.pos.persist.DBSession;
 import org.jumpmind.pos.service.filter.EndpointFilterManager;
 import org.jumpmind.pos.service.instrumentation.ServiceSampleModel;
+import org.jumpmind.pos.service.instrumentation.ServiceSampleWriter;
 import org.jumpmind.pos.util.AppUtils;
 import org.jumpmind.pos.util.SuppressMethodLogging;
 
 import io.prometheus.client.Histogram;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.time.StopWatch;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -17,10 +17,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -30,7 +31,6 @@ import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
 import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
 
 import static java.util.Optional.ofNullable;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
 
 /**
  * A worker which satisfies a pre-configured {@link EndpointInvocationContext} by performing a single service endpoint invocation and returning the
@@ -41,12 +41,6 @@ import static java.util.concurrent.Executors.newSingleThreadExecutor;
 @Component
 @Slf4j
 public class EndpointInvoker {
-    // TODO This should definitely not be non-private and non-final just so we can unit test its behavior.
-    static ExecutorService instrumentationExecutor = newSingleThreadExecutor(new BasicThreadFactory.Builder()
-            .namingPattern("service-instrumentation-thread-%d")
-            .daemon(true)
-            .build());
-
     private static final Histogram invocationDurationHistory = Histogram.build()
             .namespace("openpos")
             .name("endpoint_invocation_duration_seconds")
@@ -71,6 +65,23 @@ public class EndpointInvoker {
     @Value("${openpos.installationId:'not set'}")
     String installationId;
 
+    @Value("${openpos.services.sampling.queueCapacity:10000}")
+    int sampleQueueCapacity = 10000;
+
+    @Value("${openpos.services.sampling.batchSize:500}")
+    int sampleBatchSize = 500;
+
+    @Value("${openpos.services.sampling.flushIntervalMs:1000}")
+    long sampleFlushIntervalMs = 1000;
+
+    @Value("${openpos.services.sampling.dropPolicy:DROP_NEWEST}")
+    ServiceSampleWriter.DropPolicy sampleDropPolicy = ServiceSampleWriter.DropPolicy.DROP_NEWEST;
+
+    /**
+     * Started with the first sample, so nothing runs in the background when sampling is not enabled
+     */
+    volatile ServiceSampleWriter sampleWriter;
+
     private final ThreadLocal<String> lastEndpointCalled = new ThreadLocal<>();
     private final ThreadLocal<EndpointInvocationContext> invocationPreferences = ThreadLocal.withInitial(EndpointInvocationContext::empty);
 
@@ -117,9 +128,16 @@ public class EndpointInvoker {
         return result;
     }
 
+    @PreDestroy
+    void close() {
+        if (sampleWriter != null) {
+            sampleWriter.close(sampleFlushIntervalMs * 5);
+        }
+    }
+
     /**
-     * Updates an existing service invocation sample with a timestamp and the duration of the invocation before committing the sample to the
-     * {@code service_sample} table.
+     * Updates an existing service invocation sample with a timestamp and the duration of the invocation before queueing the sample to be
+     * committed to the {@code service_sample} table with the next batch.
      *
      * @param sample the service invocation sample to persist
      */
@@ -128,8 +146,23 @@ public class EndpointInvoker {
             sample.setEndTime(new Date());
             sample.setDurationMs(sample.getEndTime().getTime() - sample.getStartTime().getTime());
 
-            instrumentationExecutor.execute(() -> dbSession.save(sample));
+            getSampleWriter().offer(sample);
+        }
+    }
+
+    ServiceSampleWriter getSampleWriter() {
+        ServiceSampleWriter writer = sampleWriter;
+        if (writer == null) {
+            synchronized (this) {
+                writer = sampleWriter;
+                if (writer == null) {
+                    writer = new ServiceSampleWriter(sampleQueueCapacity, sampleBatchSize, sampleFlushIntervalMs, sampleDropPolicy,
+                            samples -> dbSession.saveAll(samples));
+                    sampleWriter = writer;
+                }
+            }
         }
+        return writer;
     }
 
     /**
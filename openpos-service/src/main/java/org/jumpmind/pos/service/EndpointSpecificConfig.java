@@ -23,6 +23,7 @@ public class EndpointSpecificConfig implements Cloneable {
     private InvocationStrategy strategy;
     private String path;
     private SamplingConfig samplingConfig;
+    private HedgingConfig hedging;
 
     public EndpointSpecificConfig copy() {
         try {
@@ -36,14 +37,26 @@ public class EndpointSpecificConfig implements Cloneable {
         if (samplingConfig == null){
             samplingConfig = new SamplingConfig();
         }
+        if (hedging == null) {
+            hedging = new HedgingConfig();
+        }
 
         if (additionalConfigSource != null){
             String startsWith = String.format("openpos.services.specificConfig.%s.endpoints[%d].samplingConfig", serviceId, index);
             additionalConfigSource.applyAdditionalConfiguration(startsWith, samplingConfig);
+            startsWith = String.format("openpos.services.specificConfig.%s.endpoints[%d].hedging", serviceId, index);
+            additionalConfigSource.applyAdditionalConfiguration(startsWith, hedging);
         }
     }
 
     public boolean isSamplingEnabled() {
         return (samplingConfig != null) && samplingConfig.isEnabled();
     }
+
+    /**
+     * @return whether remote calls of the endpoint can be hedged
+     */
+    public boolean isHedgingEnabled() {
+        return (hedging != null) && hedging.isEnabled() && hedging.isIdempotent();
+    }
 }
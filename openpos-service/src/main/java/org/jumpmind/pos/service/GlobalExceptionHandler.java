@@ -38,7 +38,7 @@ public class GlobalExceptionHandler {
         }
         String message = ex.getMessage();
         try {
-            DefaultObjectMapper.defaultObjectMapper().writeValue(new StringWriter(), ex);
+            DefaultObjectMapper.writer().writeValue(new StringWriter(), ex);
         } catch (Exception er) {
             log.info("The exception was not serializable, it will not be marshalled to the client");
             ex = null;
@@ -0,0 +1,27 @@
+package org.jumpmind.pos.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings for hedging the remote calls of an endpoint.  When the first profile hasn't answered after the hedging delay, the same request is
+ * sent to the next profile, the first successful response is used and the other request is aborted.  Only endpoints that are both
+ * {@link #enabled} and {@link #idempotent} are hedged.
+ */
+@Getter
+@Setter
+public class HedgingConfig {
+
+    private boolean enabled = false;
+    /** Whether the endpoint can be called more than once with the same request without side effects */
+    private boolean idempotent = false;
+    /** The percentile of the latency of the first profile that is waited for before the request is hedged */
+    private int delayPercentile = 95;
+    /** The shortest hedging delay, so a fast profile isn't hedged on every small hiccup */
+    private long minDelayMs = 20;
+    /** The hedging delay until enough calls have been made to compute the percentile */
+    private long initialDelayMs = 1000;
+    /** How many calls to the first profile are needed to compute the percentile */
+    private int minimumSamples = 20;
+
+}
@@ -11,6 +11,12 @@ public class ProfileConfig implements Cloneable {
     protected int connectTimeout;
     protected String url;
     protected String apiToken;
+    /** The most connections kept open to the profile's server */
+    protected int maxConnections = 20;
+    /** How many seconds a connection is kept alive after a response, unless the server asks for less */
+    protected int keepAlive = 60;
+    /** How many seconds a pooled connection can sit idle before it is closed */
+    protected int idleTimeout = 30;
 
     public ProfileConfig copy() {
         ProfileConfig copy;
@@ -19,6 +19,7 @@ public class ServiceConfig {
 
     protected Map<String, ProfileConfig> profiles;
     protected Map<String, ServiceSpecificConfig> specificConfig;
+    protected CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
 
     @Autowired(required = false)
     IConfigApplicator additionalConfigSource;
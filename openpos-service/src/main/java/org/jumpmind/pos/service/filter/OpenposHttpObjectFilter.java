@@ -31,7 +31,7 @@ public class OpenposHttpObjectFilter implements HandlerMethodArgumentResolver {
 
     @Autowired
     EndpointFilterManager endpointFilterManager;
-    private ObjectMapper objectMapper = DefaultObjectMapper.defaultObjectMapper();
+    private ObjectMapper objectMapper = DefaultObjectMapper.sharedObjectMapper();
 
     @Override
     public boolean supportsParameter(MethodParameter methodParameter) {
@@ -0,0 +1,215 @@
+package org.jumpmind.pos.service.instrumentation;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Queues {@link ServiceSampleModel service samples} and writes them in batches on a single background thread.
+ * <p>
+ * The queue is bounded, so a burst of service calls can't take more memory than {@code capacity} samples.  When the
+ * queue is full, the {@link DropPolicy} decides which sample is lost.  A batch is written as soon as
+ * {@code batchSize} samples are queued, or when the oldest queued sample has waited {@code flushIntervalMs}.
+ */
+@Slf4j
+public class ServiceSampleWriter {
+
+    public enum DropPolicy {
+        /** Keep the queued samples and drop the sample that didn't fit */
+        DROP_NEWEST,
+        /** Drop the oldest queued sample to make room for the new one */
+        DROP_OLDEST
+    }
+
+    private static final Gauge queueDepthGauge = Gauge.build()
+            .namespace("openpos")
+            .name("service_sample_queue_depth")
+            .help("the number of service samples waiting to be written")
+            .register();
+
+    private static final Counter droppedCounter = Counter.build()
+            .namespace("openpos")
+            .name("service_samples_dropped_total")
+            .help("the number of service samples dropped because the queue was full")
+            .register();
+
+    private static final Histogram flushDurationHistory = Histogram.build()
+            .namespace("openpos")
+            .name("service_sample_flush_duration_seconds")
+            .help("the amount of time spent writing a batch of service samples")
+            .exponentialBuckets(0.001, 2, 14)
+            .register();
+
+    private final BlockingQueue<ServiceSampleModel> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final DropPolicy dropPolicy;
+    private final Consumer<List<ServiceSampleModel>> batchWriter;
+    private final Thread drainThread;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity the most samples that are queued at once
+     * @param batchSize the most samples written by one call to {@code batchWriter}
+     * @param flushIntervalMs how long a queued sample waits for a batch to fill up before it is written
+     * @param dropPolicy which sample is dropped when the queue is full
+     * @param batchWriter writes a batch of samples.  Only called from the writer thread.
+     */
+    public ServiceSampleWriter(int capacity, int batchSize, long flushIntervalMs, DropPolicy dropPolicy,
+                               Consumer<List<ServiceSampleModel>> batchWriter) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.dropPolicy = dropPolicy != null ? dropPolicy : DropPolicy.DROP_NEWEST;
+        this.batchWriter = batchWriter;
+
+        this.drainThread = new Thread(this::drain, "service-instrumentation-thread");
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    /**
+     * Queues a sample to be written.  Never blocks the calling thread.
+     *
+     * @return false if the sample was dropped
+     */
+    public boolean offer(ServiceSampleModel sample) {
+        if (queue.offer(sample)) {
+            return true;
+        }
+        if (dropPolicy == DropPolicy.DROP_OLDEST) {
+            do {
+                if (queue.poll() != null) {
+                    dropped();
+                }
+            } while (!queue.offer(sample));
+            return true;
+        }
+        dropped();
+        return false;
+    }
+
+    /**
+     * Stops the writer thread after the queued samples have been written, waiting at most {@code timeoutMs}.
+     * Samples offered after this are still queued, but are not written.
+     */
+    public void close(long timeoutMs) {
+        running = false;
+        try {
+            drainThread.join(timeoutMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainThread.isAlive()) {
+            log.warn("Gave up waiting for {} service samples to be written", queue.size());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return the number of samples in batches that failed to be written
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * @return how long the last batch took to be written, in nanoseconds
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    private void dropped() {
+        dropped.incrementAndGet();
+        droppedCounter.inc();
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            List<ServiceSampleModel> batch = new ArrayList<>(batchSize);
+            try {
+                fill(batch);
+            } catch (InterruptedException ex) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            queueDepthGauge.set(queue.size());
+        }
+    }
+
+    /**
+     * Waits for a first sample, then for the batch to fill up until the flush interval has passed
+     */
+    private void fill(List<ServiceSampleModel> batch) throws InterruptedException {
+        ServiceSampleModel first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            ServiceSampleModel next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<ServiceSampleModel> batch) {
+        long start = System.nanoTime();
+        try {
+            batchWriter.accept(batch);
+            written.addAndGet(batch.size());
+        } catch (Exception ex) {
+            failed.addAndGet(batch.size());
+            log.warn("Failed to write {} service samples", batch.size(), ex);
+        } finally {
+            lastFlushNanos = System.nanoTime() - start;
+            flushes.incrementAndGet();
+            flushDurationHistory.observe(lastFlushNanos / 1000000000.0);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.CircuitBreakerConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The health of one remote profile, from the outcome and duration of the latest calls to it.
+ * <p>
+ * A closed breaker lets every call through and keeps the outcome of the latest {@code slidingWindowSize} calls.  It
+ * opens when enough of those calls failed or were slow.  An open breaker rejects calls until {@code openDurationMs}
+ * has passed, then it is half open and lets {@code permittedCallsInHalfOpen} trial calls through.  The breaker closes
+ * when all of them succeed, and opens again as soon as one of them fails or is slow.
+ * <p>
+ * The latency of successful calls is tracked as an exponentially weighted moving average, so profiles can be tried
+ * fastest first.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /** The weight of the latest call in the latency average */
+    static final double LATENCY_WEIGHT = 0.2;
+
+    private final String profileId;
+    private final int minimumNumberOfCalls;
+    private final int failureRateThreshold;
+    private final long slowCallDurationNanos;
+    private final int slowCallRateThreshold;
+    private final long openDurationNanos;
+    private final int permittedCallsInHalfOpen;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private double latencyMillis = -1;
+
+    public CircuitBreaker(String profileId, CircuitBreakerConfig config) {
+        this.profileId = profileId;
+        this.minimumNumberOfCalls = Math.max(1, config.getMinimumNumberOfCalls());
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMs());
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMs());
+        this.permittedCallsInHalfOpen = Math.max(1, config.getPermittedCallsInHalfOpen());
+        int windowSize = Math.max(this.minimumNumberOfCalls, config.getSlidingWindowSize());
+        this.failedCalls = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+    }
+
+    /**
+     * @return whether a call can be made to the profile.  A call that is permitted has to be recorded with
+     * {@link #onSuccess(long)} or {@link #onFailure(long)}, or its permission released with {@link #releasePermission()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            halfOpen();
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits > 0) {
+                halfOpenPermits--;
+                return true;
+            }
+            return false;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * @return the state the breaker is in after the call was recorded
+     */
+    public synchronized State onSuccess(long durationNanos) {
+        double millis = durationNanos / 1000000.0;
+        latencyMillis = latencyMillis < 0 ? millis : LATENCY_WEIGHT * millis + (1 - LATENCY_WEIGHT) * latencyMillis;
+        record(false, durationNanos >= slowCallDurationNanos);
+        return state;
+    }
+
+    /**
+     * @return the state the breaker is in after the call was recorded
+     */
+    public synchronized State onFailure(long durationNanos) {
+        record(true, durationNanos >= slowCallDurationNanos);
+        return state;
+    }
+
+    /**
+     * Gives back the permission of a call that ended without telling anything about the health of the profile, so a
+     * half open breaker can let another trial call through.  Nothing is recorded.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits < permittedCallsInHalfOpen) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * Opens the breaker without waiting for the failure rate, when the profile is known to be unreachable
+     */
+    public synchronized void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    /**
+     * Lets trial calls through an open breaker without waiting for the open duration, when the profile is known to
+     * be reachable again
+     */
+    public synchronized void allowTrialCalls() {
+        if (state == State.OPEN) {
+            halfOpen();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * @return the average latency of successful calls in milliseconds, or -1 before the first successful call
+     */
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * @return the percentage of calls in the window that failed, or -1 while there are fewer than the minimum number
+     * of calls in the window
+     */
+    public synchronized int getFailureRate() {
+        return windowCalls < minimumNumberOfCalls ? -1 : windowFailures * 100 / windowCalls;
+    }
+
+    /**
+     * @return the percentage of calls in the window that were slow, or -1 while there are fewer than the minimum
+     * number of calls in the window
+     */
+    public synchronized int getSlowCallRate() {
+        return windowCalls < minimumNumberOfCalls ? -1 : windowSlowCalls * 100 / windowCalls;
+    }
+
+    public String getProfileId() {
+        return profileId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s, failure rate %d%%, slow call rate %d%%, latency %.1f ms", profileId, getState(),
+                getFailureRate(), getSlowCallRate(), getLatencyMillis());
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++halfOpenSuccesses >= permittedCallsInHalfOpen) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // a call that was started before the breaker opened
+            return;
+        }
+
+        if (windowCalls == failedCalls.length) {
+            windowFailures -= failedCalls[windowIndex] ? 1 : 0;
+            windowSlowCalls -= slowCalls[windowIndex] ? 1 : 0;
+        } else {
+            windowCalls++;
+        }
+        failedCalls[windowIndex] = failed;
+        slowCalls[windowIndex] = slow;
+        windowFailures += failed ? 1 : 0;
+        windowSlowCalls += slow ? 1 : 0;
+        windowIndex = (windowIndex + 1) % failedCalls.length;
+
+        if (windowCalls >= minimumNumberOfCalls && (exceeds(windowFailures, failureRateThreshold) || exceeds(windowSlowCalls, slowCallRateThreshold))) {
+            open();
+        }
+    }
+
+    /**
+     * @param threshold a percentage of the calls in the window.  0 or less never opens the breaker.
+     */
+    private boolean exceeds(int calls, int threshold) {
+        return threshold > 0 && calls * 100 >= threshold * windowCalls;
+    }
+
+    private void halfOpen() {
+        state = State.HALF_OPEN;
+        halfOpenPermits = permittedCallsInHalfOpen;
+        halfOpenSuccesses = 0;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+    }
+}
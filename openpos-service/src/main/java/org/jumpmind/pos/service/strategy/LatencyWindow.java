@@ -0,0 +1,54 @@
+package org.jumpmind.pos.service.strategy;
+
+import java.util.Arrays;
+
+/**
+ * The durations of the latest successful calls of an endpoint to a profile, that the hedging delay is computed from.  A call that was
+ * aborted because another profile answered first is recorded with how long it had been running, which is a lower bound of its duration.
+ */
+public class LatencyWindow {
+
+    static final int DEFAULT_SIZE = 100;
+
+    private final long[] durations;
+    private int index;
+    private int count;
+
+    public LatencyWindow() {
+        this(DEFAULT_SIZE);
+    }
+
+    public LatencyWindow(int size) {
+        this.durations = new long[Math.max(1, size)];
+    }
+
+    public synchronized void record(long durationNanos) {
+        durations[index] = durationNanos;
+        index = (index + 1) % durations.length;
+        if (count < durations.length) {
+            count++;
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @param percentile between 1 and 100
+     * @return the duration in nanoseconds that the given percentage of the calls in the window didn't exceed, or -1
+     * when the window is empty
+     */
+    public long percentile(int percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(durations, count);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(Math.min(100, Math.max(1, percentile)) / 100.0 * sorted.length);
+        return sorted[rank - 1];
+    }
+}
@@ -4,15 +4,18 @@ import org.jumpmind.pos.service.EndpointInvocationContext;
 import org.jumpmind.pos.service.PosServerException;
 import org.jumpmind.pos.util.clientcontext.ClientContext;
 
+import lombok.EqualsAndHashCode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static org.jumpmind.pos.service.Endpoint.IMPLEMENTATION_TRAINING;
 import static org.jumpmind.pos.service.util.EndpointUtils.getPathToEndpoint;
 
 import static java.util.Optional.ofNullable;
@@ -21,11 +24,17 @@ import static java.util.Optional.ofNullable;
 public class LocalOnlyStrategy implements IInvocationStrategy {
     static final String LOCAL_ONLY_STRATEGY = "LOCAL_ONLY";
 
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
     @Autowired
     protected ClientContext clientContext;
 
-    private final Map<Method, Method> defaultMethodMap = new HashMap<>();
-    private final Map<Method, Method> trainingMethodMap = new HashMap<>();
+    /**
+     * The endpoint method that implements a service method, by the class of the endpoint.  Default and training
+     * endpoints are different classes, so they never share an entry.  Requests of every device read and fill this
+     * map at the same time.
+     */
+    private final Map<EndpointMethodKey, EndpointMethod> endpointMethods = new ConcurrentHashMap<>();
 
     public String getStrategyName() {
         return LOCAL_ONLY_STRATEGY;
@@ -35,24 +44,18 @@ public class LocalOnlyStrategy implements IInvocationStrategy {
     public Object invoke(EndpointInvocationContext endpointInvocationContext) throws Throwable {
         final Object endpointObj = getEndpointObject(endpointInvocationContext);
         final Method method = endpointInvocationContext.getMethod();
-        final Map<Method, Method> methodMap = getMethodMapForDeviceMode();
-
-        Method targetMethod = methodMap.get(method);
-        if (targetMethod == null) {
-            targetMethod = endpointObj.getClass().getMethod(method.getName(), method.getParameterTypes());
-            methodMap.put(method, targetMethod);
-        }
 
-        try {
-            return targetMethod.invoke(endpointObj, endpointInvocationContext.getArguments());
-        } catch (InvocationTargetException e) {
-            throw e.getTargetException();
+        EndpointMethodKey key = new EndpointMethodKey(endpointObj.getClass(), method);
+        EndpointMethod endpointMethod = endpointMethods.get(key);
+        if (endpointMethod == null) {
+            endpointMethod = new EndpointMethod(endpointObj.getClass().getMethod(method.getName(), method.getParameterTypes()));
+            EndpointMethod existing = endpointMethods.putIfAbsent(key, endpointMethod);
+            if (existing != null) {
+                endpointMethod = existing;
+            }
         }
-    }
 
-    private String getDeviceMode() {
-        String deviceMode = clientContext.get("deviceMode");
-        return (deviceMode == null ? "default" : deviceMode);
+        return endpointMethod.invoke(endpointObj, endpointInvocationContext.getArguments());
     }
 
     private Object getEndpointObject(EndpointInvocationContext endpointInvocationContext) {
@@ -65,7 +68,49 @@ public class LocalOnlyStrategy implements IInvocationStrategy {
         });
     }
 
-    private Map<Method, Method> getMethodMapForDeviceMode() {
-        return (IMPLEMENTATION_TRAINING.equalsIgnoreCase(getDeviceMode())) ? trainingMethodMap : defaultMethodMap;
+    @EqualsAndHashCode
+    private static final class EndpointMethodKey {
+        private final Class<?> endpointClass;
+        private final Method serviceMethod;
+
+        EndpointMethodKey(Class<?> endpointClass, Method serviceMethod) {
+            this.endpointClass = endpointClass;
+            this.serviceMethod = serviceMethod;
+        }
+    }
+
+    /**
+     * Calls an endpoint method through a method handle that takes the endpoint and an argument array, so the access
+     * checks and argument conversions of {@link Method#invoke(Object, Object...)} are not repeated on every call.
+     * Falls back to reflection when no handle can be made for the method.
+     */
+    static final class EndpointMethod {
+        private final Method method;
+        private final MethodHandle handle;
+
+        EndpointMethod(Method method) {
+            this.method = method;
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.publicLookup().unreflect(method)
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            } catch (IllegalAccessException ex) {
+                handle = null;
+            }
+            this.handle = handle;
+        }
+
+        Object invoke(Object endpointObj, Object[] arguments) throws Throwable {
+            if (handle == null) {
+                try {
+                    return method.invoke(endpointObj, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }
+            final Object[] spreadArguments = arguments != null ? arguments : NO_ARGUMENTS;
+            return handle.invokeExact(endpointObj, spreadArguments);
+        }
     }
 }
@@ -1,6 +1,8 @@
 package org.jumpmind.pos.service.strategy;
 
 import org.jumpmind.pos.service.EndpointInvocationContext;
+import org.jumpmind.pos.service.EndpointSpecificConfig;
+import org.jumpmind.pos.service.HedgingConfig;
 import org.jumpmind.pos.service.PosServerException;
 import org.jumpmind.pos.service.ProfileConfig;
 import org.jumpmind.pos.service.ServiceConfig;
@@ -9,29 +11,52 @@ import org.jumpmind.pos.util.model.ServiceException;
 import org.jumpmind.pos.util.model.ServiceResult;
 import org.jumpmind.pos.util.model.ServiceVisit;
 import org.jumpmind.pos.util.status.Status;
+import org.jumpmind.pos.util.RestApiSupport;
 import org.jumpmind.pos.util.web.ConfiguredRestTemplate;
+import org.jumpmind.pos.util.web.RequestAbortHandle;
+import org.jumpmind.pos.util.web.ServerException;
 
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.jumpmind.pos.service.ServiceConfig.LOCAL_PROFILE;
 import static org.jumpmind.pos.service.util.EndpointUtils.getPathToEndpoint;
@@ -62,23 +87,96 @@ public class RemoteOnlyStrategy implements IInvocationStrategy {
     @Value("${openpos.services.defaultRemoteProfileIds:}#{T(java.util.Collections).emptyList()}")
     private List<String> defaultProfileIds;
 
+    private final Map<String, ProfileRestTemplate> restTemplates = new ConcurrentHashMap<>();
+
+    /** The latency of each endpoint on each profile, keyed by profile id and endpoint path */
+    private final Map<String, LatencyWindow> endpointLatencies = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the calls of hedged invocations.  When all of its threads are busy an invocation is not hedged and runs on the caller's thread
+     * instead.
+     */
+    private final ThreadPoolExecutor hedgingExecutor = new ThreadPoolExecutor(0, 50, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            new HedgingThreadFactory());
+
+    /**
+     * The shared rest template of a profile.  Calls {@link #acquire()} it and {@link #release()} it when they are done, so that a template
+     * that was replaced because the profile's settings changed is closed once the calls still using it finish.
+     */
+    static class ProfileRestTemplate {
+        final String settings;
+        final ConfiguredRestTemplate template;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean retired;
+
+        ProfileRestTemplate(String settings, ConfiguredRestTemplate template) {
+            this.settings = settings;
+            this.template = template;
+        }
+
+        /**
+         * @return false when the template has been replaced, and the current template has to be looked up again
+         */
+        boolean acquire() {
+            calls.incrementAndGet();
+            if (retired) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        void release() {
+            if (calls.decrementAndGet() == 0 && retired) {
+                closeTemplate();
+            }
+        }
+
+        void retire() {
+            retired = true;
+            if (calls.get() == 0) {
+                closeTemplate();
+            }
+        }
+
+        void closeTemplate() {
+            if (closed.compareAndSet(false, true)) {
+                template.close();
+            }
+        }
+    }
+
     public String getStrategyName() {
         return REMOTE_ONLY_STRATEGY;
     }
 
     @Override
     public Object invoke(EndpointInvocationContext endpointInvocationContext) throws Throwable {
+        List<String> profileIds = statusMonitor.orderByHealth(getProfileIds(endpointInvocationContext));
+
+        HedgingConfig hedgingConfig = getHedgingConfig(endpointInvocationContext);
+        if (hedgingConfig != null && profileIds.size() > 1) {
+            return invokeHedged(profileIds, hedgingConfig, endpointInvocationContext);
+        }
+        return invokeInOrder(profileIds, endpointInvocationContext, new ArrayList<>());
+    }
+
+    /**
+     * Tries the profiles one after the other on the caller's thread until one of them answers
+     */
+    protected Object invokeInOrder(List<String> profileIds, EndpointInvocationContext endpointInvocationContext, List<ServiceVisit> serviceVisits)
+            throws Throwable {
         Throwable lastException = null;
         Object result = null;
-        List<ServiceVisit> serviceVisits = new ArrayList<>();
 
-        for (String profileId : getProfileIds(endpointInvocationContext)) {
+        for (String profileId : profileIds) {
             ServiceVisit serviceVisit = new ServiceVisit();
             serviceVisit.setProfileId(profileId);
             long startTime = System.currentTimeMillis();
 
             try {
-                result = invokeProfile(profileId, endpointInvocationContext);
+                result = invokeProfile(profileId, endpointInvocationContext, null);
                 break;
             } catch (Exception ex) {
                 serviceVisit.setException(ex);
@@ -110,10 +208,167 @@ public class RemoteOnlyStrategy implements IInvocationStrategy {
         return null;
     }
 
+    /**
+     * Sends the request to the first profile, and to the next one too when the first hasn't answered after the hedging delay.  The first
+     * successful response is returned and the other request is aborted.  A profile that fails is replaced by the next one, so the profiles
+     * are still tried in order when they fail fast.  When the hedging threads are all busy the profiles that are left are tried in order
+     * without hedging.
+     */
+    protected Object invokeHedged(List<String> profileIds, HedgingConfig hedgingConfig, EndpointInvocationContext endpointInvocationContext)
+            throws Throwable {
+        CompletionService<HedgedCall> completionService = new ExecutorCompletionService<>(hedgingExecutor);
+        List<HedgedCall> inFlight = new ArrayList<>(2);
+        List<ServiceVisit> serviceVisits = new ArrayList<>();
+        Map<String, String> context = clientContext != null ? clientContext.capture() : null;
+        long hedgingDelayNanos = getHedgingDelayNanos(profileIds.get(0), hedgingConfig, endpointInvocationContext);
+        Throwable lastException = null;
+        int next = 0;
+
+        boolean hedge = true;
+
+        try {
+            HedgedCall first = submit(completionService, profileIds.get(next), context, endpointInvocationContext);
+            if (first == null) {
+                return invokeInOrder(profileIds, endpointInvocationContext, serviceVisits);
+            }
+            inFlight.add(first);
+            next++;
+            while (!inFlight.isEmpty()) {
+                Future<HedgedCall> done;
+                if (hedge && inFlight.size() < 2 && next < profileIds.size()) {
+                    done = completionService.poll(hedgingDelayNanos, TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        log.debug("Remote profile '{}' didn't answer within {} ms, hedging with '{}'", inFlight.get(0).profileId,
+                                TimeUnit.NANOSECONDS.toMillis(hedgingDelayNanos), profileIds.get(next));
+                        HedgedCall hedgedCall = submit(completionService, profileIds.get(next), context, endpointInvocationContext);
+                        if (hedgedCall != null) {
+                            inFlight.add(hedgedCall);
+                            next++;
+                        } else {
+                            hedge = false;
+                        }
+                        continue;
+                    }
+                } else {
+                    done = completionService.take();
+                }
+
+                HedgedCall call = done.get();
+                inFlight.remove(call);
+                serviceVisits.add(call.toServiceVisit());
+
+                if (call.exception == null) {
+                    getLatencyWindow(call.profileId, endpointInvocationContext).record(call.durationNanos);
+                    for (HedgedCall loser : inFlight) {
+                        loser.abortHandle.abort();
+                        // the slower call took at least this long, leaving it out would only keep the fast calls of the profile
+                        getLatencyWindow(loser.profileId, endpointInvocationContext).record(System.nanoTime() - loser.start);
+                        serviceVisits.add(loser.toServiceVisit());
+                    }
+                    inFlight.clear();
+                    populateServiceVisits(call.result, serviceVisits);
+                    return call.result;
+                }
+
+                lastException = call.exception;
+                if (call.exception instanceof RemoteProfileOfflineException) {
+                    log.warn("Remote service '{}' is OFFLINE.", call.profileId);
+                } else {
+                    log.warn(String.format("Remote service %s unavailable.", call.profileId), call.exception);
+                }
+                if (next < profileIds.size()) {
+                    HedgedCall failover = submit(completionService, profileIds.get(next), context, endpointInvocationContext);
+                    if (failover != null) {
+                        inFlight.add(failover);
+                        next++;
+                    } else if (inFlight.isEmpty()) {
+                        return invokeInOrder(profileIds.subList(next, profileIds.size()), endpointInvocationContext, serviceVisits);
+                    }
+                }
+            }
+        } finally {
+            inFlight.forEach(call -> call.abortHandle.abort());
+        }
+
+        ServiceException serviceException = new ServiceException("Failed to invoke remote service(s)", lastException);
+        serviceException.setServiceVisits(serviceVisits);
+        throw serviceException;
+    }
+
+    /**
+     * @return the hedging settings of the endpoint being invoked, or null when its calls must not be hedged
+     */
+    protected HedgingConfig getHedgingConfig(EndpointInvocationContext endpointInvocationContext) {
+        String endpointPath = endpointInvocationContext.getEndpointPath();
+        if (endpointInvocationContext.getConfig() == null || endpointPath == null || isMultiPartUpload(endpointInvocationContext.getArguments())) {
+            return null;
+        }
+        String endpointPathNoContext = endpointPath.startsWith(RestApiSupport.REST_API_CONTEXT_PATH)
+                ? endpointPath.substring(RestApiSupport.REST_API_CONTEXT_PATH.length())
+                : endpointPath;
+        for (EndpointSpecificConfig endpointSpecificConfig : endpointInvocationContext.getConfig().getEndpoints()) {
+            if (endpointPath.equals(endpointSpecificConfig.getPath()) || endpointPathNoContext.equals(endpointSpecificConfig.getPath())) {
+                return endpointSpecificConfig.isHedgingEnabled() ? endpointSpecificConfig.getHedging() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the configured percentile of the latency of the endpoint on the profile, once enough calls have been made to know it
+     */
+    protected long getHedgingDelayNanos(String profileId, HedgingConfig hedgingConfig, EndpointInvocationContext endpointInvocationContext) {
+        LatencyWindow latencyWindow = getLatencyWindow(profileId, endpointInvocationContext);
+        long delayNanos = latencyWindow.size() >= hedgingConfig.getMinimumSamples()
+                ? latencyWindow.percentile(hedgingConfig.getDelayPercentile())
+                : TimeUnit.MILLISECONDS.toNanos(hedgingConfig.getInitialDelayMs());
+        return Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(hedgingConfig.getMinDelayMs()));
+    }
+
+    protected LatencyWindow getLatencyWindow(String profileId, EndpointInvocationContext endpointInvocationContext) {
+        return endpointLatencies.computeIfAbsent(profileId + ":" + endpointInvocationContext.getEndpointPath(), key -> new LatencyWindow());
+    }
+
+    /**
+     * @return the call, or null when the hedging threads are all busy
+     */
+    private HedgedCall submit(CompletionService<HedgedCall> completionService, String profileId, Map<String, String> context,
+            EndpointInvocationContext endpointInvocationContext) {
+        HedgedCall call = new HedgedCall(profileId);
+        try {
+            completionService.submit(() -> {
+                if (clientContext != null && context != null) {
+                    // every call sets its own correlation id, so each one gets a copy of the caller's context
+                    clientContext.restore(new CaseInsensitiveMap<>(context));
+                }
+                try {
+                    call.result = call.abortHandle.call(() -> invokeProfile(profileId, endpointInvocationContext, call.abortHandle));
+                } catch (Exception ex) {
+                    call.exception = ex;
+                } finally {
+                    call.durationNanos = System.nanoTime() - call.start;
+                    if (clientContext != null) {
+                        clientContext.clear();
+                    }
+                }
+                return call;
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("The hedging threads are all busy, not calling remote profile '{}' on one of them", profileId);
+            return null;
+        }
+        return call;
+    }
+
     public void setServiceConfig(ServiceConfig serviceConfig) {
         this.serviceConfig = serviceConfig;
     }
 
+    @Value("${openpos.services.hedgingThreads:50}")
+    public void setHedgingThreads(int hedgingThreads) {
+        hedgingExecutor.setMaximumPoolSize(hedgingThreads);
+    }
+
     protected String buildUrl(ProfileConfig profileConfig, EndpointInvocationContext endpointInvocationContext) {
         String url = profileConfig.getUrl();
         String path = getPathToEndpoint(endpointInvocationContext.getProxy(), endpointInvocationContext.getMethod());
@@ -176,6 +431,51 @@ public class RemoteOnlyStrategy implements IInvocationStrategy {
         );
     }
 
+    @PreDestroy
+    protected void close() {
+        hedgingExecutor.shutdownNow();
+        restTemplates.values().forEach(ProfileRestTemplate::closeTemplate);
+        restTemplates.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${openpos.services.idleConnectionEvictionDelayMs:10000}")
+    public void evictIdleConnections() {
+        restTemplates.values().forEach(profileRestTemplate -> profileRestTemplate.template.evictIdleConnections());
+    }
+
+    /**
+     * The rest template for a profile is shared by all of the calls to that profile so that its pooled connections
+     * are reused.  A new one is built if the profile's connection settings change.  The returned template has to be
+     * {@link ProfileRestTemplate#release() released} when the call is done.
+     */
+    protected ProfileRestTemplate acquireRestTemplate(String profileId, ProfileConfig profileConfig) {
+        int httpTimeoutInSecond = profileConfig.getHttpTimeout();
+        int connectTimeoutInSecond = profileConfig.getConnectTimeout() > 0 ? profileConfig.getConnectTimeout() : httpTimeoutInSecond;
+        String settings = String.format("%d:%d:%d:%d:%d", httpTimeoutInSecond, connectTimeoutInSecond, profileConfig.getMaxConnections(),
+                profileConfig.getKeepAlive(), profileConfig.getIdleTimeout());
+
+        while (true) {
+            ProfileRestTemplate profileRestTemplate = restTemplates.get(profileId);
+            if (profileRestTemplate == null || !profileRestTemplate.settings.equals(settings)) {
+                profileRestTemplate = restTemplates.compute(profileId, (id, current) -> {
+                    if (current != null && current.settings.equals(settings)) {
+                        return current;
+                    }
+                    if (current != null) {
+                        log.info("Connection settings for remote profile '{}' changed, replacing its rest template", profileId);
+                        // calls could still be using the old template, so it is closed when the last of them is done
+                        current.retire();
+                    }
+                    return new ProfileRestTemplate(settings, new ConfiguredRestTemplate(httpTimeoutInSecond, connectTimeoutInSecond,
+                            profileConfig.getMaxConnections(), profileConfig.getKeepAlive(), profileConfig.getIdleTimeout()));
+                });
+            }
+            if (profileRestTemplate.acquire()) {
+                return profileRestTemplate;
+            }
+        }
+    }
+
     protected boolean isMultiPartUpload(Object[] args) {
         return ArrayUtils.isNotEmpty(args) && stream(args).anyMatch(MultipartFile.class::isInstance);
     }
@@ -228,17 +528,23 @@ public class RemoteOnlyStrategy implements IInvocationStrategy {
         return profileIds;
     }
 
-    private Object invokeProfile(String profileId, EndpointInvocationContext endpointInvocationContext) throws ResourceAccessException {
-        if (statusMonitor.isOffline(profileId)) {
-            throw new RemoteProfileOfflineException(
-                    String.format("Remote profile '%s' is Offline, skipping service calls until service is back Online", profileId));
-        }
-
+    /**
+     * @param abortHandle the handle a hedged call can be aborted with, or null
+     */
+    private Object invokeProfile(String profileId, EndpointInvocationContext endpointInvocationContext, RequestAbortHandle abortHandle)
+            throws ResourceAccessException {
         ProfileConfig profileConfig = serviceConfig.getProfileConfig(profileId);
 
-        int httpTimeoutInSecond = profileConfig.getHttpTimeout();
-        int connectTimeoutInSecond = profileConfig.getConnectTimeout() > 0 ? profileConfig.getConnectTimeout() : httpTimeoutInSecond;
-        ConfiguredRestTemplate template = new ConfiguredRestTemplate(httpTimeoutInSecond, connectTimeoutInSecond);
+        ProfileRestTemplate profileRestTemplate = acquireRestTemplate(profileId, profileConfig);
+        try {
+            return invokeProfile(profileId, profileConfig, profileRestTemplate.template, endpointInvocationContext, abortHandle);
+        } finally {
+            profileRestTemplate.release();
+        }
+    }
+
+    private Object invokeProfile(String profileId, ProfileConfig profileConfig, ConfiguredRestTemplate template,
+            EndpointInvocationContext endpointInvocationContext, RequestAbortHandle abortHandle) throws ResourceAccessException {
 
         final RequestMapping mapping = getMergedAnnotation(endpointInvocationContext.getMethod(), RequestMapping.class);
         RequestMethod[] requestMethods = mapping.method();
@@ -246,6 +552,13 @@ public class RemoteOnlyStrategy implements IInvocationStrategy {
         HttpHeaders headers = getHeaders(profileConfig, profileId);
 
         if (requestMethods.length > 0) {
+            if (!statusMonitor.tryAcquirePermission(profileId)) {
+                throw new RemoteProfileOfflineException(
+                        String.format("Remote profile '%s' is Offline, skipping service calls until service is back Online", profileId));
+            }
+
+            Object result = null;
+            long start = System.nanoTime();
             try {
                 Method method = endpointInvocationContext.getMethod();
                 Object[] args = endpointInvocationContext.getArguments();
@@ -272,22 +585,88 @@ public class RemoteOnlyStrategy implements IInvocationStrategy {
                         template.execute(serverUrl, requestBody, requestMethod, headers, newArgs);
                     }
                     else {
-                        Object result = template.execute(serverUrl, requestBody, method.getReturnType(), requestMethod, headers, newArgs);
+                        result = template.execute(serverUrl, requestBody, method.getReturnType(), requestMethod, headers, newArgs);
                         statusMonitor.setStatus(profileId, Status.Online);
-                        return result;
                     }
                 }
             } catch (ResourceAccessException rex) {
-                statusMonitor.setStatus(profileId, Status.Offline, rex.getMessage());
+                if (abortHandle != null && abortHandle.isAborted()) {
+                    // another profile answered first, this one isn't offline
+                    statusMonitor.recordCancelled(profileId);
+                    throw rex;
+                }
+                // the profile is only taken offline when its circuit breaker opens
+                if (isUnreachable(rex)) {
+                    statusMonitor.recordUnreachable(profileId, System.nanoTime() - start, rex.getMessage());
+                } else {
+                    statusMonitor.setStatus(profileId, Status.Error, rex.getMessage());
+                    statusMonitor.recordFailure(profileId, System.nanoTime() - start, rex.getMessage());
+                }
                 throw new RemoteProfileOfflineException(rex);
             } catch (Exception ex) {
                 statusMonitor.setStatus(profileId, Status.Error, ex.getMessage());
+                if (isServerFailure(ex)) {
+                    statusMonitor.recordFailure(profileId, System.nanoTime() - start, ex.getMessage());
+                } else {
+                    // the profile answered, the call just didn't succeed
+                    statusMonitor.recordSuccess(profileId, System.nanoTime() - start);
+                }
                 throw ex;
             }
+            statusMonitor.recordSuccess(profileId, System.nanoTime() - start);
+            return result;
         } else {
             throw new IllegalStateException("A method must be specified on the @RequestMapping");
         }
-        return null;
+    }
+
+    /**
+     * @return whether the server of the profile couldn't be connected to at all, as opposed to a call that timed out
+     */
+    private static boolean isUnreachable(ResourceAccessException ex) {
+        return ExceptionUtils.indexOfType(ex, ConnectException.class) >= 0
+                || ExceptionUtils.indexOfType(ex, ConnectTimeoutException.class) >= 0
+                || ExceptionUtils.indexOfType(ex, NoRouteToHostException.class) >= 0
+                || ExceptionUtils.indexOfType(ex, UnknownHostException.class) >= 0;
+    }
+
+    private static boolean isServerFailure(Exception ex) {
+        return ex instanceof ServerException || ex instanceof HttpServerErrorException;
+    }
+
+    /**
+     * A call to one profile made by {@link #invokeHedged(List, HedgingConfig, EndpointInvocationContext)}
+     */
+    static class HedgedCall {
+        final String profileId;
+        final RequestAbortHandle abortHandle = new RequestAbortHandle();
+        final long start = System.nanoTime();
+        volatile Object result;
+        volatile Exception exception;
+        volatile long durationNanos = -1;
+
+        HedgedCall(String profileId) {
+            this.profileId = profileId;
+        }
+
+        ServiceVisit toServiceVisit() {
+            ServiceVisit serviceVisit = new ServiceVisit();
+            serviceVisit.setProfileId(profileId);
+            serviceVisit.setException(exception);
+            serviceVisit.setElapsedTimeMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos >= 0 ? durationNanos : System.nanoTime() - start));
+            return serviceVisit;
+        }
+    }
+
+    static class HedgingThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "remote-hedging-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 
     private void populateServiceVisits(Object result, List<ServiceVisit> serviceVisits) {
@@ -2,11 +2,16 @@ package org.jumpmind.pos.service.strategy;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.jumpmind.pos.service.CircuitBreakerConfig;
+import org.jumpmind.pos.service.ServiceConfig;
+import org.jumpmind.pos.service.strategy.CircuitBreaker.State;
 import org.jumpmind.pos.util.clientcontext.ClientContext;
 import org.jumpmind.pos.util.status.*;
 import org.jumpmind.pos.util.web.ConfiguredRestTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +20,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -26,6 +34,12 @@ public class RemoteProfileStatusMonitor extends AbstractStatusReporter {
 
     private Map<String, RemoteProfileStatusInfo> statuses = new ConcurrentHashMap<>();
 
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    @Setter
+    private ServiceConfig serviceConfig;
+
     private RestTemplate template;
 
     @PostConstruct
@@ -52,6 +66,90 @@ public class RemoteProfileStatusMonitor extends AbstractStatusReporter {
         return this.statuses.getOrDefault(profileId, new RemoteProfileStatusInfo(profileId, Status.Online, "")).getStatus();
     }
 
+    public CircuitBreaker getCircuitBreaker(String profileId) {
+        return circuitBreakers.computeIfAbsent(profileId, id -> new CircuitBreaker(id, getCircuitBreakerConfig()));
+    }
+
+    /**
+     * @return whether a call can be made to the profile.  A call that is permitted has to be recorded with
+     * {@link #recordSuccess(String, long)}, {@link #recordFailure(String, long, String)},
+     * {@link #recordUnreachable(String, long, String)} or {@link #recordCancelled(String)}.
+     */
+    public boolean tryAcquirePermission(String profileId) {
+        return getCircuitBreaker(profileId).tryAcquirePermission();
+    }
+
+    /**
+     * Records a call that the profile answered.  Calls that failed for reasons that don't have to do with the health
+     * of the profile are recorded as successes too.
+     */
+    public void recordSuccess(String profileId, long durationNanos) {
+        getCircuitBreaker(profileId).onSuccess(durationNanos);
+    }
+
+    /**
+     * Records a call that failed because the profile timed out or couldn't handle it.  Takes the profile offline
+     * when its circuit breaker opens.
+     */
+    public void recordFailure(String profileId, long durationNanos, String message) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(profileId);
+        if (circuitBreaker.onFailure(durationNanos) == State.OPEN) {
+            circuitBreakerOpened(circuitBreaker, message);
+        }
+    }
+
+    /**
+     * Records a call that failed because the profile's server couldn't be connected to, which opens the circuit
+     * breaker right away
+     */
+    public void recordUnreachable(String profileId, long durationNanos, String message) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(profileId);
+        circuitBreaker.onFailure(durationNanos);
+        circuitBreaker.open();
+        circuitBreakerOpened(circuitBreaker, message);
+    }
+
+    /**
+     * Records a hedged call that was aborted because another profile answered first.  The call neither succeeded nor
+     * failed, so it only gives back its permission and leaves the failure rates and the latency of the profile alone.
+     */
+    public void recordCancelled(String profileId) {
+        getCircuitBreaker(profileId).releasePermission();
+    }
+
+    /**
+     * @return the profiles in the order they should be tried.  Half open profiles come first so they get their trial
+     * calls and a profile that recovered is used again, then closed ones, then open ones, which only fail fast.
+     * Profiles in the same state are tried fastest first when latency aware routing is enabled, and in the given
+     * order otherwise.
+     */
+    public List<String> orderByHealth(List<String> profileIds) {
+        if (profileIds.size() < 2) {
+            return profileIds;
+        }
+        boolean latencyAware = getCircuitBreakerConfig().isLatencyAwareRouting();
+        List<ProfileHealth> health = new ArrayList<>(profileIds.size());
+        for (String profileId : profileIds) {
+            CircuitBreaker circuitBreaker = getCircuitBreaker(profileId);
+            // profiles without a latency yet are tried early so that they get one
+            health.add(new ProfileHealth(profileId, circuitBreaker.getState(), latencyAware ? Math.max(0, circuitBreaker.getLatencyMillis()) : 0));
+        }
+        health.sort(Comparator.comparingInt(ProfileHealth::getRoutingRank).thenComparingDouble(ProfileHealth::getLatencyMillis));
+
+        List<String> ordered = new ArrayList<>(profileIds.size());
+        health.forEach(profileHealth -> ordered.add(profileHealth.getProfileId()));
+        return ordered;
+    }
+
+    protected CircuitBreakerConfig getCircuitBreakerConfig() {
+        return serviceConfig != null ? serviceConfig.getCircuitBreaker() : new CircuitBreakerConfig();
+    }
+
+    private void circuitBreakerOpened(CircuitBreaker circuitBreaker, String message) {
+        log.info("Circuit breaker opened: {}", circuitBreaker);
+        setStatus(circuitBreaker.getProfileId(), Status.Offline, message);
+    }
+
     public void setStatusUrl(String profileId, String baseUrl) {
         this.statuses.compute(profileId, (profId, status) -> {
             if (status == null) {
@@ -76,7 +174,7 @@ public class RemoteProfileStatusMonitor extends AbstractStatusReporter {
 
         this.statuses.compute(profileId, (profId, stat) -> {
             if (stat == null) {
-                return new RemoteProfileStatusInfo(profId, Status.Online, "");
+                return new RemoteProfileStatusInfo(profId, status, "");
             } else {
                 Status prevStatus = stat.getStatus();
                 stat.setStatus(status);
@@ -123,12 +221,25 @@ public class RemoteProfileStatusMonitor extends AbstractStatusReporter {
             if (response != null && response.hasBody() && response.getBody().containsKey("pong")) {
                 log.debug("Got response from {}: {}", entry.getValue().getStatusUrl(), response.getBody());
                 this.setStatus(entry.getValue().getProfileId(), Status.Online);
+                getCircuitBreaker(entry.getValue().getProfileId()).allowTrialCalls();
                 log.info("Status of profile '{}' has now changed from {} to {}", entry.getValue().getProfileId(), Status.Offline, Status.Online);
             }
 
         });
     }
 
+    @Data
+    @AllArgsConstructor
+    static class ProfileHealth {
+        String profileId;
+        State state;
+        double latencyMillis;
+
+        int getRoutingRank() {
+            return state == State.HALF_OPEN ? 0 : state == State.CLOSED ? 1 : 2;
+        }
+    }
+
     @Data
     @AllArgsConstructor
     public static class RemoteProfileStatusInfo {
@@ -0,0 +1,124 @@
+package org.jumpmind.pos.service;
+
+import org.jumpmind.pos.service.strategy.IInvocationStrategy;
+import org.jumpmind.pos.service.strategy.InvocationStrategy;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times calls of a no-op local endpoint through the {@link EndpointInvocationHandler}.  It only uses what the handler
+ * offered before it kept a dispatch table, so running it on a checkout from before the table shows what the table
+ * saves.  It is left out of the test task, run it with the benchmark task.
+ */
+@Slf4j
+public class EndpointInvocationHandlerBenchmark {
+
+    PingEndpoint endpoint = new PingEndpoint();
+    CountingStrategy strategy = new CountingStrategy();
+    IPingService service;
+
+    @Before
+    public void setup() {
+        EndpointInvoker endpointInvoker = new EndpointInvoker() {
+            @Override
+            public Object invoke(EndpointInvocationContext context) throws Throwable {
+                return context.getStrategy().invoke(context);
+            }
+        };
+        EndpointManager endpointManager = new EndpointManager(null, null) {
+            @Override
+            public Object getEndpointObject(String implementation, String path) {
+                return "/ping/ping".equals(path) ? endpoint : null;
+            }
+        };
+
+        EndpointSpecificConfig endpointConfig = new EndpointSpecificConfig();
+        endpointConfig.setPath("/ping/ping");
+        endpointConfig.setStrategy(InvocationStrategy.LOCAL_ONLY);
+        endpointConfig.setProfile("local");
+        ServiceSpecificConfig config = new ServiceSpecificConfig();
+        config.setStrategy(InvocationStrategy.REMOTE_ONLY);
+        config.setEndpoints(new ArrayList<>(Collections.singletonList(endpointConfig)));
+        ServiceConfig serviceConfigs = new ServiceConfig();
+        serviceConfigs.getSpecificConfig().put("ping", config);
+
+        Map<String, IInvocationStrategy> strategies = new HashMap<>();
+        strategies.put(InvocationStrategy.LOCAL_ONLY.name(), strategy);
+
+        EndpointInvocationHandler dispatcher = new EndpointInvocationHandler();
+        ReflectionTestUtils.setField(dispatcher, "endpointInvoker", endpointInvoker);
+        ReflectionTestUtils.setField(dispatcher, "endpointManager", endpointManager);
+        ReflectionTestUtils.setField(dispatcher, "serviceConfigs", serviceConfigs);
+        ReflectionTestUtils.setField(dispatcher, "clientContext", new ClientContext());
+        ReflectionTestUtils.setField(dispatcher, "strategies", strategies);
+
+        service = new PingServiceFactory().build(dispatcher);
+    }
+
+    @Test
+    public void testDispatchCost() {
+        final int calls = 100000;
+        for (int i = 0; i < calls / 10; i++) {
+            service.ping();
+        }
+        endpoint.invokeCount = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            service.ping();
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertEquals(calls, endpoint.invokeCount);
+        log.info("Dispatch of a no-op local endpoint for {} calls: {} ns per call", calls, nanos / calls);
+    }
+
+    static class CountingStrategy implements IInvocationStrategy {
+        @Override
+        public Object invoke(EndpointInvocationContext endpointInvocationContext) {
+            ((PingEndpoint) endpointInvocationContext.getEndpoint()).ping();
+            return null;
+        }
+
+        @Override
+        public String getStrategyName() {
+            return InvocationStrategy.LOCAL_ONLY.name();
+        }
+    }
+
+    @RestController("ping")
+    @RequestMapping("/ping")
+    public interface IPingService {
+        @RequestMapping("/ping")
+        void ping();
+    }
+
+    @Endpoint(path = "/ping/ping")
+    public static class PingEndpoint {
+        int invokeCount;
+
+        public void ping() {
+            invokeCount++;
+        }
+    }
+
+    static class PingServiceFactory extends AbstractServiceFactory {
+        IPingService build(EndpointInvocationHandler dispatcher) {
+            ReflectionTestUtils.setField(this, AbstractServiceFactory.class, "dispatcher", dispatcher, EndpointInvocationHandler.class);
+            return buildService(IPingService.class);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.jumpmind.pos.service;
+
+import org.jumpmind.pos.service.strategy.IInvocationStrategy;
+import org.jumpmind.pos.service.strategy.InvocationStrategy;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jumpmind.pos.service.Endpoint.IMPLEMENTATION_DEFAULT;
+import static org.jumpmind.pos.service.Endpoint.IMPLEMENTATION_TRAINING;
+import static org.junit.Assert.*;
+
+public class EndpointInvocationHandlerTest {
+
+    EndpointInvocationHandler dispatcher;
+    EndpointInvoker endpointInvoker;
+    EndpointManager endpointManager;
+    ServiceConfig serviceConfigs;
+    Object currentEndpoint;
+    List<String> endpointLookups = new ArrayList<>();
+    ClientContext clientContext;
+    Map<String, IInvocationStrategy> strategies;
+    List<EndpointInvocationContext> invocations = new ArrayList<>();
+
+    NoopEndpoint endpoint = new NoopEndpoint();
+    INoopService service;
+
+    @Before
+    public void setup() throws Throwable {
+        endpointInvoker = new EndpointInvoker() {
+            @Override
+            public Object invoke(EndpointInvocationContext context) throws Throwable {
+                return context.getStrategy().invoke(context);
+            }
+        };
+        endpointManager = new EndpointManager(null, null) {
+            @Override
+            public Object getEndpointObject(String implementation, String path) {
+                endpointLookups.add(implementation + ":" + path);
+                return "/noop/ping".equals(path) ? currentEndpoint : null;
+            }
+        };
+        serviceConfigs = new ServiceConfig();
+        serviceConfigs.getSpecificConfig().put("noop", serviceConfig(InvocationStrategy.LOCAL_ONLY, "local"));
+        currentEndpoint = endpoint;
+        clientContext = new ClientContext();
+        strategies = new HashMap<>();
+        strategies.put(InvocationStrategy.LOCAL_ONLY.name(), new NoopStrategy("LOCAL_ONLY"));
+        strategies.put(InvocationStrategy.REMOTE_ONLY.name(), new NoopStrategy("REMOTE_ONLY"));
+
+        dispatcher = new EndpointInvocationHandler();
+        ReflectionTestUtils.setField(dispatcher, "endpointInvoker", endpointInvoker);
+        ReflectionTestUtils.setField(dispatcher, "endpointManager", endpointManager);
+        ReflectionTestUtils.setField(dispatcher, "serviceConfigs", serviceConfigs);
+        ReflectionTestUtils.setField(dispatcher, "clientContext", clientContext);
+        ReflectionTestUtils.setField(dispatcher, "strategies", strategies);
+
+        service = new NoopServiceFactory().build(dispatcher);
+    }
+
+    @Test
+    public void testDispatch() throws Throwable {
+        service.ping();
+        service.ping();
+
+        EndpointInvocationContext context = lastInvocation();
+        assertEquals("/noop/ping", context.getEndpointPath());
+        assertSame(strategies.get("LOCAL_ONLY"), context.getStrategy());
+        assertEquals(Collections.singletonList("local"), context.getProfileIds());
+        assertEquals(IMPLEMENTATION_DEFAULT, context.getEndpointImplementation());
+        assertSame(endpoint, context.getEndpoint());
+        assertEquals(2, endpoint.invokeCount);
+
+        clientContext.put("deviceMode", IMPLEMENTATION_TRAINING);
+        service.ping();
+        clientContext.remove("deviceMode");
+        assertEquals(Arrays.asList("default:/noop/ping", "default:/noop/ping", "training:/noop/ping"), endpointLookups);
+    }
+
+    @Test
+    public void testRouteFollowsReboundConfiguration() throws Throwable {
+        service.ping();
+        assertSame(strategies.get("LOCAL_ONLY"), lastInvocation().getStrategy());
+
+        // every device gets its own copy of the same configuration
+        clientContext.put("deviceId", "device-2");
+        service.ping();
+        clientContext.remove("deviceId");
+        assertSame(strategies.get("LOCAL_ONLY"), lastInvocation().getStrategy());
+
+        serviceConfigs.getSpecificConfig().put("noop", serviceConfig(InvocationStrategy.REMOTE_ONLY, "remote"));
+        service.ping();
+        assertSame(strategies.get("REMOTE_ONLY"), lastInvocation().getStrategy());
+        assertEquals(Collections.singletonList("remote"), lastInvocation().getProfileIds());
+
+        OtherNoopEndpoint otherEndpoint = new OtherNoopEndpoint();
+        currentEndpoint = otherEndpoint;
+        service.ping();
+        assertSame(otherEndpoint, lastInvocation().getEndpoint());
+        assertEquals("other", lastInvocation().getEndpointImplementation());
+    }
+
+    @Test
+    public void testMissingRestControllerIsReportedWhenCalled() throws Throwable {
+        INotAService notAService = new NotAServiceFactory().build(dispatcher);
+        try {
+            notAService.ping();
+            fail("Expected an exception");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage().startsWith("INotAService must declare @RestController"));
+        }
+    }
+
+    private EndpointInvocationContext lastInvocation() {
+        return invocations.get(invocations.size() - 1);
+    }
+
+    private ServiceSpecificConfig serviceConfig(InvocationStrategy strategy, String profile) {
+        EndpointSpecificConfig endpointConfig = new EndpointSpecificConfig();
+        endpointConfig.setPath("/noop/ping");
+        endpointConfig.setStrategy(strategy);
+        endpointConfig.setProfile(profile);
+
+        ServiceSpecificConfig config = new ServiceSpecificConfig();
+        config.setStrategy(InvocationStrategy.REMOTE_ONLY);
+        config.setEndpoints(new ArrayList<>(Collections.singletonList(endpointConfig)));
+        return config;
+    }
+
+    class NoopStrategy implements IInvocationStrategy {
+        private final String name;
+
+        NoopStrategy(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object invoke(EndpointInvocationContext endpointInvocationContext) {
+            invocations.add(endpointInvocationContext);
+            if (endpointInvocationContext.getEndpoint() instanceof NoopEndpoint) {
+                ((NoopEndpoint) endpointInvocationContext.getEndpoint()).ping();
+            }
+            return null;
+        }
+
+        @Override
+        public String getStrategyName() {
+            return name;
+        }
+    }
+
+    @RestController("noop")
+    @RequestMapping("/noop")
+    public interface INoopService {
+        @RequestMapping("/ping")
+        void ping();
+    }
+
+    public interface INotAService {
+        @RequestMapping("/ping")
+        void ping();
+    }
+
+    @Endpoint(path = "/noop/ping")
+    public static class NoopEndpoint {
+        int invokeCount;
+
+        public void ping() {
+            invokeCount++;
+        }
+    }
+
+    @Endpoint(path = "/noop/ping", implementation = "other")
+    public static class OtherNoopEndpoint {
+    }
+
+    static class NoopServiceFactory extends AbstractServiceFactory {
+        INoopService build(EndpointInvocationHandler dispatcher) {
+            ReflectionTestUtils.setField(this, AbstractServiceFactory.class, "dispatcher", dispatcher, EndpointInvocationHandler.class);
+            return buildService(INoopService.class);
+        }
+    }
+
+    static class NotAServiceFactory extends AbstractServiceFactory {
+        INotAService build(EndpointInvocationHandler dispatcher) {
+            ReflectionTestUtils.setField(this, AbstractServiceFactory.class, "dispatcher", dispatcher, EndpointInvocationHandler.class);
+            return buildService(INotAService.class);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.jumpmind.pos.persist.DBSession;
 import org.jumpmind.pos.service.filter.EndpointFilterManager;
 import org.jumpmind.pos.service.instrumentation.Sample;
 import org.jumpmind.pos.service.instrumentation.ServiceSampleModel;
+import org.jumpmind.pos.service.instrumentation.ServiceSampleWriter;
 import org.jumpmind.pos.service.strategy.IInvocationStrategy;
 import org.jumpmind.pos.service.strategy.LocalOnlyStrategy;
 import org.jumpmind.pos.util.SuppressMethodLogging;
@@ -12,12 +13,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,20 +58,18 @@ public class EndpointInvokerTest {
     }
 
     @Test
-    public void endSampleSetsDataAndSavesToDBSession() throws NoSuchFieldException, IllegalAccessException {
+    public void endSampleSetsDataAndSavesToDBSession() {
         final ServiceSampleModel sampleModel = mockServiceSampleModel();
         final EndpointInvoker endpointInvoker = new EndpointInvoker();
 
-        final ExecutorService executorService = mock(ExecutorService.class);
-        final Field executor = EndpointInvoker.class.getDeclaredField("instrumentationExecutor");
-        executor.setAccessible(true);
-        executor.set(endpointInvoker, executorService);
+        final ServiceSampleWriter sampleWriter = mock(ServiceSampleWriter.class);
+        endpointInvoker.sampleWriter = sampleWriter;
 
         endpointInvoker.endSample(sampleModel);
 
         verify(sampleModel, atLeastOnce()).setEndTime(any());
         verify(sampleModel, atLeastOnce()).setDurationMs(anyLong());
-        verify(executorService, atLeastOnce()).execute(any());
+        verify(sampleWriter, atLeastOnce()).offer(sampleModel);
     }
 
     @Test
@@ -7,6 +7,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -47,4 +49,23 @@ public class EndpointSpecificConfigTest {
         endpointSpecificConfig.findAdditionalConfigs(serviceTestId, endpointIndex);
         verify(iConfigApplicator, never()).applyAdditionalConfiguration(path, samplingConfig);
     }
+
+    @Test
+    public void findAdditionalConfigsAppliesHedgingConfig() {
+        endpointSpecificConfig.findAdditionalConfigs(serviceTestId, endpointIndex);
+        verify(iConfigApplicator, atLeastOnce()).applyAdditionalConfiguration(
+                eq(String.format("openpos.services.specificConfig.%s.endpoints[%d].hedging", serviceTestId, endpointIndex)), any(HedgingConfig.class));
+    }
+
+    @Test
+    public void hedgingNeedsAnIdempotentEndpoint() {
+        HedgingConfig hedging = new HedgingConfig();
+        endpointSpecificConfig.setHedging(hedging);
+        hedging.setEnabled(true);
+        assertFalse(endpointSpecificConfig.isHedgingEnabled());
+        hedging.setIdempotent(true);
+        assertTrue(endpointSpecificConfig.isHedgingEnabled());
+        hedging.setEnabled(false);
+        assertFalse(endpointSpecificConfig.isHedgingEnabled());
+    }
 }
@@ -0,0 +1,199 @@
+package org.jumpmind.pos.service.instrumentation;
+
+import org.jumpmind.pos.service.instrumentation.ServiceSampleWriter.DropPolicy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class ServiceSampleWriterTest {
+
+    static final int SAMPLES = 100000;
+
+    List<List<ServiceSampleModel>> batches = Collections.synchronizedList(new ArrayList<>());
+    ServiceSampleWriter writer;
+
+    @After
+    public void close() {
+        if (writer != null) {
+            writer.close(5000);
+        }
+    }
+
+    @Test
+    public void testFloodIsWrittenInBatches() throws Exception {
+        writer = new ServiceSampleWriter(SAMPLES, 500, 50, DropPolicy.DROP_NEWEST, batches::add);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(writer.offer(sample(i)));
+        }
+        long offerNanos = System.nanoTime() - start;
+        awaitWritten(SAMPLES);
+
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(0, writer.getQueueDepth());
+        assertTrue(batches.size() >= SAMPLES / 500);
+        assertEquals(batches.size(), writer.getFlushCount());
+        assertWrittenInOrder(0);
+        log.info("Queued {} service samples in {} ms, written in {} batches",
+                SAMPLES, TimeUnit.NANOSECONDS.toMillis(offerNanos), batches.size());
+    }
+
+    @Test
+    public void testFloodOfASlowDatabaseKeepsTheQueueBounded() throws Exception {
+        final int capacity = 1000;
+        AtomicInteger peakDepth = new AtomicInteger();
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch databaseAvailable = new CountDownLatch(1);
+        writer = new ServiceSampleWriter(capacity, 200, 50, DropPolicy.DROP_NEWEST, batch -> {
+            firstBatch.countDown();
+            await(databaseAvailable);
+            batches.add(batch);
+        });
+
+        int accepted = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            if (writer.offer(sample(i))) {
+                accepted++;
+            }
+            peakDepth.accumulateAndGet(writer.getQueueDepth(), Math::max);
+            if (i == 0) {
+                firstBatch.await(5, TimeUnit.SECONDS);
+            }
+        }
+        assertEquals(capacity, writer.getQueueDepth());
+        databaseAvailable.countDown();
+        awaitWritten(accepted);
+
+        assertTrue(peakDepth.get() <= capacity);
+        assertEquals(capacity, writer.getCapacity());
+        assertEquals(capacity + 1, accepted);
+        assertEquals(SAMPLES - accepted, writer.getDroppedCount());
+        assertWrittenInOrder(0);
+        for (List<ServiceSampleModel> batch : batches) {
+            assertTrue(batch.size() <= 200);
+        }
+        log.info("Flood of {} samples with the database unavailable: peak queue depth {}, {} dropped",
+                SAMPLES, peakDepth.get(), writer.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOldestKeepsTheNewestSamples() throws Exception {
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch databaseAvailable = new CountDownLatch(1);
+        writer = new ServiceSampleWriter(100, 1, 50, DropPolicy.DROP_OLDEST, batch -> {
+            firstBatch.countDown();
+            await(databaseAvailable);
+            batches.add(batch);
+        });
+
+        writer.offer(sample(-1));
+        firstBatch.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(writer.offer(sample(i)));
+        }
+        databaseAvailable.countDown();
+        awaitWritten(101);
+
+        assertEquals(SAMPLES - 100, writer.getDroppedCount());
+        assertEquals("-1", batches.get(0).get(0).getSampleId());
+        batches.remove(0);
+        assertWrittenInOrder(SAMPLES - 100);
+    }
+
+    @Test
+    public void testPartialBatchIsWrittenAfterTheFlushInterval() throws Exception {
+        writer = new ServiceSampleWriter(1000, 500, 100, DropPolicy.DROP_NEWEST, batches::add);
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            writer.offer(sample(i));
+        }
+        awaitWritten(3);
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testFailedBatchesDoNotStopTheWriter() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        writer = new ServiceSampleWriter(1000, 10, 20, DropPolicy.DROP_NEWEST, batch -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("database is locked");
+            }
+            batches.add(batch);
+        });
+        for (int i = 0; i < 10; i++) {
+            writer.offer(sample(i));
+        }
+        awaitCondition(() -> writer.getFailedCount() == 10);
+        for (int i = 10; i < 20; i++) {
+            writer.offer(sample(i));
+        }
+        awaitWritten(10);
+
+        assertEquals(10, writer.getFailedCount());
+        assertWrittenInOrder(10);
+    }
+
+    @Test
+    public void testCloseWritesTheQueuedSamples() {
+        writer = new ServiceSampleWriter(1000, 100, 60000, DropPolicy.DROP_NEWEST, batches::add);
+        for (int i = 0; i < 250; i++) {
+            writer.offer(sample(i));
+        }
+        writer.close(5000);
+
+        assertEquals(250, writer.getWrittenCount());
+        assertWrittenInOrder(0);
+    }
+
+    private void assertWrittenInOrder(int first) {
+        int expected = first;
+        for (List<ServiceSampleModel> batch : batches) {
+            for (ServiceSampleModel sample : batch) {
+                assertEquals(String.valueOf(expected++), sample.getSampleId());
+            }
+        }
+    }
+
+    private void awaitWritten(long count) throws InterruptedException {
+        awaitCondition(() -> writer.getWrittenCount() >= count);
+        assertEquals(count, writer.getWrittenCount());
+    }
+
+    private void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ServiceSampleModel sample(int id) {
+        ServiceSampleModel sample = new ServiceSampleModel();
+        sample.setSampleId(String.valueOf(id));
+        return sample;
+    }
+}
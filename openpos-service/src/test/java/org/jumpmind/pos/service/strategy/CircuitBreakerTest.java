@@ -0,0 +1,161 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.CircuitBreakerConfig;
+import org.jumpmind.pos.service.strategy.CircuitBreaker.State;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    CircuitBreakerConfig config = new CircuitBreakerConfig();
+
+    @Before
+    public void setup() {
+        config.setSlidingWindowSize(10);
+        config.setMinimumNumberOfCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallDurationMs(100);
+        config.setSlowCallRateThreshold(80);
+        config.setOpenDurationMs(50);
+        config.setPermittedCallsInHalfOpen(2);
+    }
+
+    @Test
+    public void testOpensAtTheFailureRate() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        assertEquals(State.CLOSED, circuitBreaker.onFailure(FAST));
+        assertEquals(State.CLOSED, circuitBreaker.onFailure(FAST));
+        assertEquals(State.CLOSED, circuitBreaker.onFailure(FAST));
+        assertEquals(-1, circuitBreaker.getFailureRate());
+
+        // the minimum number of calls has been reached
+        assertEquals(State.OPEN, circuitBreaker.onFailure(FAST));
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testOldCallsSlideOutOfTheWindow() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onSuccess(FAST);
+            circuitBreaker.onSuccess(FAST);
+            circuitBreaker.onFailure(FAST);
+        }
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertEquals(40, circuitBreaker.getFailureRate());
+
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onSuccess(FAST);
+        }
+        assertEquals(0, circuitBreaker.getFailureRate());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(State.CLOSED, circuitBreaker.onFailure(FAST));
+        }
+        assertEquals(State.OPEN, circuitBreaker.onFailure(FAST));
+    }
+
+    @Test
+    public void testOpensAtTheSlowCallRate() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        circuitBreaker.onSuccess(FAST);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(State.CLOSED, circuitBreaker.onSuccess(SLOW));
+        }
+        assertEquals(75, circuitBreaker.getSlowCallRate());
+        assertEquals(State.OPEN, circuitBreaker.onSuccess(SLOW));
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterTheTrialCalls() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        circuitBreaker.open();
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(60);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        assertEquals(State.HALF_OPEN, circuitBreaker.onSuccess(FAST));
+        assertEquals(State.CLOSED, circuitBreaker.onSuccess(FAST));
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(-1, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    public void testReleasedPermissionIsNotRecorded() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        circuitBreaker.open();
+        circuitBreaker.allowTrialCalls();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        // the cancelled trial call can be made again, and the breaker still needs two successful ones to close
+        circuitBreaker.releasePermission();
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(State.HALF_OPEN, circuitBreaker.onSuccess(FAST));
+        assertEquals(State.CLOSED, circuitBreaker.onSuccess(FAST));
+        assertEquals(10, circuitBreaker.getLatencyMillis(), 0.001);
+
+        circuitBreaker.releasePermission();
+        assertEquals(-1, circuitBreaker.getFailureRate());
+        assertEquals(-1, circuitBreaker.getSlowCallRate());
+    }
+
+    @Test
+    public void testHalfOpenReopensOnAFailedTrialCall() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        circuitBreaker.open();
+        circuitBreaker.allowTrialCalls();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(State.OPEN, circuitBreaker.onSuccess(SLOW));
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.allowTrialCalls();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(State.OPEN, circuitBreaker.onFailure(FAST));
+    }
+
+    @Test
+    public void testZeroThresholdsNeverOpen() {
+        config.setFailureRateThreshold(0);
+        config.setSlowCallRateThreshold(0);
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(State.CLOSED, circuitBreaker.onFailure(SLOW));
+        }
+    }
+
+    @Test
+    public void testLatencyAverage() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("central", config);
+        assertEquals(-1, circuitBreaker.getLatencyMillis(), 0);
+
+        circuitBreaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(100, circuitBreaker.getLatencyMillis(), 0.001);
+        circuitBreaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(120, circuitBreaker.getLatencyMillis(), 0.001);
+
+        // failures don't make a profile look fast
+        circuitBreaker.onFailure(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(120, circuitBreaker.getLatencyMillis(), 0.001);
+
+        for (int i = 0; i < 50; i++) {
+            circuitBreaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(10, circuitBreaker.getLatencyMillis(), 0.1);
+    }
+}
@@ -0,0 +1,78 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.EndpointInvocationContext;
+import org.jumpmind.pos.util.clientcontext.ClientContext;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times local endpoint calls through the {@link LocalOnlyStrategy}.  It only uses what the strategy offered before it
+ * kept method handles, so it can be run on a checkout from before that change for a comparison.  It is left out of the
+ * test task, run it with the benchmark task.
+ */
+@Slf4j
+public class LocalOnlyStrategyBenchmark {
+
+    @Test
+    public void testInvocationThroughput() throws Throwable {
+        final int calls = 1000000;
+        LocalOnlyStrategy strategy = new LocalOnlyStrategy();
+        strategy.clientContext = new ClientContext();
+        Method add = IAdderService.class.getMethod("add", int.class, int.class);
+        Object[] endpoints = {new AdderEndpoint(), new OffsetEndpoint(1), new OffsetEndpoint(10), new OffsetEndpoint(100)};
+        EndpointInvocationContext[] contexts = new EndpointInvocationContext[endpoints.length];
+        for (int i = 0; i < contexts.length; i++) {
+            contexts[i] = EndpointInvocationContext.builder()
+                    .endpoint(endpoints[i])
+                    .method(add)
+                    .arguments(new Object[]{1, 2})
+                    .build();
+        }
+        for (int i = 0; i < calls / 10; i++) {
+            strategy.invoke(contexts[i % contexts.length]);
+        }
+
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sum += (Integer) strategy.invoke(contexts[i % contexts.length]);
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertEquals(calls / 4 * (3 + 4 + 13 + 103), sum);
+        log.info("{} local endpoint calls: {} ns per call", calls, nanos / calls);
+    }
+
+    @RestController("adder")
+    @RequestMapping("/adder")
+    public interface IAdderService {
+        @RequestMapping("/add")
+        int add(int a, int b);
+    }
+
+    public static class AdderEndpoint {
+        public int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    public static class OffsetEndpoint extends AdderEndpoint {
+        private final int offset;
+
+        OffsetEndpoint(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            return super.add(a, b) + offset;
+        }
+    }
+}
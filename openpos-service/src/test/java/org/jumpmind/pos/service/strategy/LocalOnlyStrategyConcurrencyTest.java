@@ -0,0 +1,241 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.EndpointInvocationContext;
+import org.jumpmind.pos.service.PosServerException;
+
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class LocalOnlyStrategyConcurrencyTest {
+
+    static final int THREADS = 300;
+    static final int CALLS_PER_THREAD = 2000;
+
+    LocalOnlyStrategy strategy = new LocalOnlyStrategy();
+
+    List<CalculatorEndpoint> endpoints = Arrays.asList(
+            new CalculatorEndpoint(), new OffsetEndpoint(1), new OffsetEndpoint(10), new TrainingEndpoint(),
+            new OverridingEndpoint(), new OffsetEndpoint(100), new TrainingEndpoint(), new OverridingEndpoint());
+
+    @Test
+    public void testInvoke() throws Throwable {
+        assertEquals(5, invoke(new CalculatorEndpoint(), "add", 2, 3));
+        assertEquals(15, invoke(new OffsetEndpoint(10), "add", 2, 3));
+        assertEquals("training:ping", invoke(new TrainingEndpoint(), "echo", "ping"));
+        assertEquals("ping", invoke(new CalculatorEndpoint(), "echo", "ping"));
+        assertEquals(-4L, invoke(new CalculatorEndpoint(), "negate", 4L));
+        assertNull(invoke(new CalculatorEndpoint(), "echo", (Object) null));
+        assertEquals("calculator", invoke(new CalculatorEndpoint(), "name"));
+        assertEquals("calculator", strategy.invoke(context(new CalculatorEndpoint(), method("name"), null)));
+    }
+
+    @Test
+    public void testEndpointExceptionsAreRethrown() throws Throwable {
+        try {
+            invoke(new CalculatorEndpoint(), "fail", "broken");
+            fail("Expected the endpoint exception");
+        } catch (IllegalStateException ex) {
+            assertEquals("broken", ex.getMessage());
+        }
+        try {
+            invoke(new CalculatorEndpoint(), "check", "broken");
+            fail("Expected the endpoint exception");
+        } catch (CalculatorException ex) {
+            assertEquals("broken", ex.getMessage());
+        }
+    }
+
+    @Test(expected = PosServerException.class)
+    public void testMissingEndpoint() throws Throwable {
+        strategy.invoke(context(null, method("name"), null));
+    }
+
+    @Test
+    public void testNonPublicEndpoint() throws Throwable {
+        assertEquals("hidden", invoke(new HiddenEndpoint(), "name"));
+        assertEquals(7, invoke(new HiddenEndpoint(), "add", 3, 4));
+    }
+
+    @Test
+    public void testManyThreadsAgainstManyEndpoints() throws Throwable {
+        List<Method> methods = Arrays.asList(method("add"), method("negate"), method("echo"), method("name"));
+        runThreads(thread -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                CalculatorEndpoint endpoint = endpoints.get((thread + i) % endpoints.size());
+                Method method = methods.get((thread * 7 + i) % methods.size());
+                try {
+                    Object result;
+                    switch (method.getName()) {
+                        case "add":
+                            result = strategy.invoke(context(endpoint, method, new Object[]{thread, i}));
+                            assertEquals(endpoint.add(thread, i), result);
+                            break;
+                        case "negate":
+                            result = strategy.invoke(context(endpoint, method, new Object[]{(long) i}));
+                            assertEquals(endpoint.negate(i), result);
+                            break;
+                        case "echo":
+                            result = strategy.invoke(context(endpoint, method, new Object[]{"thread-" + thread}));
+                            assertEquals(endpoint.echo("thread-" + thread), result);
+                            break;
+                        default:
+                            result = strategy.invoke(context(endpoint, method, null));
+                            assertEquals(endpoint.name(), result);
+                    }
+                } catch (Throwable ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+        });
+    }
+
+    private Object invoke(Object endpoint, String methodName, Object... arguments) throws Throwable {
+        return strategy.invoke(context(endpoint, method(methodName), arguments));
+    }
+
+    private EndpointInvocationContext context(Object endpoint, Method method, Object[] arguments) {
+        return EndpointInvocationContext.builder()
+                .endpoint(endpoint)
+                .method(method)
+                .arguments(arguments)
+                .build();
+    }
+
+    private static Method method(String name) {
+        for (Method method : ICalculatorService.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * Starts every thread at the same time and waits for all of them
+     */
+    private void runThreads(Consumer<Integer> work) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    work.accept(thread);
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        assertEquals(Collections.emptyList(), failures);
+    }
+
+    @RestController("calculator")
+    @RequestMapping("/calculator")
+    public interface ICalculatorService {
+        @RequestMapping("/add")
+        int add(int a, int b);
+
+        @RequestMapping("/negate")
+        long negate(long value);
+
+        @RequestMapping("/echo")
+        String echo(String value);
+
+        @RequestMapping("/name")
+        String name();
+
+        @RequestMapping("/fail")
+        void fail(String message);
+
+        @RequestMapping("/check")
+        void check(String message) throws CalculatorException;
+    }
+
+    public static class CalculatorException extends Exception {
+        public CalculatorException(String message) {
+            super(message);
+        }
+    }
+
+    public static class CalculatorEndpoint {
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public long negate(long value) {
+            return -value;
+        }
+
+        public String echo(String value) {
+            return value;
+        }
+
+        public String name() {
+            return "calculator";
+        }
+
+        public void fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        public void check(String message) throws CalculatorException {
+            throw new CalculatorException(message);
+        }
+    }
+
+    public static class OffsetEndpoint extends CalculatorEndpoint {
+        private final int offset;
+
+        OffsetEndpoint(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            return super.add(a, b) + offset;
+        }
+    }
+
+    public static class TrainingEndpoint extends CalculatorEndpoint {
+        @Override
+        public String echo(String value) {
+            return "training:" + value;
+        }
+
+        @Override
+        public String name() {
+            return "training";
+        }
+    }
+
+    public static class OverridingEndpoint extends CalculatorEndpoint {
+        @Override
+        public long negate(long value) {
+            return value;
+        }
+    }
+
+    static class HiddenEndpoint extends CalculatorEndpoint {
+        @Override
+        public String name() {
+            return "hidden";
+        }
+    }
+}
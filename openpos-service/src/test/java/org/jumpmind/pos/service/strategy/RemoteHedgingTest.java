@@ -0,0 +1,231 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.EndpointInvocationContext;
+import org.jumpmind.pos.service.EndpointSpecificConfig;
+import org.jumpmind.pos.service.HedgingConfig;
+import org.jumpmind.pos.service.ServiceConfig;
+import org.jumpmind.pos.service.ServiceSpecificConfig;
+import org.jumpmind.pos.service.strategy.RemoteOnlyStrategyTest.ITestService;
+import org.jumpmind.pos.service.strategy.RemoteOnlyStrategyTest.TestResponse;
+import org.jumpmind.pos.util.status.Status;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.jumpmind.pos.service.strategy.StubServer.ENDPOINT_PATH;
+import static org.jumpmind.pos.service.strategy.StubServer.SLOW_DELAY_MS;
+import static org.junit.Assert.*;
+
+@Slf4j
+public class RemoteHedgingTest {
+
+    private StubServer server;
+    private StubServer.Profile central;
+    private StubServer.Profile store;
+
+    private final RemoteOnlyStrategy handler = new RemoteOnlyStrategy();
+    private final AtomicInteger cancelledCalls = new AtomicInteger();
+    private final AtomicInteger storeAnswers = new AtomicInteger();
+    private final RemoteProfileStatusMonitor statusMonitor = new RemoteProfileStatusMonitor() {
+        @Override
+        public void recordCancelled(String profileId) {
+            super.recordCancelled(profileId);
+            cancelledCalls.incrementAndGet();
+        }
+    };
+    private final ServiceConfig serviceConfig = new ServiceConfig();
+    private final ServiceSpecificConfig serviceSpecificConfig = new ServiceSpecificConfig();
+    private HedgingConfig hedgingConfig;
+
+    @Before
+    public void setup() throws Exception {
+        server = new StubServer(16);
+        central = addProfile("central");
+        store = addProfile("store");
+
+        // the profiles are always tried in the configured order, so the central server is the one that gets hedged
+        serviceConfig.getCircuitBreaker().setLatencyAwareRouting(false);
+        handler.setServiceConfig(serviceConfig);
+        handler.setStatusMonitor(statusMonitor);
+        statusMonitor.setServiceConfig(serviceConfig);
+
+        hedgingConfig = new HedgingConfig();
+        hedgingConfig.setEnabled(true);
+        hedgingConfig.setIdempotent(true);
+        hedgingConfig.setMinDelayMs(20);
+        hedgingConfig.setInitialDelayMs(100);
+        EndpointSpecificConfig endpointConfig = new EndpointSpecificConfig();
+        endpointConfig.setPath(ENDPOINT_PATH);
+        endpointConfig.setHedging(hedgingConfig);
+        serviceSpecificConfig.getEndpoints().add(endpointConfig);
+    }
+
+    @After
+    public void cleanup() {
+        handler.close();
+        server.close();
+    }
+
+    @Test
+    public void testHedgingCutsTheTailLatency() throws Throwable {
+        // one in 20 calls to the central server is slow, and the delay is long enough that mostly those are hedged
+        central.slowEvery.set(20);
+        hedgingConfig.setMinDelayMs(50);
+
+        hedgingConfig.setEnabled(false);
+        long[] unhedged = run(200);
+        assertEquals(0, store.requests.get());
+
+        hedgingConfig.setEnabled(true);
+        run(40);
+        long[] hedged = run(200);
+
+        long unhedgedP99 = percentileMillis(unhedged, 99);
+        long hedgedP99 = percentileMillis(hedged, 99);
+        log.info("p50 unhedged {} ms, hedged {} ms; p99 unhedged {} ms, hedged {} ms; {} calls answered by the store",
+                percentileMillis(unhedged, 50), percentileMillis(hedged, 50), unhedgedP99, hedgedP99, storeAnswers.get());
+        assertTrue(store.requests.get() > 0);
+        // the slow calls make up the unhedged p99, the hedged ones are answered by the store after about the hedging delay
+        assertTrue("p99 unhedged " + unhedgedP99 + " ms, hedged " + hedgedP99 + " ms", hedgedP99 < unhedgedP99 * 3 / 4);
+    }
+
+    @Test
+    public void testHedgingDelayFollowsTheLatencyOfTheProfile() throws Throwable {
+        central.delayMs.set(10);
+        store.delayMs.set(30);
+        run(hedgingConfig.getMinimumSamples());
+        long fastDelayMs = hedgingDelayMillis();
+
+        // the central server answers after the hedging delay now, so at first its calls are aborted when the store answers
+        central.delayMs.set(100);
+        run(40);
+        long slowDelayMs = hedgingDelayMillis();
+
+        log.info("The hedging delay went from {} ms to {} ms", fastDelayMs, slowDelayMs);
+        assertTrue("The hedging delay went from " + fastDelayMs + " ms to " + slowDelayMs + " ms", slowDelayMs > fastDelayMs);
+        assertTrue("The hedging delay was " + slowDelayMs + " ms", slowDelayMs >= 60);
+    }
+
+    @Test
+    public void testTheSlowerCallIsAborted() throws Throwable {
+        central.delayMs.set(SLOW_DELAY_MS);
+
+        long start = System.nanoTime();
+        assertEquals("store", invoke().getMessage());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < SLOW_DELAY_MS);
+
+        // the central server is still sleeping on the request, so only an abort completes the call this early
+        long deadline = System.currentTimeMillis() + SLOW_DELAY_MS / 2;
+        while (cancelledCalls.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, cancelledCalls.get());
+        assertEquals(1, central.requests.get());
+        assertEquals(Status.Online, statusMonitor.getProfileStatus("central"));
+    }
+
+    @Test
+    public void testFailedCallIsReplacedByTheNextProfile() throws Throwable {
+        central.failing.set(true);
+        hedgingConfig.setInitialDelayMs(2000);
+        long start = System.nanoTime();
+        assertEquals("store", invoke().getMessage());
+        // the store was called as soon as the central server failed, without waiting for the hedging delay
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < hedgingConfig.getInitialDelayMs());
+        assertEquals(0, cancelledCalls.get());
+    }
+
+    @Test
+    public void testCallIsNotHedgedWhenTheHedgingThreadsAreBusy() throws Throwable {
+        handler.setHedgingThreads(1);
+        central.delayMs.set(SLOW_DELAY_MS);
+
+        // this call holds on to the only hedging thread while the central server sleeps on it
+        AtomicReference<String> firstAnswer = new AtomicReference<>();
+        Thread first = new Thread(() -> {
+            try {
+                firstAnswer.set(invoke().getMessage());
+            } catch (Throwable ex) {
+                firstAnswer.set(ex.toString());
+            }
+        });
+        first.start();
+        long deadline = System.currentTimeMillis() + SLOW_DELAY_MS;
+        while (central.requests.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals("central", invoke().getMessage());
+        first.join(5000);
+        assertEquals("central", firstAnswer.get());
+        assertEquals(2, central.requests.get());
+        assertEquals(0, store.requests.get());
+    }
+
+    @Test
+    public void testNonIdempotentEndpointIsNeverHedged() throws Throwable {
+        hedgingConfig.setIdempotent(false);
+        central.delayMs.set(100);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("central", invoke().getMessage());
+        }
+        assertEquals(5, central.requests.get());
+        assertEquals(0, store.requests.get());
+    }
+
+    @Test
+    public void testHedgingIsOptIn() throws Throwable {
+        serviceSpecificConfig.getEndpoints().get(0).setHedging(null);
+        central.delayMs.set(100);
+        assertEquals("central", invoke().getMessage());
+        assertEquals(0, store.requests.get());
+    }
+
+    private long[] run(int calls) throws Throwable {
+        long[] durations = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            if ("store".equals(invoke().getMessage())) {
+                storeAnswers.incrementAndGet();
+            }
+            durations[i] = System.nanoTime() - start;
+        }
+        return durations;
+    }
+
+    private long hedgingDelayMillis() throws NoSuchMethodException {
+        return TimeUnit.NANOSECONDS.toMillis(handler.getHedgingDelayNanos("central", hedgingConfig, context()));
+    }
+
+    private static long percentileMillis(long[] durations, int percentile) {
+        long[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        return TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(percentile / 100.0 * sorted.length) - 1]);
+    }
+
+    private TestResponse invoke() throws Throwable {
+        return (TestResponse) handler.invoke(context());
+    }
+
+    private EndpointInvocationContext context() throws NoSuchMethodException {
+        return EndpointInvocationContext.builder()
+                .profileIds(Arrays.asList("central", "store"))
+                .config(serviceSpecificConfig)
+                .endpointPath(ENDPOINT_PATH)
+                .method(ITestService.class.getMethod("testGet"))
+                .build();
+    }
+
+    private StubServer.Profile addProfile(String profileId) {
+        StubServer.Profile profile = server.addProfile(profileId);
+        serviceConfig.getProfiles().put(profileId, profile.newProfileConfig());
+        return profile;
+    }
+}
@@ -0,0 +1,142 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.EndpointInvocationContext;
+import org.jumpmind.pos.service.ProfileConfig;
+import org.jumpmind.pos.service.ServiceConfig;
+import org.jumpmind.pos.service.strategy.RemoteOnlyStrategyTest.ITestService;
+import org.jumpmind.pos.service.strategy.RemoteOnlyStrategyTest.TestResponse;
+import org.jumpmind.pos.util.web.ConfiguredRestTemplate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+import static java.util.Collections.singletonList;
+
+public class RemoteOnlyStrategyConnectionPoolTest {
+
+    private StubServer server;
+    private StubServer.Profile testing;
+
+    private final RemoteOnlyStrategy handler = new RemoteOnlyStrategy();
+    private final ServiceConfig serviceConfig = new ServiceConfig();
+    private ProfileConfig profileConfig;
+
+    @Before
+    public void setup() throws Exception {
+        server = new StubServer(8);
+        testing = server.addProfile("testing");
+
+        profileConfig = testing.newProfileConfig();
+        profileConfig.setHttpTimeout(30);
+        profileConfig.setMaxConnections(4);
+        serviceConfig.getProfiles().put("testing", profileConfig);
+        handler.setServiceConfig(serviceConfig);
+        handler.setStatusMonitor(new RemoteProfileStatusMonitor());
+    }
+
+    @After
+    public void cleanup() {
+        handler.close();
+        server.close();
+    }
+
+    @Test
+    public void testConnectionReusedAcrossCalls() throws Throwable {
+        final int calls = 2000;
+        for (int i = 0; i < calls; i++) {
+            TestResponse response = (TestResponse) handler.invoke(context());
+            assertEquals("testing", response.getMessage());
+        }
+        assertEquals(calls, testing.requests.get());
+        assertEquals("Expected every call to use the same connection, but used " + testing.clientPorts.size(), 1, testing.clientPorts.size());
+    }
+
+    @Test
+    public void testConcurrentCallsBoundedByMaxConnections() throws Exception {
+        final int threads = 8;
+        final int callsPerThread = 250;
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(clients.submit(() -> {
+                    for (int j = 0; j < callsPerThread; j++) {
+                        try {
+                            assertNotNull(handler.invoke(context()));
+                        } catch (Throwable ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        assertEquals(threads * callsPerThread, testing.requests.get());
+        assertTrue("Expected at most 4 connections, but used " + testing.clientPorts.size(), testing.clientPorts.size() <= 4);
+    }
+
+    @Test
+    public void testRestTemplateSharedUntilSettingsChange() {
+        ProfileConfig config = serviceConfig.getProfileConfig("testing");
+        assertSame(acquireAndRelease(config), acquireAndRelease(serviceConfig.getProfileConfig("testing")));
+
+        ProfileConfig changed = serviceConfig.getProfileConfig("testing");
+        changed.setMaxConnections(8);
+        ConfiguredRestTemplate original = acquireAndRelease(config);
+        ConfiguredRestTemplate replacement = acquireAndRelease(changed);
+        assertNotSame(original, replacement);
+        assertEquals(8, replacement.getConnectionManager().getMaxTotal());
+        assertTrue(original.isClosed());
+        assertFalse(replacement.isClosed());
+    }
+
+    @Test
+    public void testReplacedRestTemplateClosedWhenItsCallsFinish() {
+        ProfileConfig config = serviceConfig.getProfileConfig("testing");
+        RemoteOnlyStrategy.ProfileRestTemplate inFlight = handler.acquireRestTemplate("testing", config);
+
+        ProfileConfig changed = serviceConfig.getProfileConfig("testing");
+        changed.setMaxConnections(8);
+        RemoteOnlyStrategy.ProfileRestTemplate replacement = handler.acquireRestTemplate("testing", changed);
+        assertNotSame(inFlight, replacement);
+        assertFalse(inFlight.template.isClosed());
+
+        inFlight.release();
+        assertTrue(inFlight.template.isClosed());
+
+        // a call that still asks for the old settings builds a new template rather than using the closed one
+        RemoteOnlyStrategy.ProfileRestTemplate reverted = handler.acquireRestTemplate("testing", config);
+        assertFalse(reverted.template.isClosed());
+        assertFalse(replacement.template.isClosed());
+        replacement.release();
+        assertTrue(replacement.template.isClosed());
+        reverted.release();
+        assertFalse(reverted.template.isClosed());
+    }
+
+    private ConfiguredRestTemplate acquireAndRelease(ProfileConfig config) {
+        RemoteOnlyStrategy.ProfileRestTemplate profileRestTemplate = handler.acquireRestTemplate("testing", config);
+        profileRestTemplate.release();
+        return profileRestTemplate.template;
+    }
+
+    private EndpointInvocationContext context() throws NoSuchMethodException {
+        return EndpointInvocationContext.builder()
+                .profileIds(singletonList("testing"))
+                .method(ITestService.class.getMethod("testGet"))
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.CircuitBreakerConfig;
+import org.jumpmind.pos.service.EndpointInvocationContext;
+import org.jumpmind.pos.service.ProfileConfig;
+import org.jumpmind.pos.service.ServiceConfig;
+import org.jumpmind.pos.service.strategy.CircuitBreaker.State;
+import org.jumpmind.pos.service.strategy.RemoteOnlyStrategyTest.ITestService;
+import org.jumpmind.pos.service.strategy.RemoteOnlyStrategyTest.TestResponse;
+import org.jumpmind.pos.util.model.ServiceException;
+import org.jumpmind.pos.util.status.Status;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class RemoteProfileRoutingTest {
+
+    private StubServer server;
+    private StubServer.Profile central;
+    private StubServer.Profile store;
+
+    private final RemoteOnlyStrategy handler = new RemoteOnlyStrategy();
+    private final RemoteProfileStatusMonitor statusMonitor = new RemoteProfileStatusMonitor();
+    private final ServiceConfig serviceConfig = new ServiceConfig();
+    private CircuitBreakerConfig circuitBreakerConfig;
+
+    @Before
+    public void setup() throws Exception {
+        server = new StubServer(8);
+        central = addProfile("central");
+        store = addProfile("store");
+
+        circuitBreakerConfig = serviceConfig.getCircuitBreaker();
+        circuitBreakerConfig.setMinimumNumberOfCalls(4);
+        circuitBreakerConfig.setFailureRateThreshold(50);
+        circuitBreakerConfig.setSlowCallDurationMs(100);
+        circuitBreakerConfig.setOpenDurationMs(200);
+        handler.setServiceConfig(serviceConfig);
+        handler.setStatusMonitor(statusMonitor);
+        statusMonitor.setServiceConfig(serviceConfig);
+    }
+
+    @After
+    public void cleanup() {
+        handler.close();
+        server.close();
+    }
+
+    @Test
+    public void testFailingProfileIsSkippedUntilItRecovers() throws Throwable {
+        central.failing.set(true);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("store", invoke("central", "store").getMessage());
+        }
+        // once the breaker opened, the store was tried first and the central server wasn't called anymore
+        assertEquals(4, central.requests.get());
+        assertEquals(State.OPEN, statusMonitor.getCircuitBreaker("central").getState());
+        assertEquals(Status.Offline, statusMonitor.getProfileStatus("central"));
+
+        central.failing.set(false);
+        Thread.sleep(250);
+        assertEquals(State.HALF_OPEN, statusMonitor.getCircuitBreaker("central").getState());
+        assertEquals("central", invoke("store", "central").getMessage());
+        assertEquals("central", invoke("store", "central").getMessage());
+        assertEquals(State.CLOSED, statusMonitor.getCircuitBreaker("central").getState());
+        assertEquals(6, central.requests.get());
+    }
+
+    @Test
+    public void testFailedTrialCallReopensTheBreaker() throws Throwable {
+        central.failing.set(true);
+        for (int i = 0; i < 4; i++) {
+            invoke("central", "store");
+        }
+        Thread.sleep(250);
+        assertEquals("store", invoke("central", "store").getMessage());
+        assertEquals(5, central.requests.get());
+        assertEquals(State.OPEN, statusMonitor.getCircuitBreaker("central").getState());
+    }
+
+    @Test
+    public void testTimedOutCallDoesNotTakeTheProfileOffline() throws Throwable {
+        serviceConfig.getProfiles().get("central").setHttpTimeout(1);
+        central.delayMs.set(1200);
+        assertEquals("store", invoke("central", "store").getMessage());
+        assertEquals(State.CLOSED, statusMonitor.getCircuitBreaker("central").getState());
+        assertEquals(Status.Error, statusMonitor.getProfileStatus("central"));
+    }
+
+    @Test
+    public void testFastestProfileIsTriedFirst() throws Throwable {
+        central.delayMs.set(60);
+        for (int i = 0; i < 20; i++) {
+            invoke("central", "store");
+        }
+        // the first call measured the central server, the second one the store
+        assertEquals(1, central.requests.get());
+        assertEquals(19, store.requests.get());
+        assertTrue(statusMonitor.getCircuitBreaker("central").getLatencyMillis() >= 60);
+        assertTrue(statusMonitor.getCircuitBreaker("store").getLatencyMillis() < statusMonitor.getCircuitBreaker("central").getLatencyMillis());
+    }
+
+    @Test
+    public void testConfiguredOrderWithoutLatencyAwareRouting() throws Throwable {
+        circuitBreakerConfig.setLatencyAwareRouting(false);
+        central.delayMs.set(20);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("central", invoke("central", "store").getMessage());
+        }
+        assertEquals(0, store.requests.get());
+    }
+
+    @Test
+    public void testSlowCallsOpenTheBreaker() throws Throwable {
+        circuitBreakerConfig.setLatencyAwareRouting(false);
+        central.delayMs.set(150);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("central", invoke("central", "store").getMessage());
+        }
+        assertEquals(State.OPEN, statusMonitor.getCircuitBreaker("central").getState());
+
+        long start = System.currentTimeMillis();
+        assertEquals("store", invoke("central", "store").getMessage());
+        assertTrue(System.currentTimeMillis() - start < 150);
+        assertEquals(4, central.requests.get());
+    }
+
+    @Test
+    public void testUnreachableProfileOpensRightAway() throws Throwable {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        ProfileConfig profileConfig = profileConfig("http://localhost:" + closedPort);
+        serviceConfig.getProfiles().put("gone", profileConfig);
+
+        assertEquals("store", invoke("gone", "store").getMessage());
+        assertEquals(State.OPEN, statusMonitor.getCircuitBreaker("gone").getState());
+        assertEquals(Status.Offline, statusMonitor.getProfileStatus("gone"));
+        assertEquals(Arrays.asList("store", "gone"), statusMonitor.orderByHealth(Arrays.asList("gone", "store")));
+    }
+
+    @Test
+    public void testAllProfilesOpenFailFast() throws Throwable {
+        central.failing.set(true);
+        store.failing.set(true);
+        for (int i = 0; i < 4; i++) {
+            try {
+                invoke("central", "store");
+                fail("Expected the call to fail");
+            } catch (ServiceException expected) {
+            }
+        }
+        long start = System.currentTimeMillis();
+        try {
+            invoke("central", "store");
+            fail("Expected the call to fail");
+        } catch (ServiceException ex) {
+            assertTrue(ex.getCause() instanceof RemoteProfileOfflineException);
+        }
+        assertTrue(System.currentTimeMillis() - start < 100);
+        assertEquals(4, central.requests.get());
+        assertEquals(4, store.requests.get());
+    }
+
+    private TestResponse invoke(String... profileIds) throws Throwable {
+        List<String> profiles = Arrays.asList(profileIds);
+        return (TestResponse) handler.invoke(EndpointInvocationContext.builder()
+                .profileIds(profiles)
+                .method(ITestService.class.getMethod("testGet"))
+                .build());
+    }
+
+    private ProfileConfig profileConfig(String url) {
+        ProfileConfig profileConfig = new ProfileConfig();
+        profileConfig.setHttpTimeout(5);
+        profileConfig.setApiToken("test");
+        profileConfig.setUrl(url);
+        return profileConfig;
+    }
+
+    private StubServer.Profile addProfile(String profileId) {
+        StubServer.Profile profile = server.addProfile(profileId);
+        serviceConfig.getProfiles().put(profileId, profile.newProfileConfig());
+        return profile;
+    }
+}
@@ -0,0 +1,104 @@
+package org.jumpmind.pos.service.strategy;
+
+import org.jumpmind.pos.service.ProfileConfig;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An http server that stands in for remote profiles.  Every profile answers {@link #ENDPOINT_PATH} under its own path with a
+ * {@link RemoteOnlyStrategyTest.TestResponse} that has the profile id as message, and can be made slow, occasionally slow or failing.
+ */
+class StubServer implements AutoCloseable {
+
+    static final String ENDPOINT_PATH = "/check/getmesomeofthat";
+    static final int SLOW_DELAY_MS = 250;
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String previousNodelay;
+
+    StubServer(int threads) throws IOException {
+        // the server writes headers and body separately, so without this every call waits on a delayed ack
+        previousNodelay = System.setProperty(NODELAY_PROPERTY, "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    Profile addProfile(String profileId) {
+        Profile profile = new Profile(profileId, "http://localhost:" + server.getAddress().getPort() + "/" + profileId);
+        byte[] body = ("{\"total\":3.14,\"message\":\"" + profileId + "\"}").getBytes(StandardCharsets.UTF_8);
+        byte[] error = "{\"message\":\"down for maintenance\"}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/" + profileId + ENDPOINT_PATH, exchange -> {
+            profile.clientPorts.add(exchange.getRemoteAddress().getPort());
+            int request = profile.requests.incrementAndGet();
+            int delay = profile.delayMs.get();
+            if (profile.slowEvery.get() > 0 && request % profile.slowEvery.get() == 0) {
+                profile.slowRequests.incrementAndGet();
+                delay = SLOW_DELAY_MS;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = profile.failing.get() ? error : body;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(profile.failing.get() ? 500 : 200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        return profile;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        if (previousNodelay != null) {
+            System.setProperty(NODELAY_PROPERTY, previousNodelay);
+        } else {
+            System.clearProperty(NODELAY_PROPERTY);
+        }
+    }
+
+    /**
+     * A remote profile served by the stub server
+     */
+    static class Profile {
+        final String profileId;
+        final String url;
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger slowRequests = new AtomicInteger();
+        final AtomicInteger delayMs = new AtomicInteger();
+        final AtomicInteger slowEvery = new AtomicInteger();
+        final AtomicBoolean failing = new AtomicBoolean();
+        final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+        Profile(String profileId, String url) {
+            this.profileId = profileId;
+            this.url = url;
+        }
+
+        ProfileConfig newProfileConfig() {
+            ProfileConfig profileConfig = new ProfileConfig();
+            profileConfig.setHttpTimeout(5);
+            profileConfig.setApiToken("test");
+            profileConfig.setUrl(url);
+            return profileConfig;
+        }
+    }
+}
@@ -2,8 +2,14 @@ package org.jumpmind.pos.util;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.joda.money.Money;
 import org.jumpmind.pos.util.web.MoneyDeserializer;
@@ -15,22 +21,75 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 public class DefaultObjectMapper {
-    
+
+    static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS";
+
+    private static final ObjectMapper SHARED = configure(new ThreadSafeDateFormat(DATE_FORMAT, TimeZone.getDefault()));
+
+    private static final ObjectWriter WRITER = SHARED.writer();
+
+    private static final ObjectWriter PRETTY_WRITER = SHARED.writerWithDefaultPrettyPrinter();
+
+    private static final Map<JavaType, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private static final Map<JavaType, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    /**
+     * @return a new mapper with the default configuration that the caller is free to change.  Use
+     * {@link #sharedObjectMapper()}, {@link #writer()} or {@link #readerFor(Class)} when the configuration does not
+     * need to change.
+     */
     public static ObjectMapper defaultObjectMapper() {
+        DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+        dateFormat.setTimeZone(TimeZone.getDefault());
+        return configure(dateFormat);
+    }
+
+    public static ObjectMapper build() {
+        return defaultObjectMapper();
+    }
+
+    /**
+     * @return the mapper shared by everything that uses the default configuration.  It is thread safe and keeps its
+     * serializer caches warm between calls, and it must not be reconfigured.
+     */
+    public static ObjectMapper sharedObjectMapper() {
+        return SHARED;
+    }
+
+    public static ObjectWriter writer() {
+        return WRITER;
+    }
+
+    public static ObjectWriter prettyWriter() {
+        return PRETTY_WRITER;
+    }
+
+    public static ObjectWriter writerFor(Class<?> type) {
+        return WRITERS.computeIfAbsent(SHARED.constructType(type), SHARED::writerFor);
+    }
+
+    public static ObjectReader readerFor(Class<?> type) {
+        return readerFor(SHARED.constructType(type));
+    }
+
+    public static ObjectReader readerFor(TypeReference<?> type) {
+        return readerFor(SHARED.getTypeFactory().constructType(type));
+    }
+
+    public static ObjectReader readerFor(JavaType type) {
+        return READERS.computeIfAbsent(type, SHARED::readerFor);
+    }
+
+    private static ObjectMapper configure(DateFormat dateFormat) {
         SimpleModule module = new SimpleModule();
         module.addSerializer(Money.class, new MoneySerializer());
         module.addDeserializer(Money.class, new MoneyDeserializer());
         ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
-        dateFormat.setTimeZone(TimeZone.getDefault());
         mapper.setDateFormat(dateFormat);
         mapper.setSerializationInclusion(Include.NON_NULL);
         mapper.registerModule(module);
         mapper.registerModule(new JavaTimeModule());
         return mapper;
     }
-
-    public static ObjectMapper build() {
-        return defaultObjectMapper();
-    }     
 }
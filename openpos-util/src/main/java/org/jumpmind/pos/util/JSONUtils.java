@@ -17,7 +17,7 @@ public class JSONUtils {
 
     public Map<String, String> toMap(String json) {
         try {
-            return getObjectMapper().readValue(json, Map.class);
+            return DefaultObjectMapper.readerFor(Map.class).readValue(json);
         } catch (Exception ex) {
             log.warn("Could not deserialize JSON string into a Map<String, String>: " + json, ex);
             return new HashMap<>();
@@ -26,7 +26,7 @@ public class JSONUtils {
 
     public <T> T toObject(String json, Class<T> clazz) {
         try {
-            return getObjectMapper().readValue(json, clazz);
+            return DefaultObjectMapper.readerFor(clazz).readValue(json);
         } catch (Exception ex) {
             log.warn(String.format("Could not deserialize JSON string:[%s] into an instance of %s", json, clazz.getName()), ex);
             return null;
@@ -39,7 +39,7 @@ public class JSONUtils {
 
     public String toJson(Object o, boolean prettyPrint) {
 
-        ObjectWriter writer = prettyPrint ? getObjectMapper().writerWithDefaultPrettyPrinter() : getObjectMapper().writer();
+        ObjectWriter writer = prettyPrint ? DefaultObjectMapper.prettyWriter() : DefaultObjectMapper.writer();
 
         if (o == null) {
             return "null";
@@ -53,7 +53,7 @@ public class JSONUtils {
     }
 
     public ObjectMapper getObjectMapper() {
-        return DefaultObjectMapper.defaultObjectMapper();
+        return DefaultObjectMapper.sharedObjectMapper();
     }
 
 }
@@ -0,0 +1,211 @@
+package org.jumpmind.pos.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Builds and applies <a href="https://tools.ietf.org/html/rfc6902">RFC 6902</a> JSON Patch documents.
+ * <p>
+ * {@link #diff(JsonNode, JsonNode)} only generates {@code add}, {@code remove} and {@code replace} operations.  Arrays
+ * are compared after trimming the elements they have in common at the front and the back, so appending, inserting or
+ * removing a few elements of a long list only produces operations for the elements that changed.
+ */
+public final class JsonPatch {
+
+    public static final String OP = "op";
+    public static final String PATH = "path";
+    public static final String VALUE = "value";
+
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+    public static final String REPLACE = "replace";
+
+    private JsonPatch() {
+    }
+
+    /**
+     * @return the operations that turn {@code source} into {@code target}.  The array is empty when they are equal.
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+        diff(patch, "", source, target);
+        return patch;
+    }
+
+    /**
+     * @return a copy of {@code document} with the patch applied.  {@code document} is not modified.
+     * @throws IllegalArgumentException if an operation is not supported or does not fit the document
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            result = applyOperation(result, operation);
+        }
+        return result;
+    }
+
+    private static void diff(ArrayNode patch, String path, JsonNode source, JsonNode target) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            diffObjects(patch, path, (ObjectNode) source, (ObjectNode) target);
+        } else if (source.isArray() && target.isArray()) {
+            diffArrays(patch, path, (ArrayNode) source, (ArrayNode) target);
+        } else {
+            addOperation(patch, REPLACE, path, target);
+        }
+    }
+
+    private static void diffObjects(ArrayNode patch, String path, ObjectNode source, ObjectNode target) {
+        Iterator<Map.Entry<String, JsonNode>> sourceFields = source.fields();
+        while (sourceFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = sourceFields.next();
+            String fieldPath = path + "/" + escape(field.getKey());
+            JsonNode targetValue = target.get(field.getKey());
+            if (targetValue == null) {
+                addOperation(patch, REMOVE, fieldPath, null);
+            } else {
+                diff(patch, fieldPath, field.getValue(), targetValue);
+            }
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> targetFields = target.fields();
+        while (targetFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = targetFields.next();
+            if (!source.has(field.getKey())) {
+                addOperation(patch, ADD, path + "/" + escape(field.getKey()), field.getValue());
+            }
+        }
+    }
+
+    private static void diffArrays(ArrayNode patch, String path, ArrayNode source, ArrayNode target) {
+        int sourceSize = source.size();
+        int targetSize = target.size();
+
+        int prefix = 0;
+        while (prefix < sourceSize && prefix < targetSize && source.get(prefix).equals(target.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < sourceSize - prefix && suffix < targetSize - prefix
+                && source.get(sourceSize - 1 - suffix).equals(target.get(targetSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        int sourceChanged = sourceSize - prefix - suffix;
+        int targetChanged = targetSize - prefix - suffix;
+        int common = Math.min(sourceChanged, targetChanged);
+
+        for (int i = 0; i < common; i++) {
+            diff(patch, path + "/" + (prefix + i), source.get(prefix + i), target.get(prefix + i));
+        }
+        for (int i = sourceChanged - 1; i >= common; i--) {
+            addOperation(patch, REMOVE, path + "/" + (prefix + i), null);
+        }
+        for (int i = common; i < targetChanged; i++) {
+            String index = suffix == 0 ? "-" : String.valueOf(prefix + i);
+            addOperation(patch, ADD, path + "/" + index, target.get(prefix + i));
+        }
+    }
+
+    private static void addOperation(ArrayNode patch, String op, String path, JsonNode value) {
+        ObjectNode operation = patch.addObject();
+        operation.put(OP, op);
+        operation.put(PATH, path);
+        if (value != null) {
+            operation.set(VALUE, value);
+        }
+    }
+
+    private static JsonNode applyOperation(JsonNode document, JsonNode operation) {
+        String op = operation.path(OP).asText();
+        String path = operation.path(PATH).asText();
+        JsonNode value = operation.get(VALUE);
+
+        if (!ADD.equals(op) && !REMOVE.equals(op) && !REPLACE.equals(op)) {
+            throw new IllegalArgumentException("Unsupported JSON patch operation: " + operation);
+        }
+        if (!REMOVE.equals(op) && value == null) {
+            throw new IllegalArgumentException("JSON patch operation is missing a value: " + operation);
+        }
+        if (path.isEmpty()) {
+            if (REMOVE.equals(op)) {
+                throw new IllegalArgumentException("Cannot remove the whole document: " + operation);
+            }
+            return value.deepCopy();
+        }
+
+        int lastSlash = path.lastIndexOf('/');
+        JsonNode parent = resolve(document, path.substring(0, lastSlash), operation);
+        String name = unescape(path.substring(lastSlash + 1));
+
+        if (parent.isObject()) {
+            ObjectNode object = (ObjectNode) parent;
+            if (!ADD.equals(op) && !object.has(name)) {
+                throw new IllegalArgumentException("JSON patch path does not exist: " + operation);
+            }
+            if (REMOVE.equals(op)) {
+                object.remove(name);
+            } else {
+                object.set(name, value.deepCopy());
+            }
+        } else if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            if (ADD.equals(op) && "-".equals(name)) {
+                array.add(value.deepCopy());
+            } else {
+                int index = toIndex(name, operation);
+                int limit = ADD.equals(op) ? array.size() : array.size() - 1;
+                if (index < 0 || index > limit) {
+                    throw new IllegalArgumentException("JSON patch index is out of bounds: " + operation);
+                }
+                if (ADD.equals(op)) {
+                    array.insert(index, value.deepCopy());
+                } else if (REMOVE.equals(op)) {
+                    array.remove(index);
+                } else {
+                    array.set(index, value.deepCopy());
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("JSON patch path does not point into an object or array: " + operation);
+        }
+        return document;
+    }
+
+    private static JsonNode resolve(JsonNode document, String pointer, JsonNode operation) {
+        JsonNode node = document;
+        if (!pointer.isEmpty()) {
+            for (String token : pointer.substring(1).split("/", -1)) {
+                String name = unescape(token);
+                node = node.isArray() ? node.get(toIndex(name, operation)) : node.get(name);
+                if (node == null) {
+                    throw new IllegalArgumentException("JSON patch path does not exist: " + operation);
+                }
+            }
+        }
+        return node;
+    }
+
+    private static int toIndex(String token, JsonNode operation) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("JSON patch array index is not a number: " + operation);
+        }
+    }
+
+    static String escape(String name) {
+        return name.indexOf('~') < 0 && name.indexOf('/') < 0 ? name : name.replace("~", "~0").replace("/", "~1");
+    }
+
+    static String unescape(String token) {
+        return token.indexOf('~') < 0 ? token : token.replace("~1", "/").replace("~0", "~");
+    }
+}
@@ -44,6 +44,14 @@ public class ReflectUtils {
         }
     }
 
+    /**
+     * Applies the same null handling and type coercion that {@link #setProperty(Field, Object, Object)} applies before
+     * setting a field.  Useful for callers that cache their own accessors for the field.
+     */
+    public static Object coerceValueForField(Field field, Object value) {
+        return coerceValue(field, messageNulls(field, value));
+    }
+
     private static Object coerceValue(Field field, Object value) {
         if (value == null) {
             return null;
@@ -0,0 +1,339 @@
+package org.jumpmind.pos.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.joda.money.BigMoney;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.springframework.objenesis.Objenesis;
+import org.springframework.objenesis.ObjenesisSerializer;
+
+import java.io.Externalizable;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes the same deep copy of a {@link Serializable} object graph that {@link SerializationUtils#clone(Serializable)}
+ * makes, without writing the graph to a byte stream and reading it back.  Objects are copied field by field through
+ * method handles that are looked up once per class.  Immutable values such as strings, numbers and enums are shared
+ * instead of copied.
+ * <p>
+ * Like serialization, the copier skips transient and static fields, does not run the constructors of serializable
+ * classes and fails with a {@link SerializationException} if the graph holds an object that is not serializable.
+ * Classes with their own <code>writeObject</code>, <code>readObject</code>, <code>writeReplace</code> or
+ * <code>readResolve</code> methods, and JDK classes other than dates and the common collections, are copied with
+ * {@link SerializationUtils#clone(Serializable)} so their custom serialization still applies.
+ */
+@Slf4j
+public final class SerializableCopier {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>();
+    private static final Map<Class<?>, Supplier<Collection<Object>>> COLLECTION_TYPES = new HashMap<>();
+    private static final Map<Class<?>, Supplier<Map<Object, Object>>> MAP_TYPES = new HashMap<>();
+
+    private static final Class<?> ARRAYS_LIST_TYPE = Arrays.asList().getClass();
+    private static final Class<?> UNMODIFIABLE_LIST_TYPE = Collections.unmodifiableList(new ArrayList<>()).getClass();
+    private static final Class<?> UNMODIFIABLE_SET_TYPE = Collections.unmodifiableSet(new HashSet<>()).getClass();
+    private static final Class<?> UNMODIFIABLE_MAP_TYPE = Collections.unmodifiableMap(new HashMap<>()).getClass();
+    private static final Class<?> SINGLETON_LIST_TYPE = Collections.singletonList(null).getClass();
+
+    private static final Map<Class<?>, ClassCopier> copiers = new ConcurrentHashMap<>();
+    private static final Objenesis objenesis = new ObjenesisSerializer();
+
+    static {
+        IMMUTABLE_TYPES.add(String.class);
+        IMMUTABLE_TYPES.add(Boolean.class);
+        IMMUTABLE_TYPES.add(Character.class);
+        IMMUTABLE_TYPES.add(Byte.class);
+        IMMUTABLE_TYPES.add(Short.class);
+        IMMUTABLE_TYPES.add(Integer.class);
+        IMMUTABLE_TYPES.add(Long.class);
+        IMMUTABLE_TYPES.add(Float.class);
+        IMMUTABLE_TYPES.add(Double.class);
+        IMMUTABLE_TYPES.add(BigDecimal.class);
+        IMMUTABLE_TYPES.add(BigInteger.class);
+        IMMUTABLE_TYPES.add(UUID.class);
+        IMMUTABLE_TYPES.add(Locale.class);
+        IMMUTABLE_TYPES.add(Class.class);
+        IMMUTABLE_TYPES.add(Money.class);
+        IMMUTABLE_TYPES.add(BigMoney.class);
+        IMMUTABLE_TYPES.add(CurrencyUnit.class);
+
+        COLLECTION_TYPES.put(ArrayList.class, ArrayList::new);
+        COLLECTION_TYPES.put(LinkedList.class, LinkedList::new);
+        COLLECTION_TYPES.put(HashSet.class, HashSet::new);
+        COLLECTION_TYPES.put(LinkedHashSet.class, LinkedHashSet::new);
+
+        MAP_TYPES.put(HashMap.class, HashMap::new);
+        MAP_TYPES.put(LinkedHashMap.class, LinkedHashMap::new);
+
+        IMMUTABLE_TYPES.add(Collections.emptyList().getClass());
+        IMMUTABLE_TYPES.add(Collections.emptySet().getClass());
+        IMMUTABLE_TYPES.add(Collections.emptyMap().getClass());
+    }
+
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    private SerializableCopier() {
+    }
+
+    /**
+     * @return a deep copy of value, or null if value is null
+     * @throws SerializationException if the graph holds an object that is not {@link Serializable}
+     */
+    public static <T extends Serializable> T copy(T value) {
+        return new SerializableCopier().copyValue(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T copyValue(T value) {
+        if (value == null) {
+            return null;
+        }
+
+        Class<?> type = value.getClass();
+        if (isImmutable(type)) {
+            return value;
+        }
+
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return (T) copy;
+        }
+
+        if (!(value instanceof Serializable)) {
+            throw new SerializationException(new NotSerializableException(type.getName()));
+        }
+
+        if (type.isArray()) {
+            copy = copyArray(value, type);
+        } else if (COLLECTION_TYPES.containsKey(type)) {
+            copy = copyCollection((Collection<Object>) value, COLLECTION_TYPES.get(type).get());
+        } else if (MAP_TYPES.containsKey(type)) {
+            copy = copyMap((Map<Object, Object>) value, MAP_TYPES.get(type).get());
+        } else if (type == ARRAYS_LIST_TYPE || type == UNMODIFIABLE_LIST_TYPE || type == SINGLETON_LIST_TYPE) {
+            copy = copyList((List<Object>) value, type);
+        } else if (type == UNMODIFIABLE_SET_TYPE) {
+            copy = Collections.unmodifiableSet(copyCollection((Collection<Object>) value, new LinkedHashSet<>()));
+            copies.put(value, copy);
+        } else if (type == UNMODIFIABLE_MAP_TYPE) {
+            copy = Collections.unmodifiableMap(copyMap((Map<Object, Object>) value, new LinkedHashMap<>()));
+            copies.put(value, copy);
+        } else if (type == Date.class) {
+            copy = new Date(((Date) value).getTime());
+            copies.put(value, copy);
+        } else if (type == TreeSet.class && ((TreeSet<?>) value).comparator() == null) {
+            copy = copyCollection((Collection<Object>) value, new TreeSet<>());
+        } else if (type == TreeMap.class && ((TreeMap<?, ?>) value).comparator() == null) {
+            copy = copyMap((Map<Object, Object>) value, new TreeMap<>());
+        } else {
+            ClassCopier copier = copiers.computeIfAbsent(type, ClassCopier::new);
+            if (copier.serializes()) {
+                copy = SerializationUtils.clone((Serializable) value);
+                copies.put(value, copy);
+            } else {
+                copy = copier.newInstance();
+                copies.put(value, copy);
+                copier.copyFields(this, value, copy);
+            }
+        }
+        return (T) copy;
+    }
+
+    private Object copyArray(Object value, Class<?> type) {
+        if (type.getComponentType().isPrimitive()) {
+            Object copy = Array.newInstance(type.getComponentType(), Array.getLength(value));
+            System.arraycopy(value, 0, copy, 0, Array.getLength(value));
+            copies.put(value, copy);
+            return copy;
+        }
+
+        Object[] array = (Object[]) value;
+        Object[] copy = (Object[]) Array.newInstance(type.getComponentType(), array.length);
+        copies.put(value, copy);
+        for (int i = 0; i < array.length; i++) {
+            copy[i] = copyValue(array[i]);
+        }
+        return copy;
+    }
+
+    private <C extends Collection<Object>> C copyCollection(Collection<Object> value, C copy) {
+        copies.put(value, copy);
+        for (Object element : value) {
+            copy.add(copyValue(element));
+        }
+        return copy;
+    }
+
+    /**
+     * Copies the list wrappers from {@link Arrays} and {@link Collections} that screens commonly hold.  Their elements
+     * are copied and wrapped again the same way.
+     */
+    private List<Object> copyList(List<Object> value, Class<?> type) {
+        List<Object> elements = copyCollection(value, new ArrayList<>(value.size()));
+        List<Object> copy;
+        if (type == ARRAYS_LIST_TYPE) {
+            copy = Arrays.asList(elements.toArray());
+        } else if (type == SINGLETON_LIST_TYPE) {
+            copy = Collections.singletonList(elements.get(0));
+        } else {
+            copy = Collections.unmodifiableList(elements);
+        }
+        copies.put(value, copy);
+        return copy;
+    }
+
+    private <M extends Map<Object, Object>> M copyMap(Map<Object, Object> value, M copy) {
+        copies.put(value, copy);
+        for (Map.Entry<Object, Object> entry : value.entrySet()) {
+            copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE_TYPES.contains(type) || type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())
+                || (type.getName().startsWith("java.time.") && Serializable.class.isAssignableFrom(type));
+    }
+
+    /**
+     * The serializable fields of one class and its serializable superclasses
+     */
+    static final class ClassCopier {
+        private final Class<?> type;
+        private final boolean serializes;
+        private final List<FieldCopier> fields = new ArrayList<>();
+
+        ClassCopier(Class<?> type) {
+            this.type = type;
+            this.serializes = isJdkType(type) || Externalizable.class.isAssignableFrom(type) || hasSerializationMethods(type);
+            if (!serializes) {
+                Class<?> currentClass = type;
+                while (currentClass != null && Serializable.class.isAssignableFrom(currentClass)) {
+                    for (Field field : currentClass.getDeclaredFields()) {
+                        int modifiers = field.getModifiers();
+                        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                            fields.add(new FieldCopier(field));
+                        }
+                    }
+                    currentClass = currentClass.getSuperclass();
+                }
+            }
+        }
+
+        boolean serializes() {
+            return serializes;
+        }
+
+        Object newInstance() {
+            return objenesis.newInstance(type);
+        }
+
+        void copyFields(SerializableCopier copier, Object source, Object target) {
+            for (FieldCopier field : fields) {
+                field.copy(copier, source, target);
+            }
+        }
+
+        private static boolean isJdkType(Class<?> type) {
+            String name = type.getName();
+            return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.") || name.startsWith("com.sun.");
+        }
+
+        private static boolean hasSerializationMethods(Class<?> type) {
+            Class<?> currentClass = type;
+            while (currentClass != null && currentClass != Object.class) {
+                for (Method method : currentClass.getDeclaredMethods()) {
+                    switch (method.getName()) {
+                        case "writeObject":
+                        case "readObject":
+                        case "readObjectNoData":
+                        case "writeReplace":
+                        case "readResolve":
+                            return true;
+                        default:
+                            break;
+                    }
+                }
+                currentClass = currentClass.getSuperclass();
+            }
+            return false;
+        }
+    }
+
+    static final class FieldCopier {
+        private final Field field;
+        private final boolean primitive;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        FieldCopier(Field field) {
+            this.field = field;
+            this.primitive = field.getType().isPrimitive();
+            field.setAccessible(true);
+            this.getter = unreflect(field, true);
+            this.setter = unreflect(field, false);
+        }
+
+        void copy(SerializableCopier copier, Object source, Object target) {
+            try {
+                Object value = getter != null ? getter.invokeExact(source) : field.get(source);
+                if (!primitive) {
+                    value = copier.copyValue(value);
+                }
+                if (setter != null) {
+                    setter.invokeExact(target, value);
+                } else {
+                    field.set(target, value);
+                }
+            } catch (SerializationException ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new SerializationException("Failed to copy field " + field, ex);
+            }
+        }
+
+        private static MethodHandle unreflect(Field field, boolean getter) {
+            try {
+                MethodHandle handle = getter ? MethodHandles.lookup().unreflectGetter(field) : MethodHandles.lookup().unreflectSetter(field);
+                return handle.asType(getter ? GETTER_TYPE : SETTER_TYPE);
+            } catch (Exception ex) {
+                log.debug("Could not create a {} handle for {}", getter ? "getter" : "setter", field, ex);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.jumpmind.pos.util;
+
+import java.text.FieldPosition;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * A {@link SimpleDateFormat} that can be shared between threads.  Each thread formats and parses with its own copy of
+ * the format.  A {@link #clone()} shares those copies until it is reconfigured, so Jackson can still apply
+ * {@code @JsonFormat(timezone = ...)} or {@code @JsonFormat(lenient = ...)} to a clone of the shared format.
+ */
+public class ThreadSafeDateFormat extends SimpleDateFormat {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile ThreadLocal<SimpleDateFormat> dateFormat;
+
+    public ThreadSafeDateFormat(String pattern, TimeZone timeZone) {
+        super(pattern);
+        super.setTimeZone(timeZone);
+        this.dateFormat = newDateFormat();
+    }
+
+    @Override
+    public StringBuffer format(Date date, StringBuffer toAppendTo, FieldPosition pos) {
+        return dateFormat.get().format(date, toAppendTo, pos);
+    }
+
+    @Override
+    public Date parse(String text, ParsePosition pos) {
+        return dateFormat.get().parse(text, pos);
+    }
+
+    @Override
+    public void setTimeZone(TimeZone zone) {
+        super.setTimeZone(zone);
+        reconfigure();
+    }
+
+    @Override
+    public void setLenient(boolean lenient) {
+        super.setLenient(lenient);
+        reconfigure();
+    }
+
+    @Override
+    public void applyPattern(String pattern) {
+        super.applyPattern(pattern);
+        reconfigure();
+    }
+
+    @Override
+    public void applyLocalizedPattern(String pattern) {
+        super.applyLocalizedPattern(pattern);
+        reconfigure();
+    }
+
+    /**
+     * The per thread formats are built again from this format's settings, so threads pick up the change on their next
+     * call.  The super constructor can call the setters before the formats are first built.
+     */
+    private void reconfigure() {
+        if (dateFormat != null) {
+            dateFormat = newDateFormat();
+        }
+    }
+
+    private ThreadLocal<SimpleDateFormat> newDateFormat() {
+        String pattern = toPattern();
+        TimeZone timeZone = getTimeZone();
+        boolean lenient = isLenient();
+        return ThreadLocal.withInitial(() -> {
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            format.setTimeZone(timeZone);
+            format.setLenient(lenient);
+            return format;
+        });
+    }
+}
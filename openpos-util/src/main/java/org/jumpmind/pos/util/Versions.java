@@ -45,7 +45,7 @@ public class Versions {
             for (InputStream is : resources) {
                 Properties properties = new Properties();
                 properties.load(is);
-                ObjectMapper m = DefaultObjectMapper.build();
+                ObjectMapper m = DefaultObjectMapper.sharedObjectMapper();
                 Version version = m.convertValue(properties, Version.class);
                 log.info(m.writerWithDefaultPrettyPrinter().writeValueAsString(version));
                 building.add(version);
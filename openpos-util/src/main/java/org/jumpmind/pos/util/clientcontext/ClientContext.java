@@ -101,4 +101,18 @@ public class ClientContext {
     public void clear() {
         propertiesMap.set(null);
     }
+
+    /**
+     * @return the properties of the current thread, so they can be {@link #restore(Map) restored} on another thread
+     */
+    public Map<String, String> capture() {
+        return propertiesMap.get();
+    }
+
+    /**
+     * Replaces the properties of the current thread with properties that were {@link #capture() captured} earlier
+     */
+    public void restore(Map<String, String> properties) {
+        propertiesMap.set(properties);
+    }
 }
@@ -6,7 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jumpmind.pos.util.DefaultObjectMapper;
 
 public class LocationData {
-    private transient static ObjectMapper objectMapper = DefaultObjectMapper.defaultObjectMapper();
+    private transient static ObjectMapper objectMapper = DefaultObjectMapper.sharedObjectMapper();
     private String type;
     private String postalCode;
     private String country;
@@ -2,9 +2,15 @@ package org.jumpmind.pos.util.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.TrustStrategy;
 import org.jumpmind.pos.util.DefaultObjectMapper;
 import org.jumpmind.pos.util.model.ErrorResult;
@@ -18,39 +24,91 @@ import org.springframework.web.client.RestTemplate;
 
 import javax.net.ssl.SSLContext;
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
-public class ConfiguredRestTemplate extends RestTemplate {
+public class ConfiguredRestTemplate extends RestTemplate implements Closeable {
 
     ObjectMapper mapper;
 
     private Map<String, String> additionalHeaders;
 
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient pooledHttpClient;
+
+    private volatile boolean closed;
+
+    private int idleTimeout;
+
     static BufferingClientHttpRequestFactory build(int timeout, int connectTimeout) {
-        HttpComponentsClientHttpRequestFactory httpRequestFactory = new HttpComponentsClientHttpRequestFactory();
+        CloseableHttpClient httpClient = null;
+        SSLConnectionSocketFactory csf = buildAcceptingSocketFactory();
+        if (csf != null) {
+            httpClient = HttpClients.custom()
+                    .setSSLSocketFactory(csf)
+                    .build();
+        }
+        return build(timeout, connectTimeout, httpClient);
+    }
+
+    static BufferingClientHttpRequestFactory build(int timeout, int connectTimeout, CloseableHttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory httpRequestFactory = new HttpComponentsClientHttpRequestFactory() {
+            @Override
+            protected void postProcessHttpRequest(HttpUriRequest request) {
+                RequestAbortHandle.register(request);
+            }
+        };
         httpRequestFactory.setConnectionRequestTimeout(timeout * 1000);
         httpRequestFactory.setConnectTimeout(connectTimeout * 1000);
         httpRequestFactory.setReadTimeout(timeout * 1000);
+        if (httpClient != null) {
+            httpRequestFactory.setHttpClient(httpClient);
+        }
+        return new BufferingClientHttpRequestFactory(httpRequestFactory);
+    }
 
+    static SSLConnectionSocketFactory buildAcceptingSocketFactory() {
         try {
             TrustStrategy acceptingTrustStrategy = (X509Certificate[] chain, String authType) -> true;
             SSLContext sslContext = org.apache.http.ssl.SSLContexts.custom()
                     .loadTrustMaterial(acceptingTrustStrategy)
                     .build();
-            SSLConnectionSocketFactory csf = new SSLConnectionSocketFactory(sslContext);
-            CloseableHttpClient httpClient = HttpClients.custom()
-                    .setSSLSocketFactory(csf)
-                    .build();
-            httpRequestFactory.setHttpClient(httpClient);
+            return new SSLConnectionSocketFactory(sslContext);
         } catch (Exception ex) {
             log.warn("Failed to configure accepting trust store", ex);
+            return null;
         }
-        return new BufferingClientHttpRequestFactory(httpRequestFactory);
+    }
+
+    static PoolingHttpClientConnectionManager buildConnectionManager(int maxConnections) {
+        SSLConnectionSocketFactory csf = buildAcceptingSocketFactory();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", csf != null ? csf : SSLConnectionSocketFactory.getSocketFactory())
+                        .build());
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    static CloseableHttpClient buildPooledHttpClient(PoolingHttpClientConnectionManager connectionManager, int keepAlive) {
+        long keepAliveMillis = keepAlive * 1000L;
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+                })
+                .build();
     }
 
     public ConfiguredRestTemplate() {
@@ -63,7 +121,35 @@ public class ConfiguredRestTemplate extends RestTemplate {
 
     public ConfiguredRestTemplate(int timeout, int connectTimeout) {
         super(build(timeout, connectTimeout));
-        this.mapper = DefaultObjectMapper.build();
+        init();
+    }
+
+    /**
+     * A template that keeps up to {@code maxConnections} connections open and reuses them between requests.
+     * Connections are kept alive for {@code keepAlive} seconds after a response unless the server asks for less, and
+     * {@link #evictIdleConnections()} closes connections that have been idle for {@code idleTimeout} seconds.  The
+     * template should be shared, and {@link #close()}d when it is no longer used.
+     */
+    public ConfiguredRestTemplate(int timeout, int connectTimeout, int maxConnections, int keepAlive, int idleTimeout) {
+        this(timeout, connectTimeout, buildConnectionManager(maxConnections), keepAlive, idleTimeout);
+    }
+
+    private ConfiguredRestTemplate(int timeout, int connectTimeout, PoolingHttpClientConnectionManager connectionManager, int keepAlive,
+                                   int idleTimeout) {
+        this(timeout, connectTimeout, connectionManager, buildPooledHttpClient(connectionManager, keepAlive), idleTimeout);
+    }
+
+    private ConfiguredRestTemplate(int timeout, int connectTimeout, PoolingHttpClientConnectionManager connectionManager,
+                                   CloseableHttpClient pooledHttpClient, int idleTimeout) {
+        super(build(timeout, connectTimeout, pooledHttpClient));
+        this.connectionManager = connectionManager;
+        this.pooledHttpClient = pooledHttpClient;
+        this.idleTimeout = idleTimeout;
+        init();
+    }
+
+    private void init() {
+        this.mapper = DefaultObjectMapper.sharedObjectMapper();
         getMessageConverters().add(0, new MappingJackson2HttpMessageConverter(this.mapper) {
 
             @Override
@@ -156,6 +242,42 @@ public class ConfiguredRestTemplate extends RestTemplate {
         return mapper;
     }
 
+    /**
+     * @return the connection pool of a pooled template, or null
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    public void evictIdleConnections() {
+        if (connectionManager != null) {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return whether the connection pool of a pooled template has been closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (pooledHttpClient != null) {
+            try {
+                pooledHttpClient.close();
+            } catch (IOException ex) {
+                log.warn("Failed to close the http client", ex);
+            }
+        }
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
+    }
+
 }
 
 class LoggingRequestInterceptor implements ClientHttpRequestInterceptor {
@@ -0,0 +1,61 @@
+package org.jumpmind.pos.util.web;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets another thread abort the HTTP requests that a {@link ConfiguredRestTemplate} makes during a {@link #call(Callable)}.
+ * An aborted request fails right away with a {@link org.springframework.web.client.ResourceAccessException}, and its
+ * connection is closed rather than returned to the pool.
+ */
+public class RequestAbortHandle {
+
+    private static final ThreadLocal<RequestAbortHandle> current = new ThreadLocal<>();
+
+    private final List<HttpUriRequest> requests = new ArrayList<>(1);
+    private boolean aborted;
+
+    public <T> T call(Callable<T> call) throws Exception {
+        RequestAbortHandle previous = current.get();
+        current.set(this);
+        try {
+            return call.call();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * Aborts the requests in progress, and any request that is made later in the call
+     */
+    public synchronized void abort() {
+        aborted = true;
+        requests.forEach(HttpUriRequest::abort);
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    static void register(HttpUriRequest request) {
+        RequestAbortHandle handle = current.get();
+        if (handle != null) {
+            handle.add(request);
+        }
+    }
+
+    private synchronized void add(HttpUriRequest request) {
+        if (aborted) {
+            request.abort();
+        } else {
+            requests.add(request);
+        }
+    }
+}
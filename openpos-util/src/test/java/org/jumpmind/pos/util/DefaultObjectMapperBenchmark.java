@@ -0,0 +1,55 @@
+package org.jumpmind.pos.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jumpmind.pos.util.DefaultObjectMapperTest.Sample;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times json round trips with a new object mapper per call and with the shared mapper.  It is left out of the test
+ * task, run it with the benchmark task.
+ */
+@Slf4j
+public class DefaultObjectMapperBenchmark {
+
+    @Test
+    public void testSerializationThroughput() throws Exception {
+        final int iterations = 5000;
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(DefaultObjectMapperTest.sample(i));
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            roundTripWithNewMapper(samples.get(i % samples.size()));
+            roundTripWithSharedMapper(samples.get(i % samples.size()));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            roundTripWithNewMapper(samples.get(i % samples.size()));
+        }
+        long newMapperNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            roundTripWithSharedMapper(samples.get(i % samples.size()));
+        }
+        long sharedMapperNanos = System.nanoTime() - start;
+
+        log.info("{} serialize/deserialize round trips: new mapper per call {} ms, shared mapper {} ms", iterations,
+                newMapperNanos / 1000000, sharedMapperNanos / 1000000);
+    }
+
+    private void roundTripWithNewMapper(Sample sample) throws Exception {
+        String json = DefaultObjectMapper.defaultObjectMapper().writeValueAsString(sample);
+        DefaultObjectMapper.defaultObjectMapper().readValue(json, Sample.class);
+    }
+
+    private void roundTripWithSharedMapper(Sample sample) throws Exception {
+        String json = DefaultObjectMapper.writer().writeValueAsString(sample);
+        DefaultObjectMapper.readerFor(Sample.class).readValue(json);
+    }
+}
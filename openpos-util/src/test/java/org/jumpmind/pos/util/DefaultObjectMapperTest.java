@@ -0,0 +1,136 @@
+package org.jumpmind.pos.util;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.OptBoolean;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DefaultObjectMapperTest {
+
+    @Data
+    public static class Sample {
+        String name;
+        Date created;
+        LocalDate businessDate;
+        Money total;
+        List<String> tags;
+        String notSet;
+    }
+
+    @Data
+    public static class FormattedSample {
+        @JsonFormat(timezone = "UTC")
+        Date utc;
+        @JsonFormat(lenient = OptBoolean.FALSE)
+        Date strict;
+        Date local;
+    }
+
+    @Test
+    public void testSharedMapperMatchesDefaultMapper() throws Exception {
+        Sample sample = sample(0);
+        String expected = DefaultObjectMapper.defaultObjectMapper().writeValueAsString(sample);
+
+        assertEquals(expected, DefaultObjectMapper.writer().writeValueAsString(sample));
+        assertEquals(expected, DefaultObjectMapper.sharedObjectMapper().writeValueAsString(sample));
+        assertFalse(expected.contains("notSet"));
+
+        Sample read = DefaultObjectMapper.readerFor(Sample.class).readValue(expected);
+        assertEquals(sample, read);
+        assertEquals(DefaultObjectMapper.defaultObjectMapper().readValue(expected, Sample.class), read);
+    }
+
+    @Test
+    public void testReadersAndWritersAreCached() {
+        assertSame(DefaultObjectMapper.readerFor(Sample.class), DefaultObjectMapper.readerFor(Sample.class));
+        assertSame(DefaultObjectMapper.writerFor(Sample.class), DefaultObjectMapper.writerFor(Sample.class));
+        assertSame(DefaultObjectMapper.readerFor(new TypeReference<Map<String, Object>>() {}),
+                DefaultObjectMapper.readerFor(new TypeReference<Map<String, Object>>() {}));
+        assertNotSame(DefaultObjectMapper.defaultObjectMapper(), DefaultObjectMapper.defaultObjectMapper());
+    }
+
+    @Test
+    public void testSharedDateFormatAcrossThreads() throws Exception {
+        ObjectMapper defaultMapper = DefaultObjectMapper.defaultObjectMapper();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        Sample sample = sample(thread * 100000L + i);
+                        String json = DefaultObjectMapper.writer().writeValueAsString(sample);
+                        Sample read = DefaultObjectMapper.readerFor(Sample.class).readValue(json);
+                        assertEquals(sample.getCreated(), read.getCreated());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(defaultMapper.getDateFormat().format(new Date(0)),
+                DefaultObjectMapper.sharedObjectMapper().getDateFormat().format(new Date(0)));
+    }
+
+    @Test
+    public void testJsonFormatOnDateProperties() throws Exception {
+        FormattedSample sample = new FormattedSample();
+        sample.setUtc(new Date(0));
+        sample.setStrict(new Date(0));
+        sample.setLocal(new Date(0));
+        String expected = DefaultObjectMapper.defaultObjectMapper().writeValueAsString(sample);
+
+        String json = DefaultObjectMapper.writer().writeValueAsString(sample);
+        assertEquals(expected, json);
+        assertTrue(json, json.contains("\"utc\":\"1970-01-01T00:00:00.000\""));
+        assertEquals(sample, DefaultObjectMapper.readerFor(FormattedSample.class).readValue(json));
+        assertEquals(sample, DefaultObjectMapper.sharedObjectMapper().readValue(json, FormattedSample.class));
+
+        // the shared format itself is still in the default time zone and lenient
+        java.text.DateFormat sharedFormat = DefaultObjectMapper.sharedObjectMapper().getDateFormat();
+        assertEquals(TimeZone.getDefault(), sharedFormat.getTimeZone());
+        assertTrue(sharedFormat.isLenient());
+        assertNotNull(DefaultObjectMapper.readerFor(FormattedSample.class).readValue("{\"local\":\"2020-13-45T00:00:00.000\"}"));
+        try {
+            DefaultObjectMapper.readerFor(FormattedSample.class).readValue("{\"strict\":\"2020-13-45T00:00:00.000\"}");
+            fail("Expected the strict date to be rejected");
+        } catch (JsonMappingException expectedException) {
+        }
+    }
+
+    static Sample sample(long i) {
+        Sample sample = new Sample();
+        sample.setName("sample " + i);
+        sample.setCreated(new Date(1600000000000L + i * 1000));
+        sample.setBusinessDate(LocalDate.of(2020, 1, 1).plusDays(i % 365));
+        sample.setTotal(Money.of(CurrencyUnit.USD, new BigDecimal("10.00").add(BigDecimal.valueOf(i % 100))));
+        List<String> tags = new ArrayList<>();
+        tags.add("a");
+        tags.add("b" + i);
+        sample.setTags(tags);
+        return sample;
+    }
+}
@@ -0,0 +1,166 @@
+package org.jumpmind.pos.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JsonPatchTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testEqualDocumentsHaveEmptyPatch() throws Exception {
+        JsonNode doc = json("{'a':1,'b':[1,2,{'c':'d'}]}");
+        assertEquals(0, JsonPatch.diff(doc, doc.deepCopy()).size());
+    }
+
+    @Test
+    public void testObjectFields() throws Exception {
+        JsonNode source = json("{'a':1,'b':'x','c':{'d':true}}");
+        JsonNode target = json("{'a':2,'c':{'d':true,'e':null},'f':[1]}");
+
+        ArrayNode patch = JsonPatch.diff(source, target);
+        assertEquals(json("[{'op':'replace','path':'/a','value':2}," +
+                "{'op':'remove','path':'/b'}," +
+                "{'op':'add','path':'/c/e','value':null}," +
+                "{'op':'add','path':'/f','value':[1]}]"), patch);
+        assertEquals(target, JsonPatch.apply(source, patch));
+        assertEquals(json("{'a':1,'b':'x','c':{'d':true}}"), source);
+    }
+
+    @Test
+    public void testArrayAppend() throws Exception {
+        JsonNode source = json("{'items':[{'id':1},{'id':2}]}");
+        JsonNode target = json("{'items':[{'id':1},{'id':2},{'id':3}]}");
+
+        ArrayNode patch = JsonPatch.diff(source, target);
+        assertEquals(json("[{'op':'add','path':'/items/-','value':{'id':3}}]"), patch);
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    public void testArrayInsertAndRemoveInTheMiddle() throws Exception {
+        JsonNode source = json("[1,2,3,4,5]");
+
+        JsonNode inserted = json("[1,2,9,3,4,5]");
+        ArrayNode patch = JsonPatch.diff(source, inserted);
+        assertEquals(json("[{'op':'add','path':'/2','value':9}]"), patch);
+        assertEquals(inserted, JsonPatch.apply(source, patch));
+
+        JsonNode removed = json("[1,4,5]");
+        patch = JsonPatch.diff(source, removed);
+        assertEquals(json("[{'op':'remove','path':'/2'},{'op':'remove','path':'/1'}]"), patch);
+        assertEquals(removed, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    public void testTypeChangeAndRoot() throws Exception {
+        assertEquals(json("[{'op':'replace','path':'/a','value':[1]}]"), JsonPatch.diff(json("{'a':{'b':1}}"), json("{'a':[1]}")));
+        assertEquals(json("[{'op':'replace','path':'','value':[1]}]"), JsonPatch.diff(json("{'a':1}"), json("[1]")));
+        assertEquals(json("[1]"), JsonPatch.apply(json("{'a':1}"), json("[{'op':'replace','path':'','value':[1]}]")));
+    }
+
+    @Test
+    public void testPointerEscaping() throws Exception {
+        JsonNode source = json("{'a/b':1,'c~d':2}");
+        JsonNode target = json("{'a/b':3,'c~d':4}");
+
+        ArrayNode patch = JsonPatch.diff(source, target);
+        assertEquals("/a~1b", patch.get(0).get("path").asText());
+        assertEquals("/c~0d", patch.get(1).get("path").asText());
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    public void testInvalidPatches() throws Exception {
+        JsonNode doc = json("{'a':[1,2]}");
+        assertInvalid(doc, "[{'op':'move','from':'/a','path':'/b'}]");
+        assertInvalid(doc, "[{'op':'replace','path':'/b','value':1}]");
+        assertInvalid(doc, "[{'op':'remove','path':'/a/2'}]");
+        assertInvalid(doc, "[{'op':'add','path':'/a/x','value':1}]");
+        assertInvalid(doc, "[{'op':'add','path':'/x/y','value':1}]");
+        assertInvalid(doc, "[{'op':'add','path':'/a/0'}]");
+    }
+
+    @Test
+    public void testRandomDocumentsRoundTrip() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            JsonNode source = randomNode(random, 0);
+            JsonNode target = mutate(random, source.deepCopy(), 0);
+            JsonNode patched = JsonPatch.apply(source, JsonPatch.diff(source, target));
+            assertEquals("Failed on " + source + " -> " + target, target, patched);
+        }
+    }
+
+    private JsonNode randomNode(Random random, int depth) {
+        int kind = depth > 3 ? random.nextInt(3) : random.nextInt(5);
+        switch (kind) {
+            case 0:
+                return mapper.getNodeFactory().numberNode(random.nextInt(5));
+            case 1:
+                return mapper.getNodeFactory().textNode("s" + random.nextInt(5));
+            case 2:
+                return mapper.getNodeFactory().booleanNode(random.nextBoolean());
+            case 3:
+                ArrayNode array = mapper.createArrayNode();
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    array.add(randomNode(random, depth + 1));
+                }
+                return array;
+            default:
+                ObjectNode object = mapper.createObjectNode();
+                for (int i = random.nextInt(5); i > 0; i--) {
+                    object.set("f" + random.nextInt(6), randomNode(random, depth + 1));
+                }
+                return object;
+        }
+    }
+
+    private JsonNode mutate(Random random, JsonNode node, int depth) {
+        if (random.nextInt(6) == 0) {
+            return randomNode(random, depth);
+        }
+        if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            int change = random.nextInt(4);
+            if (change == 0) {
+                array.insert(random.nextInt(array.size() + 1), randomNode(random, depth + 1));
+            } else if (change == 1 && array.size() > 0) {
+                array.remove(random.nextInt(array.size()));
+            } else if (array.size() > 0) {
+                int index = random.nextInt(array.size());
+                array.set(index, mutate(random, array.get(index), depth + 1));
+            }
+        } else if (node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            String name = "f" + random.nextInt(6);
+            if (random.nextBoolean() && object.has(name)) {
+                object.set(name, mutate(random, object.get(name), depth + 1));
+            } else if (random.nextBoolean()) {
+                object.remove(name);
+            } else {
+                object.set(name, randomNode(random, depth + 1));
+            }
+        }
+        return node;
+    }
+
+    private void assertInvalid(JsonNode doc, String patch) throws Exception {
+        try {
+            JsonPatch.apply(doc, json(patch));
+            fail("Expected " + patch + " to be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    private JsonNode json(String json) throws Exception {
+        return mapper.readTree(json.replace('\'', '"'));
+    }
+}
@@ -0,0 +1,205 @@
+package org.jumpmind.pos.util;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class SerializableCopierTest {
+
+    @Test
+    public void testCopyMatchesSerialization() {
+        Receipt receipt = receipt(5);
+        Receipt copy = SerializableCopier.copy(receipt);
+        Receipt cloned = SerializationUtils.clone(receipt);
+
+        assertNotSame(receipt, copy);
+        assertEquals(cloned, copy);
+        assertEquals(receipt, copy);
+        assertEquals(LinkedHashMap.class, copy.properties.getClass());
+        assertEquals(TreeMap.class, copy.totals.getClass());
+        assertEquals(Collections.unmodifiableList(new ArrayList<>()).getClass(), copy.tags.getClass());
+        Map<?, ?> nested = (Map<?, ?>) copy.properties.get("nested");
+        assertEquals(Arrays.asList("a", "b"), nested.get("key"));
+        assertEquals(Arrays.asList().getClass(), nested.get("key").getClass());
+        assertSame(Collections.emptyMap(), copy.properties.get("empty"));
+    }
+
+    @Test
+    public void testCopyIsDeep() {
+        Receipt receipt = receipt(2);
+        Receipt copy = SerializableCopier.copy(receipt);
+
+        receipt.lines.get(0).description = "Changed";
+        receipt.lines.get(1).quantities[0] = 9;
+        receipt.properties.put("added", "value");
+        ((Line) receipt.properties.get("firstLine")).description = "Changed again";
+        receipt.printed.setTime(0);
+
+        assertEquals("Line 0", copy.lines.get(0).description);
+        assertEquals(1, copy.lines.get(1).quantities[0]);
+        assertFalse(copy.properties.containsKey("added"));
+        assertEquals("Line 0", ((Line) copy.properties.get("firstLine")).description);
+        assertNotEquals(0, copy.printed.getTime());
+    }
+
+    @Test
+    public void testSharedReferencesAndCyclesAreKept() {
+        Receipt receipt = receipt(2);
+        receipt.lines.get(1).receipt = receipt;
+        Receipt copy = SerializableCopier.copy(receipt);
+
+        assertSame(copy.lines.get(0), copy.properties.get("firstLine"));
+        assertSame(copy, copy.lines.get(1).receipt);
+        assertSame(receipt.currency, copy.currency);
+        assertSame(receipt.status, copy.status);
+    }
+
+    @Test
+    public void testTransientFieldsAreNotCopied() {
+        Receipt receipt = receipt(1);
+        receipt.cache = "cached";
+        receipt.printedBy = new Clerk("Jane");
+        Receipt copy = SerializableCopier.copy(receipt);
+
+        assertNull(copy.cache);
+        assertNull(copy.lastCopied);
+        assertEquals("Jane", copy.printedBy.name);
+        assertEquals(0, copy.printedBy.constructorCalls);
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testNotSerializableValuesFail() {
+        Receipt receipt = receipt(1);
+        receipt.properties.put("bad", new Object());
+        SerializableCopier.copy(receipt);
+    }
+
+    @Test
+    public void testCustomSerializationIsUsed() {
+        Receipt receipt = receipt(1);
+        receipt.properties.put("custom", new Custom());
+        Receipt copy = SerializableCopier.copy(receipt);
+        assertTrue(((Custom) copy.properties.get("custom")).readResolved);
+    }
+
+    private Receipt receipt(int lineCount) {
+        Receipt receipt = new Receipt();
+        for (int i = 0; i < lineCount; i++) {
+            Line line = new Line();
+            line.description = "Line " + i;
+            line.price = Money.of(CurrencyUnit.USD, new BigDecimal("19.99").add(BigDecimal.valueOf(i)));
+            line.quantities = new int[] {1, i};
+            line.labels = new String[] {"Blue", "Large"};
+            receipt.lines.add(line);
+        }
+        receipt.properties.put("firstLine", receipt.lines.get(0));
+        receipt.properties.put("count", lineCount);
+        receipt.properties.put("nested", new HashMap<>(Collections.singletonMap("key", Arrays.asList("a", "b"))));
+        receipt.properties.put("empty", Collections.emptyMap());
+        receipt.totals.put("subtotal", new BigDecimal("100.00"));
+        receipt.totals.put("tax", new BigDecimal("7.00"));
+        return receipt;
+    }
+
+    enum Status {
+        OPEN, CLOSED
+    }
+
+    static class Receipt implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final List<Line> lines = new ArrayList<>();
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        TreeMap<String, BigDecimal> totals = new TreeMap<>();
+        List<String> tags = Collections.unmodifiableList(new ArrayList<>(Arrays.asList("sale")));
+        CurrencyUnit currency = CurrencyUnit.USD;
+        Status status = Status.OPEN;
+        Date printed = new Date();
+        Clerk printedBy;
+        transient String cache;
+        transient Date lastCopied = new Date();
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Receipt)) {
+                return false;
+            }
+            Receipt other = (Receipt) o;
+            return lines.equals(other.lines) && properties.keySet().equals(other.properties.keySet())
+                    && totals.equals(other.totals) && tags.equals(other.tags) && currency.equals(other.currency)
+                    && status == other.status && printed.equals(other.printed);
+        }
+
+        @Override
+        public int hashCode() {
+            return lines.hashCode();
+        }
+    }
+
+    static class Line implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String description;
+        Money price;
+        int[] quantities;
+        String[] labels;
+        Receipt receipt;
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Line)) {
+                return false;
+            }
+            Line other = (Line) o;
+            return description.equals(other.description) && price.equals(other.price)
+                    && Arrays.equals(quantities, other.quantities) && Arrays.equals(labels, other.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return description.hashCode();
+        }
+    }
+
+    static class Clerk implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String name;
+        int constructorCalls;
+
+        Clerk(String name) {
+            this.name = name;
+        }
+
+        Clerk() {
+            constructorCalls++;
+        }
+    }
+
+    static class Custom implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        boolean readResolved;
+
+        private Object readResolve() {
+            readResolved = true;
+            return this;
+        }
+    }
+}